@@ -75,9 +75,12 @@
 import org.infinity.resource.Profile;
 import org.infinity.resource.Resource;
 import org.infinity.resource.ResourceFactory;
+import org.infinity.resource.StructView;
 import org.infinity.resource.Viewable;
 import org.infinity.resource.ViewableContainer;
+import org.infinity.resource.bcs.ScriptCache;
 import org.infinity.resource.bcs.Signatures;
+import org.infinity.resource.graphics.BamV1Decoder;
 import org.infinity.resource.key.FileResourceEntry;
 import org.infinity.resource.key.ResourceEntry;
 import org.infinity.resource.key.ResourceTreeModel;
@@ -93,6 +96,7 @@
 import org.infinity.util.IdsMapCache;
 import org.infinity.util.IniMapCache;
 import org.infinity.util.Misc;
+import org.infinity.util.ResourceNameIndex;
 import org.infinity.util.StringTable;
 import org.infinity.util.Table2daCache;
 import org.infinity.util.io.DlcManager;
@@ -322,6 +326,7 @@ protected Void doInBackground() throws Exception
         advanceProgress("Initializing GUI...");
         BrowserMenuBar.getInstance().gameLoaded(Profile.Game.Unknown, null);
         CreMapCache.reset();
+        ResourceNameIndex.reset();
 //        if (BrowserMenuBar.getInstance().getMonitorFileChanges()) {
 //          FileWatcher.getInstance().start();
 //        }
@@ -653,6 +658,7 @@ public void openGame(Path keyFile)
       EffectFactory.init();
       Profile.openGame(keyFile, BrowserMenuBar.getInstance().getBookmarkName(keyFile));
       CreMapCache.reset();
+      ResourceNameIndex.reset();
       removeViewable();
       ResourceTreeModel treemodel = ResourceFactory.getResourceTreeModel();
       updateWindowTitle();
@@ -830,6 +836,7 @@ private static boolean reloadFactory(boolean refreshOnly)
       retVal = Profile.openGame(keyFile, BrowserMenuBar.getInstance().getBookmarkName(keyFile));
       if (retVal) {
         CreMapCache.reset();
+        ResourceNameIndex.reset();
       }
     }
     return retVal;
@@ -854,6 +861,9 @@ private static void clearCache(boolean refreshOnly)
     StringTable.resetAll();
     ProRef.clearCache();
     Signatures.clearCache();
+    ScriptCache.clearCache();
+    BamV1Decoder.flushFrameCache();
+    StructView.clearCache();
   }
 
   private static void showProgress(String msg, int max)
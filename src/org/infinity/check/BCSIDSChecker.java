@@ -45,8 +45,7 @@
 import org.infinity.resource.Resource;
 import org.infinity.resource.ResourceFactory;
 import org.infinity.resource.bcs.BcsResource;
-import org.infinity.resource.bcs.Decompiler;
-import org.infinity.resource.bcs.ScriptType;
+import org.infinity.resource.bcs.ScriptCache;
 import org.infinity.resource.key.ResourceEntry;
 import org.infinity.util.Debugging;
 import org.infinity.util.Misc;
@@ -262,12 +261,8 @@ public void mouseReleased(MouseEvent event)
 
   private void checkScript(BcsResource script)
   {
-    Decompiler decompiler = new Decompiler(script.getCode(), ScriptType.BCS, true);
-    decompiler.setGenerateComments(false);
-    decompiler.setGenerateResourcesUsed(true);
     try {
-      decompiler.decompile();
-      SortedMap<Integer, String> idsErrors = decompiler.getIdsErrors();
+      SortedMap<Integer, String> idsErrors = ScriptCache.decompile(script.getCode(), true, true).getIdsErrors();
       for (final Integer lineNr: idsErrors.keySet()) {
         String error = idsErrors.get(lineNr);
         if (error.indexOf("GTIMES.IDS") == -1 &&
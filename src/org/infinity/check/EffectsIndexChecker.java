@@ -31,6 +31,7 @@
 import org.infinity.resource.Resource;
 import org.infinity.resource.ResourceFactory;
 import org.infinity.resource.StructEntry;
+import org.infinity.resource.StructView;
 import org.infinity.resource.key.ResourceEntry;
 import org.infinity.resource.spl.SplResource;
 import org.infinity.search.ReferenceHitFrame;
@@ -203,6 +204,33 @@ private void search(ResourceEntry entry, AbstractStruct struct)
     }
   }
 
+  // Reads the effect indices without parsing the whole resource, returns false if not available
+  private boolean search(ResourceEntry entry, StructView view)
+  {
+    if (!view.hasField(SplResource.SPL_NUM_GLOBAL_EFFECTS) ||
+        (view.getSectionCount(AbstractAbility.class) > 0 && !view.hasSection(AbstractAbility.class))) {
+      return false;
+    }
+    int expectedEffectsIndex = view.getValue(SplResource.SPL_NUM_GLOBAL_EFFECTS);
+    for (int i = 0, count = view.getSectionCount(AbstractAbility.class); i < count; i++) {
+      StructView abil = view.getSection(AbstractAbility.class, i);
+      if (!abil.hasField(AbstractAbility.ABILITY_FIRST_EFFECT_INDEX) ||
+          !abil.hasField(AbstractAbility.ABILITY_NUM_EFFECTS)) {
+        return false;
+      }
+      if (abil.getValue(AbstractAbility.ABILITY_FIRST_EFFECT_INDEX) != expectedEffectsIndex) {
+        // mis-indexed effects are reported by the parsed resource
+        Resource resource = ResourceFactory.getResource(entry);
+        if (resource != null) {
+          search(entry, (AbstractStruct)resource);
+        }
+        break;
+      }
+      expectedEffectsIndex += abil.getValue(AbstractAbility.ABILITY_NUM_EFFECTS);
+    }
+    return true;
+  }
+
   private synchronized void advanceProgress(boolean finished)
   {
     if (progress != null) {
@@ -232,9 +260,12 @@ public Worker(ResourceEntry entry)
     public void run()
     {
       if (entry != null) {
-        Resource resource = ResourceFactory.getResource(entry);
-        if (resource != null) {
-          search(entry, (AbstractStruct)resource);
+        StructView view = StructView.open(entry);
+        if (view == null || !search(entry, view)) {
+          Resource resource = ResourceFactory.getResource(entry);
+          if (resource != null) {
+            search(entry, (AbstractStruct)resource);
+          }
         }
       }
       advanceProgress(false);
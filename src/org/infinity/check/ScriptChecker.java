@@ -48,8 +48,7 @@
 import org.infinity.resource.Resource;
 import org.infinity.resource.ResourceFactory;
 import org.infinity.resource.bcs.BcsResource;
-import org.infinity.resource.bcs.Compiler;
-import org.infinity.resource.bcs.Decompiler;
+import org.infinity.resource.bcs.ScriptCache;
 import org.infinity.resource.bcs.ScriptMessage;
 import org.infinity.resource.key.ResourceEntry;
 import org.infinity.util.Debugging;
@@ -374,12 +373,9 @@ public void run()
       if (entry != null) {
         try {
           BcsResource script = new BcsResource(entry);
-          Decompiler decompiler = new Decompiler(script.getCode(), true);
-          decompiler.setGenerateComments(false);
-          decompiler.setGenerateResourcesUsed(false);
-          String decompiled = decompiler.getSource();
-          Compiler compiler = new Compiler(decompiled);
-          compiler.compile();
+          String decompiled = ScriptCache.decompile(script.getCode(), true, false).getSource();
+          ScriptCache.CompileResult compiler =
+              ScriptCache.compile(decompiled, BrowserMenuBar.getInstance().showMoreCompileWarnings());
           SortedSet<ScriptMessage> errorMap = compiler.getErrors();
           for (final ScriptMessage sm: errorMap) {
             synchronized (errorTable) {
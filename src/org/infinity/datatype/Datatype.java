@@ -22,7 +22,7 @@ public abstract class Datatype implements StructEntry
   protected static final Dimension DIM_BROAD = new Dimension(650, 100);
   protected static final Dimension DIM_MEDIUM = new Dimension(450, 100);
 
-  private final List<UpdateListener> listeners = new ArrayList<UpdateListener>();
+  private List<UpdateListener> listeners;   // created on demand
   private final int length;
 
   private String name;
@@ -153,6 +153,9 @@ public ByteBuffer getDataBuffer()
   public void addUpdateListener(UpdateListener l)
   {
     if (l != null) {
+      if (listeners == null) {
+        listeners = new ArrayList<UpdateListener>(2);
+      }
       listeners.add(l);
     }
   }
@@ -163,11 +166,10 @@ public void addUpdateListener(UpdateListener l)
    */
   public UpdateListener[] getUpdateListeners()
   {
-    UpdateListener[] ar = new UpdateListener[listeners.size()];
-    for (int i = 0; i < listeners.size(); i++) {
-      ar[i] = listeners.get(i);
+    if (listeners == null) {
+      return new UpdateListener[0];
     }
-    return ar;
+    return listeners.toArray(new UpdateListener[listeners.size()]);
   }
 
   /**
@@ -177,7 +179,7 @@ public UpdateListener[] getUpdateListeners()
    */
   public void removeUpdateListener(UpdateListener l)
   {
-    if (l != null) {
+    if (l != null && listeners != null) {
       listeners.remove(l);
     }
   }
@@ -193,8 +195,10 @@ protected void fireValueUpdated(UpdateEvent event)
         event.getStructure().getViewer().storeCurrentSelection();
       }
       boolean retVal = false;
-      for (final UpdateListener l: listeners) {
-        retVal |= l.valueUpdated(event);
+      if (listeners != null) {
+        for (final UpdateListener l: listeners) {
+          retVal |= l.valueUpdated(event);
+        }
       }
       if (retVal) {
         event.getStructure().fireTableDataChanged();
@@ -13,6 +13,7 @@
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.regex.PatternSyntaxException;
 
 import javax.swing.JButton;
@@ -24,12 +25,15 @@
 import org.infinity.gui.StructViewer;
 import org.infinity.resource.AbstractStruct;
 import org.infinity.resource.StructEntry;
+import org.infinity.util.LruCache;
 import org.infinity.util.Misc;
 
 public class Flag extends Datatype implements Editable, IsNumeric, ActionListener
 {
   public static final String DESC_NONE = "No flags set";
 
+  private static final LruCache<FlagLabels, String[][]> labelCache = new LruCache<>(1024);
+
   protected String nodesc;
   protected String[] table, toolTable;
   private ActionListener container;
@@ -295,13 +299,30 @@ protected void setEmptyDesc(String desc)
   // Sets labels and optional tooltips for each flag
   protected void setFlagDescriptions(int size, String[] stable, int startOfs, char separator)
   {
-    table = new String[8*size];
-    toolTable = new String[8*size];
     if (stable != null) {
       for (int i = startOfs; i < stable.length; i++) {
         if (stable[i] == null) {
           stable[i] = "";
         }
+      }
+    }
+    // parsed tables are shared by all flags with identical descriptions
+    String[][] tables = labelCache.get(new FlagLabels(size, stable, startOfs, separator), Flag::parseDescriptions);
+    table = tables[0];
+    toolTable = tables[1];
+  }
+
+  // Returns labels and tooltips of the specified flag descriptions
+  private static String[][] parseDescriptions(FlagLabels key)
+  {
+    int size = key.size;
+    String[] stable = key.labels;
+    int startOfs = key.startOfs;
+    char separator = key.separator;
+    String[] table = new String[8*size];
+    String[] toolTable = new String[8*size];
+    if (stable != null) {
+      for (int i = startOfs; i < stable.length; i++) {
         String[] s = null;
         try {
           s = stable[i].split(String.valueOf(separator));
@@ -317,6 +338,42 @@ protected void setFlagDescriptions(int size, String[] stable, int startOfs, char
         }
       }
     }
+    return new String[][]{table, toolTable};
+  }
+
+//-------------------------- INNER CLASSES --------------------------
+
+  // Cache key for parsed flag descriptions
+  private static final class FlagLabels
+  {
+    private final int size, startOfs;
+    private final String[] labels;
+    private final char separator;
+
+    public FlagLabels(int size, String[] labels, int startOfs, char separator)
+    {
+      this.size = size;
+      this.labels = (labels != null) ? labels.clone() : null;
+      this.startOfs = startOfs;
+      this.separator = separator;
+    }
+
+    @Override
+    public int hashCode()
+    {
+      return ((Arrays.hashCode(labels) * 31 + size) * 31 + startOfs) * 31 + separator;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+      if (!(o instanceof FlagLabels)) {
+        return false;
+      }
+      FlagLabels other = (FlagLabels)o;
+      return size == other.size && startOfs == other.startOfs && separator == other.separator &&
+             Arrays.equals(labels, other.labels);
+    }
   }
 }
 
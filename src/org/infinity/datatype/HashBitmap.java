@@ -33,10 +33,9 @@
 
 public class HashBitmap extends Datatype implements Editable, IsNumeric
 {
-  private final LongIntegerHashMap<? extends Object> idsmap;
-  private final List<JButton> buttonList;
-  private final JButton bUpdate;
   private final boolean sortByName;
+  private LongIntegerHashMap<? extends Object> idsmap;
+  private List<JButton> buttonList;   // created on demand
   private TextListPanel list;
   private long value;
 
@@ -64,9 +63,6 @@ public HashBitmap(StructEntry parent, ByteBuffer buffer, int offset, int length,
     super(parent, offset, length, name);
     this.idsmap = normalizeHashMap(idsmap);
     this.sortByName = sortByName;
-    this.bUpdate = new JButton("Update value", Icons.getIcon(Icons.ICON_REFRESH_16));
-    this.buttonList = new ArrayList<>();
-    this.buttonList.add(bUpdate);
 
     read(buffer, offset);
   }
@@ -110,6 +106,8 @@ public void valueChanged(ListSelectionEvent e)
       list.setSelectedValue(selected, true);
     }
 
+    List<JButton> buttons = getButtonList();
+    JButton bUpdate = buttons.get(0);
     bUpdate.addActionListener(container);
     bUpdate.setActionCommand(StructViewer.UPDATE_VALUE);
 
@@ -119,7 +117,7 @@ public void valueChanged(ListSelectionEvent e)
 
     gbc.weightx = 1.0;
     gbc.weighty = 1.0;
-    gbc.gridheight = buttonList.size() + 2;
+    gbc.gridheight = buttons.size() + 2;
     gbc.fill = GridBagConstraints.BOTH;
     gbl.setConstraints(list, gbc);
     panel.add(list);
@@ -138,7 +136,7 @@ public void valueChanged(ListSelectionEvent e)
     ++gbc.gridy;
     gbc.fill = GridBagConstraints.HORIZONTAL;
     gbc.weighty = 0.0;
-    for (final JButton btn: buttonList) {
+    for (final JButton btn: buttons) {
       gbl.setConstraints(btn, gbc);
       panel.add(btn);
       ++gbc.gridy;
@@ -261,7 +259,7 @@ protected void addButtons(JButton... buttons)
     if (list == null) {
       for (final JButton button: buttons) {
         if (button != null) {
-          buttonList.add(button);
+          getButtonList().add(button);
         }
       }
     }
@@ -270,7 +268,7 @@ protected void addButtons(JButton... buttons)
   /** Returns the number of registered buttons. */
   public int getButtonCount()
   {
-    return buttonList.size();
+    return getButtonList().size();
   }
 
   /**
@@ -279,7 +277,7 @@ public int getButtonCount()
    */
   public JButton getButton(int index)
   {
-    return buttonList.get(index);
+    return getButtonList().get(index);
   }
 
   /** Returns the TextListPanel control used by this datatype. */
@@ -347,6 +345,22 @@ protected LongIntegerHashMap<? extends Object> getHashBitmap()
     return idsmap;
   }
 
+  /** Replaces the lookup table of the bitmap. Lookup tables may be shared by several instances. */
+  protected void setHashBitmap(LongIntegerHashMap<? extends Object> map)
+  {
+    idsmap = normalizeHashMap(map);
+  }
+
+  // Creates the "Update value" button and custom buttons on first use
+  private List<JButton> getButtonList()
+  {
+    if (buttonList == null) {
+      buttonList = new ArrayList<>();
+      buttonList.add(new JButton("Update value", Icons.getIcon(Icons.ICON_REFRESH_16)));
+    }
+    return buttonList;
+  }
+
   private static LongIntegerHashMap<? extends Object> normalizeHashMap(LongIntegerHashMap<? extends Object> map)
   {
     if (map != null && !map.isEmpty() && map.get(map.keys()[0]) instanceof String) {
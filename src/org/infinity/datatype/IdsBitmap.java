@@ -11,9 +11,20 @@
 import org.infinity.util.IdsMapCache;
 import org.infinity.util.IdsMapEntry;
 import org.infinity.util.LongIntegerHashMap;
+import org.infinity.util.LruCache;
 
 public class IdsBitmap extends HashBitmap
 {
+  // Lookup tables are shared by all bitmaps referring to the same IDS range
+  private static final LruCache<IdsRange, LongIntegerHashMap<IdsMapEntry>> rangeCache =
+      new LruCache<>(256, 500000L, (k, v) -> v.size());
+
+  /** Removes all shared lookup tables. Called whenever IDS maps are removed from the {@link IdsMapCache}. */
+  public static void clearCache()
+  {
+    rangeCache.clear();
+  }
+
   public IdsBitmap(ByteBuffer buffer, int offset, int length, String name, String resource)
   {
     this(null, buffer, offset, length, name, resource, 0, -1);
@@ -72,35 +83,76 @@ public void addIdsMapEntry(IdsMapEntry entry)
       @SuppressWarnings("unchecked")
       LongIntegerHashMap<IdsMapEntry>map = (LongIntegerHashMap<IdsMapEntry>)getHashBitmap();
       if (!map.containsKey(Long.valueOf(entry.getID()))) {
+        // copy on write: lookup table may be shared
+        map = new LongIntegerHashMap<IdsMapEntry>(map);
         map.put(Long.valueOf(entry.getID()), entry);
+        setHashBitmap(map);
       }
     }
   }
 
   private static LongIntegerHashMap<IdsMapEntry> createResourceList(String resource, int idsStart, int idsSize)
   {
-    LongIntegerHashMap<IdsMapEntry> retVal = null;
     IdsMap idsMap = IdsMapCache.get(resource);
     if (idsMap != null) {
-      retVal = new LongIntegerHashMap<IdsMapEntry>();
-      for (final IdsMapEntry e: idsMap.getAllValues()) {
-        long id = e.getID();
-        if (idsSize < 0 || (id >= idsStart && id < idsStart + idsSize)) {
-          id -= idsStart;
-          retVal.put(Long.valueOf(id), new IdsMapEntry(id, e.getSymbol()));
-        }
+      return rangeCache.get(new IdsRange(idsMap, resource, idsStart, idsSize), IdsBitmap::createRange);
+    }
+    return null;
+  }
+
+  private static LongIntegerHashMap<IdsMapEntry> createRange(IdsRange range)
+  {
+    LongIntegerHashMap<IdsMapEntry> retVal = new LongIntegerHashMap<IdsMapEntry>();
+    for (final IdsMapEntry e: range.idsMap.getAllValues()) {
+      long id = e.getID();
+      if (range.size < 0 || (id >= range.start && id < range.start + range.size)) {
+        id -= range.start;
+        retVal.put(Long.valueOf(id), new IdsMapEntry(id, e.getSymbol()));
       }
+    }
 
-      // Add a fitting symbol for "0" to IDS list if needed
-      if (!retVal.containsKey(0L)) {
-        if (resource.equalsIgnoreCase("EA.IDS")) {
-          retVal.put(0L, new IdsMapEntry(0L, "ANYONE"));
-        } else {
-          retVal.put(0L, new IdsMapEntry(0L, "NONE"));
-        }
+    // Add a fitting symbol for "0" to IDS list if needed
+    if (!retVal.containsKey(0L)) {
+      if (range.resource.equalsIgnoreCase("EA.IDS")) {
+        retVal.put(0L, new IdsMapEntry(0L, "ANYONE"));
+      } else {
+        retVal.put(0L, new IdsMapEntry(0L, "NONE"));
       }
     }
     return retVal;
   }
-}
 
+//-------------------------- INNER CLASSES --------------------------
+
+  // Identifies a range of entries of a specific IDS map instance
+  private static final class IdsRange
+  {
+    private final IdsMap idsMap;
+    private final String resource;
+    private final int start, size;
+
+    public IdsRange(IdsMap idsMap, String resource, int start, int size)
+    {
+      this.idsMap = idsMap;
+      this.resource = resource;
+      this.start = start;
+      this.size = size;
+    }
+
+    @Override
+    public int hashCode()
+    {
+      return (System.identityHashCode(idsMap) * 31 + start) * 31 + size;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+      if (!(o instanceof IdsRange)) {
+        return false;
+      }
+      IdsRange other = (IdsRange)o;
+      return idsMap == other.idsMap && start == other.start && size == other.size;
+    }
+  }
+}
@@ -36,13 +36,12 @@
 import org.infinity.resource.StructEntry;
 import org.infinity.resource.key.ResourceEntry;
 import org.infinity.util.Misc;
+import org.infinity.util.Pair;
 import org.infinity.util.io.StreamUtils;
 
 public class ResourceRef extends Datatype
     implements Editable, IsTextual, IsReference, ActionListener, ListSelectionListener
 {
-  private static final Comparator<Object> ignoreCaseExtComparator = new IgnoreCaseExtComparator();
-
   private static final String NONE = "None";
   private final String[] type;
   private final ByteBuffer buffer;
@@ -143,7 +142,7 @@ public JComponent edit(final ActionListener container)
       }
       addExtraEntries(values);
     }
-    Collections.sort(values, ignoreCaseExtComparator);
+    sortIgnoreCaseExt(values);
     list = new TextListPanel(values, false);
     list.addMouseListener(new MouseAdapter()
     {
@@ -392,6 +391,30 @@ void addExtraEntries(List<Object> entries)
   {
   }
 
+  /**
+   * Sorts the specified list by resource name, ignoring case and file extension. Sort keys are
+   * determined only once per list item.
+   */
+  private static void sortIgnoreCaseExt(List<Object> values)
+  {
+    List<Pair<Object>> keys = new ArrayList<Pair<Object>>(values.size());
+    for (final Object o: values) {
+      String s = o.toString();
+      int i = s.lastIndexOf('.') > 0 ? s.lastIndexOf('.') : s.length();
+      keys.add(new Pair<Object>(s.substring(0, i), o));
+    }
+    Collections.sort(keys, new Comparator<Pair<Object>>() {
+      @Override
+      public int compare(Pair<Object> p1, Pair<Object> p2)
+      {
+        return ((String)p1.getFirst()).compareToIgnoreCase((String)p2.getFirst());
+      }
+    });
+    for (int i = 0, size = keys.size(); i < size; i++) {
+      values.set(i, keys.get(i).getSecond());
+    }
+  }
+
 // -------------------------- INNER CLASSES --------------------------
 
   static final class ResourceRefEntry
@@ -424,28 +447,5 @@ public String toString()
       return name;
     }
   }
-
-  private static class IgnoreCaseExtComparator implements Comparator<Object>
-  {
-    @Override
-    public int compare(Object o1, Object o2)
-    {
-      if (o1 != null && o2 != null) {
-        String s1 = o1.toString();
-        String s2 = o2.toString();
-        int i1 = s1.lastIndexOf('.') > 0 ? s1.lastIndexOf('.') : s1.length();
-        int i2 = s2.lastIndexOf('.') > 0 ? s2.lastIndexOf('.') : s2.length();
-        return s1.substring(0, i1).compareToIgnoreCase(s2.substring(0, i2));
-      } else {
-        return 0;
-      }
-    }
-
-    @Override
-    public boolean equals(Object obj)
-    {
-      return obj.equals(this);
-    }
-  }
 }
 
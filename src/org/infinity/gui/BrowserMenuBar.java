@@ -184,6 +184,11 @@ public boolean showMoreCompileWarnings()
     return optionsMenu.optionMoreCompileWarnings.isSelected();
   }
 
+  public boolean checkScriptsWhileTyping()
+  {
+    return optionsMenu.optionCheckScriptsWhileTyping.isSelected();
+  }
+
   public boolean showStrrefs()
   {
     return optionsMenu.optionShowStrrefs.isSelected();
@@ -1605,6 +1610,7 @@ private static final class OptionsMenu extends JMenu implements ActionListener,
     private static final String OPTION_AUTOCHECK_BCS            = "AutocheckBCS";
     private static final String OPTION_CACHEOVERRIDE            = "CacheOverride";
     private static final String OPTION_MORECOMPILERWARNINGS     = "MoreCompilerWarnings";
+    private static final String OPTION_CHECKSCRIPTSWHILETYPING  = "CheckScriptsWhileTyping";
     private static final String OPTION_SHOWSTRREFS              = "ShowStrrefs";
     private static final String OPTION_DLG_SHOWICONS            = "DlgShowIcons";
     private static final String OPTION_SHOWHEXCOLORED           = "ShowHexColored";
@@ -1674,7 +1680,7 @@ private static final class OptionsMenu extends JMenu implements ActionListener,
                               optionSQLEnableSyntax, optionTLKEnableSyntax, optionWeiDUEnableSyntax,
                               optionGLSLEnableCodeFolding;
 
-    private JCheckBoxMenuItem optionAutocheckBCS, optionMoreCompileWarnings;
+    private JCheckBoxMenuItem optionAutocheckBCS, optionMoreCompileWarnings, optionCheckScriptsWhileTyping;
 
     private JCheckBoxMenuItem optionBackupOnSave, optionShowOffset, optionIgnoreOverride,
                               optionIgnoreReadErrors, optionCacheOverride, optionShowStrrefs,
@@ -1755,6 +1761,11 @@ private OptionsMenu()
       optionMoreCompileWarnings.setToolTipText("Script compiler will generate an additional set of less severe " +
                                                "warning messages with this option enabled.");
       compilerMenu.add(optionMoreCompileWarnings);
+      optionCheckScriptsWhileTyping =
+          new JCheckBoxMenuItem("Check scripts while typing", getPrefs().getBoolean(OPTION_CHECKSCRIPTSWHILETYPING, true));
+      optionCheckScriptsWhileTyping.setToolTipText("Script sources are compiled in the background while editing " +
+                                                   "and errors or warnings are marked in the editor.");
+      compilerMenu.add(optionCheckScriptsWhileTyping);
 
       // Options->Text Editor
       JMenu textMenu = new JMenu("Text Editor");
@@ -2350,6 +2361,7 @@ private void storePreferences()
       getPrefs().putBoolean(OPTION_AUTOCHECK_BCS, optionAutocheckBCS.isSelected());
       getPrefs().putBoolean(OPTION_CACHEOVERRIDE, optionCacheOverride.isSelected());
       getPrefs().putBoolean(OPTION_MORECOMPILERWARNINGS, optionMoreCompileWarnings.isSelected());
+      getPrefs().putBoolean(OPTION_CHECKSCRIPTSWHILETYPING, optionCheckScriptsWhileTyping.isSelected());
       getPrefs().putBoolean(OPTION_SHOWSTRREFS, optionShowStrrefs.isSelected());
       getPrefs().putBoolean(OPTION_DLG_SHOWICONS, optionDlgShowIcons.isSelected());
       getPrefs().putBoolean(OPTION_SHOWHEXCOLORED, optionShowHexColored.isSelected());
@@ -47,7 +47,7 @@
 import org.infinity.resource.ResourceFactory;
 import org.infinity.resource.key.ResourceEntry;
 import org.infinity.util.ObjectString;
-import org.infinity.util.SimpleListModel;
+import org.infinity.util.FilteredListModel;
 
 /**
  * Provides a modal dialog for selecting a single or multiple game resources of one or more
@@ -61,7 +61,7 @@ public class OpenResourceDialog extends JDialog
   private ResourceEntry[] result;
   private ObjectString[] extensions;
   private JList<ResourceEntry> list;
-  private SimpleListModel<ResourceEntry> listModel;
+  private FilteredListModel<ResourceEntry> listModel;
   private JComboBox<ObjectString> cbType;
   private JTextField tfSearch;
   private PlainDocument searchDoc;
@@ -309,10 +309,11 @@ private void updateGui()
   // Initializes resource list
   private void updateList(List<ResourceEntry> entries)
   {
-    listModel.clear();
+    listModel = new FilteredListModel<ResourceEntry>((entries != null) ? entries : new ArrayList<ResourceEntry>());
+    list.setPrototypeCellValue(listModel.getPrototypeValue());
+    list.setModel(listModel);
     if (entries != null) {
-      listModel.addAll(entries);
-      if (listModel.size() > 0) {
+      if (listModel.getSize() > 0) {
         list.setSelectedIndex(0);
         list.ensureIndexIsVisible(0);
         list.requestFocusInWindow();
@@ -382,21 +383,7 @@ private void updateListSelection(String search)
   // Returns index of closest list item match for given string
   private int getClosestIndex(String text)
   {
-    int retVal = -1;
-    if (text != null) {
-      text = text.toUpperCase(Locale.ENGLISH);
-      int selected = 0;
-      for (int size = listModel.getSize(); selected < size; selected++) {
-        String s = listModel.get(selected).toString().toUpperCase(Locale.ENGLISH);
-        if (s.startsWith(text)) {
-          break;
-        }
-      }
-      if (selected < listModel.getSize()) {
-        retVal = selected;
-      }
-    }
-    return retVal;
+    return (text != null) ? listModel.getFirstPrefixMatch(text) : -1;
   }
 
   // Synchronizes search field with list selections
@@ -408,7 +395,7 @@ private void updateSearchField()
       if (i > 0) {
         sb.append(' ');
       }
-      String s = listModel.get(indices[i]).toString();
+      String s = listModel.getElementAt(indices[i]).toString();
       sb.append(s);
     }
     tfSearch.setText(sb.toString());
@@ -479,7 +466,7 @@ public void actionPerformed(ActionEvent e)
     lSearch.setDisplayedMnemonic('S');
     lSearch.setLabelFor(tfSearch);
 
-    listModel = new SimpleListModel<ResourceEntry>();
+    listModel = new FilteredListModel<ResourceEntry>(new ArrayList<ResourceEntry>());
     list = new JList<>(listModel);
     list.setLayoutOrientation(JList.VERTICAL_WRAP);
     list.setVisibleRowCount(0);   // no limit
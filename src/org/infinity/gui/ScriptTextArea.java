@@ -26,6 +26,7 @@
 
 import javax.swing.Icon;
 import javax.swing.JPopupMenu;
+import javax.swing.Timer;
 import javax.swing.event.ChangeEvent;
 import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
@@ -57,6 +58,9 @@ private enum IconType {
   private static final Stroke STROKE_LINK  = new BasicStroke(0.75f, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND,
                                                              1.0f, new float[]{1.0f, 2.0f}, 0.0f);
 
+  // Delay before interactive tokens are updated after a document change, in milliseconds
+  private static final int TOKEN_UPDATE_DELAY = 150;
+
   private static final EnumMap<IconType, Icon> icons = new EnumMap<>(IconType.class);
   static {
     icons.put(IconType.INFORMATION, Icons.getIcon(Icons.ICON_INFORMATION_16));
@@ -70,6 +74,11 @@ private enum IconType {
   private final ReentrantLock tokenMapLock = new ReentrantLock();
   // Special popup menu for interactive resource references
   private final ScriptPopupMenu menu = new ScriptPopupMenu();
+  // Coalesces interactive token updates of consecutive document changes
+  private final Timer tokenUpdateTimer = new Timer(TOKEN_UPDATE_DELAY, e -> {
+    updateInteractiveTokens(false);
+    repaint();
+  });
 
   private Signatures triggers;
   private Signatures actions;
@@ -89,6 +98,7 @@ public ScriptTextArea()
 
     triggers = Signatures.getTriggers();
     actions = Signatures.getActions();
+    tokenUpdateTimer.setRepeats(false);
 
     if (triggers != null && actions != null) {
       getDocument().addDocumentListener(this);
@@ -204,15 +214,13 @@ public String getToolTipText(MouseEvent e)
   @Override
   public void insertUpdate(DocumentEvent e)
   {
-    updateInteractiveTokens(true);
-    repaint();
+    invalidateInteractiveTokens();
   }
 
   @Override
   public void removeUpdate(DocumentEvent e)
   {
-    updateInteractiveTokens(true);
-    repaint();
+    invalidateInteractiveTokens();
   }
 
   @Override
@@ -344,6 +352,19 @@ private void handlePopup(MouseEvent e)
     }
   }
 
+  // Discards all interactive tokens and schedules an update for the visible range of lines.
+  // Consecutive document changes are processed only once.
+  private void invalidateInteractiveTokens()
+  {
+    tokenMapLock.lock();
+    try {
+      tokenMap.clear();
+    } finally {
+      tokenMapLock.unlock();
+    }
+    tokenUpdateTimer.restart();
+  }
+
   // Processes a change in the document regarding interactive tokens
   private void updateInteractiveTokens(boolean reset)
   {
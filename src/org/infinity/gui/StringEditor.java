@@ -693,6 +693,16 @@ private void revertAll()
     JOptionPane.showMessageDialog(this, msg, "Revert string tables", JOptionPane.INFORMATION_MESSAGE);
   }
 
+  // Modified strings are patched into the original file if possible, a new file is written otherwise
+  private static boolean writeTable(StringTable.Type type, Path outFile, ProgressTracker pt)
+  {
+    if (outFile.equals(StringTable.getPath(type))) {
+      return StringTable.writeModified(type, pt);
+    } else {
+      return StringTable.write(type, outFile, pt);
+    }
+  }
+
   // Save changes to all available string tables
   private void save(boolean interactive)
   {
@@ -745,7 +755,7 @@ private void save(boolean interactive)
         pt = new ProgressTracker("Saving " + outFile.getFileName().toString(), null,
                                  "Error writing " + outFile.getFileName().toString());
       }
-      if (!StringTable.write(StringTable.Type.MALE, outFile, pt)) {
+      if (!writeTable(StringTable.Type.MALE, outFile, pt)) {
         return;
       }
 
@@ -755,7 +765,7 @@ private void save(boolean interactive)
           pt = new ProgressTracker("Saving " + outFile.getFileName().toString(), null,
                                    "Error writing " + outFile.getFileName().toString());
         }
-        if (!StringTable.write(StringTable.Type.FEMALE, outFile, pt)) {
+        if (!writeTable(StringTable.Type.FEMALE, outFile, pt)) {
           return;
         }
       }
@@ -8,7 +8,6 @@
 import java.awt.event.MouseListener;
 import java.util.Collections;
 import java.util.List;
-import java.util.Locale;
 
 import javax.swing.BorderFactory;
 import javax.swing.JList;
@@ -22,13 +21,21 @@
 import javax.swing.event.ListSelectionEvent;
 import javax.swing.event.ListSelectionListener;
 
+import org.infinity.util.FilteredListModel;
 import org.infinity.util.Misc;
-import org.infinity.util.SimpleListModel;
 
+/**
+ * A list of selectable values with a text field for narrowing down the list.
+ * Typing in the text field shows only values containing the entered text, with values starting with
+ * the text listed first.
+ */
 public final class TextListPanel extends JPanel implements DocumentListener, ListSelectionListener
 {
+  // Min. number of values for using a fixed cell size to avoid measuring all list cells
+  private static final int FIXED_CELL_SIZE_THRESHOLD = 1000;
+
   private boolean sortValues = true;
-  private final SimpleListModel<Object> listmodel = new SimpleListModel<Object>();
+  private FilteredListModel<Object> listmodel;
   private final JList<Object> list;
   private final JTextField tfield = new JTextField(10);
 
@@ -40,9 +47,8 @@ public TextListPanel(List<? extends Object> values)
   public TextListPanel(List<? extends Object> values, boolean sortValues)
   {
     this.sortValues = sortValues;
+    list = new JList<>();
     setValues(values);
-    list = new JList<>(listmodel);
-    list.setSelectedIndex(0);
     list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
     list.addListSelectionListener(this);
     list.setBorder(BorderFactory.createEmptyBorder(3, 3, 3, 3));
@@ -133,6 +139,7 @@ public Object getSelectedValue()
     return list.getSelectedValue();
   }
 
+  /** Selects the value at the specified index of the currently visible list. */
   public void setSelectedIndex(int index)
   {
     list.setSelectedIndex(index);
@@ -142,6 +149,9 @@ public void setSelectedIndex(int index)
 
   public void setSelectedValue(Object value, boolean shouldScroll)
   {
+    if (!listmodel.getFilter().isEmpty()) {
+      listmodel.setFilter(null);
+    }
     list.setSelectedValue(value, shouldScroll);
     tfield.setText(value.toString());
   }
@@ -151,33 +161,20 @@ public void setValues(List<? extends Object> values)
     if (this.sortValues) {
       Collections.sort(values, Misc.getIgnoreCaseComparator());
     }
-    listmodel.clear();
-    for (int i = 0; i < values.size(); i++) {
-      listmodel.addElement(values.get(i));
-    }
+    listmodel = new FilteredListModel<Object>(values);
+    list.setPrototypeCellValue((values.size() >= FIXED_CELL_SIZE_THRESHOLD) ? listmodel.getPrototypeValue() : null);
+    list.setModel(listmodel);
     tfield.setText("");
-    if (list != null) {
-      list.setSelectedIndex(0);
-      list.ensureIndexIsVisible(0);
-    }
+    list.setSelectedIndex(0);
+    list.ensureIndexIsVisible(0);
   }
 
+  // Narrows down the list to values containing the specified text and selects the closest match
   private void selectClosest(String text)
   {
-    int selected = 0;
-    if (!text.isEmpty()) {
-      text = text.toUpperCase(Locale.ENGLISH);
-      for (int size = listmodel.getSize(); selected < size; selected++) {
-        final String s = listmodel.getElementAt(selected).toString().toUpperCase(Locale.ENGLISH);
-        if (s.startsWith(text)) {
-          break;
-        }
-      }
-    }
-    if (selected < listmodel.getSize()) {
-      list.setSelectedIndex(selected);
-      list.ensureIndexIsVisible(selected);
+    if (listmodel.setFilter(text) && listmodel.getSize() > 0) {
+      list.setSelectedIndex(0);
+      list.ensureIndexIsVisible(0);
     }
   }
 }
-
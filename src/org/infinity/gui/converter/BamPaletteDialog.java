@@ -23,9 +23,6 @@
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Arrays;
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.LinkedHashMap;
 import java.util.List;
 
 import javax.swing.AbstractAction;
@@ -50,6 +47,7 @@
 import org.infinity.icon.Icons;
 import org.infinity.resource.Profile;
 import org.infinity.resource.graphics.ColorConvert;
+import org.infinity.resource.graphics.ColorHistogram;
 import org.infinity.resource.graphics.PseudoBamDecoder.PseudoBamFrameEntry;
 import org.infinity.util.io.StreamUtils;
 
@@ -69,7 +67,7 @@ class BamPaletteDialog extends JDialog
   private static final String FmtInfoHexRGB = "#%02X%02X%02X%02X";
 
   // Stores all available color values of the current BAM and their number of occurence for faster palette creation
-  private final LinkedHashMap<Integer, Integer> colorMap = new LinkedHashMap<Integer, Integer>();
+  private final ColorHistogram colorMap = new ColorHistogram();
   private final int[][] palettes = new int[2][];
 
   private ConvertToBam converter;
@@ -145,7 +143,7 @@ public int getRleIndex()
   }
 
   /** Returns the global color map for the current BAM structure. */
-  public HashMap<Integer, Integer> getColorMap()
+  public ColorHistogram getColorMap()
   {
     return colorMap;
   }
@@ -355,25 +353,16 @@ public void updateGeneratedPalette()
           System.arraycopy(palette, 0, palettes[TYPE_GENERATED], 0, palette.length);
         } else {
           // creating palette directly from color map without reduction
-          Iterator<Integer> iter = colorMap.keySet().iterator();
-          int idx = 0;
-          while (idx < 256 && iter.hasNext()) {
-            palettes[TYPE_GENERATED][idx] = iter.next();
-            idx++;
-          }
+          int[] colors = colorMap.getColors();
+          int idx = Math.min(256, colors.length);
+          System.arraycopy(colors, 0, palettes[TYPE_GENERATED], 0, idx);
           for (; idx < 256; idx++) {
             palettes[TYPE_GENERATED][idx] = 0xff000000;
           }
         }
       } else {
         // reducing color count to max. 256
-        int[] pixels = new int[colorMap.size()];
-        Iterator<Integer> iter = colorMap.keySet().iterator();
-        int idx = 0;
-        while (idx < pixels.length && iter.hasNext()) {
-          pixels[idx] = iter.next();
-          idx++;
-        }
+        int[] pixels = colorMap.getColors();
         ColorConvert.medianCut(pixels, 256, palettes[TYPE_GENERATED], false);
       }
 
@@ -48,6 +48,10 @@
 import java.util.Iterator;
 import java.util.List;
 import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
 
 import javax.imageio.ImageIO;
 import javax.imageio.ImageReader;
@@ -178,6 +182,8 @@ public class ConvertToBam extends ChildFrame
   private final List<List<PseudoBamFrameEntry>> listFrameEntries = new ArrayList<List<PseudoBamFrameEntry>>(2);
   // Frame entry used for preview in filter tab
   private final PseudoBamFrameEntry entryFilterPreview = new PseudoBamFrameEntry(null, 0, 0);
+  // Intermediate filter results of the quick preview frame in filter tab
+  private final FilterPreviewCache filterPreviewCache = new FilterPreviewCache();
   // The palette dialog instance for BAM v1 export
   private final BamPaletteDialog paletteDialog = new BamPaletteDialog(this);
 
@@ -846,6 +852,7 @@ protected Void doInBackground() {
         if (tpMain.getSelectedIndex() == TAB_FILTERS) {
           WindowBlocker.blockWindow(this, true);
           try {
+            filterPreviewCache.clear();
             filterUpdateControls();
             filterUpdatePreviewFrameIndex();
             filterSetPreviewFrame(filterGetPreviewFrameIndex(), true);
@@ -860,6 +867,7 @@ protected Void doInBackground() {
     } else if (event.getSource() == sFiltersPreviewFrame) {
       filterSetPreviewFrame(filterGetPreviewFrameIndex(), true);
     } else if (event.getSource() instanceof BamFilterBase) {
+      filterPreviewCache.invalidate((BamFilterBase)event.getSource());
       outputSetModified(true);
       filterSetPreviewFrame(filterGetPreviewFrameIndex(), false);
     }
@@ -3915,16 +3923,13 @@ private PseudoBamFrameEntry getFilteredBamFrame(int bamVersion, int frameIdx, bo
 
     // recreating filtered preview
     if (complete) {
-      updateFinalBamFrame(bamVersion, frameIdx);
-
-      // processing each filter that exists before the selected filter
-      PseudoBamFrameEntry entry = entryFilterPreview;
-      for (int i = 0; i < curFilterIdx; i++) {
-        if (modelFilters.get(i) instanceof BamFilterBase) {
-          BamFilterBase filter = modelFilters.get(i);
-          entry = filter.updatePreview(entry);
-        }
+      if (!filterPreviewCache.isValid(bamVersion, frameIdx)) {
+        updateFinalBamFrame(bamVersion, frameIdx);
+        filterPreviewCache.reset(bamVersion, frameIdx, entryFilterPreview);
       }
+
+      // processing each filter that exists before the selected filter (cached results are reused)
+      PseudoBamFrameEntry entry = filterPreviewCache.getResult(modelFilters, Math.max(0, curFilterIdx));
       entryFilterPreview.setFrame(entry.getFrame());
       entryFilterPreview.setCenterX(entry.getCenterX());
       entryFilterPreview.setCenterY(entry.getCenterY());
@@ -3952,58 +3957,94 @@ private void updateFilteredBamDecoder(int bamVersion, boolean force) throws Exce
     if (outputIsModified() || force) {
       outputSetModified(false);
 
-      updateFinalBamDecoder(bamVersion);
-
-      // Processing each filter sequentially
-      List<BamFilterBase> filters = createFilterList(false);
-      if (filters != null) {
-        for (int idx = 0; idx < filters.size(); idx++) {
-          if (filters.get(idx) instanceof BamFilterBaseColor) {
-            // processing color filter
-            try {
-              BamFilterBaseColor filter = (BamFilterBaseColor)filters.get(idx);
-              for (int frameIdx = 0; frameIdx < listFrameEntries.get(BAM_FINAL).size(); frameIdx++) {
-                BufferedImage image = filter.process(listFrameEntries.get(BAM_FINAL).get(frameIdx).getFrame());
-                if (image != null) {
-                  listFrameEntries.get(BAM_FINAL).get(frameIdx).setFrame(image);
-                  image = null;
-                } else {
-                  throw new Exception();
-                }
-              }
-            } catch (Exception e) {
-              e.printStackTrace();
-              throw e;
-            }
-          } else if (filters.get(idx) instanceof BamFilterBaseTransform) {
-            // processing transform filter
-            try {
-              BamFilterBaseTransform filter = (BamFilterBaseTransform)filters.get(idx);
-              for (int frameIdx = 0; frameIdx < listFrameEntries.get(BAM_FINAL).size(); frameIdx++) {
-                PseudoBamFrameEntry entry = filter.process(listFrameEntries.get(BAM_FINAL).get(frameIdx));
-                if (entry != null) {
-                  if (entry != listFrameEntries.get(BAM_FINAL).get(frameIdx)) {
-                    listFrameEntries.get(BAM_FINAL).set(frameIdx, entry);
-                  }
-                } else {
-                  throw new Exception();
-                }
-              }
-            } catch (Exception e) {
-              e.printStackTrace();
-              throw e;
-            }
-          } else if (filters.get(idx) instanceof BamFilterBaseOutput) {
-            // skipping output filter
+      // global stage: options and palette are determined once and shared by all frames
+      final FrameConverter frameConverter = updateFinalBamDecoder(bamVersion);
+      final List<BamFilterBase> filters = createFilterList(false);
+      for (int idx = 0; idx < filters.size(); idx++) {
+        BamFilterBase filter = filters.get(idx);
+        if (!(filter instanceof BamFilterBaseColor) &&
+            !(filter instanceof BamFilterBaseTransform) &&
+            !(filter instanceof BamFilterBaseOutput)) {
+          if (filter != null) {
+            System.err.println(String.format("Unrecognized filter at index %d: %s", idx, filter));
           } else {
-            if (filters.get(idx) != null) {
-              System.err.println(String.format("Unrecognized filter at index %d: %s", idx, filters.get(idx)));
-            } else {
-              System.err.println(String.format("null filter at index %d", idx));
-            }
+            System.err.println(String.format("null filter at index %d", idx));
           }
         }
       }
+
+      // per-frame stage: each frame is converted and passed through the whole filter chain independently
+      List<PseudoBamFrameEntry> dstListFrames = listFrameEntries.get(BAM_FINAL);
+      dstListFrames.clear();
+      dstListFrames.addAll(listFrameEntries.get(BAM_ORIGINAL));
+      try {
+        processFrames(dstListFrames, srcEntry -> applyFilters(filters, frameConverter.convert(srcEntry, true)));
+      } catch (Exception e) {
+        e.printStackTrace();
+        throw e;
+      }
+    }
+  }
+
+  // Applies all color and transform filters in the specified list to the given frame entry.
+  // Output filters are skipped.
+  private static PseudoBamFrameEntry applyFilters(List<BamFilterBase> filters, PseudoBamFrameEntry entry)
+      throws Exception
+  {
+    for (int idx = 0; idx < filters.size(); idx++) {
+      BamFilterBase filter = filters.get(idx);
+      if (filter instanceof BamFilterBaseColor) {
+        // processing color filter
+        BufferedImage image = ((BamFilterBaseColor)filter).process(entry.getFrame());
+        if (image != null) {
+          entry.setFrame(image);
+        } else {
+          throw new Exception(String.format("Filter \"%s\" failed", filter.getName()));
+        }
+      } else if (filter instanceof BamFilterBaseTransform) {
+        // processing transform filter
+        entry = ((BamFilterBaseTransform)filter).process(entry);
+        if (entry == null) {
+          throw new Exception(String.format("Filter \"%s\" failed", filter.getName()));
+        }
+      }
+    }
+    return entry;
+  }
+
+  // Replaces each entry of the specified frames list by the result of the given operation.
+  // Frames are processed in parallel. Operations must not modify the frame entries passed to them.
+  private static void processFrames(List<PseudoBamFrameEntry> frames, FrameOperation op) throws Exception
+  {
+    if (frames.size() < 2 || Runtime.getRuntime().availableProcessors() < 2) {
+      for (int i = 0; i < frames.size(); i++) {
+        frames.set(i, op.apply(frames.get(i)));
+      }
+      return;
+    }
+
+    ThreadPoolExecutor executor = Misc.createThreadPool();
+    try {
+      List<Future<PseudoBamFrameEntry>> results = new ArrayList<>(frames.size());
+      for (int i = 0; i < frames.size(); i++) {
+        final PseudoBamFrameEntry entry = frames.get(i);
+        Misc.isQueueReady(executor, true, -1);
+        results.add(executor.submit(() -> op.apply(entry)));
+      }
+
+      // results are stored in frame order
+      for (int i = 0; i < results.size(); i++) {
+        try {
+          frames.set(i, results.get(i).get());
+        } catch (ExecutionException e) {
+          if (e.getCause() instanceof Exception) {
+            throw (Exception)e.getCause();
+          }
+          throw e;
+        }
+      }
+    } finally {
+      executor.shutdownNow();
     }
   }
 
@@ -4050,16 +4091,13 @@ private List<BamFilterBaseOutput> createOutputFilterList()
     return retVal;
   }
 
-  // Creates a new BAM structure from the existing structure that is compatible with the
-  // specified target BAM version.
-  private void updateFinalBamDecoder(int bamVersion) throws Exception
+  // Prepares the final BAM structure for the specified target BAM version and returns a converter
+  // that creates compatible versions of the source frames.
+  private FrameConverter updateFinalBamDecoder(int bamVersion) throws Exception
   {
     listFrameEntries.get(BAM_FINAL).clear();
 
     if (bamVersion == VERSION_BAMV1 || bamVersion == VERSION_BAMV2) {
-      List<PseudoBamFrameEntry> srcListFrames = listFrameEntries.get(BAM_ORIGINAL);
-      List<PseudoBamFrameEntry> dstListFrames = listFrameEntries.get(BAM_FINAL);
-
       // copying global options
       String[] options = bamDecoder.getOptionNames();
       for (int i = 0; i < options.length; i++) {
@@ -4067,91 +4105,18 @@ private void updateFinalBamDecoder(int bamVersion) throws Exception
       }
 
       if (bamVersion == VERSION_BAMV1) {
-        // BAM v1: creating paletted version of each source frame
-        paletteDialog.updateGeneratedPalette();
-
-        final int Green = 0x0000ff00;
-        bamDecoderFinal.setOption(PseudoBamDecoder.OPTION_INT_RLEINDEX,
-                                  Integer.valueOf(paletteDialog.getRleIndex()));
         bamDecoderFinal.setOption(PseudoBamDecoder.OPTION_BOOL_COMPRESSED,
                                   Boolean.valueOf(isBamV1Compressed()));
-        // preparing palette
-        int[] palette = paletteDialog.getPalette(paletteDialog.getPaletteType());
-        int threshold = getUseAlpha() ? -1 : getTransparencyThreshold();
-        int transIndex = -1;
-        for (int i = 0; i < palette.length; i++) {
-          int c = palette[i] & 0x00ffffff;
-          if (transIndex < 0 && c == Green) {
-            transIndex = i;
-            break;
-          }
-        }
-        if (transIndex < 0) {
-          transIndex = 0;
-        }
-        HashMap<Integer, Byte> colorCache = new HashMap<Integer, Byte>(4096);
-        for (int i = 0; i < palette.length; i++) {
-          if (i != transIndex) {
-            colorCache.put(Integer.valueOf(palette[i]), Byte.valueOf((byte)i));
-          }
-        }
+      }
 
-        // processing frames
-        IndexColorModel cm = new IndexColorModel(8, 256, palette, 0, getUseAlpha(), transIndex, DataBuffer.TYPE_BYTE);
-        for (int i = 0; i < srcListFrames.size(); i++) {
-          PseudoBamFrameEntry srcEntry = srcListFrames.get(i);
-          BufferedImage srcImage = ColorConvert.toBufferedImage(srcEntry.getFrame(), true, true);
-          int[] srcBuf = ((DataBufferInt)srcImage.getRaster().getDataBuffer()).getData();
-          BufferedImage dstImage = new BufferedImage(srcEntry.getWidth(), srcEntry.getHeight(),
-                                                     BufferedImage.TYPE_BYTE_INDEXED, cm);
-          byte[] dstBuf = ((DataBufferByte)dstImage.getRaster().getDataBuffer()).getData();
-
-          for (int ofs = 0; ofs < srcBuf.length; ofs++) {
-            int c = srcBuf[ofs];
-            if (PseudoBamDecoder.isTransparentColor(c, threshold)) {
-              dstBuf[ofs] = (byte)transIndex;
-            } else {
-              Byte colIdx = colorCache.get(Integer.valueOf(c));
-              if (colIdx != null) {
-                int ci = colIdx.intValue() & 0xff;
-                if (ci >= transIndex) ci++;
-                dstBuf[ofs] = colIdx.byteValue();//(byte)ci;
-              } else {
-                byte color = (byte)ColorConvert.nearestColorRGB(srcBuf[ofs], palette, !getUseAlpha());
-                dstBuf[ofs] = color;//(byte)ci;
-                colorCache.put(Integer.valueOf(c), Byte.valueOf(color));
-              }
-            }
-          }
-          srcBuf = null;
-          srcImage.flush();
-          srcImage = null;
-          dstBuf = null;
-
-          PseudoBamFrameEntry dstEntry = new PseudoBamFrameEntry(dstImage, srcEntry.getCenterX(),
-                                                                 srcEntry.getCenterY());
-          // adding frame-specific options
-          options = srcEntry.getOptionNames();
-          for (int j = 0; j < options.length; j++) {
-            dstEntry.setOption(options[j], srcEntry.getOption(options[j]));
-          }
-          dstListFrames.add(dstEntry);
-        }
-      } else {
-        // BAM v2: create truecolored version of each frame
-        for (int i = 0; i < srcListFrames.size(); i++) {
-          PseudoBamFrameEntry srcEntry = srcListFrames.get(i);
-          BufferedImage dstImage = ColorConvert.toBufferedImage(srcEntry.getFrame(), true, true);
-          PseudoBamFrameEntry dstEntry = new PseudoBamFrameEntry(dstImage, srcEntry.getCenterX(),
-                                                                 srcEntry.getCenterY());
-          // adding frame-specific options
-          options = srcEntry.getOptionNames();
-          for (int j = 0; j < options.length; j++) {
-            dstEntry.setOption(options[j], srcEntry.getOption(options[j]));
-          }
-          dstListFrames.add(dstEntry);
-        }
+      FrameConverter frameConverter = createFrameConverter(bamVersion);
+
+      if (bamVersion == VERSION_BAMV1) {
+        bamDecoderFinal.setOption(PseudoBamDecoder.OPTION_INT_RLEINDEX,
+                                  Integer.valueOf(paletteDialog.getRleIndex()));
       }
+
+      return frameConverter;
     } else {
       throw new Exception("Unknown target BAM format");
     }
@@ -4162,73 +4127,22 @@ private void updateFinalBamFrame(int bamVersion, int frameIdx)
   {
     if (frameIdx >= 0 && frameIdx < listFrameEntries.get(BAM_ORIGINAL).size()) {
       PseudoBamFrameEntry srcEntry = listFrameEntries.get(BAM_ORIGINAL).get(frameIdx);
-      BufferedImage srcImage = srcEntry.getFrame();
-      BufferedImage dstImage = null;
-
-      if (bamVersion == VERSION_BAMV1) {
-        // BAM v1: creating paletted version of the source frame
-        paletteDialog.updateGeneratedPalette();
-        // preparing palette
-        final int Green = 0x0000ff00;
-        int[] palette = paletteDialog.getPalette(paletteDialog.getPaletteType());
-        int threshold = getUseAlpha() ? -1 : getTransparencyThreshold();
-        int transIndex = -1;
-        for (int i = 0; i < palette.length; i++) {
-          int c = palette[i] & 0x00ffffff;
-          if (transIndex < 0 && c == Green) {
-            transIndex = i;
-            break;
-          }
-        }
-        if (transIndex < 0) {
-          transIndex = 0;
-        }
-        HashMap<Integer, Byte> colorCache = new HashMap<Integer, Byte>(4096);
-        for (int i = 0; i < palette.length; i++) {
-          if (i != transIndex) {
-            colorCache.put(Integer.valueOf(palette[i]), Byte.valueOf((byte)i));
-          }
-        }
-        IndexColorModel cm = new IndexColorModel(8, 256, palette, 0, getUseAlpha(), transIndex, DataBuffer.TYPE_BYTE);
-
-        // converting frame
-        srcImage = ColorConvert.toBufferedImage(srcImage, true, true);
-        int[] srcBuf = ((DataBufferInt)srcImage.getRaster().getDataBuffer()).getData();
-        dstImage = new BufferedImage(srcImage.getWidth(), srcImage.getHeight(),
-                                     BufferedImage.TYPE_BYTE_INDEXED, cm);
-        byte[] dstBuf = ((DataBufferByte)dstImage.getRaster().getDataBuffer()).getData();
-
-        for (int ofs = 0; ofs < srcBuf.length; ofs++) {
-          int c = srcBuf[ofs];
-          if (PseudoBamDecoder.isTransparentColor(c, threshold)) {
-            dstBuf[ofs] = (byte)transIndex;
-          } else {
-            Byte colIdx = colorCache.get(Integer.valueOf(c));
-            if (colIdx != null) {
-              int ci = colIdx.intValue() & 0xff;
-              if (ci >= transIndex) ci++;
-              dstBuf[ofs] = colIdx.byteValue();
-            } else {
-              byte color = (byte)ColorConvert.nearestColorRGB(srcBuf[ofs], palette, !getUseAlpha());
-              dstBuf[ofs] = color;//(byte)ci;
-              colorCache.put(Integer.valueOf(c), Byte.valueOf(color));
-            }
-          }
-        }
-        srcBuf = null;
-        srcImage.flush();
-        srcImage = null;
-        dstBuf = null;
-
-      } else if (bamVersion == VERSION_BAMV2) {
-        // BAM v2: creating truecolored version of the source frame
-        dstImage = ColorConvert.toBufferedImage(srcImage, true, true);
-      }
+      PseudoBamFrameEntry dstEntry = createFrameConverter(bamVersion).convert(srcEntry, false);
+      entryFilterPreview.setFrame(dstEntry.getFrame());
+      entryFilterPreview.setCenterX(dstEntry.getCenterX());
+      entryFilterPreview.setCenterY(dstEntry.getCenterY());
+    }
+  }
 
-      entryFilterPreview.setFrame(dstImage);
-      entryFilterPreview.setCenterX(srcEntry.getCenterX());
-      entryFilterPreview.setCenterY(srcEntry.getCenterY());
-      dstImage = null;
+  // Creates a frame converter for the specified BAM version. Generates the global palette for BAM v1.
+  private FrameConverter createFrameConverter(int bamVersion)
+  {
+    if (bamVersion == VERSION_BAMV1) {
+      paletteDialog.updateGeneratedPalette();
+      int[] palette = paletteDialog.getPalette(paletteDialog.getPaletteType());
+      return new FrameConverter(palette, getUseAlpha(), getUseAlpha() ? -1 : getTransparencyThreshold());
+    } else {
+      return new FrameConverter(null, getUseAlpha(), -1);
     }
   }
 
@@ -4920,6 +4834,204 @@ public Component getListCellRendererComponent(JList<?> list, Object value, int i
   }
 
 
+  // Operation applied to a single BAM frame entry by the parallel frame processor
+  private interface FrameOperation
+  {
+    PseudoBamFrameEntry apply(PseudoBamFrameEntry entry) throws Exception;
+  }
+
+
+  // Creates versions of source frames that are compatible with the target BAM version.
+  // Palette data is determined once on creation, so instances can be safely shared by worker threads.
+  private static class FrameConverter
+  {
+    private static final int Green = 0x0000ff00;
+
+    private final int[] palette;
+    private final boolean useAlpha;
+    private final int threshold;
+    private final int transIndex;
+    private final IndexColorModel cm;
+    private final ConcurrentHashMap<Integer, Byte> colorCache;
+
+    /**
+     * @param palette The palette for BAM v1 frames. Specify {@code null} to create truecolored BAM v2 frames.
+     * @param useAlpha Whether the palette considers the alpha channel.
+     * @param threshold Transparency threshold for BAM v1 frames.
+     */
+    public FrameConverter(int[] palette, boolean useAlpha, int threshold)
+    {
+      this.palette = palette;
+      this.useAlpha = useAlpha;
+      this.threshold = threshold;
+      if (palette != null) {
+        int idx = -1;
+        for (int i = 0; i < palette.length; i++) {
+          int c = palette[i] & 0x00ffffff;
+          if (c == Green) {
+            idx = i;
+            break;
+          }
+        }
+        transIndex = Math.max(0, idx);
+        colorCache = new ConcurrentHashMap<>(4096);
+        for (int i = 0; i < palette.length; i++) {
+          if (i != transIndex) {
+            colorCache.put(Integer.valueOf(palette[i]), Byte.valueOf((byte)i));
+          }
+        }
+        cm = new IndexColorModel(8, 256, palette, 0, useAlpha, transIndex, DataBuffer.TYPE_BYTE);
+      } else {
+        transIndex = -1;
+        colorCache = null;
+        cm = null;
+      }
+    }
+
+    /**
+     * Returns a new frame entry with a converted copy of the source frame.
+     * The source frame entry is not modified.
+     */
+    public PseudoBamFrameEntry convert(PseudoBamFrameEntry srcEntry, boolean copyOptions)
+    {
+      PseudoBamFrameEntry dstEntry = new PseudoBamFrameEntry(convert(srcEntry.getFrame()),
+                                                             srcEntry.getCenterX(), srcEntry.getCenterY());
+      if (copyOptions) {
+        // adding frame-specific options
+        String[] options = srcEntry.getOptionNames();
+        for (int j = 0; j < options.length; j++) {
+          dstEntry.setOption(options[j], srcEntry.getOption(options[j]));
+        }
+      }
+      return dstEntry;
+    }
+
+    /** Returns a converted copy of the specified image. */
+    public BufferedImage convert(BufferedImage srcImage)
+    {
+      if (palette == null) {
+        // BAM v2: creating truecolored version of the frame
+        BufferedImage dstImage = ColorConvert.toBufferedImage(srcImage, true, true);
+        if (dstImage == srcImage) {
+          // filters may modify frames in place
+          dstImage = ColorConvert.cloneImage(srcImage);
+        }
+        return dstImage;
+      }
+
+      // BAM v1: creating paletted version of the frame
+      BufferedImage image = ColorConvert.toBufferedImage(srcImage, true, true);
+      int[] srcBuf = ((DataBufferInt)image.getRaster().getDataBuffer()).getData();
+      BufferedImage dstImage = new BufferedImage(image.getWidth(), image.getHeight(),
+                                                 BufferedImage.TYPE_BYTE_INDEXED, cm);
+      byte[] dstBuf = ((DataBufferByte)dstImage.getRaster().getDataBuffer()).getData();
+      for (int ofs = 0; ofs < srcBuf.length; ofs++) {
+        int c = srcBuf[ofs];
+        if (PseudoBamDecoder.isTransparentColor(c, threshold)) {
+          dstBuf[ofs] = (byte)transIndex;
+        } else {
+          Byte colIdx = colorCache.get(Integer.valueOf(c));
+          if (colIdx != null) {
+            dstBuf[ofs] = colIdx.byteValue();
+          } else {
+            byte color = (byte)ColorConvert.nearestColorRGB(c, palette, !useAlpha);
+            dstBuf[ofs] = color;
+            colorCache.put(Integer.valueOf(c), Byte.valueOf(color));
+          }
+        }
+      }
+      if (image != srcImage) {
+        image.flush();
+      }
+      return dstImage;
+    }
+  }
+
+
+  // Caches intermediate results of the filter chain for the quick preview frame.
+  // Results are invalidated individually, so that only filters with changed settings and their
+  // successors have to be processed again.
+  private static class FilterPreviewCache
+  {
+    // filter instances in the order they have been applied
+    private final List<BamFilterBase> filters = new ArrayList<>();
+    // results.get(i) contains the frame after applying filters.get(i)
+    private final List<PseudoBamFrameEntry> results = new ArrayList<>();
+    private PseudoBamFrameEntry source;
+    private int bamVersion = -1;
+    private int frameIndex = -1;
+
+    public FilterPreviewCache() {}
+
+    /** Returns whether cached results are available for the specified BAM version and frame. */
+    public boolean isValid(int bamVersion, int frameIndex)
+    {
+      return (source != null && this.bamVersion == bamVersion && this.frameIndex == frameIndex);
+    }
+
+    /** Discards all cached results and initializes the cache with a new unfiltered source frame. */
+    public void reset(int bamVersion, int frameIndex, PseudoBamFrameEntry entry)
+    {
+      clear();
+      this.bamVersion = bamVersion;
+      this.frameIndex = frameIndex;
+      this.source = new PseudoBamFrameEntry(entry.getFrame(), entry.getCenterX(), entry.getCenterY());
+    }
+
+    /** Discards all cached data. */
+    public void clear()
+    {
+      filters.clear();
+      results.clear();
+      source = null;
+      bamVersion = frameIndex = -1;
+    }
+
+    /** Discards the cached results of the specified filter and all subsequent filters. */
+    public void invalidate(BamFilterBase filter)
+    {
+      int idx = filters.indexOf(filter);
+      if (idx >= 0) {
+        truncate(idx);
+      }
+    }
+
+    /**
+     * Returns the frame resulting from applying the first {@code count} filters of the specified
+     * filter list to the source frame. Returned frame entries must not be modified.
+     */
+    public PseudoBamFrameEntry getResult(SimpleListModel<BamFilterBase> model, int count)
+    {
+      // discarding results that don't match the current filter order
+      int numValid = 0;
+      while (numValid < filters.size() && numValid < model.size() &&
+             filters.get(numValid) == model.get(numValid)) {
+        numValid++;
+      }
+      truncate(numValid);
+
+      count = Math.min(count, model.size());
+      for (int i = results.size(); i < count; i++) {
+        PseudoBamFrameEntry entry = (i > 0) ? results.get(i - 1) : source;
+        entry = new PseudoBamFrameEntry(ColorConvert.cloneImage(entry.getFrame()),
+                                        entry.getCenterX(), entry.getCenterY());
+        BamFilterBase filter = model.get(i);
+        filters.add(filter);
+        results.add(filter.updatePreview(entry));
+      }
+
+      return (count > 0) ? results.get(count - 1) : source;
+    }
+
+    private void truncate(int size)
+    {
+      while (filters.size() > size) {
+        filters.remove(filters.size() - 1);
+        results.remove(results.size() - 1);
+      }
+    }
+  }
+
   // Provides methods for importing or exporting BAM configuration data via INI file, such as
   // frame sources, center position data or cycle definitions
   private static class Exporter extends JDialog implements ActionListener
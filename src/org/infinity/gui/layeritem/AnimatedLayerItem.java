@@ -12,15 +12,9 @@
 import java.awt.Image;
 import java.awt.Point;
 import java.awt.Rectangle;
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
 import java.awt.image.BufferedImage;
-import java.beans.PropertyChangeEvent;
-import java.beans.PropertyChangeListener;
 
 import javax.swing.SwingConstants;
-import javax.swing.SwingWorker;
-import javax.swing.Timer;
 
 import org.infinity.gui.RenderCanvas;
 import org.infinity.resource.Viewable;
@@ -29,23 +23,24 @@
 
 /**
  * Represents a game resource structure visually as a bitmap animation.
+ * <p>
+ * Playback is driven by an {@link AnimationClock}, which can be shared by any number of layer items.
  */
-public class AnimatedLayerItem extends AbstractLayerItem
-    implements LayerItemListener, ActionListener, PropertyChangeListener
+public class AnimatedLayerItem extends AbstractLayerItem implements LayerItemListener
 {
   private static final Color TransparentColor = new Color(0, true);
 
   private final FrameInfo[] frameInfos = {new FrameInfo(), new FrameInfo()};
 
   private BasicAnimationProvider animation;
-  private boolean isAutoPlay;
-  private Timer timer;
+  private boolean isAutoPlay, isPlaying;
+  private int frameDelay;           // in ms
+  private AnimationClock clock;
   private Object interpolationType;
   private boolean forcedInterpolation;
   private double zoomFactor;
   private Rectangle frameBounds;    // Point(x,y) defines the point of origin for the animation graphics
   private RenderCanvas rcCanvas;    // Renders both the animation graphics and an optional frame
-  private SwingWorker<Void, Void> workerAnimate;
 
   /**
    * Initialize object with default settings.
@@ -130,6 +125,33 @@ public void setAnimation(BasicAnimationProvider anim)
     initAnimation(anim);
   }
 
+  /**
+   * Returns the animation clock which drives the playback of this layer item.
+   */
+  public AnimationClock getAnimationClock()
+  {
+    if (clock == null) {
+      clock = new AnimationClock();
+    }
+    return clock;
+  }
+
+  /**
+   * Assigns a new animation clock to this layer item. Playback state is preserved.
+   * @param clock The animation clock. Specify {@code null} to use a private clock instance.
+   */
+  public void setAnimationClock(AnimationClock clock)
+  {
+    if (clock != this.clock) {
+      boolean isPlaying = isPlaying();
+      pause();
+      this.clock = clock;
+      if (isPlaying) {
+        play();
+      }
+    }
+  }
+
   /**
    * Returns the currently defined frame rate for the animation. The returned value is only an
    * approximation of the frame rate defined in {@link #setFrameRate(double)}, as the timer
@@ -138,7 +160,7 @@ public void setAnimation(BasicAnimationProvider anim)
    */
   public double getFrameRate()
   {
-    double delay = (double)timer.getDelay();
+    double delay = (double)frameDelay;
     if (delay > 0.0) {
       return 1000.0 / delay;
     } else {
@@ -154,7 +176,12 @@ public void setFrameRate(double framesPerSecond)
   {
     if (framesPerSecond < 1.0) framesPerSecond = 1.0; else if (framesPerSecond > 60.0) framesPerSecond = 60.0;
     int delay = (int)(1000.0 / framesPerSecond);
-    timer.setDelay(delay);
+    if (delay != frameDelay) {
+      frameDelay = delay;
+      if (isPlaying()) {
+        getAnimationClock().frameRateChanged(this);
+      }
+    }
   }
 
   /**
@@ -261,7 +288,7 @@ public void setAutoPlay(boolean set)
    */
   public boolean isPlaying()
   {
-    return timer.isRunning();
+    return isPlaying;
   }
 
   /**
@@ -270,7 +297,8 @@ public boolean isPlaying()
   public void play()
   {
     if (!isPlaying()) {
-      timer.start();
+      isPlaying = true;
+      getAnimationClock().add(this);
     }
   }
 
@@ -280,7 +308,8 @@ public void play()
   public void pause()
   {
     if (isPlaying()) {
-      timer.stop();
+      isPlaying = false;
+      getAnimationClock().remove(this);
     }
   }
 
@@ -290,7 +319,7 @@ public void pause()
   public void stop()
   {
     if (isPlaying()) {
-      timer.stop();
+      pause();
       animation.resetFrame();
       updateDisplay(false);
     }
@@ -414,60 +443,46 @@ public void layerItemChanged(LayerItemEvent event)
 
 //--------------------- End Interface LayerItemListener ---------------------
 
-//--------------------- Begin Interface ActionListener ---------------------
 
   @Override
-  public void actionPerformed(ActionEvent event)
-  {
-    if (event.getSource() == timer) {
-      // advancing frame by one
-      if (!animation.advanceFrame()) {
-        if (animation.isLooping()) {
-          animation.resetFrame();
-        } else {
-          stop();
-          return;
-        }
-      }
-
-      // Important: making sure that only ONE instance is running at a time to avoid GUI freezes
-      if (workerAnimate == null) {
-        workerAnimate = new SwingWorker<Void, Void>() {
-          @Override
-          protected Void doInBackground() throws Exception {
-            updateFrame();
-            return null;
-          }
-        };
-        workerAnimate.addPropertyChangeListener(this);
-        workerAnimate.execute();
-      }
-    }
+  public void repaint()
+  {
+    updateCanvas();
+    super.repaint();
   }
 
-//--------------------- End Interface ActionListener ---------------------
-
-//--------------------- Begin Interface PropertyChangeListener ---------------------
-
-  @Override
-  public void propertyChange(PropertyChangeEvent event)
+  /**
+   * Advances the animation by one frame and draws it onto the canvas. Called by {@link AnimationClock}
+   * from a background thread.
+   * @return {@code false} if a non-looping animation has reached its end, {@code true} otherwise.
+   */
+  boolean renderNextFrame()
   {
-    if (event.getSource() == workerAnimate) {
-      if ("state".equals(event.getPropertyName()) &&
-          SwingWorker.StateValue.DONE == event.getNewValue()) {
-        // Important: making sure that only ONE instance is running at a time to avoid GUI freezes
-        workerAnimate = null;
+    if (!animation.advanceFrame()) {
+      if (animation.isLooping()) {
+        animation.resetFrame();
+      } else {
+        return false;
       }
     }
+    updateCanvas();
+    return true;
   }
 
-//--------------------- End Interface PropertyChangeListener ---------------------
+  /**
+   * Updates size and position of the component to match the current frame. Called by
+   * {@link AnimationClock} on the event dispatch thread.
+   */
+  void updateFrameBounds()
+  {
+    updateSize();
+    updatePosition();
+  }
 
-  @Override
-  public void repaint()
+  /** Returns the delay between two frames, in milliseconds. */
+  int getFrameDelay()
   {
-    updateCanvas();
-    super.repaint();
+    return frameDelay;
   }
 
   @Override
@@ -531,10 +546,7 @@ private void init()
     zoomFactor = 1.0;
     interpolationType = ViewerConstants.TYPE_NEAREST_NEIGHBOR;
     forcedInterpolation = false;
-
-    if (timer == null) {
-      timer = new Timer(1000 / 15, this);
-    }
+    frameDelay = 1000 / 15;
 
     if (rcCanvas == null) {
       rcCanvas = new RenderCanvas();
@@ -0,0 +1,404 @@
+// Near Infinity - An Infinity Engine Browser and Editor
+// Copyright (C) 2001 - 2005 Jon Olav Hauglid
+// See LICENSE.txt for license information
+
+package org.infinity.gui.layeritem;
+
+import java.awt.Container;
+import java.awt.Rectangle;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.ArrayList;
+import java.util.EventListener;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.swing.JComponent;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+
+/**
+ * Drives the animations of any number of {@link AnimatedLayerItem} instances by a single timer.
+ * <p>
+ * On each tick all registered items whose frame delay has elapsed are advanced by one frame, as long
+ * as they are visible on screen. Off-screen items are skipped until they scroll into view again.
+ * Frames of all items are rendered in a single background task, and the affected area of each
+ * parent container is repainted as a single region afterwards. Ticks occurring while the previous
+ * frame is still being rendered are dropped.
+ * <p>
+ * Statistics about achieved frame rate and rendering cost are updated once per second.
+ * Registered ChangeListeners are notified whenever new statistics are available.
+ * Registered FrameBoundsListeners are notified about items whose bounds changed by a new frame.
+ */
+public class AnimationClock implements ActionListener
+{
+  // Interval for collecting statistics (in ns)
+  private static final long STATS_INTERVAL = 1000000000L;
+
+  private final Map<AnimatedLayerItem, Entry> entries = new LinkedHashMap<AnimatedLayerItem, Entry>();
+  private final List<ChangeListener> listChangeListeners = new ArrayList<ChangeListener>();
+  private final List<FrameBoundsListener> listBoundsListeners = new ArrayList<FrameBoundsListener>();
+  private final Timer timer;
+
+  private SwingWorker<Void, Void> workerRender;
+  private long statsStart, statsTime;
+  private int statsFrames, statsItems, statsDropped;
+  private double framesPerSecond, tickTime, itemsPerFrame;
+  private int droppedTicks;
+
+  public AnimationClock()
+  {
+    timer = new Timer(1000 / 15, this);
+  }
+
+  /**
+   * Registers the specified layer item. Its animation is advanced in intervals defined by
+   * {@link AnimatedLayerItem#getFrameRate()}. Does nothing if the item has been registered already.
+   */
+  public synchronized void add(AnimatedLayerItem item)
+  {
+    if (item != null && !entries.containsKey(item)) {
+      Entry entry = new Entry(item);
+      entry.nextFrame = System.nanoTime() + entry.getInterval();
+      entries.put(item, entry);
+      updateTimer();
+    }
+  }
+
+  /** Removes the specified layer item from the clock. */
+  public synchronized void remove(AnimatedLayerItem item)
+  {
+    if (item != null && entries.remove(item) != null) {
+      updateTimer();
+    }
+  }
+
+  /** Adjusts the clock to a modified frame rate of the specified layer item. */
+  synchronized void frameRateChanged(AnimatedLayerItem item)
+  {
+    Entry entry = (item != null) ? entries.get(item) : null;
+    if (entry != null) {
+      entry.nextFrame = System.nanoTime() + entry.getInterval();
+      updateTimer();
+    }
+  }
+
+  /** Returns whether the specified layer item is currently registered. */
+  public synchronized boolean contains(AnimatedLayerItem item)
+  {
+    return (item != null) && entries.containsKey(item);
+  }
+
+  /** Returns the number of registered layer items. */
+  public synchronized int size()
+  {
+    return entries.size();
+  }
+
+  /** Removes all layer items and stops the clock. */
+  public synchronized void clear()
+  {
+    entries.clear();
+    updateTimer();
+  }
+
+  /** Returns whether the clock is currently running. */
+  public boolean isRunning()
+  {
+    return timer.isRunning();
+  }
+
+  /** Returns the number of frames per second rendered during the last statistics interval. */
+  public double getFramesPerSecond()
+  {
+    return framesPerSecond;
+  }
+
+  /** Returns the average time spent per frame during the last statistics interval, in milliseconds. */
+  public double getAverageTickTime()
+  {
+    return tickTime;
+  }
+
+  /** Returns the average number of animations rendered per frame during the last statistics interval. */
+  public double getAverageItemCount()
+  {
+    return itemsPerFrame;
+  }
+
+  /** Returns the number of ticks dropped during the last statistics interval. */
+  public int getDroppedTicks()
+  {
+    return droppedTicks;
+  }
+
+  /** Returns a short summary of the current statistics. */
+  public String getStatistics()
+  {
+    return String.format("%.1f fps, %.2f ms/frame, %.1f items/frame, %d dropped",
+                         getFramesPerSecond(), getAverageTickTime(), getAverageItemCount(),
+                         getDroppedTicks());
+  }
+
+  /** Adds a ChangeListener which is notified whenever updated statistics are available. */
+  public void addChangeListener(ChangeListener l)
+  {
+    if (l != null) {
+      if (listChangeListeners.indexOf(l) < 0) {
+        listChangeListeners.add(l);
+      }
+    }
+  }
+
+  /** Removes a ChangeListener from the clock. */
+  public void removeChangeListener(ChangeListener l)
+  {
+    if (l != null) {
+      listChangeListeners.remove(l);
+    }
+  }
+
+  /** Adds a FrameBoundsListener which is notified whenever new frames changed the bounds of layer items. */
+  public void addFrameBoundsListener(FrameBoundsListener l)
+  {
+    if (l != null) {
+      if (listBoundsListeners.indexOf(l) < 0) {
+        listBoundsListeners.add(l);
+      }
+    }
+  }
+
+  /** Removes a FrameBoundsListener from the clock. */
+  public void removeFrameBoundsListener(FrameBoundsListener l)
+  {
+    if (l != null) {
+      listBoundsListeners.remove(l);
+    }
+  }
+
+//--------------------- Begin Interface ActionListener ---------------------
+
+  @Override
+  public void actionPerformed(ActionEvent event)
+  {
+    if (event.getSource() == timer) {
+      long now = System.nanoTime();
+      updateStatistics(now);
+
+      // Important: making sure that only ONE instance is running at a time to avoid GUI freezes
+      if (workerRender != null) {
+        statsDropped++;
+        return;
+      }
+
+      final Entry[] frames = getDueEntries(now);
+      if (frames.length > 0) {
+        final long tickStart = now;
+        workerRender = new SwingWorker<Void, Void>() {
+          @Override
+          protected Void doInBackground() throws Exception
+          {
+            for (final Entry entry: frames) {
+              try {
+                entry.finished = !entry.item.renderNextFrame();
+              } catch (Exception e) {
+                e.printStackTrace();
+              }
+            }
+            return null;
+          }
+
+          @Override
+          protected void done()
+          {
+            workerRender = null;
+            repaintFrames(frames);
+            statsFrames++;
+            statsItems += frames.length;
+            statsTime += System.nanoTime() - tickStart;
+          }
+        };
+        workerRender.execute();
+      }
+    }
+  }
+
+//--------------------- End Interface ActionListener ---------------------
+
+  // Returns all entries that are due for the next frame and visible on screen
+  private synchronized Entry[] getDueEntries(long now)
+  {
+    List<Entry> list = new ArrayList<Entry>();
+    Map<Container, Rectangle> visibleRects = new IdentityHashMap<Container, Rectangle>();
+    long tolerance = timer.getDelay() * 500000L;    // half a tick
+    for (final Entry entry: entries.values()) {
+      if (entry.nextFrame - now <= tolerance && isOnScreen(entry.item, visibleRects)) {
+        entry.nextFrame += entry.getInterval();
+        if (entry.nextFrame - now <= 0L) {
+          // don't try to catch up with missed frames
+          entry.nextFrame = now + entry.getInterval();
+        }
+        list.add(entry);
+      }
+    }
+    return list.toArray(new Entry[list.size()]);
+  }
+
+  // Updates bounds of the specified items and repaints them as a single region per parent container
+  private void repaintFrames(Entry[] frames)
+  {
+    Map<Container, Rectangle> dirtyRects = new IdentityHashMap<Container, Rectangle>();
+    List<AnimatedLayerItem> resized = new ArrayList<AnimatedLayerItem>();
+    for (final Entry entry: frames) {
+      AnimatedLayerItem item = entry.item;
+      Rectangle r = item.getBounds();
+      item.updateFrameBounds();
+      Rectangle bounds = item.getBounds();
+      if (!bounds.equals(r)) {
+        resized.add(item);
+      }
+      r.add(bounds);
+      Container parent = item.getParent();
+      if (parent != null) {
+        Rectangle dirty = dirtyRects.get(parent);
+        if (dirty != null) {
+          dirty.add(r);
+        } else {
+          dirtyRects.put(parent, r);
+        }
+      }
+      if (entry.finished) {
+        item.stop();
+      }
+    }
+
+    for (final Map.Entry<Container, Rectangle> e: dirtyRects.entrySet()) {
+      Rectangle r = e.getValue();
+      e.getKey().repaint(r.x, r.y, r.width, r.height);
+    }
+
+    if (!resized.isEmpty()) {
+      fireFrameBoundsListener(resized);
+    }
+  }
+
+  // Starts, stops or adjusts the timer to match the fastest registered animation
+  private void updateTimer()
+  {
+    if (entries.isEmpty()) {
+      if (timer.isRunning()) {
+        timer.stop();
+        resetStatistics();
+      }
+    } else {
+      int delay = Integer.MAX_VALUE;
+      for (final AnimatedLayerItem item: entries.keySet()) {
+        delay = Math.min(delay, item.getFrameDelay());
+      }
+      if (delay != timer.getDelay()) {
+        timer.setDelay(delay);
+        timer.setInitialDelay(delay);
+      }
+      if (!timer.isRunning()) {
+        statsStart = System.nanoTime();
+        timer.start();
+      }
+    }
+  }
+
+  // Calculates new statistics if the current statistics interval has elapsed
+  private void updateStatistics(long now)
+  {
+    long elapsed = now - statsStart;
+    if (elapsed >= STATS_INTERVAL) {
+      framesPerSecond = statsFrames * 1000000000.0 / elapsed;
+      tickTime = (statsFrames > 0) ? statsTime / 1000000.0 / statsFrames : 0.0;
+      itemsPerFrame = (statsFrames > 0) ? (double)statsItems / statsFrames : 0.0;
+      droppedTicks = statsDropped;
+      statsStart = now;
+      statsTime = 0L;
+      statsFrames = statsItems = statsDropped = 0;
+      fireChangeListener();
+    }
+  }
+
+  private void resetStatistics()
+  {
+    statsTime = 0L;
+    statsFrames = statsItems = statsDropped = 0;
+    framesPerSecond = tickTime = itemsPerFrame = 0.0;
+    droppedTicks = 0;
+    fireChangeListener();
+  }
+
+  // Fires ChangeListener events for all registered listeners
+  private void fireChangeListener()
+  {
+    ChangeEvent event = new ChangeEvent(this);
+    for (int i = 0; i < listChangeListeners.size(); i++) {
+      listChangeListeners.get(i).stateChanged(event);
+    }
+  }
+
+  // Notifies all registered FrameBoundsListeners about the specified items
+  private void fireFrameBoundsListener(List<AnimatedLayerItem> items)
+  {
+    for (int i = 0; i < listBoundsListeners.size(); i++) {
+      listBoundsListeners.get(i).frameBoundsChanged(items);
+    }
+  }
+
+  // Returns whether the specified item is located within the visible area of its parent container
+  private static boolean isOnScreen(AnimatedLayerItem item, Map<Container, Rectangle> visibleRects)
+  {
+    if (!item.isShowing()) {
+      return false;
+    }
+    Container parent = item.getParent();
+    Rectangle r = visibleRects.get(parent);
+    if (r == null) {
+      if (parent instanceof JComponent) {
+        r = ((JComponent)parent).getVisibleRect();
+      } else {
+        r = new Rectangle(parent.getSize());
+      }
+      visibleRects.put(parent, r);
+    }
+    return r.intersects(item.getX(), item.getY(), item.getWidth(), item.getHeight());
+  }
+
+//----------------------------- INNER CLASSES -----------------------------
+
+  /** The listener interface for receiving notifications about layer items resized by a new frame. */
+  public static interface FrameBoundsListener extends EventListener
+  {
+    /**
+     * Invoked on the event dispatch thread after new frames have been rendered.
+     * @param items The layer items whose bounds have changed.
+     */
+    void frameBoundsChanged(List<AnimatedLayerItem> items);
+  }
+
+  // Scheduling information of a single layer item
+  private static class Entry
+  {
+    private final AnimatedLayerItem item;
+    private long nextFrame;           // time of next frame (in ns)
+    private volatile boolean finished;  // set when a non-looping animation reached its end
+
+    public Entry(AnimatedLayerItem item)
+    {
+      this.item = item;
+    }
+
+    // Returns the frame interval of the item (in ns)
+    public long getInterval()
+    {
+      return item.getFrameDelay() * 1000000L;
+    }
+  }
+}
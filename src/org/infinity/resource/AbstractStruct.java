@@ -57,6 +57,11 @@ public abstract class AbstractStruct extends AbstractTableModel implements Struc
   private boolean structChanged;
   private int startoffset, endoffset, extraoffset;
   private Collection<Component> viewerComponents = null;
+  // Source of fields which have not been read yet (see lazy constructor)
+  private ByteBuffer lazyBuffer;
+  private int lazyOffset;
+  private volatile boolean loaded = true;
+  private boolean loading;
 
   private static void adjustEntryOffsets(AbstractStruct superStruct, AbstractStruct modifiedStruct,
                                          AddRemovable datatype, int amount)
@@ -68,7 +73,8 @@ private static void adjustEntryOffsets(AbstractStruct superStruct, AbstractStruc
           structEntry != modifiedStruct) {
         structEntry.setOffset(structEntry.getOffset() + amount);
       }
-      if (structEntry instanceof AbstractStruct)
+      // fields of unloaded structures are relocated when they are read
+      if (structEntry instanceof AbstractStruct && ((AbstractStruct)structEntry).loaded)
         adjustEntryOffsets((AbstractStruct)structEntry, modifiedStruct, datatype, amount);
     }
   }
@@ -130,12 +136,25 @@ protected AbstractStruct(AbstractStruct superStruct, String name, ByteBuffer buf
                            int listSize) throws Exception
   {
     this(superStruct, name, startoffset, listSize);
-    endoffset = read(buffer, startoffset);
-    if (this instanceof HasAddRemovable) {
-      if (!(this instanceof Actor)) {  // Is this enough?
-        Collections.sort(list); // This way we can writeField out in the order in list - sorted by offset
-      }
-      initAddStructMaps();
+    readFields(buffer, startoffset);
+  }
+
+  /**
+   * Creates a structure of the specified fixed size whose fields are read from {@code buffer}
+   * on first access. Until then the structure is backed by the given buffer and written back unchanged.
+   * Fields are read immediately if the structure has no parent or exceeds the buffer.
+   */
+  protected AbstractStruct(AbstractStruct superStruct, String name, ByteBuffer buffer, int startoffset,
+                           int listSize, int size) throws Exception
+  {
+    this(superStruct, name, startoffset, listSize);
+    if (superStruct != null && size > 0 && startoffset >= 0 && startoffset + size <= buffer.limit()) {
+      lazyBuffer = buffer;
+      lazyOffset = startoffset;
+      endoffset = startoffset + size;
+      loaded = false;
+    } else {
+      readFields(buffer, startoffset);
     }
   }
 
@@ -189,6 +208,7 @@ public int compareTo(StructEntry o)
   @Override
   public Object clone() throws CloneNotSupportedException
   {
+    ensureLoaded();
     AbstractStruct newstruct = (AbstractStruct)super.clone();
     newstruct.superStruct = null;
     newstruct.list = new ArrayList<StructEntry>(list.size());
@@ -359,6 +379,14 @@ public JComponent makeViewer(ViewableContainer container)
   @Override
   public void write(OutputStream os) throws IOException
   {
+    synchronized (this) {
+      if (!loaded) {
+        ByteBuffer bb = lazyBuffer.duplicate();
+        bb.limit(lazyOffset + getSize()).position(lazyOffset);
+        StreamUtils.writeBytes(os, bb);
+        return;
+      }
+    }
     Collections.sort(getList()); // This way we can writeField out in the order in list - sorted by offset
     for (int i = 0, count = getFieldCount(); i < count; i++) {
       getField(i).write(os);
@@ -425,6 +453,7 @@ public String toString()
   // Returns the table row index where the specified AddRemovable structure can be inserted
   public int getDatatypeIndex(AddRemovable addedEntry)
   {
+    ensureLoaded();
     int index = 0;
     if (viewer != null && viewer.getSelectedEntry() != null &&
         viewer.getSelectedEntry().getClass() == addedEntry.getClass()) {
@@ -540,6 +569,7 @@ public StructEntry addField(StructEntry entry)
    */
   public StructEntry addField(StructEntry entry, int index)
   {
+    ensureLoaded();
     if (entry != null) {
       if (index < 0) index = 0; else if (index > list.size()) index = list.size();
       entry.setParent(this);
@@ -551,6 +581,7 @@ public StructEntry addField(StructEntry entry, int index)
   /** Adds list of entries to the AbstractStruct table after the specified index. */
   public void addToList(int startIndex, List<StructEntry> toBeAdded)
   {
+    ensureLoaded();
     if (toBeAdded != null) {
       startIndex = Math.max(-1, Math.min(list.size() - 1, startIndex));
       for (int i = 0; i < toBeAdded.size(); i++) {
@@ -562,6 +593,7 @@ public void addToList(int startIndex, List<StructEntry> toBeAdded)
   /** Adds list of entries to the AbstractStruct table after the specified StructEntry object. */
   public void addToList(StructEntry startFromEntry, List<StructEntry> toBeAdded)
   {
+    ensureLoaded();
     if (toBeAdded != null) {
       int startIndex = list.indexOf(startFromEntry) + 1;
       for (int i = 0; i < toBeAdded.size(); i++) {
@@ -575,6 +607,7 @@ public void addToList(StructEntry startFromEntry, List<StructEntry> toBeAdded)
    */
   public void clearFields()
   {
+    ensureLoaded();
     Iterator<StructEntry> iter = list.iterator();
     while (iter.hasNext()) {
       StructEntry e = iter.next();
@@ -698,17 +731,20 @@ public int getEndOffset()
 
   public int getExtraOffset()
   {
+    ensureLoaded();
     return extraoffset;
   }
 
   public List<StructEntry> getList()
   {
+    ensureLoaded();
     return list;
   }
 
   /** Returns the number of fields in the current structure. */
   public int getFieldCount()
   {
+    ensureLoaded();
     return list.size();
   }
 
@@ -719,6 +755,7 @@ public int getFieldCount()
    */
   public StructEntry getField(int index)
   {
+    ensureLoaded();
     try {
       return list.get(index);
     } catch (IndexOutOfBoundsException e) {
@@ -729,13 +766,14 @@ public StructEntry getField(int index)
   public List<StructEntry> getFlatList()
   {
     List<StructEntry> flatList = new ArrayList<StructEntry>(2 * getFieldCount());
-    addFlatList(flatList);
+    addFlatList(flatList, true);
     Collections.sort(flatList);
     return flatList;
   }
 
   public int getIndexOf(StructEntry structEntry)
   {
+    ensureLoaded();
     return list.indexOf(structEntry);
   }
 
@@ -751,6 +789,9 @@ public AbstractStruct getSuperStruct()
 
   public AbstractStruct getSuperStruct(StructEntry structEntry)
   {
+    if (!loaded) {
+      return null;  // fields of unloaded structures have not been created yet
+    }
     for (int i = 0; i < list.size(); i++) {
       Object o = list.get(i);
       if (o == structEntry)
@@ -791,6 +832,7 @@ public StructViewer getViewer()
 
   public void realignStructOffsets()
   {
+    ensureLoaded();
     int offset = startoffset;
     for (int i = 0; i < list.size(); i++) {
       StructEntry structEntry = list.get(i);
@@ -803,6 +845,7 @@ public void realignStructOffsets()
 
   public List<AddRemovable> removeAllRemoveables()
   {
+    ensureLoaded();
     List<AddRemovable> removed = new ArrayList<AddRemovable>();
     for (int i = 0; i < list.size(); i++) {
       StructEntry o = list.get(i);
@@ -817,8 +860,10 @@ public List<AddRemovable> removeAllRemoveables()
 
   public void removeDatatype(AddRemovable removedEntry, boolean removeRecurse)
   {
+    ensureLoaded();
     if (removeRecurse && removedEntry instanceof HasAddRemovable) { // Recusivly removeTableLine substructures first
       AbstractStruct removedStruct = (AbstractStruct)removedEntry;
+      removedStruct.ensureLoaded();
       for (int i = 0; i < removedStruct.list.size(); i++) {
         Object o = removedStruct.list.get(i);
         if (o instanceof AddRemovable) {
@@ -859,6 +904,7 @@ public void removeDatatype(AddRemovable removedEntry, boolean removeRecurse)
    */
   public boolean removeField(StructEntry entry)
   {
+    ensureLoaded();
     if (entry != null) {
       if (list.remove(entry)) {
         entry.setParent(null);
@@ -875,6 +921,7 @@ public boolean removeField(StructEntry entry)
    */
   public StructEntry removeField(int index)
   {
+    ensureLoaded();
     if (index >= 0 && index < list.size()) {
       StructEntry e = list.remove(index);
       if (e != null) {
@@ -887,6 +934,7 @@ public StructEntry removeField(int index)
 
   public ByteBuffer removeFromList(StructEntry startFromEntry, int numBytes) throws IOException
   {
+    ensureLoaded();
     int startindex = list.indexOf(startFromEntry) + 1;
     int endindex = startindex;
     int len = 0;
@@ -931,6 +979,7 @@ public boolean replaceEntry(StructEntry newEntry)
 
   public void setListEntry(int index, StructEntry structEntry)
   {
+    ensureLoaded();
     list.set(index, structEntry);
     fireTableRowsUpdated(index, index);
   }
@@ -949,6 +998,7 @@ public void setStructChanged(boolean changed)
 
   public String toMultiLineString()
   {
+    ensureLoaded();
     StringBuffer sb = new StringBuffer(30 * list.size());
     for (int i = 0; i < list.size(); i++) {
       StructEntry datatype = list.get(i);
@@ -966,21 +1016,29 @@ public void setExtraComponents(Collection<Component> list)
   /** Returns the SectionOffset entry linked to the specified StructEntry object if available. */
   public SectionOffset getSectionOffset(Class<? extends StructEntry> cls)
   {
+    ensureLoaded();
     return offsetmap.get(cls);
   }
 
   /** Returns the SectionCount entry linked to the specified StructEntry object if available. */
   public SectionCount getSectionCount(Class<? extends StructEntry> cls)
   {
+    ensureLoaded();
     return countmap.get(cls);
   }
 
-  private void addFlatList(List<StructEntry> flatList)
+  // Unloaded structures are added as a single entry unless "load" is set
+  private void addFlatList(List<StructEntry> flatList, boolean load)
   {
+    if (load) {
+      ensureLoaded();
+    }
     for (int i = 0; i < list.size(); i++) {
       StructEntry o = list.get(i);
-      if (o instanceof AbstractStruct)
-        ((AbstractStruct)o).addFlatList(flatList);
+      if (o instanceof AbstractStruct && !load && !((AbstractStruct)o).loaded)
+        flatList.add(o);
+      else if (o instanceof AbstractStruct)
+        ((AbstractStruct)o).addFlatList(flatList, load);
       else if (o instanceof AbstractCode)
         ((AbstractCode)o).addFlatList(flatList);
       else
@@ -1066,7 +1124,9 @@ protected void datatypeRemovedInChild(AbstractStruct child, AddRemovable datatyp
   private void fixHoles(ByteBuffer buffer)
   {
     int offset = startoffset;
-    List<StructEntry> flatList = getFlatList();
+    List<StructEntry> flatList = new ArrayList<StructEntry>(2 * list.size());
+    addFlatList(flatList, false);
+    Collections.sort(flatList);
     for (int i = 0; i < flatList.size(); i++) {
       StructEntry se = flatList.get(i);
       int delta = se.getOffset() - offset;
@@ -1091,6 +1151,7 @@ private void fixHoles(ByteBuffer buffer)
   // To be overriden by subclasses
   protected int getAddedPosition()
   {
+    ensureLoaded();
     return list.size(); // Default: Add at end
   }
 
@@ -1132,7 +1193,10 @@ protected void setStartOffset(int offset)
 
   protected void writeFlatList(OutputStream os) throws IOException
   {
-    List<StructEntry> flatList = getFlatList();
+    // unloaded structures write their original data
+    List<StructEntry> flatList = new ArrayList<StructEntry>(2 * getFieldCount());
+    addFlatList(flatList, false);
+    Collections.sort(flatList);
     for (int i = 0; i < flatList.size(); i++)
       flatList.get(i).write(os);
   }
@@ -1140,6 +1204,7 @@ protected void writeFlatList(OutputStream os) throws IOException
   /** Assign a new list of fields. Clears current list if argument is null. */
   protected void setList(List<StructEntry> newList)
   {
+    ensureLoaded();
     if (newList != null) {
       list = newList;
     } else {
@@ -1151,5 +1216,78 @@ protected void setSuperStruct(AbstractStruct struct)
   {
     this.superStruct = struct;
   }
+
+  // Reads all fields of the structure from the specified buffer and offset
+  private void readFields(ByteBuffer buffer, int offset) throws Exception
+  {
+    endoffset = read(buffer, offset);
+    if (this instanceof HasAddRemovable) {
+      if (!(this instanceof Actor)) {  // Is this enough?
+        Collections.sort(list); // This way we can writeField out in the order in list - sorted by offset
+      }
+      initAddStructMaps();
+    }
+  }
+
+  // Reads the fields of a structure created by the lazy constructor if needed
+  private void ensureLoaded()
+  {
+    if (!loaded) {
+      synchronized (this) {
+        // loading flag allows access to the list from read()
+        if (!loaded && !loading) {
+          loading = true;
+          try {
+            load();
+          } finally {
+            loading = false;
+          }
+        }
+      }
+    }
+  }
+
+  // Reads fields at their original buffer location and moves them to the current structure offset
+  private void load()
+  {
+    int offset = startoffset;
+    int size = getSize();
+    startoffset = lazyOffset;
+    synchronized (lazyBuffer) {
+      // datatypes change the buffer position
+      try {
+        readFields(lazyBuffer, lazyOffset);
+      } catch (Exception e) {
+        e.printStackTrace();
+        list.clear();
+        endoffset = lazyOffset;
+      }
+      if (endoffset < lazyOffset + size) {
+        list.add(new Unknown(lazyBuffer, endoffset, lazyOffset + size - endoffset, COMMON_UNUSED_BYTES));
+        endoffset = lazyOffset + size;
+      }
+    }
+    int delta = offset - lazyOffset;
+    if (delta != 0) {
+      moveFields(delta);
+      if (extraoffset != 0)
+        extraoffset += delta;
+    }
+    startoffset = offset;
+    endoffset += delta;
+    lazyBuffer = null;
+    loaded = true;
+  }
+
+  // Moves all fields and nested fields by the specified amount
+  private void moveFields(int delta)
+  {
+    for (int i = 0; i < list.size(); i++) {
+      StructEntry structEntry = list.get(i);
+      if (structEntry instanceof AbstractStruct && ((AbstractStruct)structEntry).loaded)
+        ((AbstractStruct)structEntry).moveFields(delta);
+      structEntry.setOffset(structEntry.getOffset() + delta);
+    }
+  }
 }
 
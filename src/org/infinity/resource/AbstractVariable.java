@@ -35,13 +35,13 @@ protected AbstractVariable() throws Exception
   protected AbstractVariable(AbstractStruct superStruct, ByteBuffer buffer, int offset, int nr)
       throws Exception
   {
-    super(superStruct, VAR + " " + nr, buffer, offset);
+    super(superStruct, VAR + " " + nr, buffer, offset, 10, 84);
   }
 
   protected AbstractVariable(AbstractStruct superStruct, String name, ByteBuffer buffer, int offset)
       throws Exception
   {
-    super(superStruct, name, buffer, offset);
+    super(superStruct, name, buffer, offset, 10, 84);
   }
 
 //--------------------- Begin Interface AddRemovable ---------------------
@@ -24,12 +24,12 @@ public Effect() throws Exception
 
   public Effect(AbstractStruct superStruct, ByteBuffer buffer, int offset, int number) throws Exception
   {
-    super(superStruct, EFFECT + " " + number, buffer, offset);
+    super(superStruct, EFFECT + " " + number, buffer, offset, 10, 48);
   }
 
   public Effect(AbstractStruct superStruct, ByteBuffer buffer, int offset, String name) throws Exception
   {
-    super(superStruct, name, buffer, offset);
+    super(superStruct, name, buffer, offset, 10, 48);
   }
 
 //--------------------- Begin Interface AddRemovable ---------------------
@@ -120,12 +120,12 @@ public Effect2() throws Exception
 
   public Effect2(AbstractStruct superStruct, ByteBuffer buffer, int offset, int number) throws Exception
   {
-    super(superStruct, EFFECT + " " + number, buffer, offset);
+    super(superStruct, EFFECT + " " + number, buffer, offset, 10, 264);
   }
 
   public Effect2(AbstractStruct superStruct, ByteBuffer buffer, int offset, String name) throws Exception
   {
-    super(superStruct, name, buffer, offset);
+    super(superStruct, name, buffer, offset, 10, 264);
   }
 
 //--------------------- Begin Interface AddRemovable ---------------------
@@ -1919,12 +1919,9 @@ private void initCampaigns()
 
       // getting correct column
       final String saveColName = "SAVE_DIR";  // default column name
-      int col = 12;   // default column index
-      for (int i = 0; i < table.getColCount(); i++) {
-        if (saveColName.equalsIgnoreCase(table.getHeader(i))) {
-          col = i;
-          break;
-        }
+      int col = table.findColumn(saveColName);
+      if (col < 0) {
+        col = 12;   // default column index
       }
       if (col >= table.getColCount()) {
         return;
@@ -2088,10 +2085,12 @@ private Path validateDlc(Path file, String ext) throws IOException
   public void fileChanged(FileWatchEvent e)
   {
 //    System.out.println("Profile.fileChanged(): " + e.getKind().toString() + " - " + e.getPath());
-    if (e.getKind() == StandardWatchEventKinds.ENTRY_CREATE) {
+    if (e.getKind() == StandardWatchEventKinds.ENTRY_CREATE ||
+        e.getKind() == StandardWatchEventKinds.ENTRY_MODIFY) {
+      // modify: directory may have been deleted and recreated within a single batch of events
       Path path = e.getPath();
 
-      if (Files.isDirectory(path)) {
+      if (path != null && Files.isDirectory(path)) {
         // Note: skipping extra folders because of issues on Windows systems
 //        List<Path> extraDirs = getProperty(Key.GET_GAME_EXTRA_FOLDERS);
 //        if (FileManager.containsPath(path, extraDirs)) {
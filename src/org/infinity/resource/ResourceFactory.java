@@ -20,8 +20,13 @@
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 import java.util.regex.Pattern;
 
 import javax.swing.JFileChooser;
@@ -39,6 +44,7 @@
 import org.infinity.resource.are.AreResource;
 import org.infinity.resource.bcs.BafResource;
 import org.infinity.resource.bcs.BcsResource;
+import org.infinity.resource.bcs.ScriptCache;
 import org.infinity.resource.chu.ChuResource;
 import org.infinity.resource.cre.CreResource;
 import org.infinity.resource.dlg.DlgResource;
@@ -84,6 +90,8 @@
 import org.infinity.util.DynamicArray;
 import org.infinity.util.IdsMapCache;
 import org.infinity.util.Misc;
+import org.infinity.util.ResourceNameIndex;
+import org.infinity.util.io.DirectoryScanner;
 import org.infinity.util.io.FileManager;
 import org.infinity.util.io.FileWatcher;
 import org.infinity.util.io.FileWatcher.FileWatchEvent;
@@ -562,6 +570,7 @@ public static void registerResource(Path resource, boolean autoselect)
   {
     if (getInstance() != null) {
       getInstance().registerResourceInternal(resource, autoselect);
+      ScriptCache.clearCache();
     }
   }
 
@@ -572,6 +581,7 @@ public static void unregisterResource(Path resource)
   {
     if (getInstance() != null) {
       getInstance().unregisterResourceInternal(resource);
+      ScriptCache.clearCache();
     }
   }
 
@@ -935,14 +945,88 @@ private void exportResourceInternal(ResourceEntry entry, ByteBuffer buffer, Stri
 
   private void unregisterResourceInternal(Path resource)
   {
-    if (!BrowserMenuBar.getInstance().showUnknownResourceTypes() &&
-        !Profile.isResourceTypeSupported(FileManager.getFileExtension(resource))) {
-      return;
+    updateResourcesInternal(Collections.singletonList(resource), Collections.emptyList(), null);
+  }
+
+  private void registerResourceInternal(Path resource, boolean autoselect)
+  {
+    updateResourcesInternal(Collections.emptyList(), Collections.singletonList(resource),
+                            autoselect ? resource : null);
+  }
+
+  /**
+   * Removes and adds the specified resource files in a single step. Affected folders of the resource
+   * tree are updated only once after all files have been processed.
+   * @param removed Resource files to remove from the resource tree.
+   * @param added Resource files to add to the resource tree.
+   * @param autoselect Resource file to select afterwards. Specify {@code null} to keep the current selection.
+   */
+  private void updateResourcesInternal(List<Path> removed, List<Path> added, Path autoselect)
+  {
+    ResourceEntry selectedEntry = NearInfinity.getInstance().getResourceTree().getSelected();
+    ResourceEntry autoselectEntry = null;
+    boolean selectionChanged = false;
+    Set<ResourceTreeFolder> changed = new LinkedHashSet<>();
+
+    for (final Path resource: removed) {
+      ResourceEntry entry = removeResourceFile(resource, changed);
+      if (entry != null && entry.equals(selectedEntry)) {
+        selectionChanged = true;
+      }
+    }
+
+    for (final Path resource: added) {
+      ResourceEntry entry = addResourceFile(resource, changed);
+      if (entry != null) {
+        if (resource.equals(autoselect)) {
+          autoselectEntry = entry;
+        } else if (entry.equals(selectedEntry)) {
+          selectionChanged = true;
+        }
+      }
+    }
+
+    // updating affected folders
+    Set<ResourceTreeFolder> updated = new LinkedHashSet<>();
+    for (final ResourceTreeFolder folder: changed) {
+      if (folder == null) {
+        continue;
+      }
+      ResourceTreeFolder parentFolder = folder.getParentFolder();
+      if (folder.getChildCount() == 0 && parentFolder != null) {
+        parentFolder.removeFolder(folder);
+        updated.add(parentFolder);
+      } else {
+        folder.sortChildren(false);
+        updated.add(folder);
+      }
+    }
+    updated.forEach((folder) -> treeModel.updateFolders(folder));
+
+    if (autoselectEntry != null) {
+      NearInfinity.getInstance().showResourceEntry(autoselectEntry);
+    } else if (selectedEntry != null && !updated.isEmpty()) {
+      if (selectionChanged) {
+        selectedEntry = treeModel.getResourceEntry(selectedEntry.getResourceName(), true);
+      }
+      NearInfinity.getInstance().getResourceTree().select(selectedEntry, true);
+      if (selectedEntry == null) {
+        NearInfinity.getInstance().setViewable(null);
+      }
     }
+  }
+
+  // Removes the specified resource file from the resource tree without updating tree folders.
+  // Returns the removed entry or null. Affected folders are added to "changed".
+  private ResourceEntry removeResourceFile(Path resource, Set<ResourceTreeFolder> changed)
+  {
     if (resource == null) {
-      return;
+      return null;
+    }
+    if (!BrowserMenuBar.getInstance().showUnknownResourceTypes() &&
+        !Profile.isResourceTypeSupported(FileManager.getFileExtension(resource))) {
+      return null;
     }
-    ResourceEntry selectedEntry = NearInfinity.getInstance().getResourceTree().getSelected();
 
     // 1. checking extra folders <- skipped because of issues on Windows systems
 //    List<Path> extraPaths = Profile.getProperty(Profile.Key.GET_GAME_EXTRA_FOLDERS);
@@ -992,53 +1076,41 @@ private void unregisterResourceInternal(Path resource)
     if (entry != null) {
       ResourceTreeFolder folder = entry.getTreeFolder();
       String name = entry.getTreeFolderName();
-      treeModel.removeResourceEntry(entry, name);
+      treeModel.removeResourceEntry(entry, name, false);
+      changed.add(folder);
 
       if (entry instanceof FileResourceEntry) {
         Path newPath = FileManager.queryExisting(Profile.getOverrideFolders(true), entry.getResourceName());
         if (newPath != null) {
           // another override file found
-          treeModel.addResourceEntry(new FileResourceEntry(newPath, entry.hasOverride()), folder.folderName(), true);
-          treeModel.updateFolders(folder);
+          changed.add(treeModel.addResourceEntry(new FileResourceEntry(newPath, entry.hasOverride()),
+                                                 folder.folderName(), true));
         } else {
           // handle potential BIFF resource
           BIFFResourceEntry newEntry = keyfile.getResourceEntry(entry.getResourceName());
           if (newEntry != null) {
             newEntry.setOverride(false);
-            treeModel.addResourceEntry(newEntry, newEntry.getTreeFolderName(), true);
-            treeModel.updateFolders(newEntry.getTreeFolder());
+            changed.add(treeModel.addResourceEntry(newEntry, newEntry.getTreeFolderName(), true));
           }
         }
       }
-
-      if (folder.getChildCount() == 0) {
-        ResourceTreeFolder parentFolder = folder.getParentFolder();
-        parentFolder.removeFolder(folder);
-        treeModel.updateFolders(parentFolder);
-      } else {
-        treeModel.updateFolders(folder);
-      }
-
-      if (selectedEntry != null) {
-        if (selectedEntry.equals(entry)) {
-          selectedEntry = treeModel.getResourceEntry(selectedEntry.getResourceName(), true);
-        }
-        NearInfinity.getInstance().getResourceTree().select(selectedEntry, true);
-        if (selectedEntry == null) {
-          NearInfinity.getInstance().setViewable(null);
-        }
-      }
     }
+    return entry;
   }
 
-  private void registerResourceInternal(Path resource, boolean autoselect)
+  // Adds the specified resource file to the resource tree without updating tree folders.
+  // Returns the new or already existing entry, or null. Affected folders are added to "changed".
+  private ResourceEntry addResourceFile(Path resource, Set<ResourceTreeFolder> changed)
   {
+    if (resource == null) {
+      return null;
+    }
     if (!BrowserMenuBar.getInstance().showUnknownResourceTypes() &&
         !Profile.isResourceTypeSupported(FileManager.getFileExtension(resource))) {
-      return;
+      return null;
     }
-    if (resource == null || !Files.isRegularFile(resource)) {
-      return;
+    if (!Files.isRegularFile(resource)) {
+      return null;
     }
 
     // 1. checking if resource has already been added to resource tree
@@ -1055,13 +1127,9 @@ private void registerResourceInternal(Path resource, boolean autoselect)
         match = true;
       }
       if (match) {
-        if (autoselect) {
-          NearInfinity.getInstance().showResourceEntry(entry);
-        }
-        return;
+        return entry;
       }
     }
-    ResourceEntry selectedEntry = NearInfinity.getInstance().getResourceTree().getSelected();
     Path resPath = resource.getParent();
 
     // 2. checking extra folders <- skipped because of issues on Windows systems
@@ -1115,7 +1183,8 @@ private void registerResourceInternal(Path resource, boolean autoselect)
         boolean overrideInOverride = (BrowserMenuBar.getInstance() != null &&
                                       BrowserMenuBar.getInstance().getOverrideMode() == BrowserMenuBar.OVERRIDE_IN_OVERRIDE);
         if (overrideInOverride) {
-          treeModel.removeResourceEntry(entry, entry.getExtension());
+          changed.add(entry.getTreeFolder());
+          treeModel.removeResourceEntry(entry, entry.getExtension(), false);
         }
         folderName = overrideInOverride ? Profile.getOverrideFolderName() : entry.getExtension();
         entry = new FileResourceEntry(resource, true);
@@ -1123,18 +1192,10 @@ private void registerResourceInternal(Path resource, boolean autoselect)
         folderName = (entry != null) ? entry.getTreeFolderName() : resPath.getFileName().toString();
         entry = new FileResourceEntry(resource, entry != null && entry.hasOverride());
       }
-      treeModel.addResourceEntry(entry, folderName, true);
-      treeModel.getFolder(folderName).sortChildren(false);
-      treeModel.updateFolders(treeModel.getFolder(folderName));
-      if (autoselect) {
-        NearInfinity.getInstance().showResourceEntry(entry);
-      } else if (selectedEntry != null) {
-        if (entry.equals(selectedEntry)) {
-          selectedEntry = entry;
-        }
-        NearInfinity.getInstance().getResourceTree().select(selectedEntry, true);
-      }
+      changed.add(treeModel.addResourceEntry(entry, folderName, true));
+      return entry;
     }
+    return null;
   }
 
   private boolean isPendingSelection(Path path, boolean autoRemove)
@@ -1169,38 +1230,48 @@ private void loadResourcesInternal() throws Exception
 
     // Add resources from extra folders
     NearInfinity.advanceProgress("Loading extra resources...");
-    List<Path> extraPaths = Profile.getProperty(Profile.Key.GET_GAME_EXTRA_FOLDERS);
-    extraPaths.forEach((path) -> {
+    List<Path> extraPaths = new ArrayList<>();
+    for (final Path path: Profile.<List<Path>>getProperty(Profile.Key.GET_GAME_EXTRA_FOLDERS)) {
       if (Files.isDirectory(path)) {
-        treeModel.addDirectory((ResourceTreeFolder)treeModel.getRoot(), path, false);
+        extraPaths.add(path);
       }
-    });
+    }
+    treeModel.addDirectories(treeModel.getRoot(), extraPaths, false);
 
     NearInfinity.advanceProgress("Loading override resources...");
     final boolean overrideInOverride = (BrowserMenuBar.getInstance() != null &&
                                         BrowserMenuBar.getInstance().getOverrideMode() == BrowserMenuBar.OVERRIDE_IN_OVERRIDE);
     String overrideFolder = Profile.getOverrideFolderName();
-    List<Path> overridePaths = Profile.getOverrideFolders(false);
-    for (final Path overridePath: overridePaths) {
-      if (Files.isDirectory(overridePath)) {
-        try (DirectoryStream<Path> dstream = Files.newDirectoryStream(overridePath)) {
-          dstream.forEach((path) -> {
-            if (Files.isRegularFile(path)) {
-              ResourceEntry entry = getResourceEntry(path.getFileName().toString());
-              if (entry instanceof FileResourceEntry) {
-                treeModel.addResourceEntry(entry, entry.getTreeFolderName(), true);
-              } else if (entry instanceof BIFFResourceEntry) {
-                ((BIFFResourceEntry)entry).setOverride(true);
-                if (overrideInOverride) {
-                  treeModel.removeResourceEntry(entry, entry.getExtension());
-                  treeModel.addResourceEntry(new FileResourceEntry(path, true), overrideFolder, true);
-                }
-              }
-            }
-          });
+    List<Path> overridePaths = new ArrayList<>();
+    for (final Path path: Profile.getOverrideFolders(false)) {
+      if (Files.isDirectory(path)) {
+        overridePaths.add(path);
+      }
+    }
+    // Override folders are listed in order of priority. Resources are looked up in the name index
+    // of the tree model. Files of higher priority folders take precedence.
+    Map<String, List<ResourceEntry>> newEntries = new HashMap<>();
+    Set<String> processed = new HashSet<>();
+    for (final DirectoryScanner.Directory dir: DirectoryScanner.scan(overridePaths, false)) {
+      for (final Path path: dir.getFiles()) {
+        String name = path.getFileName().toString();
+        if (!processed.add(name.toUpperCase(Locale.ENGLISH))) {
+          continue;
+        }
+        ResourceEntry entry = treeModel.getResourceEntry(name);
+        if (entry == null) {
+          entry = new FileResourceEntry(path);
+          newEntries.computeIfAbsent(entry.getTreeFolderName(), (k) -> new ArrayList<>()).add(entry);
+        } else if (entry instanceof BIFFResourceEntry) {
+          ((BIFFResourceEntry)entry).setOverride(true);
+          if (overrideInOverride) {
+            treeModel.removeResourceEntry(entry, entry.getExtension());
+            newEntries.computeIfAbsent(overrideFolder, (k) -> new ArrayList<>()).add(new FileResourceEntry(path, true));
+          }
         }
       }
     }
+    newEntries.forEach((folderName, list) -> treeModel.addResourceEntries(list, folderName, true));
     treeModel.sort();
   }
 
@@ -1452,6 +1523,7 @@ private boolean saveResourceInternal(Resource resource, Component parent)
         idsbrowser.refreshList();
       }
       CreMapCache.reset();
+      ScriptCache.clearCache();
     } else if (resource.getResourceEntry().toString().equalsIgnoreCase(Song2daBitmap.getTableName())) {
       Song2daBitmap.resetSonglist();
     } else if (resource.getResourceEntry().toString().equalsIgnoreCase(Summon2daBitmap.getTableName())) {
@@ -1461,6 +1533,8 @@ private boolean saveResourceInternal(Resource resource, Component parent)
     } else if (resource.getResourceEntry().toString().equalsIgnoreCase(SecTypeBitmap.getTableName())) {
       SecTypeBitmap.resetTypeTable();
     }
+    CreMapCache.creInvalid(resource.getResourceEntry());
+    ResourceNameIndex.resourceChanged(resource.getResourceEntry());
     return true;
   }
 
@@ -1469,11 +1543,33 @@ private boolean saveResourceInternal(Resource resource, Component parent)
   @Override
   public void fileChanged(FileWatchEvent e)
   {
-//    System.out.println("ResourceFactory.fileChanged(): " + e.getKind().toString() + " - " + e.getPath());
-    if (e.getKind() == StandardWatchEventKinds.ENTRY_CREATE) {
-      registerResourceInternal(e.getPath(), isPendingSelection(e.getPath(), true));
-    } else if (e.getKind() == StandardWatchEventKinds.ENTRY_DELETE) {
-      unregisterResourceInternal(e.getPath());
+    filesChanged(Collections.singletonList(e));
+  }
+
+  @Override
+  public void filesChanged(List<FileWatchEvent> events)
+  {
+    List<Path> removed = new ArrayList<>();
+    List<Path> added = new ArrayList<>();
+    Path autoselect = null;
+    for (final FileWatchEvent e: events) {
+//      System.out.println("ResourceFactory.filesChanged(): " + e.getKind().toString() + " - " + e.getPath());
+      if (e.getPath() == null) {
+        continue;
+      }
+      if (e.getKind() == StandardWatchEventKinds.ENTRY_CREATE ||
+          e.getKind() == StandardWatchEventKinds.ENTRY_MODIFY) {
+        // modify: file has been replaced or changed; already registered files are skipped
+        added.add(e.getPath());
+        if (isPendingSelection(e.getPath(), true)) {
+          autoselect = e.getPath();
+        }
+      } else if (e.getKind() == StandardWatchEventKinds.ENTRY_DELETE) {
+        removed.add(e.getPath());
+      }
+    }
+    if (!removed.isEmpty() || !added.isEmpty()) {
+      updateResourcesInternal(removed, added, autoselect);
     }
   }
 
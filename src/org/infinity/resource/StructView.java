@@ -0,0 +1,374 @@
+// Near Infinity - An Infinity Engine Browser and Editor
+// Copyright (C) 2001 - 2005 Jon Olav Hauglid
+// See LICENSE.txt for license information
+
+package org.infinity.resource;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import org.infinity.datatype.IsNumeric;
+import org.infinity.datatype.SectionCount;
+import org.infinity.datatype.SectionOffset;
+import org.infinity.resource.key.ResourceEntry;
+
+/**
+ * Read-only view of the numeric fields of a structured resource, meant for checks and searches
+ * that only read a few values from a large number of resources.
+ * <p>
+ * Field layouts are taken from a template resource which is parsed once per resource type and
+ * version. Values of other resources are read directly from their data buffers by field objects
+ * that are shared by all views of the current thread, so no objects are created per field.
+ * <p>
+ * Only fields at fixed locations are available: fields in front of the first substructure of
+ * the resource and fields of fixed-size substructures that are located by a {@link SectionOffset}
+ * and {@link SectionCount} pair.
+ */
+public final class StructView
+{
+  // Schemas by resource type, signature and version
+  private static final ConcurrentHashMap<String, Schema> schemas = new ConcurrentHashMap<>();
+
+  private final Schema schema;
+  private final ByteBuffer buffer;
+  private final int offset;
+
+  /**
+   * Returns a view of the specified resource. The resource is only parsed if no schema exists for
+   * its type and version yet.
+   * @param entry The resource to view.
+   * @return A {@code StructView} instance, or {@code null} if the resource doesn't start with a
+   *         signature and version, can't be read or can't be parsed as a structure.
+   */
+  public static StructView open(ResourceEntry entry)
+  {
+    return open(entry, ResourceFactory::getResource);
+  }
+
+  /** Removes all cached schemas. */
+  public static void clearCache()
+  {
+    schemas.clear();
+  }
+
+  static StructView open(ResourceEntry entry, Function<ResourceEntry, ? extends Resource> loader)
+  {
+    if (entry == null) {
+      return null;
+    }
+    ByteBuffer buffer;
+    try {
+      buffer = entry.getResourceBuffer();
+    } catch (Exception e) {
+      // errors are reported when the resource is parsed
+      return null;
+    }
+    String key = getKey(entry, buffer);
+    if (key == null) {
+      return null;
+    }
+
+    Schema schema = schemas.get(key);
+    if (schema == null || !schema.isComplete(buffer, 0)) {
+      // parsing resource as template for its type and version
+      Resource resource = loader.apply(entry);
+      if (!(resource instanceof AbstractStruct)) {
+        return null;
+      }
+      schema = schemas.merge(key, new Schema((AbstractStruct)resource, true), Schema::merge);
+    }
+    return schema.isValid(buffer, 0) ? new StructView(schema, buffer, 0) : null;
+  }
+
+  // Returns a key based on type, signature and version of the resource, null if not available
+  private static String getKey(ResourceEntry entry, ByteBuffer buffer)
+  {
+    if (buffer.limit() < 8) {
+      return null;
+    }
+    StringBuilder sb = new StringBuilder(entry.getExtension()).append(':');
+    for (int i = 0; i < 8; i++) {
+      int ch = buffer.get(i) & 0xff;
+      if (ch < 0x20 || ch > 0x7e) {
+        return null;
+      }
+      sb.append((char)ch);
+    }
+    return sb.toString();
+  }
+
+  private StructView(Schema schema, ByteBuffer buffer, int offset)
+  {
+    this.schema = schema;
+    this.buffer = buffer;
+    this.offset = offset;
+  }
+
+  /** Returns whether a field of the specified name is available. */
+  public boolean hasField(String name)
+  {
+    return schema.fields.containsKey(name);
+  }
+
+  /**
+   * Returns the numeric value of the specified field.
+   * @throws IllegalArgumentException if the field is not available.
+   */
+  public int getValue(String name)
+  {
+    Field field = schema.fields.get(name);
+    if (field == null) {
+      throw new IllegalArgumentException("Field not available: " + name);
+    }
+    StructEntry flyweight = schema.getFlyweights()[field.index];
+    try {
+      flyweight.read(buffer, offset + field.offset);
+    } catch (Exception e) {
+      throw new IllegalArgumentException("Error reading field: " + name, e);
+    }
+    return ((IsNumeric)flyweight).getValue();
+  }
+
+  /**
+   * Returns whether the substructures of the specified type can be viewed. Substructures of a type
+   * are only available if they are of fixed size and at least one of them has been parsed so far.
+   * @param type The class of the substructure. Subclasses of this type are matched as well.
+   */
+  public boolean hasSection(Class<? extends StructEntry> type)
+  {
+    Section section = schema.getSection(type);
+    return section != null && section.element != null;
+  }
+
+  /**
+   * Returns the number of substructures of the specified type.
+   * @param type The class of the substructure. Subclasses of this type are matched as well.
+   * @return Number of substructures, 0 if not available.
+   */
+  public int getSectionCount(Class<? extends StructEntry> type)
+  {
+    Section section = schema.getSection(type);
+    return (section != null && section.element != null) ? getValue(section.countName) : 0;
+  }
+
+  /**
+   * Returns a view of the substructure at the specified index.
+   * @param type The class of the substructure. Subclasses of this type are matched as well.
+   * @param index Index of the substructure.
+   * @throws IndexOutOfBoundsException if the substructure is not available.
+   */
+  public StructView getSection(Class<? extends StructEntry> type, int index)
+  {
+    if (index < 0 || index >= getSectionCount(type)) {
+      throw new IndexOutOfBoundsException("Index: " + index);
+    }
+    Section section = schema.getSection(type);
+    return new StructView(section.element, buffer, getValue(section.offsetName) + index * section.size);
+  }
+
+//-------------------------- INNER CLASSES --------------------------
+
+  // Shared layout of a structure. Field offsets are relative to the start of the structure.
+  private static final class Schema
+  {
+    private final Map<String, Field> fields;
+    private final Map<Class<? extends StructEntry>, Section> sections;
+    private final int size;
+    private final StructEntry[] prototypes;
+    private final ThreadLocal<StructEntry[]> flyweights = ThreadLocal.withInitial(this::createFlyweights);
+
+    public Schema(AbstractStruct struct, boolean topLevel)
+    {
+      this.fields = new LinkedHashMap<>();
+      this.sections = new LinkedHashMap<>();
+
+      // fixed locations end at the first substructure or section
+      int start = struct.getOffset();
+      int end = struct.getSize();
+      for (final StructEntry e: struct.getList()) {
+        if (e instanceof AbstractStruct && e.getOffset() >= start) {
+          end = Math.min(end, e.getOffset() - start);
+        } else if (topLevel && e instanceof SectionOffset && struct instanceof HasAddRemovable) {
+          SectionOffset offset = (SectionOffset)e;
+          if (offset.getValue() > start) {
+            end = Math.min(end, offset.getValue() - start);
+          }
+          SectionCount count = struct.getSectionCount(offset.getSection());
+          Section section = (count != null) ? createSection(struct, offset, count) : null;
+          if (section != null && !sections.containsKey(offset.getSection())) {
+            sections.put(offset.getSection(), section);
+          }
+        }
+      }
+
+      this.size = end;
+
+      List<StructEntry> list = new ArrayList<>();
+      for (final StructEntry e: struct.getList()) {
+        int ofs = e.getOffset() - start;
+        if (e instanceof IsNumeric && ofs >= 0 && ofs + e.getSize() <= end && !fields.containsKey(e.getName())) {
+          try {
+            StructEntry prototype = (StructEntry)e.clone();
+            prototype.setParent(null);
+            fields.put(e.getName(), new Field(list.size(), ofs));
+            list.add(prototype);
+          } catch (CloneNotSupportedException ex) {
+            // field is not available
+          }
+        }
+      }
+      this.prototypes = list.toArray(new StructEntry[list.size()]);
+      sections.values().removeIf(section -> !fields.containsKey(section.offsetName) ||
+                                            !fields.containsKey(section.countName));
+    }
+
+    private Schema(Schema schema, Map<Class<? extends StructEntry>, Section> sections)
+    {
+      this.fields = schema.fields;
+      this.sections = sections;
+      this.size = schema.size;
+      this.prototypes = schema.prototypes;
+    }
+
+    // Adds the substructure layouts of "other" which are not yet known
+    public static Schema merge(Schema schema, Schema other)
+    {
+      Map<Class<? extends StructEntry>, Section> sections = new LinkedHashMap<>(schema.sections);
+      boolean changed = false;
+      for (final Map.Entry<Class<? extends StructEntry>, Section> entry: other.sections.entrySet()) {
+        Section section = sections.get(entry.getKey());
+        if (section != null && section.element == null && entry.getValue().element != null) {
+          sections.put(entry.getKey(), entry.getValue());
+          changed = true;
+        }
+      }
+      return changed ? new Schema(schema, sections) : schema;
+    }
+
+    // Returns the section for the specified type
+    public Section getSection(Class<? extends StructEntry> type)
+    {
+      Section retVal = sections.get(type);
+      if (retVal == null) {
+        for (final Map.Entry<Class<? extends StructEntry>, Section> entry: sections.entrySet()) {
+          if (type.isAssignableFrom(entry.getKey())) {
+            retVal = entry.getValue();
+            break;
+          }
+        }
+      }
+      return retVal;
+    }
+
+    // Returns whether the layout of all non-empty substructures is known
+    public boolean isComplete(ByteBuffer buffer, int offset)
+    {
+      if (isValid(buffer, offset)) {
+        StructView view = new StructView(this, buffer, offset);
+        for (final Section section: sections.values()) {
+          if (section.element == null && view.getValue(section.countName) > 0) {
+            return false;
+          }
+        }
+      }
+      return true;
+    }
+
+    // Returns whether the structure and its substructures are located within the buffer
+    public boolean isValid(ByteBuffer buffer, int offset)
+    {
+      if (offset < 0 || offset + size > buffer.limit()) {
+        return false;
+      }
+      StructView view = new StructView(this, buffer, offset);
+      for (final Section section: sections.values()) {
+        if (section.element != null) {
+          long ofs = view.getValue(section.offsetName);
+          long count = view.getValue(section.countName);
+          if (ofs < 0 || count < 0 || ofs + count * section.size > buffer.limit()) {
+            return false;
+          }
+        }
+      }
+      return true;
+    }
+
+    // Returns the field objects of the current thread
+    public StructEntry[] getFlyweights()
+    {
+      return flyweights.get();
+    }
+
+    private StructEntry[] createFlyweights()
+    {
+      StructEntry[] retVal = new StructEntry[prototypes.length];
+      for (int i = 0; i < retVal.length; i++) {
+        try {
+          retVal[i] = (StructEntry)prototypes[i].clone();
+        } catch (CloneNotSupportedException e) {
+          throw new IllegalStateException(e);
+        }
+      }
+      return retVal;
+    }
+
+    // Substructures must be of the same size and follow each other without gaps
+    private static Section createSection(AbstractStruct struct, SectionOffset offset, SectionCount count)
+    {
+      Class<? extends StructEntry> type = offset.getSection();
+      AbstractStruct first = null;
+      int index = 0;
+      for (final StructEntry e: struct.getList()) {
+        if (e.getClass() == type && e instanceof AbstractStruct) {
+          if (first == null) {
+            first = (AbstractStruct)e;
+          }
+          if (e.getSize() != first.getSize() || e.getOffset() != offset.getValue() + index * first.getSize()) {
+            return null;
+          }
+          index++;
+        }
+      }
+      if (index != count.getValue()) {
+        return null;
+      }
+      return (first != null) ? new Section(offset.getName(), count.getName(), new Schema(first, false), first.getSize())
+                             : new Section(offset.getName(), count.getName(), null, 0);
+    }
+  }
+
+  // Location of a field in the structure
+  private static final class Field
+  {
+    private final int index;
+    private final int offset;
+
+    public Field(int index, int offset)
+    {
+      this.index = index;
+      this.offset = offset;
+    }
+  }
+
+  // Location and layout of substructures
+  private static final class Section
+  {
+    private final String offsetName;
+    private final String countName;
+    private final Schema element;
+    private final int size;
+
+    public Section(String offsetName, String countName, Schema element, int size)
+    {
+      this.offsetName = offsetName;
+      this.countName = countName;
+      this.element = element;
+      this.size = size;
+    }
+  }
+}
@@ -145,13 +145,12 @@ public static String getSearchString(ResourceEntry entry)
       if (table != null) {
         String are = entry.getResourceName();
         are = are.substring(0, are.lastIndexOf('.'));
-        for (int row = 0, cnt = table.getRowCount(); row < cnt; row++) {
-          if (are.equalsIgnoreCase(table.get(row, 0))) {
-            try {
-              int strref = Integer.parseInt(table.get(row, 1));
-              retVal = StringTable.getStringRef(strref);
-            } catch (NumberFormatException e) {
-            }
+        int row = table.findRow(are);
+        if (row >= 0) {
+          try {
+            int strref = Integer.parseInt(table.get(row, 1));
+            retVal = StringTable.getStringRef(strref);
+          } catch (NumberFormatException e) {
           }
         }
       }
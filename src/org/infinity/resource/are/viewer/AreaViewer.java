@@ -36,6 +36,7 @@
 import java.util.ArrayList;
 import java.util.EventObject;
 import java.util.Hashtable;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Locale;
 
@@ -93,6 +94,8 @@
 import org.infinity.gui.ViewerUtil;
 import org.infinity.gui.WindowBlocker;
 import org.infinity.gui.layeritem.AbstractLayerItem;
+import org.infinity.gui.layeritem.AnimatedLayerItem;
+import org.infinity.gui.layeritem.AnimationClock;
 import org.infinity.gui.layeritem.IconLayerItem;
 import org.infinity.gui.layeritem.LayerItemEvent;
 import org.infinity.gui.layeritem.LayerItemListener;
@@ -124,6 +127,7 @@ public class AreaViewer extends ChildFrame
 {
   private static final String LabelInfoX = "Position X:";
   private static final String LabelInfoY = "Position Y:";
+  private static final String LabelInfoAnim = "Animations:";
   private static final String LabelEnableSchedule = "Enable time schedules";
   private static final String LabelDrawClosed = "Draw closed";
   private static final String LabelDrawOverlays = "Enable overlays";
@@ -132,6 +136,7 @@ public class AreaViewer extends ChildFrame
 
   private final Listeners listeners;
   private final Map map;
+  private final AnimationClock animationClock;
   private final Point mapCoordinates = new Point();
   private final String windowTitle;
   private final JCheckBox[] cbLayers = new JCheckBox[LayerManager.getLayerTypeCount()];
@@ -141,6 +146,7 @@ public class AreaViewer extends ChildFrame
 
   private LayerManager layerManager;
   private TilesetRenderer rcCanvas;
+  private LayerItemIndex itemIndex;
   private JPanel pCanvas;
   private JScrollPane spCanvas;
   private Point vpMapCenter;    // contains map coordinate at the viewport center
@@ -153,7 +159,7 @@ public class AreaViewer extends ChildFrame
   private JCheckBox cbDrawClosed, cbDrawOverlays, cbAnimateOverlays, cbDrawGrid, cbEnableSchedules;
   private JComboBox<String> cbZoomLevel;
   private JCheckBox cbLayerAmbientRange;
-  private JLabel lPosX, lPosY;
+  private JLabel lPosX, lPosY, lAnimStats;
   private JTextArea taInfo;
   private boolean bMapDragging;
   private Point mapDraggingPosStart, mapDraggingScrollStart, mapDraggingPos;
@@ -217,6 +223,9 @@ public AreaViewer(Component parent, AreResource are)
     windowTitle = String.format("Area Viewer: %s", (are != null) ? are.getName() : "[Unknown]");
     initProgressMonitor(parent, "Initializing " + are.getName(), "Loading ARE resource...", 3, 0, 0);
     listeners = new Listeners();
+    animationClock = new AnimationClock();
+    animationClock.addChangeListener(listeners);
+    animationClock.addFrameBoundsListener(listeners);
     map = new Map(this, are);
     // loading map in dedicated thread
     workerInitGui = new SwingWorker<Void, Void>() {
@@ -252,6 +261,7 @@ public void close()
     }
     if (rcCanvas != null) {
       removeLayerItems();
+      itemIndex.clear();
       rcCanvas.clear();
       rcCanvas.setImage(null);
     }
@@ -259,6 +269,9 @@ public void close()
       layerManager.close();
       layerManager = null;
     }
+    animationClock.clear();
+    animationClock.removeChangeListener(getListeners());
+    animationClock.removeFrameBoundsListener(getListeners());
     dispose();
     System.gc();
     super.close();
@@ -275,6 +288,14 @@ public TilesetRenderer getRenderer()
     return rcCanvas;
   }
 
+  /**
+   * Returns the animation clock which drives all animated layer items of this viewer instance.
+   */
+  public AnimationClock getAnimationClock()
+  {
+    return animationClock;
+  }
+
   /** Returns the instance which handles all listeners of the area viewer. */
   Listeners getListeners()
   {
@@ -312,6 +333,7 @@ private void init()
     rcCanvas.setVerticalAlignment(RenderCanvas.CENTER);
     rcCanvas.setLocation(0, 0);
     rcCanvas.setLayout(null);
+    itemIndex = new LayerItemIndex(rcCanvas);
     c = ViewerUtil.setGBC(c, 0, 0, 1, 1, 0.0, 0.0, GridBagConstraints.CENTER,
                           GridBagConstraints.BOTH, new Insets(0, 0, 0, 0), 0, 0);
     pCanvas.add(rcCanvas, c);
@@ -453,6 +475,8 @@ private void init()
     JLabel lPosYLabel = new JLabel(LabelInfoY);
     lPosX = new JLabel("0");
     lPosY = new JLabel("0");
+    JLabel lAnimStatsLabel = new JLabel(LabelInfoAnim);
+    lAnimStats = new JLabel("-");
     taInfo = new JTextArea(4, 15);
     taInfo.setEditable(false);
     taInfo.setFont(lPosX.getFont());
@@ -475,7 +499,13 @@ private void init()
     c = ViewerUtil.setGBC(c, 1, 1, 1, 1, 0.0, 0.0, GridBagConstraints.FIRST_LINE_START,
                           GridBagConstraints.HORIZONTAL, new Insets(4, 8, 0, 0), 0, 0);
     p.add(lPosY, c);
-    c = ViewerUtil.setGBC(c, 0, 2, 2, 1, 1.0, 1.0, GridBagConstraints.FIRST_LINE_START,
+    c = ViewerUtil.setGBC(c, 0, 2, 1, 1, 0.0, 0.0, GridBagConstraints.FIRST_LINE_START,
+                          GridBagConstraints.NONE, new Insets(4, 0, 0, 0), 0, 0);
+    p.add(lAnimStatsLabel, c);
+    c = ViewerUtil.setGBC(c, 1, 2, 1, 1, 0.0, 0.0, GridBagConstraints.FIRST_LINE_START,
+                          GridBagConstraints.HORIZONTAL, new Insets(4, 8, 0, 0), 0, 0);
+    p.add(lAnimStats, c);
+    c = ViewerUtil.setGBC(c, 0, 3, 2, 1, 1.0, 1.0, GridBagConstraints.FIRST_LINE_START,
                           GridBagConstraints.BOTH, new Insets(4, 0, 0, 0), 0, 0);
     p.add(taInfo, c);
 
@@ -1269,6 +1299,21 @@ private void showMapCoordinates(Point coords)
     }
   }
 
+  // Shows statistics of the animation clock
+  private void updateAnimationStatistics()
+  {
+    if (lAnimStats != null) {
+      if (animationClock.isRunning()) {
+        lAnimStats.setText(String.format("%.1f fps (%.2f ms)", animationClock.getFramesPerSecond(),
+                                         animationClock.getAverageTickTime()));
+        lAnimStats.setToolTipText(animationClock.getStatistics());
+      } else {
+        lAnimStats.setText("-");
+        lAnimStats.setToolTipText(null);
+      }
+    }
+  }
+
   // Shows a description in the info box
   private void setInfoText(String text)
   {
@@ -1293,6 +1338,12 @@ private boolean updateItemPopup(Point canvasCoords)
       Point itemLocation = new Point();
       pmItems.removeAll();
 
+      // considering only items located at the specified position
+      IdentityHashMap<AbstractLayerItem, Boolean> candidates = new IdentityHashMap<AbstractLayerItem, Boolean>();
+      for (final AbstractLayerItem item: itemIndex.getItemsAt(canvasCoords)) {
+        candidates.put(item, Boolean.TRUE);
+      }
+
       // for each active layer...
       for (int i = 0, lloSize = Settings.ListLayerOrder.size(); i < lloSize; i++) {
         LayerStackingType stacking = Settings.ListLayerOrder.get(i);
@@ -1322,6 +1373,9 @@ private boolean updateItemPopup(Point canvasCoords)
                     break;
                   }
                 }
+                if (!candidates.containsKey(items[k])) {
+                  continue;
+                }
                 itemLocation.x = canvasCoords.x - items[k].getX();
                 itemLocation.y = canvasCoords.y - items[k].getY();
                 if (items[k].isVisible() && items[k].contains(itemLocation)) {
@@ -1681,18 +1735,18 @@ private void addLayerItem(LayerStackingType layer, LayerObject object)
       if (layer == LayerStackingType.AMBIENT) {
         AbstractLayerItem item = object.getLayerItem(ViewerConstants.AMBIENT_ITEM_ICON);
         if (item != null) {
-          rcCanvas.add(item);
+          itemIndex.add(item);
         }
       } else if (layer == LayerStackingType.AMBIENT_RANGE) {
         AbstractLayerItem item = object.getLayerItem(ViewerConstants.AMBIENT_ITEM_RANGE);
         if (item != null) {
-          rcCanvas.add(item);
+          itemIndex.add(item);
         }
       } else {
         AbstractLayerItem[] items = object.getLayerItems();
         if (items != null) {
           for (int i = 0; i < items.length; i++) {
-            rcCanvas.add(items[i]);
+            itemIndex.add(items[i]);
           }
         }
       }
@@ -1727,17 +1781,17 @@ private void removeLayerItem(LayerStackingType layer, LayerObject object)
     if (object != null) {
       if (layer == LayerStackingType.AMBIENT) {
         AbstractLayerItem item = object.getLayerItem(ViewerConstants.AMBIENT_ITEM_ICON);
-        rcCanvas.remove(item);
+        itemIndex.remove(item);
       } else if (layer == LayerStackingType.AMBIENT_RANGE) {
         AbstractLayerItem item = object.getLayerItem(ViewerConstants.AMBIENT_ITEM_RANGE);
         if (item != null) {
-          rcCanvas.remove(item);
+          itemIndex.remove(item);
         }
       } else {
         AbstractLayerItem[] items = object.getLayerItems();
         if (items != null) {
           for (int i = 0; i < items.length; i++) {
-            rcCanvas.remove(items[i]);
+            itemIndex.remove(items[i]);
           }
         }
       }
@@ -1749,7 +1803,7 @@ private void removeLayerItem(LayerStackingType layer, LayerObject object)
   private void orderLayerItems()
   {
     if (layerManager != null) {
-      int index = 0;
+      List<AbstractLayerItem> order = new ArrayList<AbstractLayerItem>();
       for (int i = 0, lloSize = Settings.ListLayerOrder.size(); i < lloSize; i++) {
         List<? extends LayerObject> list = layerManager.getLayerObjects(Settings.stackingToLayer(Settings.ListLayerOrder.get(i)));
         if (list != null) {
@@ -1759,22 +1813,19 @@ private void orderLayerItems()
               LayerObjectAmbient obj = (LayerObjectAmbient)list.get(j);
               AbstractLayerItem item = obj.getLayerItem(ViewerConstants.AMBIENT_ITEM_RANGE);
               if (item != null) {
-                rcCanvas.setComponentZOrder(item, index);
-                index++;
+                order.add(item);
               }
             } else if (Settings.ListLayerOrder.get(i) == LayerStackingType.AMBIENT) {
               // Special: process ambient icons only
               LayerObjectAmbient obj = (LayerObjectAmbient)list.get(j);
               AbstractLayerItem item = obj.getLayerItem(ViewerConstants.AMBIENT_ITEM_ICON);
-              rcCanvas.setComponentZOrder(item, index);
-              index++;
+              order.add(item);
             } else {
               AbstractLayerItem[] items = list.get(j).getLayerItems();
               if (items != null) {
                 for (int k = 0; k < items.length; k++) {
-                  if (items[k].getParent() != null) {
-                    rcCanvas.setComponentZOrder(items[k], index);
-                    index++;
+                  if (itemIndex.contains(items[k])) {
+                    order.add(items[k]);
                   }
                 }
               }
@@ -1782,6 +1833,7 @@ private void orderLayerItems()
           }
         }
       }
+      itemIndex.setStackingOrder(order);
     }
   }
 
@@ -1804,6 +1856,7 @@ private void updateLayerItems(LayerStackingType layer)
           updateLayerItem(list.get(i));
         }
       }
+      itemIndex.invalidate();
     }
   }
 
@@ -1984,12 +2037,14 @@ public void run()
           if (isExportLayersEnabled()) {
             double zoom = getZoomFactor();
             setZoomFactor(1.0, 1.0);
+            itemIndex.setCullingEnabled(false);
             try {
               dstImage = new BufferedImage(rcCanvas.getWidth(), rcCanvas.getHeight(), BufferedImage.TYPE_INT_RGB);
               Graphics2D g = dstImage.createGraphics();
               rcCanvas.paint(g);
               g.dispose();
             } finally {
+              itemIndex.setCullingEnabled(true);
               setZoomFactor(zoom, Settings.ZoomFactor);
             }
           } else {
@@ -2029,7 +2084,8 @@ public void run()
   // Handles all events of the viewer
   private class Listeners implements ActionListener, MouseListener, MouseMotionListener, MouseWheelListener,
                                      ChangeListener, TilesetChangeListener, PropertyChangeListener,
-                                     LayerItemListener, ComponentListener, TreeExpansionListener
+                                     LayerItemListener, ComponentListener, TreeExpansionListener,
+                                     AnimationClock.FrameBoundsListener
   {
     public Listeners()
     {
@@ -2345,7 +2401,11 @@ public void mouseWheelMoved(MouseWheelEvent event)
     @Override
     public void stateChanged(ChangeEvent event)
     {
-      if (event.getSource() == pDayTime) {
+      if (event.getSource() == animationClock) {
+        updateAnimationStatistics();
+      } else if (event.getSource() == spCanvas.getViewport()) {
+        itemIndex.viewChanged();
+      } else if (event.getSource() == pDayTime) {
         if (workerLoadMap == null) {
           // loading map in a separate thread
           if (workerLoadMap == null) {
@@ -2538,6 +2598,19 @@ public void treeCollapsed(TreeExpansionEvent event)
     }
 
     //--------------------- End Interface TreeExpansionListener ---------------------
+
+    //--------------------- Begin Interface FrameBoundsListener ---------------------
+
+    @Override
+    public void frameBoundsChanged(List<AnimatedLayerItem> items)
+    {
+      // keeps hit-testing and culling in sync with the current animation frames
+      if (itemIndex != null) {
+        itemIndex.boundsChanged(items);
+      }
+    }
+
+    //--------------------- End Interface FrameBoundsListener ---------------------
   }
 
 
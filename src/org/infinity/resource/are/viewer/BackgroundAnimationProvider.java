@@ -77,6 +77,8 @@ public void setAnimation(BamDecoder bam)
     this.control.setSharedPerCycle(!isMultiPart());
     if (this.control instanceof BamV1Decoder.BamV1Control) {
       ((BamV1Decoder.BamV1Control)this.control).setTransparencyMode(BamV1Decoder.TransparencyMode.NORMAL);
+      // frames are redrawn on every animation step
+      ((BamV1Decoder.BamV1Control)this.control).setFrameCacheEnabled(true);
     }
     resetFrame();
 
@@ -444,17 +446,12 @@ private synchronized void updateGraphics()
           for (int i = 0; i < frameIndices.length; i++) {
             // fetching frame data
             int[] buffer = ((DataBufferInt)working.getRaster().getDataBuffer()).getData();
+            int canvasWidth = working.getWidth();
+            int canvasHeight = working.getHeight();
             Arrays.fill(buffer, 0);
-            if (bam instanceof BamV1Decoder) {
-              ((BamV1Decoder)bam).frameGet(control, frameIndices[i], working);
-            } else {
-              bam.frameGet(control, frameIndices[i], working);
-            }
+            bam.frameGet(control, frameIndices[i], buffer, canvasWidth, canvasHeight);
 
             // post-processing frame
-            buffer = ((DataBufferInt)working.getRaster().getDataBuffer()).getData();
-            int canvasWidth = working.getWidth();
-            int canvasHeight = working.getHeight();
             int frameWidth = bam.getFrameInfo(frameIndices[i]).getWidth();
             int frameHeight = bam.getFrameInfo(frameIndices[i]).getHeight();
 
@@ -8,6 +8,7 @@
 import java.util.List;
 
 import org.infinity.gui.layeritem.AbstractLayerItem;
+import org.infinity.gui.layeritem.AnimatedLayerItem;
 import org.infinity.resource.AbstractStruct;
 import org.infinity.resource.StructEntry;
 import org.infinity.resource.are.AreResource;
@@ -313,6 +314,9 @@ protected void setListeners(LayerObject obj)
           items[i].addLayerItemListener(viewer.getListeners());
           items[i].addMouseListener(viewer.getListeners());
           items[i].addMouseMotionListener(viewer.getListeners());
+          if (items[i] instanceof AnimatedLayerItem) {
+            ((AnimatedLayerItem)items[i]).setAnimationClock(viewer.getAnimationClock());
+          }
         }
       }
     }
@@ -0,0 +1,302 @@
+// Near Infinity - An Infinity Engine Browser and Editor
+// Copyright (C) 2001 - 2005 Jon Olav Hauglid
+// See LICENSE.txt for license information
+
+package org.infinity.resource.are.viewer;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.swing.JComponent;
+import javax.swing.SwingUtilities;
+
+import org.infinity.gui.layeritem.AbstractLayerItem;
+import org.infinity.util.GridIndex;
+
+/**
+ * Manages the layer items of a map canvas.
+ * <p>
+ * All registered layer items are kept in a spatial index. Only items intersecting with the visible
+ * area of the canvas (plus a margin) are added to the canvas as components, so that painting and
+ * hit-testing by Swing only have to consider items near the viewport. Components are kept in the
+ * stacking order defined by {@link #setStackingOrder(List)}.
+ * <p>
+ * Changes are applied asynchronously on the event dispatch thread. Call {@link #invalidate()}
+ * whenever the bounds of registered items have changed, or {@link #boundsChanged(Collection)} if only
+ * a few items are affected (e.g. by new animation frames).
+ */
+class LayerItemIndex
+{
+  // Size of a single grid cell of the spatial index, in canvas pixels
+  private static final int CELL_SIZE = 256;
+  // Margin around the visible area of the canvas, in canvas pixels
+  private static final int MARGIN = 256;
+
+  private final Map<AbstractLayerItem, Integer> ranks = new IdentityHashMap<AbstractLayerItem, Integer>();
+  private final GridIndex<AbstractLayerItem> grid = new GridIndex<AbstractLayerItem>(CELL_SIZE);
+  private final JComponent canvas;
+  private final Runnable updater = new Runnable() {
+    @Override
+    public void run()
+    {
+      update();
+    }
+  };
+
+  private List<AbstractLayerItem> materialized = new ArrayList<AbstractLayerItem>();
+  private Rectangle lastArea;
+  private int nextRank;
+  private boolean cullingEnabled, indexValid, updatePending;
+
+  public LayerItemIndex(JComponent canvas)
+  {
+    if (canvas == null) {
+      throw new NullPointerException();
+    }
+    this.canvas = canvas;
+    this.cullingEnabled = true;
+  }
+
+  /** Registers the specified layer item. Does nothing if the item has been registered already. */
+  public synchronized void add(AbstractLayerItem item)
+  {
+    if (item != null && !ranks.containsKey(item)) {
+      ranks.put(item, Integer.valueOf(nextRank++));
+      indexValid = false;
+      scheduleUpdate();
+    }
+  }
+
+  /** Unregisters the specified layer item and removes it from the canvas. */
+  public synchronized void remove(AbstractLayerItem item)
+  {
+    if (item != null && ranks.remove(item) != null) {
+      grid.remove(item);
+      if (materialized.remove(item)) {
+        canvas.remove(item);
+      }
+    }
+  }
+
+  /** Unregisters all layer items and removes them from the canvas. */
+  public synchronized void clear()
+  {
+    for (final AbstractLayerItem item: materialized) {
+      canvas.remove(item);
+    }
+    materialized.clear();
+    ranks.clear();
+    grid.clear();
+    nextRank = 0;
+    lastArea = null;
+  }
+
+  /** Returns whether the specified layer item has been registered. */
+  public synchronized boolean contains(AbstractLayerItem item)
+  {
+    return ranks.containsKey(item);
+  }
+
+  /**
+   * Defines the stacking order of the layer items. Items at the start of the list are placed on top.
+   * Registered items not contained in the list are placed below them.
+   */
+  public synchronized void setStackingOrder(List<? extends AbstractLayerItem> items)
+  {
+    Map<AbstractLayerItem, Integer> oldRanks = new IdentityHashMap<AbstractLayerItem, Integer>(ranks);
+    int rank = 0;
+    for (final AbstractLayerItem item: items) {
+      if (oldRanks.remove(item) != null) {
+        ranks.put(item, Integer.valueOf(rank++));
+      }
+    }
+
+    // keeping relative order of remaining items
+    List<AbstractLayerItem> remaining = new ArrayList<AbstractLayerItem>(oldRanks.keySet());
+    sortByRank(remaining, oldRanks);
+    for (final AbstractLayerItem item: remaining) {
+      ranks.put(item, Integer.valueOf(rank++));
+    }
+    nextRank = rank;
+    lastArea = null;
+    scheduleUpdate();
+  }
+
+  /** Marks the bounds of all registered items as changed. */
+  public synchronized void invalidate()
+  {
+    indexValid = false;
+    scheduleUpdate();
+  }
+
+  /**
+   * Updates the indexed bounds of the specified registered items. Items are added to or removed
+   * from the canvas if they moved into or out of the visible area.
+   */
+  public synchronized void boundsChanged(Collection<? extends AbstractLayerItem> items)
+  {
+    if (!indexValid) {
+      // bounds are determined when the index is rebuilt
+      return;
+    }
+    boolean relayout = false;
+    for (final AbstractLayerItem item: items) {
+      if (ranks.containsKey(item)) {
+        Rectangle r = item.getBounds();
+        grid.put(item, r);
+        if (cullingEnabled && lastArea != null && r.intersects(lastArea) != (item.getParent() == canvas)) {
+          relayout = true;
+        }
+      }
+    }
+    if (relayout) {
+      lastArea = null;
+      scheduleUpdate();
+    }
+  }
+
+  /** Notifies the index that the visible area of the canvas has changed. */
+  public synchronized void viewChanged()
+  {
+    scheduleUpdate();
+  }
+
+  /** Returns whether only items near the visible area are added to the canvas. */
+  public synchronized boolean isCullingEnabled()
+  {
+    return cullingEnabled;
+  }
+
+  /**
+   * Specifies whether only items near the visible area are added to the canvas. Changes are applied
+   * immediately. Culling should be disabled temporarily when the whole canvas is rendered.
+   */
+  public synchronized void setCullingEnabled(boolean set)
+  {
+    if (set != cullingEnabled) {
+      cullingEnabled = set;
+      lastArea = null;
+      update();
+    }
+  }
+
+  /** Returns all registered layer items whose bounds contain the specified canvas coordinate. */
+  public synchronized List<AbstractLayerItem> getItemsAt(Point pt)
+  {
+    validateIndex();
+    return grid.query(pt);
+  }
+
+  /** Returns the number of layer items currently added to the canvas. */
+  public synchronized int getMaterializedCount()
+  {
+    return materialized.size();
+  }
+
+  // Adds items near the visible area to the canvas and removes all others
+  private synchronized void update()
+  {
+    updatePending = false;
+    boolean indexChanged = !indexValid;
+    validateIndex();
+
+    Rectangle area = null;
+    List<AbstractLayerItem> items;
+    if (cullingEnabled) {
+      area = canvas.getVisibleRect();
+      area.grow(MARGIN, MARGIN);
+      if (!indexChanged && area.equals(lastArea)) {
+        return;
+      }
+      items = grid.query(area);
+    } else {
+      items = new ArrayList<AbstractLayerItem>(ranks.keySet());
+    }
+    lastArea = area;
+
+    sortByRank(items, ranks);
+
+    // removing obsolete items from canvas
+    Map<AbstractLayerItem, Boolean> itemSet = new IdentityHashMap<AbstractLayerItem, Boolean>(items.size() * 2);
+    for (final AbstractLayerItem item: items) {
+      itemSet.put(item, Boolean.TRUE);
+    }
+    Rectangle dirty = null;
+    for (final AbstractLayerItem item: materialized) {
+      if (!itemSet.containsKey(item)) {
+        canvas.remove(item);
+        dirty = addDirty(dirty, item);
+      }
+    }
+
+    // adding new items to the canvas in stacking order
+    for (int i = 0, size = items.size(); i < size; i++) {
+      AbstractLayerItem item = items.get(i);
+      if (item.getParent() != canvas) {
+        canvas.add(item, i);
+        dirty = addDirty(dirty, item);
+      } else if (canvas.getComponent(i) != item) {
+        canvas.setComponentZOrder(item, i);
+        dirty = addDirty(dirty, item);
+      }
+    }
+    materialized = items;
+
+    if (dirty != null) {
+      dirty = dirty.intersection(canvas.getVisibleRect());
+      if (!dirty.isEmpty()) {
+        canvas.repaint(dirty);
+      }
+    }
+  }
+
+  // Rebuilds the spatial index if needed
+  private void validateIndex()
+  {
+    if (!indexValid) {
+      grid.clear();
+      for (final AbstractLayerItem item: ranks.keySet()) {
+        grid.put(item, item.getBounds());
+      }
+      indexValid = true;
+    }
+  }
+
+  private void scheduleUpdate()
+  {
+    if (!updatePending) {
+      updatePending = true;
+      SwingUtilities.invokeLater(updater);
+    }
+  }
+
+  private static void sortByRank(List<AbstractLayerItem> items, final Map<AbstractLayerItem, Integer> ranks)
+  {
+    Collections.sort(items, new Comparator<AbstractLayerItem>() {
+      @Override
+      public int compare(AbstractLayerItem item1, AbstractLayerItem item2)
+      {
+        return ranks.get(item1).compareTo(ranks.get(item2));
+      }
+    });
+  }
+
+  private static Rectangle addDirty(Rectangle dirty, AbstractLayerItem item)
+  {
+    if (item.isVisible()) {
+      if (dirty == null) {
+        dirty = item.getBounds();
+      } else {
+        dirty.add(item.getBounds());
+      }
+    }
+    return dirty;
+  }
+}
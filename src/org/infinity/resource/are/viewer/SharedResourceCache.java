@@ -8,8 +8,13 @@
 import java.util.HashMap;
 import java.util.Iterator;
 
+import org.infinity.util.LruCache;
+
 /**
  * A global storage class that caches data objects of supported types associated with a unique key.
+ * <p>
+ * Data objects are reference counted. Objects which are not referenced anymore are kept in a
+ * size-limited cache for a while, so that they can be reused when an area is opened again.
  */
 public class SharedResourceCache
 {
@@ -26,6 +31,14 @@ public static enum Type {
 //    tables.put(Type.Creature, new HashMap<Object, DataWrapper>());
   }
 
+  // Data objects which are not referenced anymore
+  private static EnumMap<Type, LruCache<Object, Object>> released =
+      new EnumMap<Type, LruCache<Object, Object>>(Type.class);
+  static {
+    released.put(Type.ICON, new LruCache<Object, Object>(256, 0L, null, false));
+    released.put(Type.ANIMATION, new LruCache<Object, Object>(64, 0L, null, false));
+  }
+
 
   /**
    * Generates a simple key from the hash code of the specified object.
@@ -60,6 +73,7 @@ public static synchronized boolean add(Type type, Object key, Object data)
       return false;
     } else {
       // add new entry
+      released.get(type).remove(key);
       tables.get(type).put(key, new DataWrapper(data));
       return true;
     }
@@ -83,6 +97,12 @@ public static synchronized boolean add(Type type, Object key)
       tables.get(type).get(key).incRefCount();
       return true;
     } else {
+      // reusing released data object
+      Object data = released.get(type).remove(key);
+      if (data != null) {
+        tables.get(type).put(key, new DataWrapper(data));
+        return true;
+      }
       return false;
     }
   }
@@ -107,6 +127,9 @@ public static synchronized boolean remove(Type type, Object key)
       dw.decRefCount();
       if (!dw.isReferenced()) {
         tables.get(type).remove(key);
+        if (dw.getData() != null) {
+          released.get(type).put(key, dw.getData());
+        }
         return true;
       }
     }
@@ -119,7 +142,7 @@ public static synchronized boolean remove(Type type, Object key)
    * @return The data object identified by the specified key.
    * @exception NullPointerException if key is {@code null}.
    */
-  public static Object get(Type type, Object key)
+  public static synchronized Object get(Type type, Object key)
   {
     if (type == null) {
       throw new NullPointerException("type is null");
@@ -130,7 +153,7 @@ public static Object get(Type type, Object key)
     if (tables.get(type).containsKey(key)) {
       return tables.get(type).get(key).getData();
     }
-    return null;
+    return released.get(type).get(key);
   }
 
   /**
@@ -139,7 +162,7 @@ public static Object get(Type type, Object key)
    * @return {@code true} if a cached entry exists, {@code false} otherwise.
    * @exception NullPointerException if key is {@code null}.
    */
-  public static boolean contains(Type type, Object key)
+  public static synchronized boolean contains(Type type, Object key)
   {
     if (type == null) {
       throw new NullPointerException("type is null");
@@ -147,7 +170,8 @@ public static boolean contains(Type type, Object key)
     if (key == null) {
       throw new NullPointerException("key is null");
     }
-    return tables.get(type).containsKey(key);
+    // lookup marks released entries as recently used
+    return tables.get(type).containsKey(key) || released.get(type).get(key) != null;
   }
 
   /**
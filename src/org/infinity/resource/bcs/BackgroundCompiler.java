@@ -0,0 +1,357 @@
+// Near Infinity - An Infinity Engine Browser and Editor
+// Copyright (C) 2001 - 2005 Jon Olav Hauglid
+// See LICENSE.txt for license information
+
+package org.infinity.resource.bcs;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+
+import org.infinity.gui.BrowserMenuBar;
+import org.infinity.gui.ScriptTextArea;
+
+/**
+ * Compiles the BAF source of a {@link ScriptTextArea} in the background while the user is typing
+ * and marks errors and warnings in the gutter of the text area.
+ * <p>
+ * The script source is split into blocks starting with an {@code IF} keyword. Compile results are
+ * kept per block, so that only blocks which have been changed since the last run have to be parsed
+ * again. Compilation is started after the document has not been modified for a short time.
+ */
+public class BackgroundCompiler implements DocumentListener, ActionListener
+{
+  /** Default delay after the last document change before compilation starts, in milliseconds. */
+  public static final int DEFAULT_DELAY = 750;
+
+  private final ScriptTextArea textArea;
+  private final Timer timer;
+  // Compile results of individual blocks, mapped by block source
+  private final HashMap<String, BlockResult> blockCache = new HashMap<>();
+
+  private SortedSet<ScriptMessage> errors = Collections.emptySortedSet();
+  private SortedSet<ScriptMessage> warnings = Collections.emptySortedSet();
+  private SwingWorker<Void, Void> worker;
+  private boolean pending;
+  private boolean verbose;
+  private boolean closed;
+
+  public BackgroundCompiler(ScriptTextArea textArea)
+  {
+    this(textArea, DEFAULT_DELAY);
+  }
+
+  /**
+   * Attaches a new background compiler to the specified text area.
+   * @param textArea The text area containing BAF script source.
+   * @param delay Delay after the last document change before compilation starts, in milliseconds.
+   */
+  public BackgroundCompiler(ScriptTextArea textArea, int delay)
+  {
+    if (textArea == null) {
+      throw new NullPointerException();
+    }
+    this.textArea = textArea;
+    this.timer = new Timer(Math.max(0, delay), this);
+    this.timer.setRepeats(false);
+    this.textArea.getDocument().addDocumentListener(this);
+  }
+
+  /** Returns the text area associated with this compiler. */
+  public ScriptTextArea getTextArea()
+  {
+    return textArea;
+  }
+
+  /** Returns errors of the most recent compilation run. */
+  public SortedSet<ScriptMessage> getErrors()
+  {
+    return errors;
+  }
+
+  /** Returns warnings of the most recent compilation run. */
+  public SortedSet<ScriptMessage> getWarnings()
+  {
+    return warnings;
+  }
+
+  /** Schedules a new compilation run of the current text area content. */
+  public void schedule()
+  {
+    if (!closed) {
+      timer.restart();
+    }
+  }
+
+  /** Detaches the compiler from the text area and discards all cached data. */
+  public void close()
+  {
+    closed = true;
+    timer.stop();
+    textArea.getDocument().removeDocumentListener(this);
+    if (worker != null) {
+      worker.cancel(false);
+      worker = null;
+    }
+    synchronized (blockCache) {
+      blockCache.clear();
+    }
+  }
+
+//--------------------- Begin Interface DocumentListener ---------------------
+
+  @Override
+  public void insertUpdate(DocumentEvent e)
+  {
+    schedule();
+  }
+
+  @Override
+  public void removeUpdate(DocumentEvent e)
+  {
+    schedule();
+  }
+
+  @Override
+  public void changedUpdate(DocumentEvent e)
+  {
+    // style changes don't affect script source
+  }
+
+//--------------------- End Interface DocumentListener ---------------------
+
+//--------------------- Begin Interface ActionListener ---------------------
+
+  @Override
+  public void actionPerformed(ActionEvent e)
+  {
+    if (e.getSource() == timer) {
+      compile();
+    }
+  }
+
+//--------------------- End Interface ActionListener ---------------------
+
+  // Starts a new compilation run in the background (must be called from the EDT)
+  private void compile()
+  {
+    if (closed || !isEnabled()) {
+      return;
+    }
+
+    if (worker != null) {
+      // compile again after the current run has finished
+      pending = true;
+      return;
+    }
+
+    final String source = textArea.getText();
+    final boolean verbose = (BrowserMenuBar.getInstance() != null) &&
+                            BrowserMenuBar.getInstance().showMoreCompileWarnings();
+    worker = new SwingWorker<Void, Void>() {
+      private final SortedSet<ScriptMessage> newErrors = new TreeSet<>();
+      private final SortedSet<ScriptMessage> newWarnings = new TreeSet<>();
+
+      @Override
+      protected Void doInBackground() throws Exception
+      {
+        compileBlocks(source, verbose, newErrors, newWarnings);
+        return null;
+      }
+
+      @Override
+      protected void done()
+      {
+        worker = null;
+        if (!isCancelled() && !closed) {
+          publishMessages(newErrors, newWarnings);
+        }
+        if (pending) {
+          pending = false;
+          compile();
+        }
+      }
+    };
+    worker.execute();
+  }
+
+  // Compiles all blocks of the specified source. Results of unchanged blocks are taken from the cache.
+  private void compileBlocks(String source, boolean verbose,
+                             SortedSet<ScriptMessage> errors, SortedSet<ScriptMessage> warnings)
+  {
+    List<Block> blocks = splitBlocks(source);
+    HashMap<String, BlockResult> cache;
+    synchronized (blockCache) {
+      if (verbose != this.verbose) {
+        blockCache.clear();
+        this.verbose = verbose;
+      }
+      cache = new HashMap<>(blockCache);
+    }
+
+    HashMap<String, BlockResult> newCache = new HashMap<>();
+    for (final Block block: blocks) {
+      BlockResult result = cache.get(block.source);
+      if (result == null) {
+        result = new BlockResult(block.source, verbose);
+      }
+      newCache.put(block.source, result);
+      result.addMessages(block.line, errors, warnings);
+    }
+
+    // discarding results of blocks that don't exist anymore
+    synchronized (blockCache) {
+      blockCache.clear();
+      blockCache.putAll(newCache);
+    }
+  }
+
+  // Updates the gutter markers of the text area (must be called from the EDT)
+  private void publishMessages(SortedSet<ScriptMessage> newErrors, SortedSet<ScriptMessage> newWarnings)
+  {
+    errors = Collections.unmodifiableSortedSet(newErrors);
+    warnings = Collections.unmodifiableSortedSet(newWarnings);
+
+    textArea.clearGutterIcons();
+    for (final ScriptMessage sm: errors) {
+      textArea.setLineError(sm.getLine(), sm.getMessage(), false);
+    }
+    for (final ScriptMessage sm: warnings) {
+      textArea.setLineWarning(sm.getLine(), sm.getMessage(), false);
+    }
+  }
+
+  private static boolean isEnabled()
+  {
+    return (BrowserMenuBar.getInstance() == null) || BrowserMenuBar.getInstance().checkScriptsWhileTyping();
+  }
+
+  /**
+   * Splits the specified BAF source into blocks. Each block except the first one starts with
+   * an {@code IF} keyword at the beginning of a line. Keywords inside of comments are ignored.
+   */
+  static List<Block> splitBlocks(String source)
+  {
+    List<Block> blocks = new ArrayList<>();
+    int start = 0, startLine = 1;
+    int pos = 0, line = 1;
+    boolean inComment = false;
+    while (pos < source.length()) {
+      int eol = source.indexOf('\n', pos);
+      if (eol < 0) {
+        eol = source.length();
+      }
+
+      if (!inComment && pos > start && isBlockStart(source, pos, eol)) {
+        blocks.add(new Block(source.substring(start, pos), startLine));
+        start = pos;
+        startLine = line;
+      }
+      inComment = scanLine(source, pos, eol, inComment);
+
+      pos = eol + 1;
+      line++;
+    }
+    blocks.add(new Block(source.substring(start), startLine));
+    return blocks;
+  }
+
+  // Returns whether the specified line starts with an IF keyword
+  private static boolean isBlockStart(String source, int pos, int eol)
+  {
+    while (pos < eol && Character.isWhitespace(source.charAt(pos))) {
+      pos++;
+    }
+    if (eol - pos >= 2 && source.startsWith("IF", pos)) {
+      return (pos + 2 == eol) || !Character.isLetterOrDigit(source.charAt(pos + 2)) && source.charAt(pos + 2) != '_';
+    }
+    return false;
+  }
+
+  // Returns whether the specified line ends inside of a multi-line comment
+  private static boolean scanLine(String source, int pos, int eol, boolean inComment)
+  {
+    while (pos < eol) {
+      char ch = source.charAt(pos);
+      if (inComment) {
+        if (ch == '*' && pos + 1 < eol && source.charAt(pos + 1) == '/') {
+          inComment = false;
+          pos++;
+        }
+      } else if (ch == '/' && pos + 1 < eol && source.charAt(pos + 1) == '/') {
+        break;
+      } else if (ch == '/' && pos + 1 < eol && source.charAt(pos + 1) == '*') {
+        inComment = true;
+        pos++;
+      } else if (ch == '"' || ch == '~' || ch == '%' || ch == '#') {
+        // skipping string literal (cannot span multiple lines)
+        int end = source.indexOf(ch, pos + 1);
+        if (end >= 0 && end < eol) {
+          pos = end;
+        }
+      }
+      pos++;
+    }
+    return inComment;
+  }
+
+//-------------------------- INNER CLASSES --------------------------
+
+  /** A section of the script source. */
+  static class Block
+  {
+    /** Source code of the block. */
+    public final String source;
+    /** One-based line number of the first block line. */
+    public final int line;
+
+    public Block(String source, int line)
+    {
+      this.source = source;
+      this.line = line;
+    }
+  }
+
+  /** Compile results of a single block. Line numbers are relative to the start of the block. */
+  private static class BlockResult
+  {
+    private final List<ScriptMessage> errors;
+    private final List<ScriptMessage> warnings;
+
+    public BlockResult(String source, boolean verbose)
+    {
+      Compiler compiler = new Compiler(source);
+      compiler.setVerbose(verbose);
+      compiler.compile();
+      this.errors = new ArrayList<>(compiler.getErrors());
+      this.warnings = new ArrayList<>(compiler.getWarnings());
+    }
+
+    /** Adds all messages of the block to the specified sets, adjusted to the given start line. */
+    public void addMessages(int startLine, SortedSet<ScriptMessage> errors, SortedSet<ScriptMessage> warnings)
+    {
+      for (final ScriptMessage sm: this.errors) {
+        errors.add(relocate(sm, startLine));
+      }
+      for (final ScriptMessage sm: this.warnings) {
+        warnings.add(relocate(sm, startLine));
+      }
+    }
+
+    private static ScriptMessage relocate(ScriptMessage sm, int startLine)
+    {
+      int line = Math.max(1, sm.getLine());
+      return new ScriptMessage(sm.getMessage(), startLine + line - 1, sm.getColumn());
+    }
+  }
+}
@@ -87,6 +87,7 @@ public class BafResource implements TextResource, Writeable, Closeable, ItemList
   private JPanel panel;
   private InfinityTextArea codeText;
   private ScriptTextArea sourceText;
+  private BackgroundCompiler backgroundCompiler;
   private String text;
   private boolean sourceChanged = false;
 
@@ -143,6 +144,10 @@ public void close() throws Exception
       else if (result != 1)
         throw new Exception("Save aborted");
     }
+    if (backgroundCompiler != null) {
+      backgroundCompiler.close();
+      backgroundCompiler = null;
+    }
   }
 
 // --------------------- End Interface Closeable ---------------------
@@ -300,6 +305,7 @@ public JComponent makeViewer(ViewableContainer container)
     sourceText.setMargin(new Insets(3, 3, 3, 3));
     sourceText.setLineWrap(false);
     sourceText.getDocument().addDocumentListener(this);
+    backgroundCompiler = new BackgroundCompiler(sourceText);
     InfinityScrollPane scrollSource = new InfinityScrollPane(sourceText, true);
     scrollSource.setBorder(BorderFactory.createLineBorder(UIManager.getColor("controlDkShadow")));
 
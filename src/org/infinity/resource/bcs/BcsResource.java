@@ -87,6 +87,7 @@ public final class BcsResource implements TextResource, Writeable, Closeable, Ac
   private JTabbedPane tabbedPane;
   private InfinityTextArea codeText;
   private ScriptTextArea sourceText;
+  private BackgroundCompiler backgroundCompiler;
   private String text;
   private boolean sourceChanged = false, codeChanged = false;
 
@@ -153,6 +154,10 @@ public void close() throws Exception
         throw new Exception("Save aborted");
       }
     }
+    if (backgroundCompiler != null) {
+      backgroundCompiler.close();
+      backgroundCompiler = null;
+    }
   }
 
 // --------------------- End Interface Closeable ---------------------
@@ -364,6 +369,7 @@ public JComponent makeViewer(ViewableContainer container)
     sourceText.setMargin(new Insets(3, 3, 3, 3));
     sourceText.setLineWrap(false);
     sourceText.getDocument().addDocumentListener(this);
+    backgroundCompiler = new BackgroundCompiler(sourceText);
     InfinityScrollPane scrollDecompiled = new InfinityScrollPane(sourceText, true);
     scrollDecompiled.setBorder(BorderFactory.createLineBorder(UIManager.getColor("controlDkShadow")));
 
@@ -0,0 +1,215 @@
+// Near Infinity - An Infinity Engine Browser and Editor
+// Copyright (C) 2001 - 2005 Jon Olav Hauglid
+// See LICENSE.txt for license information
+
+package org.infinity.resource.bcs;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.infinity.resource.key.ResourceEntry;
+import org.infinity.util.LruCache;
+
+/**
+ * Caches results of script decompilation and compilation, so that consecutive checks and searches
+ * over the same set of scripts don't have to process unchanged scripts again.
+ * <p>
+ * Results are keyed by a hash of the script content and the options that affect the output.
+ * All methods are thread-safe and can be called concurrently by worker threads.
+ * <p>
+ * <b>Note:</b> Decompiled source including comments is not cached since comments contain string
+ * table content which can change at any time.
+ */
+public final class ScriptCache
+{
+  /** Max. number of characters of script source kept in the cache. */
+  private static final long MAX_CACHE_WEIGHT = 16L * 1024L * 1024L;
+
+  private static final LruCache<String, Entry> cache =
+      new LruCache<>(0, MAX_CACHE_WEIGHT, (k, v) -> v.weight, false);
+
+  /**
+   * Decompiles the specified BCS byte code without comments.
+   * @param code The BCS byte code.
+   * @param generateErrors Whether to include IDS lookup errors in the generated source.
+   * @param generateResUsed Whether to collect referenced resources and strings.
+   * @return Decompiled script and associated data.
+   * @throws Exception if the script could not be decompiled.
+   */
+  public static DecompileResult decompile(String code, boolean generateErrors, boolean generateResUsed)
+      throws Exception
+  {
+    Decompiler decompiler = new Decompiler(code, ScriptType.BCS, generateErrors);
+    decompiler.setGenerateComments(false);
+    decompiler.setGenerateResourcesUsed(generateResUsed);
+
+    String key = createKey('D', decompiler.getCode(),
+                           generateErrors, generateResUsed, decompiler.getIndent());
+    DecompileResult retVal = get(key, DecompileResult.class);
+    if (retVal == null) {
+      retVal = new DecompileResult(decompiler);
+      put(key, retVal, retVal.getSource().length());
+    }
+    return retVal;
+  }
+
+  /**
+   * Compiles the specified BAF source.
+   * @param source The BAF script source.
+   * @param verbose Whether to generate additional warnings.
+   * @return Compiled byte code and associated errors and warnings.
+   */
+  public static CompileResult compile(String source, boolean verbose)
+  {
+    source = (source != null) ? source : "";
+    String key = createKey('C', source, verbose);
+    CompileResult retVal = get(key, CompileResult.class);
+    if (retVal == null) {
+      Compiler compiler = new Compiler(source);
+      compiler.setVerbose(verbose);
+      retVal = new CompileResult(compiler);
+      put(key, retVal, (retVal.getCode() != null) ? retVal.getCode().length() + 1 : 1);
+    }
+    return retVal;
+  }
+
+  /** Removes all cached results. Should be called whenever game resources or IDS files have changed. */
+  public static void clearCache()
+  {
+    cache.clear();
+  }
+
+  private static <T> T get(String key, Class<T> type)
+  {
+    Entry entry = cache.get(key);
+    if (entry != null && type.isInstance(entry.result)) {
+      return type.cast(entry.result);
+    }
+    return null;
+  }
+
+  private static void put(String key, Object result, int weight)
+  {
+    cache.put(key, new Entry(result, weight));
+  }
+
+  // Generates a key from content hash and options
+  private static String createKey(char prefix, String content, Object... options)
+  {
+    StringBuilder sb = new StringBuilder(64);
+    sb.append(prefix).append(':');
+    try {
+      MessageDigest md = MessageDigest.getInstance("SHA-1");
+      byte[] digest = md.digest(content.getBytes(StandardCharsets.UTF_8));
+      for (final byte b: digest) {
+        sb.append(Character.forDigit((b >> 4) & 0x0f, 16)).append(Character.forDigit(b & 0x0f, 16));
+      }
+    } catch (NoSuchAlgorithmException e) {
+      // should not happen; fall back to content
+      sb.append(content);
+    }
+    sb.append(':').append(content.length());
+    for (final Object o: options) {
+      sb.append(':').append(o);
+    }
+    return sb.toString();
+  }
+
+  private ScriptCache() {}
+
+//-------------------------- INNER CLASSES --------------------------
+
+  private static class Entry
+  {
+    public final Object result;
+    public final int weight;
+
+    public Entry(Object result, int weight)
+    {
+      this.result = result;
+      this.weight = weight;
+    }
+  }
+
+  /** Immutable results of a decompile operation. */
+  public static class DecompileResult
+  {
+    private final String source;
+    private final Set<ResourceEntry> resourcesUsed;
+    private final Set<Integer> strrefsUsed;
+    private final SortedMap<Integer, String> idsErrors;
+
+    private DecompileResult(Decompiler decompiler) throws Exception
+    {
+      this.source = decompiler.decompile();
+      this.resourcesUsed = Collections.unmodifiableSet(new HashSet<>(decompiler.getResourcesUsed()));
+      this.strrefsUsed = Collections.unmodifiableSet(new HashSet<>(decompiler.getStringRefsUsed()));
+      this.idsErrors = Collections.unmodifiableSortedMap(new TreeMap<>(decompiler.getIdsErrors()));
+    }
+
+    /** Returns the decompiled script source. */
+    public String getSource()
+    {
+      return source;
+    }
+
+    /** Returns all resources referenced by the script. */
+    public Set<ResourceEntry> getResourcesUsed()
+    {
+      return resourcesUsed;
+    }
+
+    /** Returns all string references used by the script. */
+    public Set<Integer> getStringRefsUsed()
+    {
+      return strrefsUsed;
+    }
+
+    /** Returns IDS lookup errors, mapped by line number. */
+    public SortedMap<Integer, String> getIdsErrors()
+    {
+      return idsErrors;
+    }
+  }
+
+  /** Immutable results of a compile operation. */
+  public static class CompileResult
+  {
+    private final String code;
+    private final SortedSet<ScriptMessage> errors;
+    private final SortedSet<ScriptMessage> warnings;
+
+    private CompileResult(Compiler compiler)
+    {
+      this.code = compiler.compile();
+      this.errors = Collections.unmodifiableSortedSet(new TreeSet<>(compiler.getErrors()));
+      this.warnings = Collections.unmodifiableSortedSet(new TreeSet<>(compiler.getWarnings()));
+    }
+
+    /** Returns the compiled BCS byte code. */
+    public String getCode()
+    {
+      return code;
+    }
+
+    /** Returns compile errors. */
+    public SortedSet<ScriptMessage> getErrors()
+    {
+      return errors;
+    }
+
+    /** Returns compile warnings. */
+    public SortedSet<ScriptMessage> getWarnings()
+    {
+      return warnings;
+    }
+  }
+}
@@ -24,7 +24,7 @@
  */
 public class Signatures
 {
-  private static HashMap<String, Signatures> instances = new HashMap<>();
+  private static final HashMap<String, Signatures> instances = new HashMap<>();
 
   private final TreeMap<Integer, HashSet<Function>> functions;
   private final HashMap<String, Function> functionsByName;
@@ -107,7 +107,7 @@ public Function getFunction(String name, boolean exact)
   /**
    * Removes all function signatures from cache.
    */
-  public static void clearCache()
+  public static synchronized void clearCache()
   {
     instances.clear();
   }
@@ -131,7 +131,7 @@ public static Signatures getActions()
    *                  or actions ({@code false}).
    * @return a {@code Signatures} instance. Returns {@code null} on error.
    */
-  public static Signatures get(String resource, boolean isTrigger)
+  public static synchronized Signatures get(String resource, boolean isTrigger)
   {
     Signatures retVal = null;
 
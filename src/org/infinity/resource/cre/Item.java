@@ -37,7 +37,7 @@ public Item() throws Exception
 
   public Item(AbstractStruct superStruct, ByteBuffer buffer, int offset, int nr) throws Exception
   {
-    super(superStruct, CRE_ITEM + " " + nr, buffer, offset);
+    super(superStruct, CRE_ITEM + " " + nr, buffer, offset, 10, 20);
   }
 
 //--------------------- Begin Interface AddRemovable ---------------------
@@ -30,7 +30,7 @@ public final class KnownSpells extends AbstractStruct implements AddRemovable
 
   KnownSpells(AbstractStruct superStruct, ByteBuffer buffer, int offset, int number) throws Exception
   {
-    super(superStruct, CRE_KNOWN + " " + number, buffer, offset);
+    super(superStruct, CRE_KNOWN + " " + number, buffer, offset, 10, 12);
   }
 
 //--------------------- Begin Interface AddRemovable ---------------------
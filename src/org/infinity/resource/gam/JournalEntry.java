@@ -45,7 +45,7 @@ public final class JournalEntry extends AbstractStruct implements AddRemovable
 
   JournalEntry(AbstractStruct superStruct, ByteBuffer buffer, int offset, int number) throws Exception
   {
-    super(superStruct, GAM_JOURNAL + " " + number, buffer, offset);
+    super(superStruct, GAM_JOURNAL + " " + number, buffer, offset, 10, 12);
   }
 
 //--------------------- Begin Interface AddRemovable ---------------------
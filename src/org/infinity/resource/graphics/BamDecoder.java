@@ -9,6 +9,7 @@
 import java.awt.Point;
 import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
 
@@ -154,6 +155,28 @@ public Type getType()
   /** Draws the specified frame onto the canvas. */
   public abstract void frameGet(BamControl control, int frameIdx, Image canvas);
 
+  /**
+   * Draws the specified frame into a buffer of ARGB pixels. Pixels outside of the frame area
+   * are not modified. Takes the mode of the BAM control into account.
+   * @param control The BAM control. Specify {@code null} to use the default control.
+   * @param frameIdx The absolute frame index.
+   * @param buffer The pixel buffer, containing at least {@code width * height} elements.
+   * @param width Width of the pixel buffer.
+   * @param height Height of the pixel buffer.
+   */
+  public void frameGet(BamControl control, int frameIdx, int[] buffer, int width, int height)
+  {
+    // default implementation: drawing into a temporary image
+    if (buffer != null && width > 0 && height > 0 && buffer.length >= width*height) {
+      BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+      int[] data = ((DataBufferInt)image.getRaster().getDataBuffer()).getData();
+      System.arraycopy(buffer, 0, data, 0, width*height);
+      frameGet(control, frameIdx, image);
+      System.arraycopy(data, 0, buffer, 0, width*height);
+      image.flush();
+    }
+  }
+
 
   protected BamDecoder(ResourceEntry bamEntry)
   {
@@ -130,6 +130,7 @@ public BamResource(ResourceEntry entry)
       if (bamControl instanceof BamV1Decoder.BamV1Control) {
         ((BamV1Decoder.BamV1Control)bamControl).setTransparencyEnabled(transparencyEnabled);
         ((BamV1Decoder.BamV1Control)bamControl).setTransparencyMode(BamV1Decoder.TransparencyMode.NORMAL);
+        ((BamV1Decoder.BamV1Control)bamControl).setFrameCacheEnabled(true);
       }
     } catch (Throwable t) {
       t.printStackTrace();
@@ -12,10 +12,13 @@
 import java.awt.image.DataBufferInt;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.infinity.resource.Profile;
 import org.infinity.resource.key.ResourceEntry;
+import org.infinity.util.LruCache;
 import org.infinity.util.io.StreamUtils;
 
 
@@ -33,6 +36,15 @@ public class BamV1Decoder extends BamDecoder
    */
   public enum TransparencyMode { NORMAL, FIRST_INDEX_ONLY }
 
+  // Max. size of decoded frames held by the shared frame cache, in bytes
+  private static final long FRAME_CACHE_SIZE = 32L << 20;
+
+  // Decoded frames in ARGB format, shared by all BAM v1 decoders
+  private static final LruCache<FrameKey, int[]> frameCache =
+      new LruCache<>(0, FRAME_CACHE_SIZE, (k, v) -> v.length << 2, false);
+  // Provides unique ids for loaded BAM resources
+  private static final AtomicLong bamIdCounter = new AtomicLong();
+
   private final List<BamV1FrameEntry> listFrames = new ArrayList<BamV1FrameEntry>();
   private final List<CycleEntry> listCycles = new ArrayList<CycleEntry>();
   private final BamV1FrameEntry defaultFrameInfo = new BamV1FrameEntry(null, 0);
@@ -41,6 +53,13 @@ public enum TransparencyMode { NORMAL, FIRST_INDEX_ONLY }
   private ByteBuffer bamBuffer;   // contains the raw (uncompressed) data of the BAM resource
   private int[] bamPalette;    // BAM palette
   private int rleIndex;     // color index for RLE compressed pixels
+  private long bamId;       // identifies the loaded BAM data in the frame cache
+
+  /** Removes all decoded frames from the shared frame cache. */
+  public static void flushFrameCache()
+  {
+    frameCache.clear();
+  }
 
   /**
    * Loads and decodes a BAM v1 resource. This includes both compressed (BAMC) and uncompressed BAM
@@ -136,21 +155,25 @@ public void frameGet(BamControl control, int frameIdx, Image canvas)
       if(control == null) {
         control = defaultControl;
       }
-      int w, h;
-      if (control.getMode() == BamDecoder.BamControl.Mode.SHARED) {
-        Dimension d = control.getSharedDimension();
-        w = d.width;
-        h = d.height;
-      } else {
-        w = getFrameInfo(frameIdx).getWidth();
-        h = getFrameInfo(frameIdx).getHeight();
-      }
-      if (w > 0 && h > 0 && canvas.getWidth(null) >= w && canvas.getHeight(null) >= h) {
+      if (isCanvasValid(control, frameIdx, canvas.getWidth(null), canvas.getHeight(null))) {
         decodeFrame(control, frameIdx, canvas);
       }
     }
   }
 
+  @Override
+  public void frameGet(BamControl control, int frameIdx, int[] buffer, int width, int height)
+  {
+    if (buffer != null && buffer.length >= width*height && frameIdx >= 0 && frameIdx < listFrames.size()) {
+      if(control == null) {
+        control = defaultControl;
+      }
+      if (isCanvasValid(control, frameIdx, width, height)) {
+        decodeFrame(control, frameIdx, buffer, null, width, height);
+      }
+    }
+  }
+
   /** Returns the compressed color index for compressed BAM v1 resources. */
   public int getRleIndex()
   {
@@ -233,6 +256,8 @@ private void init()
           bamPalette[i] = col;
         }
 
+        bamId = bamIdCounter.incrementAndGet();
+
         // creating default bam control instance as a fallback option
         defaultControl = new BamV1Control(this);
         defaultControl.setMode(BamControl.Mode.SHARED);
@@ -244,78 +269,34 @@ private void init()
     }
   }
 
+  // Returns whether a canvas of the specified size can hold the frame. Takes BAM mode into account.
+  private boolean isCanvasValid(BamControl control, int frameIdx, int width, int height)
+  {
+    int w, h;
+    if (control.getMode() == BamDecoder.BamControl.Mode.SHARED) {
+      Dimension d = control.getSharedDimension();
+      w = d.width;
+      h = d.height;
+    } else {
+      w = getFrameInfo(frameIdx).getWidth();
+      h = getFrameInfo(frameIdx).getHeight();
+    }
+    return (w > 0 && h > 0 && width >= w && height >= h);
+  }
+
   // Draws the absolute frame onto the canvas.
   private void decodeFrame(BamControl control, int frameIdx, Image canvas)
   {
     if (canvas != null && frameIdx >= 0 && frameIdx < listFrames.size()) {
-      if (control == null) {
-        control = defaultControl;
-      }
-      int[] palette;
-      if (control instanceof BamV1Control) {
-        palette = ((BamV1Control)control).getCurrentPalette();
-      } else {
-        palette = bamPalette;
-      }
-
       // decoding frame data
       BufferedImage image = ColorConvert.toBufferedImage(canvas, true, false);
-      byte[] bufferB = null;
-      int[] bufferI = null;
       if (image.getType() == BufferedImage.TYPE_BYTE_INDEXED) {
-        bufferB = ((DataBufferByte)image.getRaster().getDataBuffer()).getData();
-      } else {
-        bufferI = ((DataBufferInt)image.getRaster().getDataBuffer()).getData();
-      }
-      int dstWidth = image.getWidth();
-      int dstHeight = image.getHeight();
-      int srcWidth = listFrames.get(frameIdx).width;
-      int srcHeight = listFrames.get(frameIdx).height;
-      boolean isCompressed = listFrames.get(frameIdx).compressed;
-      int ofsData = listFrames.get(frameIdx).ofsData;
-
-      int left, top, maxWidth, maxHeight, srcOfs, dstOfs;
-      int count = 0, color = 0;
-      byte pixel = 0;
-      if (control.getMode() == BamControl.Mode.SHARED) {
-        left = -control.getSharedRectangle().x - listFrames.get(frameIdx).centerX;
-        top = -control.getSharedRectangle().y - listFrames.get(frameIdx).centerY;
-        maxWidth = (dstWidth < srcWidth + left) ? dstWidth : srcWidth;
-        maxHeight = (dstHeight < srcHeight + top) ? dstHeight : srcHeight;
-        srcOfs = ofsData;
-        dstOfs = top*dstWidth + left;
+        byte[] bufferB = ((DataBufferByte)image.getRaster().getDataBuffer()).getData();
+        decodeFrame(control, frameIdx, null, bufferB, image.getWidth(), image.getHeight());
       } else {
-        left = top = 0;
-        maxWidth = (dstWidth < srcWidth) ? dstWidth : srcWidth;
-        maxHeight = (dstHeight < srcHeight) ? dstHeight : srcHeight;
-        srcOfs = ofsData;
-        dstOfs = 0;
-      }
-      for (int y = 0; y < maxHeight; y++) {
-        for (int x = 0; x < srcWidth; x++, dstOfs++) {
-          if (count > 0) {
-            // writing remaining RLE compressed pixels
-            count--;
-            if (x < maxWidth) {
-              if (bufferB != null) bufferB[dstOfs] = pixel;
-              if (bufferI != null) bufferI[dstOfs] = color;
-            }
-          } else {
-            pixel = bamBuffer.get(srcOfs++);
-            color = palette[pixel & 0xff];
-            if (isCompressed && (pixel & 0xff) == rleIndex) {
-              count = bamBuffer.get(srcOfs++) & 0xff;
-            }
-            if (x < maxWidth) {
-              if (bufferB != null) bufferB[dstOfs] = pixel;
-              if (bufferI != null) bufferI[dstOfs] = color;
-            }
-          }
-        }
-        dstOfs += dstWidth - srcWidth;
+        int[] bufferI = ((DataBufferInt)image.getRaster().getDataBuffer()).getData();
+        decodeFrame(control, frameIdx, bufferI, null, image.getWidth(), image.getHeight());
       }
-      bufferB = null;
-      bufferI = null;
 
       // rendering resulting image onto the canvas if needed
       if (image != canvas) {
@@ -332,6 +313,88 @@ private void decodeFrame(BamControl control, int frameIdx, Image canvas)
     }
   }
 
+  // Draws the absolute frame into either one of the specified pixel buffers.
+  private void decodeFrame(BamControl control, int frameIdx, int[] bufferI, byte[] bufferB,
+                           int dstWidth, int dstHeight)
+  {
+    if (control == null) {
+      control = defaultControl;
+    }
+    BamV1FrameEntry entry = listFrames.get(frameIdx);
+    int left, top;
+    if (control.getMode() == BamControl.Mode.SHARED) {
+      left = -control.getSharedRectangle().x - entry.centerX;
+      top = -control.getSharedRectangle().y - entry.centerY;
+    } else {
+      left = top = 0;
+    }
+    int maxWidth = Math.min(entry.width, dstWidth - left);
+    int maxHeight = Math.min(entry.height, dstHeight - top);
+    if (maxWidth <= 0 || maxHeight <= 0) {
+      return;
+    }
+    int dstOfs = top*dstWidth + left;
+
+    if (bufferI != null && control instanceof BamV1Control &&
+        ((BamV1Control)control).isFrameCacheEnabled()) {
+      // fetching decoded frame from cache
+      int[] pixels = getCachedFrame((BamV1Control)control, frameIdx);
+      for (int y = 0, srcOfs = 0; y < maxHeight; y++, srcOfs += entry.width, dstOfs += dstWidth) {
+        System.arraycopy(pixels, srcOfs, bufferI, dstOfs, maxWidth);
+      }
+    } else {
+      int[] palette;
+      if (control instanceof BamV1Control) {
+        palette = ((BamV1Control)control).getCurrentPalette();
+      } else {
+        palette = bamPalette;
+      }
+      decodeFrameData(entry, palette, bufferI, bufferB, dstOfs, dstWidth, maxWidth, maxHeight);
+    }
+  }
+
+  // Returns the decoded frame from the shared frame cache. Decodes and caches the frame if needed.
+  private int[] getCachedFrame(BamV1Control control, int frameIdx)
+  {
+    FrameKey key = new FrameKey(bamId, frameIdx, control.cachePalette, control.cachePaletteHash);
+    return frameCache.get(key, k -> {
+      BamV1FrameEntry entry = listFrames.get(frameIdx);
+      int[] pixels = new int[entry.width*entry.height];
+      decodeFrameData(entry, k.palette, pixels, null, 0, entry.width, entry.width, entry.height);
+      return pixels;
+    });
+  }
+
+  // Decodes frame data into either one of the specified pixel buffers.
+  private void decodeFrameData(BamV1FrameEntry entry, int[] palette, int[] bufferI, byte[] bufferB,
+                               int dstOfs, int dstWidth, int maxWidth, int maxHeight)
+  {
+    int srcWidth = entry.width;
+    boolean isCompressed = entry.compressed;
+    int srcOfs = entry.ofsData;
+    int count = 0, color = 0;
+    byte pixel = 0;
+    for (int y = 0; y < maxHeight; y++) {
+      for (int x = 0; x < srcWidth; x++, dstOfs++) {
+        if (count > 0) {
+          // writing remaining RLE compressed pixels
+          count--;
+        } else {
+          pixel = bamBuffer.get(srcOfs++);
+          color = palette[pixel & 0xff];
+          if (isCompressed && (pixel & 0xff) == rleIndex) {
+            count = bamBuffer.get(srcOfs++) & 0xff;
+          }
+        }
+        if (x < maxWidth) {
+          if (bufferB != null) bufferB[dstOfs] = pixel;
+          if (bufferI != null) bufferI[dstOfs] = color;
+        }
+      }
+      dstOfs += dstWidth - srcWidth;
+    }
+  }
+
 
 //-------------------------- INNER CLASSES --------------------------
 
@@ -373,7 +436,9 @@ private BamV1FrameEntry(ByteBuffer buffer, int ofs)
   public static class BamV1Control extends BamControl
   {
     private int[] currentPalette, externalPalette;
-    private boolean transparencyEnabled;
+    private int[] cachePalette;   // unmodifiable copy of currentPalette, used by the frame cache
+    private int cachePaletteHash;
+    private boolean transparencyEnabled, frameCacheEnabled;
     private TransparencyMode transparencyMode;
     private int currentCycle, currentFrame;
 
@@ -402,6 +467,24 @@ public void setTransparencyEnabled(boolean enable)
       }
     }
 
+    /**
+     * Returns whether decoded frames are stored in the frame cache shared by all BAM v1 decoders.
+     */
+    public boolean isFrameCacheEnabled()
+    {
+      return frameCacheEnabled;
+    }
+
+    /**
+     * Specify whether decoded frames are stored in the frame cache shared by all BAM v1 decoders.
+     * Recommended for controls that draw the same frames repeatedly, e.g. for animations.
+     * Only frames drawn into ARGB pixel buffers are cached.
+     */
+    public void setFrameCacheEnabled(boolean enable)
+    {
+      frameCacheEnabled = enable;
+    }
+
     /**
      * Returns the currently used transparency mode for palettes.
      */
@@ -644,6 +727,7 @@ public int cycleGetFrameIndexAbsolute(int cycleIdx, int frameIdx)
     private void init()
     {
       transparencyEnabled = true;
+      frameCacheEnabled = false;
       if (Profile.getEngine() == Profile.Engine.BG1 || Profile.getEngine() == Profile.Engine.PST) {
         transparencyMode = TransparencyMode.NORMAL;
       } else {
@@ -718,6 +802,10 @@ private void preparePalette(int[] externalPalette)
       if (transparencyEnabled && transIndex < 0) {
         currentPalette[0] = 0;
       }
+
+      // transparency settings are part of the palette data
+      cachePalette = currentPalette.clone();
+      cachePaletteHash = Arrays.hashCode(cachePalette);
     }
   }
 
@@ -752,4 +840,46 @@ private CycleEntry(ByteBuffer buffer, int ofsLookup, int idxCount, int idxLookup
       }
     }
   }
+
+
+  // Identifies a decoded frame in the frame cache
+  private static class FrameKey
+  {
+    private final long bamId;
+    private final int frameIdx;
+    private final int[] palette;
+    private final int paletteHash;
+
+    private FrameKey(long bamId, int frameIdx, int[] palette, int paletteHash)
+    {
+      this.bamId = bamId;
+      this.frameIdx = frameIdx;
+      this.palette = palette;
+      this.paletteHash = paletteHash;
+    }
+
+    @Override
+    public int hashCode()
+    {
+      int hash = 7;
+      hash = 31 * hash + Long.hashCode(bamId);
+      hash = 31 * hash + frameIdx;
+      hash = 31 * hash + paletteHash;
+      return hash;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+      if (o == this) {
+        return true;
+      }
+      if (!(o instanceof FrameKey)) {
+        return false;
+      }
+      FrameKey other = (FrameKey)o;
+      return bamId == other.bamId && frameIdx == other.frameIdx && paletteHash == other.paletteHash &&
+             (palette == other.palette || Arrays.equals(palette, other.palette));
+    }
+  }
 }
@@ -130,21 +130,25 @@ public void frameGet(BamControl control, int frameIdx, Image canvas)
       if(control == null) {
         control = defaultControl;
       }
-      int w, h;
-      if (control.getMode() == BamDecoder.BamControl.Mode.SHARED) {
-        Dimension d = control.getSharedDimension();
-        w = d.width;
-        h = d.height;
-      } else {
-        w = getFrameInfo(frameIdx).getWidth();
-        h = getFrameInfo(frameIdx).getHeight();
-      }
-      if (w > 0 && h > 0 && canvas.getWidth(null) >= w && canvas.getHeight(null) >= h) {
+      if (isCanvasValid(control, frameIdx, canvas.getWidth(null), canvas.getHeight(null))) {
         renderFrame(control, frameIdx, canvas);
       }
     }
   }
 
+  @Override
+  public void frameGet(BamControl control, int frameIdx, int[] buffer, int width, int height)
+  {
+    if (buffer != null && buffer.length >= width*height && frameIdx >= 0 && frameIdx < listFrames.size()) {
+      if(control == null) {
+        control = defaultControl;
+      }
+      if (isCanvasValid(control, frameIdx, width, height)) {
+        renderFrame(control, frameIdx, buffer, width, height);
+      }
+    }
+  }
+
   /** Returns the number of PVRZ data blocks referred to in this BAM. */
   public int getDataBlockCount()
   {
@@ -267,45 +271,29 @@ private PvrDecoder getPVR(int page)
     return null;
   }
 
+  // Returns whether a canvas of the specified size can hold the frame. Takes BAM mode into account.
+  private boolean isCanvasValid(BamControl control, int frameIdx, int width, int height)
+  {
+    int w, h;
+    if (control.getMode() == BamDecoder.BamControl.Mode.SHARED) {
+      Dimension d = control.getSharedDimension();
+      w = d.width;
+      h = d.height;
+    } else {
+      w = getFrameInfo(frameIdx).getWidth();
+      h = getFrameInfo(frameIdx).getHeight();
+    }
+    return (w > 0 && h > 0 && width >= w && height >= h);
+  }
+
   // Draws the absolute frame onto the canvas. Takes BAM mode into account.
   private void renderFrame(BamControl control, int frameIdx, Image canvas)
   {
     if (canvas != null && frameIdx >= 0 && frameIdx < listFrames.size()) {
-      if (control == null) {
-        control = defaultControl;
-      }
-
       // decoding frame data
       BufferedImage image = ColorConvert.toBufferedImage(canvas, true, true);
-      int dstWidth = image.getWidth();
-      int dstHeight = image.getHeight();
       int[] dstBuffer = ((DataBufferInt)image.getRaster().getDataBuffer()).getData();
-      int srcWidth = listFrames.get(frameIdx).width;
-      int srcHeight = listFrames.get(frameIdx).height;
-      int[] srcBuffer = ((DataBufferInt)listFrames.get(frameIdx).frame.getRaster().getDataBuffer()).getData();
-      if (control.getMode() == BamControl.Mode.SHARED) {
-        // drawing on shared canvas
-        int left = -control.getSharedRectangle().x - listFrames.get(frameIdx).centerX;
-        int top = -control.getSharedRectangle().y - listFrames.get(frameIdx).centerY;
-        int maxWidth = (dstWidth < srcWidth + left) ? dstWidth : srcWidth;
-        int maxHeight = (dstHeight < srcHeight + top) ? dstHeight : srcHeight;
-        int srcOfs = 0, dstOfs = top*dstWidth + left;
-        for (int y = 0; y < maxHeight; y++) {
-          System.arraycopy(srcBuffer, srcOfs, dstBuffer, dstOfs, maxWidth);
-          srcOfs += srcWidth;
-          dstOfs += dstWidth;
-        }
-      } else {
-        // drawing on individual canvas
-        int srcOfs = 0, dstOfs = 0;
-        int maxWidth = (dstWidth < srcWidth) ? dstWidth : srcWidth;
-        int maxHeight = (dstHeight < srcHeight) ? dstHeight : srcHeight;
-        for (int y = 0; y < maxHeight; y++) {
-          System.arraycopy(srcBuffer, srcOfs, dstBuffer, dstOfs, maxWidth);
-          srcOfs += srcWidth;
-          dstOfs += dstWidth;
-        }
-      }
+      renderFrame(control, frameIdx, dstBuffer, image.getWidth(), image.getHeight());
       dstBuffer = null;
 
       // rendering resulting image onto the canvas if needed
@@ -323,6 +311,37 @@ private void renderFrame(BamControl control, int frameIdx, Image canvas)
     }
   }
 
+  // Draws the absolute frame into the pixel buffer. Takes BAM mode into account.
+  private void renderFrame(BamControl control, int frameIdx, int[] dstBuffer, int dstWidth, int dstHeight)
+  {
+    if (control == null) {
+      control = defaultControl;
+    }
+    BamV2FrameEntry entry = listFrames.get(frameIdx);
+    if (entry.frame == null) {
+      return;
+    }
+    int left, top;
+    if (control.getMode() == BamControl.Mode.SHARED) {
+      // drawing on shared canvas
+      left = -control.getSharedRectangle().x - entry.centerX;
+      top = -control.getSharedRectangle().y - entry.centerY;
+    } else {
+      // drawing on individual canvas
+      left = top = 0;
+    }
+    int srcWidth = entry.width;
+    int maxWidth = Math.min(srcWidth, dstWidth - left);
+    int maxHeight = Math.min(entry.height, dstHeight - top);
+    int[] srcBuffer = ((DataBufferInt)entry.frame.getRaster().getDataBuffer()).getData();
+    int srcOfs = 0, dstOfs = top*dstWidth + left;
+    for (int y = 0; y < maxHeight; y++) {
+      System.arraycopy(srcBuffer, srcOfs, dstBuffer, dstOfs, maxWidth);
+      srcOfs += srcWidth;
+      dstOfs += dstWidth;
+    }
+  }
+
 
 //-------------------------- INNER CLASSES --------------------------
 
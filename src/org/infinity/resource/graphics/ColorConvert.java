@@ -21,13 +21,10 @@
 import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.Hashtable;
 import java.util.Iterator;
-import java.util.List;
-import java.util.PriorityQueue;
 
 import javax.imageio.ImageIO;
 import javax.imageio.ImageReader;
@@ -375,60 +372,122 @@ public static boolean medianCut(int[] pixels, int desiredColors, int[] palette,
       throw new NullPointerException();
 
     if (desiredColors > 0 && desiredColors <= MAX_COLORS && palette.length >= desiredColors) {
-      PriorityQueue<PixelBlock> blockQueue =
-          new PriorityQueue<PixelBlock>(desiredColors, PixelBlock.PixelBlockComparator);
-
-      Pixel[] p = null;
-      p = new Pixel[pixels.length];
       int mask = ignoreAlpha ? 0xff000000: 0;
-      p = new Pixel[pixels.length];
+      int[] p = new int[pixels.length];
       for (int i = 0; i < p.length; i++) {
-        p[i] = new Pixel(pixels[i] | mask);
+        p[i] = pixels[i] | mask;
       }
 
-      PixelBlock initialBlock = new PixelBlock(p);
-      initialBlock.shrink();
-      blockQueue.add(initialBlock);
-      while (blockQueue.size() < desiredColors) {
-        PixelBlock longestBlock = blockQueue.poll();
-        int ofsBegin = longestBlock.offset();
-        int ofsMedian = longestBlock.offset() + (longestBlock.size() + 1) / 2;
-        int ofsEnd = longestBlock.offset() + longestBlock.size();
-        Arrays.sort(longestBlock.getPixels(), longestBlock.offset(),
-                    longestBlock.offset() + longestBlock.size(),
-                    Pixel.PixelComparator.get(longestBlock.getLongestSideIndex()));
-        PixelBlock block1 = new PixelBlock(longestBlock.getPixels(), ofsBegin, ofsMedian - ofsBegin);
-        PixelBlock block2 = new PixelBlock(longestBlock.getPixels(), ofsMedian, ofsEnd - ofsMedian);
-        block1.shrink();
-        block2.shrink();
-        blockQueue.add(block1);
-        blockQueue.add(block2);
+      // blocks are defined by offset and length in the pixel array
+      int[] blockOfs = new int[desiredColors];
+      int[] blockLen = new int[desiredColors];
+      int[] blockSide = new int[desiredColors];   // component shift of the longest side
+      int[] blockLength = new int[desiredColors]; // length of the longest side
+      int numBlocks = 1;
+      blockLen[0] = p.length;
+      shrinkBlock(p, 0, blockOfs, blockLen, blockSide, blockLength);
+
+      int[] temp = new int[p.length];
+      int[] histogram = new int[256];
+      while (numBlocks < desiredColors) {
+        // splitting the block with the longest side
+        int longest = 0;
+        for (int i = 1; i < numBlocks; i++) {
+          if (blockLength[i] > blockLength[longest]) {
+            longest = i;
+          }
+        }
+        int ofsBegin = blockOfs[longest];
+        int ofsEnd = ofsBegin + blockLen[longest];
+        int ofsMedian = ofsBegin + (blockLen[longest] + 1) / 2;
+        sortByComponent(p, temp, histogram, ofsBegin, ofsEnd, blockSide[longest]);
+
+        blockLen[longest] = ofsMedian - ofsBegin;
+        blockOfs[numBlocks] = ofsMedian;
+        blockLen[numBlocks] = ofsEnd - ofsMedian;
+        shrinkBlock(p, longest, blockOfs, blockLen, blockSide, blockLength);
+        shrinkBlock(p, numBlocks, blockOfs, blockLen, blockSide, blockLength);
+        numBlocks++;
       }
 
-      int palIndex = 0;
-      while (!blockQueue.isEmpty() && palIndex < desiredColors) {
-        PixelBlock block = blockQueue.poll();
-        int[] sum = {0, 0, 0, 0};
-        for (int i = 0; i < block.size(); i++) {
-          for (int j = 0; j < Pixel.MAX_SIZE; j++) {
-            sum[j] += block.getPixel(i).getElement(j);
-          }
+      // blocks with the longest sides come first
+      int[] order = new int[numBlocks];
+      for (int i = 0; i < numBlocks; i++) {
+        int j = i;
+        for (; j > 0 && blockLength[order[j - 1]] < blockLength[i]; j--) {
+          order[j] = order[j - 1];
         }
-        Pixel avgPixel = new Pixel();
-        if (block.size() > 0) {
-          for (int i = 0; i < Pixel.MAX_SIZE; i++) {
-            avgPixel.color[i] = (byte)(sum[i] / block.size());
+        order[j] = i;
+      }
+
+      for (int palIndex = 0; palIndex < numBlocks; palIndex++) {
+        int block = order[palIndex];
+        int ofs = blockOfs[block], len = blockLen[block];
+        int color = 0;
+        if (len > 0) {
+          long a = 0L, r = 0L, g = 0L, b = 0L;
+          for (int i = ofs, end = ofs + len; i < end; i++) {
+            int c = p[i];
+            a += c >>> 24;
+            r += (c >>> 16) & 0xff;
+            g += (c >>> 8) & 0xff;
+            b += c & 0xff;
           }
+          color = ((int)(a / len) << 24) | ((int)(r / len) << 16) | ((int)(g / len) << 8) | (int)(b / len);
         }
-        palette[palIndex++] = avgPixel.toColor();
+        palette[palIndex] = color;
       }
-      blockQueue.clear();
 
       return true;
     }
     return false;
   }
 
+  // Calculates the longest side of the specified color block
+  private static void shrinkBlock(int[] pixels, int block, int[] blockOfs, int[] blockLen,
+                                  int[] blockSide, int[] blockLength)
+  {
+    int ofs = blockOfs[block], end = ofs + blockLen[block];
+    int maxLength = 0, maxShift = 24;
+    if (end > ofs) {
+      // order of components: alpha, red, green, blue
+      for (int shift = 24; shift >= 0; shift -= 8) {
+        int min = 255, max = 0;
+        for (int i = ofs; i < end; i++) {
+          int v = (pixels[i] >>> shift) & 0xff;
+          if (v < min) min = v;
+          if (v > max) max = v;
+        }
+        if (max - min > maxLength) {
+          maxLength = max - min;
+          maxShift = shift;
+        }
+      }
+    }
+    blockSide[block] = maxShift;
+    blockLength[block] = maxLength;
+  }
+
+  // Stable counting sort of the specified pixel range by the color component at the given bit position
+  private static void sortByComponent(int[] pixels, int[] temp, int[] histogram, int start, int end,
+                                      int shift)
+  {
+    Arrays.fill(histogram, 0);
+    for (int i = start; i < end; i++) {
+      histogram[(pixels[i] >>> shift) & 0xff]++;
+    }
+    for (int i = 0, sum = start; i < histogram.length; i++) {
+      int n = histogram[i];
+      histogram[i] = sum;
+      sum += n;
+    }
+    for (int i = start; i < end; i++) {
+      int c = pixels[i];
+      temp[histogram[(c >>> shift) & 0xff]++] = c;
+    }
+    System.arraycopy(temp, start, pixels, start, end - start);
+  }
+
   /**
    * Attempts to load a palette from the specified Windows BMP file.
    * @param file The Windows BMP file to extract the palette from.
@@ -703,175 +762,6 @@ private static BufferedImage convertToIndexedImage(BufferedImage image)
 
 //-------------------------- INNER CLASSES --------------------------
 
-  private static class PixelBlock
-  {
-    private final Pixel minCorner, maxCorner;
-    private final Pixel[] pixels;
-    private final int ofs, len;
-
-    public PixelBlock(Pixel[] pixels)
-    {
-      this(pixels, 0, pixels != null ? pixels.length : 0);
-    }
-
-    public PixelBlock(Pixel[] pixels, int ofs, int len)
-    {
-      if (pixels == null)
-        throw new NullPointerException();
-
-      this.pixels = pixels;
-      this.ofs = ofs;
-      this.len = len;
-      minCorner = new Pixel(Byte.MIN_VALUE, Byte.MIN_VALUE, Byte.MIN_VALUE, Byte.MIN_VALUE);
-      maxCorner = new Pixel(Byte.MAX_VALUE, Byte.MAX_VALUE, Byte.MAX_VALUE, Byte.MAX_VALUE);
-    }
-
-    public Pixel[] getPixels()
-    {
-      return pixels;
-    }
-
-    public int size()
-    {
-      return len;
-    }
-
-    public int offset()
-    {
-      return ofs;
-    }
-
-    public Pixel getPixel(int index)
-    {
-      if (index >= 0 && index < len) {
-        return pixels[ofs + index];
-      } else {
-        return new Pixel(0);
-      }
-    }
-
-    public int getLongestSideIndex()
-    {
-      int m = Integer.MIN_VALUE, maxIndex = -1;
-      for (int i = 0; i < Pixel.MAX_SIZE; i++) {
-        int diff = maxCorner.getElement(i) - minCorner.getElement(i);
-        if (diff > m) {
-          m = diff;
-          maxIndex = i;
-        }
-      }
-      return maxIndex;
-    }
-
-    public int getLongestSideLength()
-    {
-      int i = getLongestSideIndex();
-      return maxCorner.getElement(i) - minCorner.getElement(i);
-    }
-
-    public void shrink()
-    {
-      if (len > 0) {
-        for (int i = 0; i < Pixel.MAX_SIZE; i++) {
-          minCorner.color[i] = maxCorner.color[i] = pixels[ofs].color[i];
-        }
-      } else {
-        for (int i = 0; i < Pixel.MAX_SIZE; i++) {
-          minCorner.color[i] = maxCorner.color[i] = 0;
-        }
-      }
-
-      for (int i = ofs; i < ofs + len; i++) {
-        for (int j = 0; j < Pixel.MAX_SIZE; j++) {
-          if (pixels[i].getElement(j) < minCorner.getElement(j))
-            minCorner.color[j] = pixels[i].color[j];
-          if (pixels[i].getElement(j) > maxCorner.getElement(j))
-            maxCorner.color[j] = pixels[i].color[j];
-        }
-      }
-    }
-
-    public static Comparator<PixelBlock> PixelBlockComparator = new Comparator<PixelBlock>() {
-      @Override
-      public int compare(PixelBlock pb1, PixelBlock pb2)
-      {
-        // inverting natural order by switching sides
-        return pb2.getLongestSideLength() - pb1.getLongestSideLength();
-      }
-    };
-  }
-
-  private static class Pixel
-  {
-    public static final int MAX_SIZE = 4;
-    public final byte[] color;
-
-    public Pixel()
-    {
-      this.color = new byte[]{0, 0, 0, 0};
-    }
-
-    public Pixel(int color)
-    {
-      this.color = new byte[]{(byte)((color >>> 24) & 0xff),
-                              (byte)((color >>> 16) & 0xff),
-                              (byte)((color >>> 8) & 0xff),
-                              (byte)(color & 0xff)};
-    }
-
-    public Pixel(byte r, byte g, byte b, byte a)
-    {
-      this.color = new byte[]{a, r, g, b};
-    }
-
-    public int toColor()
-    {
-      return ((color[0] & 0xff) << 24) | ((color[1] & 0xff) << 16) | ((color[2] & 0xff) << 8) | (color[3] & 0xff);
-    }
-
-    public int getElement(int index)
-    {
-      if (index >= 0 && index < MAX_SIZE) {
-        return (color[index] & 0xff);
-      }  else {
-        return 0;
-      }
-    }
-
-    public static List<Comparator<Pixel>> PixelComparator = new ArrayList<Comparator<Pixel>>(MAX_SIZE);
-    static {
-      PixelComparator.add(new Comparator<Pixel>() {
-        @Override
-        public int compare(Pixel p1, Pixel p2)
-        {
-          return p1.getElement(0) - p2.getElement(0);
-        }
-      });
-      PixelComparator.add(new Comparator<Pixel>() {
-        @Override
-        public int compare(Pixel p1, Pixel p2)
-        {
-          return p1.getElement(1) - p2.getElement(1);
-        }
-      });
-      PixelComparator.add(new Comparator<Pixel>() {
-        @Override
-        public int compare(Pixel p1, Pixel p2)
-        {
-          return p1.getElement(2) - p2.getElement(2);
-        }
-      });
-      PixelComparator.add(new Comparator<Pixel>() {
-        @Override
-        public int compare(Pixel p1, Pixel p2)
-        {
-          return p1.getElement(3) - p2.getElement(3);
-        }
-      });
-    }
-  }
-
-
   // Compare colors by perceived lightness.
   private static class CompareByLightness implements Comparator<Integer> {
     @Override
@@ -0,0 +1,241 @@
+// Near Infinity - An Infinity Engine Browser and Editor
+// Copyright (C) 2001 - 2005 Jon Olav Hauglid
+// See LICENSE.txt for license information
+
+package org.infinity.resource.graphics;
+
+import java.util.Arrays;
+
+/**
+ * Counts the number of occurrences of ARGB color values.
+ * <p>
+ * Colors and counters are stored in primitive arrays and indexed by an open-addressing hash table,
+ * so that registering pixels doesn't allocate objects. Colors are kept in insertion order.
+ * <p>
+ * This class is not thread-safe.
+ */
+public class ColorHistogram
+{
+  private static final int MIN_CAPACITY = 16;
+
+  private int[] colors;   // colors in insertion order
+  private int[] counts;   // number of occurrences; 0 for removed entries
+  private int[] table;    // hash table of indices into the colors array (+1); 0 for empty slots
+  private int used;       // number of occupied slots in the colors array, including removed entries
+  private int size;       // number of colors with a count > 0
+
+  public ColorHistogram()
+  {
+    this(256);
+  }
+
+  /** Creates a new histogram with enough space for the specified number of colors. */
+  public ColorHistogram(int capacity)
+  {
+    capacity = Math.max(MIN_CAPACITY, capacity);
+    colors = new int[capacity];
+    counts = new int[capacity];
+    table = new int[tableSizeFor(capacity)];
+  }
+
+  /** Creates a copy of the specified histogram. */
+  public ColorHistogram(ColorHistogram histogram)
+  {
+    this(histogram.size);
+    for (int i = 0; i < histogram.used; i++) {
+      if (histogram.counts[i] > 0) {
+        add(histogram.colors[i], histogram.counts[i]);
+      }
+    }
+  }
+
+  /** Returns the number of distinct colors. */
+  public int size()
+  {
+    return size;
+  }
+
+  public boolean isEmpty()
+  {
+    return size == 0;
+  }
+
+  /** Removes all colors from the histogram. */
+  public void clear()
+  {
+    Arrays.fill(table, 0);
+    Arrays.fill(counts, 0, used, 0);
+    used = size = 0;
+  }
+
+  /** Returns whether the specified color has been registered. */
+  public boolean contains(int color)
+  {
+    return find(color) >= 0;
+  }
+
+  /** Returns the number of occurrences of the specified color. */
+  public int getCount(int color)
+  {
+    int slot = find(color);
+    return (slot >= 0) ? counts[table[slot] - 1] : 0;
+  }
+
+  /** Increments the counter of the specified color by one. */
+  public void add(int color)
+  {
+    add(color, 1);
+  }
+
+  /** Increments the counter of the specified color by the given amount. */
+  public void add(int color, int count)
+  {
+    if (count <= 0) {
+      return;
+    }
+
+    int mask = table.length - 1;
+    int slot = hash(color) & mask;
+    int index;
+    while ((index = table[slot]) != 0) {
+      if (colors[index - 1] == color) {
+        counts[index - 1] += count;
+        return;
+      }
+      slot = (slot + 1) & mask;
+    }
+
+    if (used == colors.length) {
+      ensureCapacity(size + 1);
+      add(color, count);
+      return;
+    }
+    colors[used] = color;
+    counts[used] = count;
+    table[slot] = ++used;
+    size++;
+  }
+
+  /**
+   * Decrements the counter of the specified color by one. The color is removed if the counter
+   * drops to zero.
+   */
+  public void remove(int color)
+  {
+    int slot = find(color);
+    if (slot >= 0) {
+      int index = table[slot] - 1;
+      if (--counts[index] == 0) {
+        deleteSlot(slot);
+      }
+    }
+  }
+
+  /** Removes the specified color regardless of its counter. */
+  public void delete(int color)
+  {
+    int slot = find(color);
+    if (slot >= 0) {
+      counts[table[slot] - 1] = 0;
+      deleteSlot(slot);
+    }
+  }
+
+  /** Returns all registered colors in insertion order. */
+  public int[] getColors()
+  {
+    int[] retVal = new int[size];
+    for (int i = 0, j = 0; i < used; i++) {
+      if (counts[i] > 0) {
+        retVal[j++] = colors[i];
+      }
+    }
+    return retVal;
+  }
+
+  // Returns the hash table slot of the specified color, or -1 if not available
+  private int find(int color)
+  {
+    int mask = table.length - 1;
+    int slot = hash(color) & mask;
+    int index;
+    while ((index = table[slot]) != 0) {
+      if (colors[index - 1] == color && counts[index - 1] > 0) {
+        return slot;
+      }
+      slot = (slot + 1) & mask;
+    }
+    return -1;
+  }
+
+  // Removes the specified hash table slot and closes the gap in the probe sequence
+  private void deleteSlot(int slot)
+  {
+    size--;
+    int mask = table.length - 1;
+    int next = slot;
+    while (true) {
+      next = (next + 1) & mask;
+      int index = table[next];
+      if (index == 0) {
+        break;
+      }
+      int home = hash(colors[index - 1]) & mask;
+      // moving entry into the gap if its home slot is not located between gap and current slot
+      if (((next - home) & mask) >= ((next - slot) & mask)) {
+        table[slot] = index;
+        slot = next;
+      }
+    }
+    table[slot] = 0;
+  }
+
+  // Compacts the color arrays and grows them if needed
+  private void ensureCapacity(int minSize)
+  {
+    int capacity = colors.length;
+    if (minSize > capacity * 3 / 4) {
+      capacity = Math.max(capacity * 2, minSize);
+    }
+    int[] newColors = new int[capacity];
+    int[] newCounts = new int[capacity];
+    int n = 0;
+    for (int i = 0; i < used; i++) {
+      if (counts[i] > 0) {
+        newColors[n] = colors[i];
+        newCounts[n] = counts[i];
+        n++;
+      }
+    }
+    colors = newColors;
+    counts = newCounts;
+    used = n;
+
+    int tableSize = tableSizeFor(capacity);
+    if (tableSize != table.length) {
+      table = new int[tableSize];
+    } else {
+      Arrays.fill(table, 0);
+    }
+    int mask = table.length - 1;
+    for (int i = 0; i < used; i++) {
+      int slot = hash(colors[i]) & mask;
+      while (table[slot] != 0) {
+        slot = (slot + 1) & mask;
+      }
+      table[slot] = i + 1;
+    }
+  }
+
+  // Returns a power of two table size that keeps the load factor at or below 0.5
+  private static int tableSizeFor(int capacity)
+  {
+    return Integer.highestOneBit(Math.max(MIN_CAPACITY, capacity) - 1) << 2;
+  }
+
+  private static int hash(int color)
+  {
+    int h = color * 0x9e3779b9;
+    return h ^ (h >>> 16);
+  }
+}
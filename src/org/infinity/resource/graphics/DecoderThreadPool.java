@@ -0,0 +1,93 @@
+// Near Infinity - An Infinity Engine Browser and Editor
+// Copyright (C) 2001 - 2005 Jon Olav Hauglid
+// See LICENSE.txt for license information
+
+package org.infinity.resource.graphics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.infinity.util.Misc;
+
+/**
+ * Shared thread pool for decoding graphics data in parallel.
+ * <p>
+ * Tasks submitted from a thread of the pool itself are executed sequentially by the calling thread,
+ * so that nested decoding operations (e.g. PVRZ pages of a TIS or MOS resource) don't wait for
+ * each other in the pool.
+ */
+final class DecoderThreadPool
+{
+  private static final ThreadLocal<Boolean> poolThread = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+  private static ThreadPoolExecutor executor;
+
+  /**
+   * Executes the specified tasks in parallel and waits until all tasks have completed.
+   * @param tasks The tasks to execute.
+   * @return {@code true} if all tasks returned {@code true}, {@code false} otherwise.
+   */
+  public static boolean invokeAll(List<? extends Callable<Boolean>> tasks)
+  {
+    boolean retVal = true;
+    if (tasks.size() < 2 || poolThread.get().booleanValue()) {
+      for (final Callable<Boolean> task: tasks) {
+        try {
+          retVal &= task.call().booleanValue();
+        } catch (Exception e) {
+          e.printStackTrace();
+          retVal = false;
+        }
+      }
+      return retVal;
+    }
+
+    ThreadPoolExecutor executor = getExecutor();
+    List<Future<Boolean>> futures = new ArrayList<>(tasks.size());
+    try {
+      for (final Callable<Boolean> task: tasks) {
+        Misc.isQueueReady(executor, true, -1);
+        futures.add(executor.submit(task));
+      }
+      for (final Future<Boolean> future: futures) {
+        try {
+          retVal &= future.get().booleanValue();
+        } catch (ExecutionException e) {
+          e.getCause().printStackTrace();
+          retVal = false;
+        }
+      }
+    } catch (InterruptedException e) {
+      futures.forEach((future) -> future.cancel(true));
+      Thread.currentThread().interrupt();
+      retVal = false;
+    }
+    return retVal;
+  }
+
+  private static synchronized ThreadPoolExecutor getExecutor()
+  {
+    if (executor == null) {
+      executor = Misc.createThreadPool();
+      executor.setThreadFactory((r) -> {
+        Thread t = new Thread(() -> {
+          poolThread.set(Boolean.TRUE);
+          r.run();
+        }, "DecoderThreadPool");
+        t.setDaemon(true);
+        return t;
+      });
+      // idle threads are released
+      executor.setKeepAliveTime(10L, TimeUnit.SECONDS);
+      executor.allowCoreThreadTimeOut(true);
+    }
+    return executor;
+  }
+
+  private DecoderThreadPool() {}
+}
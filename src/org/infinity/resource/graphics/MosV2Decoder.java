@@ -10,9 +10,14 @@
 import java.awt.image.BufferedImage;
 import java.awt.image.DataBufferInt;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.infinity.resource.ResourceFactory;
 import org.infinity.resource.key.ResourceEntry;
@@ -101,7 +106,13 @@ public Image getImage()
   @Override
   public boolean getImage(Image canvas)
   {
-    if (isInitialized() && canvas != null) {
+    if (isInitialized() && canvas instanceof BufferedImage &&
+        ((BufferedImage)canvas).getType() == BufferedImage.TYPE_INT_ARGB &&
+        canvas.getWidth(null) == getWidth() && canvas.getHeight(null) >= getHeight()) {
+      // rendering directly into the image buffer
+      int[] buffer = ((DataBufferInt)((BufferedImage)canvas).getRaster().getDataBuffer()).getData();
+      return getImageData(buffer);
+    } else if (isInitialized() && canvas != null) {
       boolean bRet = false;
       for (int i = 0; i < getBlockCount(); i++) {
         int ofs = getBlockOffset(i);
@@ -130,20 +141,41 @@ public int[] getImageData()
     return null;
   }
 
+  /**
+   * {@inheritDoc}
+   * <p>
+   * Blocks are grouped by PVRZ page, so that each page is decoded only once. Blocks of different
+   * pages are rendered in parallel by the {@link DecoderThreadPool}.
+   */
   @Override
   public boolean getImageData(int[] buffer)
   {
-    if (isInitialized() && buffer != null) {
-      boolean bRet = false;
+    if (isInitialized() && buffer != null && buffer.length >= getWidth()*getHeight()) {
+      // grouping blocks by page
+      TreeMap<Integer, List<Integer>> pageMap = new TreeMap<>();
       for (int i = 0; i < getBlockCount(); i++) {
-        int ofs = getBlockOffset(i);
-        if (ofs > 0) {
-          int dx = mosBuffer.getInt(ofs + 0x14);
-          int dy = mosBuffer.getInt(ofs + 0x18);
-          bRet |= renderBlock(i, buffer, getWidth(), getHeight(), dx, dy);
-        }
+        int page = mosBuffer.getInt(getBlockOffset(i));
+        pageMap.computeIfAbsent(Integer.valueOf(page), k -> new ArrayList<>()).add(Integer.valueOf(i));
       }
-      return bRet;
+
+      // succeeds if any block has been rendered
+      AtomicBoolean retVal = new AtomicBoolean(false);
+      List<Callable<Boolean>> tasks = new ArrayList<>(pageMap.size());
+      for (final List<Integer> blocks: pageMap.values()) {
+        tasks.add(() -> {
+          for (final Integer blockIdx: blocks) {
+            int ofs = getBlockOffset(blockIdx.intValue());
+            int dx = mosBuffer.getInt(ofs + 0x14);
+            int dy = mosBuffer.getInt(ofs + 0x18);
+            if (renderBlock(blockIdx.intValue(), buffer, getWidth(), getHeight(), dx, dy)) {
+              retVal.set(true);
+            }
+          }
+          return Boolean.TRUE;
+        });
+      }
+      DecoderThreadPool.invokeAll(tasks);
+      return retVal.get();
     }
     return false;
   }
@@ -365,20 +397,10 @@ private boolean renderBlock(int blockIdx, int[] buffer, int width, int height, i
       PvrDecoder decoder = getPVR(page);
       if (decoder != null) {
         try {
-          int w = (left + blockWidth < width) ? width - left : blockWidth;
-          int h = (top + blockHeight < height) ? height - top : blockHeight;
+          int w = Math.min(blockWidth, width - left);
+          int h = Math.min(blockHeight, height - top);
           if (w > 0 && h > 0) {
-            BufferedImage imgBlock = decoder.decode(srcX, srcY, blockWidth, blockHeight);
-            int[] srcData = ((DataBufferInt)imgBlock.getRaster().getDataBuffer()).getData();
-            int srcOfs = 0;
-            int dstOfs = top*width + left;
-            for (int y = 0; y < h; y++) {
-              System.arraycopy(srcData, srcOfs, buffer, dstOfs, w);
-              srcOfs += blockWidth;
-              dstOfs += width;
-            }
-            srcData = null;
-            imgBlock = null;
+            decoder.decode(buffer, top*width + left, width, srcX, srcY, w, h);
             decoder = null;
             return true;
           }
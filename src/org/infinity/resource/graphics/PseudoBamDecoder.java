@@ -22,7 +22,6 @@
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 
@@ -1028,61 +1027,46 @@ public boolean exportBamV2(Path fileName, DxtEncoder.DxtType dxtType, int pvrzIn
    * @param colorMap An optional color map that will be used if available. Can be {@code null}.
    * @return An int array containing up to 255 colors without the transparent color entry.
    */
-  public int[] createGlobalPalette(HashMap<Integer, Integer> colorMap)
+  public int[] createGlobalPalette(ColorHistogram colorMap)
   {
-    final Integer Green = Integer.valueOf(0xff00ff00);
+    final int Green = 0xff00ff00;
 
     int[] retVal;
     if (!listFrames.isEmpty() && !listCycles.isEmpty()) {
-      // adding pixels of all available frames to the hashset
-      HashMap<Integer, Integer> newMap;
+      // adding pixels of all available frames to the histogram
+      ColorHistogram newMap;
       if (colorMap == null) {
-        newMap = new HashMap<Integer, Integer>();
+        newMap = new ColorHistogram();
         for (int i = 0; i < listFrames.size(); i++) {
           registerColors(newMap, listFrames.get(i).frame);
         }
       } else {
-        newMap = new HashMap<>(colorMap.size());
-        colorMap.forEach((k,v) -> {
-          if ((k.intValue() & 0xff000000) == 0) {
-            k = Integer.valueOf(k.intValue() | 0xff000000);
-          }
-          newMap.put(k, v);
-        });
+        newMap = new ColorHistogram(colorMap.size());
+        for (final int color: colorMap.getColors()) {
+          int k = ((color & 0xff000000) == 0) ? (color | 0xff000000) : color;
+          newMap.add(k, colorMap.getCount(color));
+        }
       }
 
       // transparent color does not count
-      newMap.remove(Green);
+      newMap.delete(Green);
 
       // creating palette
-      int numColors = newMap.size();
-      int[] colorBuffer = new int[numColors];
-      Iterator<Integer> iter = newMap.keySet().iterator();
-      int idx = 0;
-      while (iter.hasNext()) {
-        colorBuffer[idx] = iter.next();
-        idx++;
-      }
+      int[] colorBuffer = newMap.getColors();
       if (colorBuffer.length > 255) {
         boolean ignoreAlpha = !(Boolean)Profile.getProperty(Profile.Key.IS_SUPPORTED_BAM_V1_ALPHA);
         retVal = ColorConvert.medianCut(colorBuffer, 255, ignoreAlpha);
-      } else {
-        retVal = colorBuffer;
-      }
 
-      // removing duplicate entries from the palette
-      HashSet<Integer> colorSet = new HashSet<Integer>();
-      for (int i = 0; i < retVal.length; i++) {
-        colorSet.add(Integer.valueOf(retVal[i]));
-      }
-      if (colorSet.size() != retVal.length) {
-        retVal = new int[colorSet.size()];
-        idx = 0;
-        iter = colorSet.iterator();
-        while (iter.hasNext()) {
-          retVal[idx] = iter.next().intValue();
-          idx++;
+        // removing duplicate entries from the palette
+        ColorHistogram colorSet = new ColorHistogram(retVal.length);
+        for (final int color: retVal) {
+          colorSet.add(color);
+        }
+        if (colorSet.size() != retVal.length) {
+          retVal = colorSet.getColors();
         }
+      } else {
+        retVal = colorBuffer;
       }
     } else {
       retVal = new int[0];
@@ -1092,7 +1076,7 @@ public int[] createGlobalPalette(HashMap<Integer, Integer> colorMap)
 
 
   /** Maps all color values of the specified image. */
-  public static void registerColors(HashMap<Integer, Integer> colorMap, BufferedImage image)
+  public static void registerColors(ColorHistogram colorMap, BufferedImage image)
   {
     final int Green = 0xff00ff00;
 
@@ -1111,14 +1095,7 @@ public static void registerColors(HashMap<Integer, Integer> colorMap, BufferedIm
           }
 
           // registering color in map
-          Integer key = Integer.valueOf(color);
-          Integer count = colorMap.get(key);
-          if (count == null) {
-            count = Integer.valueOf(1);
-          } else {
-            ++count;
-          }
-          colorMap.put(key, count);
+          colorMap.add(color);
         }
       } else if (image.getRaster().getDataBuffer().getDataType() == DataBuffer.TYPE_INT) {
         int[] buffer = ((DataBufferInt)image.getRaster().getDataBuffer()).getData();
@@ -1131,21 +1108,14 @@ public static void registerColors(HashMap<Integer, Integer> colorMap, BufferedIm
           }
 
           // registering color in map
-          Integer key = Integer.valueOf(color);
-          Integer count = colorMap.get(key);
-          if (count == null) {
-            count = Integer.valueOf(1);
-          } else {
-            ++count;
-          }
-          colorMap.put(key, count);
+          colorMap.add(color);
         }
       }
     }
   }
 
   /** Unmaps all color values of the specified image. */
-  public static void unregisterColors(HashMap<Integer, Integer> colorMap, BufferedImage image)
+  public static void unregisterColors(ColorHistogram colorMap, BufferedImage image)
   {
     final int Green = 0xff00ff00;
 
@@ -1168,16 +1138,7 @@ public static void unregisterColors(HashMap<Integer, Integer> colorMap, Buffered
           }
 
           // unregistering color in map
-          Integer key = Integer.valueOf(color);
-          Integer count = colorMap.get(key);
-          if (count != null) {
-            --count;
-            if (count == 0) {
-              colorMap.remove(key);
-            } else {
-              colorMap.put(key, count);
-            }
-          }
+          colorMap.remove(color);
         }
       } else if (image.getRaster().getDataBuffer().getDataType() == DataBuffer.TYPE_INT) {
         int[] buffer = ((DataBufferInt)image.getRaster().getDataBuffer()).getData();
@@ -1190,16 +1151,7 @@ public static void unregisterColors(HashMap<Integer, Integer> colorMap, Buffered
           }
 
           // unregistering color in map
-          Integer key = Integer.valueOf(color);
-          Integer count = colorMap.get(key);
-          if (count != null) {
-            --count;
-            if (count == 0) {
-              colorMap.remove(key);
-            } else {
-              colorMap.put(key, count);
-            }
-          }
+          colorMap.remove(color);
         }
       }
     }
@@ -7,24 +7,23 @@
 
 package org.infinity.resource.graphics;
 
-import java.awt.AlphaComposite;
-import java.awt.Graphics2D;
 import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 import java.awt.image.DataBufferInt;
 import java.io.InputStream;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.EnumSet;
-import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Locale;
-import java.util.Map;
+import java.util.concurrent.Callable;
 import java.util.zip.InflaterInputStream;
 
 import org.infinity.resource.key.FileResourceEntry;
 import org.infinity.resource.key.ResourceEntry;
 import org.infinity.util.DynamicArray;
+import org.infinity.util.LruCache;
 import org.infinity.util.io.FileManager;
 import org.infinity.util.io.StreamUtils;
 
@@ -62,10 +61,22 @@ public enum ChannelType {
     FLOAT
   }
 
+  /** Default max. size of encoded texture data held by the PvrDecoder cache, in bytes. */
+  public static final long DEFAULT_CACHE_SIZE = 64L << 20;
+  /** Default max. size of decoded textures held by the page cache, in bytes. */
+  public static final long DEFAULT_PAGE_CACHE_SIZE = 128L << 20;
+
+  // Min. number of pixels of a region to consider parallel decoding
+  private static final int PARALLEL_THRESHOLD = 128*128;
+
   // The global cache list for PVR objects. The "key" has to be a unique String (e.g. filename or integer as string)
-  private static final Map<String, PvrDecoder> pvrCache = new LinkedHashMap<String, PvrDecoder>();
+  private static LruCache<String, PvrDecoder> pvrCache = createPvrCache(32, DEFAULT_CACHE_SIZE);
+  // Fully decoded textures of PVR objects in ARGB format
+  private static LruCache<PvrInfo, int[]> pageCache = createPageCache(DEFAULT_PAGE_CACHE_SIZE);
   // The max. number of cache entries to hold
   private static int MaxCacheEntries = 32;
+  // The max. size of encoded data to hold, in bytes
+  private static long MaxCacheSize = DEFAULT_CACHE_SIZE;
 
   // Supported pixel formats
   private static final EnumSet<PixelFormat> SupportedFormat =
@@ -186,58 +197,106 @@ public static synchronized void setMaxCacheEntries(int maxValue)
     if (maxValue < 0) maxValue = 0; else if (maxValue > 65535) maxValue = 65535;
     if (maxValue != MaxCacheEntries) {
       MaxCacheEntries = maxValue;
-      while (pvrCache.size() > MaxCacheEntries) {
-        pvrCache.remove(pvrCache.keySet().iterator().next());
-      }
+      pvrCache = createPvrCache(MaxCacheEntries, MaxCacheSize);
+    }
+  }
+
+  /** Returns the max. size of encoded texture data held by the PvrDecoder cache, in bytes. */
+  public static long getMaxCacheSize()
+  {
+    return MaxCacheSize;
+  }
+
+  /** Specify the max. size of encoded texture data held by the PvrDecoder cache, in bytes. Specifying 0 removes the limit. */
+  public static synchronized void setMaxCacheSize(long maxSize)
+  {
+    maxSize = Math.max(0L, maxSize);
+    if (maxSize != MaxCacheSize) {
+      MaxCacheSize = maxSize;
+      pvrCache = createPvrCache(MaxCacheEntries, MaxCacheSize);
+    }
+  }
+
+  /** Returns the max. size of decoded textures held by the page cache, in bytes. */
+  public static long getMaxPageCacheSize()
+  {
+    return pageCache.getMaxWeight();
+  }
+
+  /**
+   * Specify the max. size of decoded textures held by the page cache, in bytes.
+   * Specifying 0 disables the page cache.
+   */
+  public static synchronized void setMaxPageCacheSize(long maxSize)
+  {
+    maxSize = Math.max(0L, maxSize);
+    if (maxSize != pageCache.getMaxWeight()) {
+      pageCache = createPageCache(maxSize);
     }
   }
 
+  /** Returns usage statistics of the PvrDecoder cache. */
+  public static LruCache.Statistics getCacheStatistics()
+  {
+    return pvrCache.getStatistics();
+  }
+
+  /** Returns usage statistics of the page cache. */
+  public static LruCache.Statistics getPageCacheStatistics()
+  {
+    return pageCache.getStatistics();
+  }
+
   /** Clears all available caches. */
   public static synchronized void flushCache()
   {
     pvrCache.clear();
-    DecodePVRT.flushCache();
+    pageCache.clear();
   }
 
   /** Returns the current cache load as percentage value. */
   public static int getCacheLoad()
   {
+    LruCache<String, PvrDecoder> cache = pvrCache;
+    int load = 0;
     if (MaxCacheEntries > 0) {
-      return (pvrCache.size()*100) / MaxCacheEntries;
-    } else {
-      return 0;
+      load = (cache.size()*100) / MaxCacheEntries;
     }
+    if (MaxCacheSize > 0L) {
+      load = Math.max(load, (int)((cache.getWeight()*100L) / MaxCacheSize));
+    }
+    return load;
+  }
+
+  private static LruCache<String, PvrDecoder> createPvrCache(int maxEntries, long maxSize)
+  {
+    return new LruCache<>(maxEntries, maxSize, (k, v) -> v.getData().length, false);
+  }
+
+  private static LruCache<PvrInfo, int[]> createPageCache(long maxSize)
+  {
+    return new LruCache<>(0, maxSize, (k, v) -> v.length << 2, false);
   }
 
   // Returns a PvrDecoder object only if it already exists in the cache.
-  private static synchronized PvrDecoder getCachedPvrDecoder(String key)
+  private static PvrDecoder getCachedPvrDecoder(String key)
   {
     PvrDecoder retVal = null;
-    if (key != null && !key.isEmpty()) {
-      key = key.toUpperCase(Locale.ENGLISH);
-      if (pvrCache.containsKey(key)) {
-        retVal = pvrCache.get(key);
-        // re-inserting entry to prevent premature removal from cache
-        pvrCache.remove(key);
-        pvrCache.put(key, retVal);
-      }
+    if (key != null && !key.isEmpty() && MaxCacheEntries > 0) {
+      retVal = pvrCache.get(key.toUpperCase(Locale.ENGLISH));
     }
     return retVal;
   }
 
   // Returns a PvrDecoder object of the specified key if available, or creates and returns a new one otherwise.
-  private static synchronized PvrDecoder createPvrDecoder(String key, InputStream input)
+  private static PvrDecoder createPvrDecoder(String key, InputStream input)
   {
     PvrDecoder retVal = getCachedPvrDecoder(key);
     if (retVal == null && input != null) {
       try {
         retVal = new PvrDecoder(input);
-        if (retVal != null) {
-          pvrCache.put(key, retVal);
-          // removing excess cache entries
-          while (pvrCache.size() > MaxCacheEntries) {
-            pvrCache.remove(pvrCache.keySet().iterator().next());
-          }
+        if (key != null && !key.isEmpty() && MaxCacheEntries > 0) {
+          retVal = pvrCache.putIfAbsent(key.toUpperCase(Locale.ENGLISH), retVal);
         }
       } catch (Exception e) {
         e.printStackTrace();
@@ -246,38 +305,6 @@ private static synchronized PvrDecoder createPvrDecoder(String key, InputStream
     return retVal;
   }
 
-  // Returns a rectangle that is aligned to the values specified as arguments 2 and 3
-  private static Rectangle alignRectangle(Rectangle rect, int alignX, int alignY)
-  {
-    if (rect == null) return null;
-
-    Rectangle retVal = new Rectangle(rect);
-    if (alignX < 1) alignX = 1;
-    if (alignY < 1) alignY = 1;
-    if (rect.x < 0) { rect.width -= -rect.x; rect.x = 0; }
-    if (rect.y < 0) { rect.height -= -rect.y; rect.y = 0; }
-
-    int diffX = retVal.x % alignX;
-    if (diffX != 0) {
-      retVal.x -= diffX;
-      retVal.width += diffX;
-    }
-    int diffY = retVal.y % alignY;
-    if (diffY != 0) {
-      retVal.y -= diffY;
-      retVal.height += diffY;
-    }
-
-    diffX = (alignX - (retVal.width % alignX)) % alignX;
-    retVal.width += diffX;
-
-    diffY = (alignY - (retVal.height % alignY)) % alignY;
-    retVal.height += diffY;
-
-    return retVal;
-  }
-
-
   /** Returns flags that indicate special properties of the color data. */
   public Flags getFlags() { return info.flags; }
 
@@ -398,6 +425,49 @@ public boolean decode(BufferedImage image, int x, int y, int width, int height)
     if (image == null) {
       throw new Exception("No target image specified");
     }
+    int w = Math.min(width, image.getWidth());
+    int h = Math.min(height, image.getHeight());
+    if (image.getRaster().getDataBuffer() instanceof DataBufferInt &&
+        (image.getType() == BufferedImage.TYPE_INT_ARGB || image.getType() == BufferedImage.TYPE_INT_ARGB_PRE)) {
+      // decoding directly into the image buffer
+      int[] imgData = ((DataBufferInt)image.getRaster().getDataBuffer()).getData();
+      return decode(imgData, 0, image.getWidth(), x, y, width, height, w, h);
+    } else {
+      int[] buffer = new int[Math.max(1, w*h)];
+      if (decode(buffer, 0, w, x, y, width, height, w, h)) {
+        image.setRGB(0, 0, w, h, buffer, 0, w);
+        return true;
+      }
+      return false;
+    }
+  }
+
+  /**
+   * Decodes a rectangular block of pixels of the currently loaded PVR data and writes it into the
+   * specified buffer in ARGB format.
+   * @param buffer The buffer to write the pixel data into.
+   * @param offset Start offset into the buffer.
+   * @param scanSize Number of buffer elements of a single line of pixels.
+   * @param x Left-most x coordinate of the pixel block.
+   * @param y Top-most y coordinate of the pixel block.
+   * @param width Width in pixels.
+   * @param height Height in pixels.
+   * @return {@code true} if the pixel data has been written successfully, {@code false} otherwise.
+   * @throws Exception on error.
+   */
+  public boolean decode(int[] buffer, int offset, int scanSize, int x, int y, int width, int height)
+      throws Exception
+  {
+    return decode(buffer, offset, scanSize, x, y, width, height, width, height);
+  }
+
+  // Decodes a block of pixels of the given region, clipped to the specified size, into the buffer
+  private boolean decode(int[] buffer, int offset, int scanSize, int x, int y, int width, int height,
+                         int clipWidth, int clipHeight) throws Exception
+  {
+    if (buffer == null) {
+      throw new Exception("No target buffer specified");
+    }
     if (x < 0 || y < 0 || width < 1 || height < 1 || x+width > getWidth() || y+height > getHeight()) {
       throw new Exception("Invalid dimensions specified");
     }
@@ -407,23 +477,89 @@ public boolean decode(BufferedImage image, int x, int y, int width, int height)
     if (getChannelType() != ChannelType.UBYTE_NORM) {
       throw new Exception(String.format("Channel type '%s' not supported", getChannelType().toString()));
     }
-    Rectangle region = new Rectangle(x, y, width, height);
+    width = Math.min(width, clipWidth);
+    height = Math.min(height, clipHeight);
+    if (width < 1 || height < 1) {
+      return true;
+    }
+    if (offset < 0 || scanSize < width || offset + (height - 1)*scanSize + width > buffer.length) {
+      throw new Exception("Target buffer too small");
+    }
+
+    int[] page = getDecodedPage();
+    if (page != null) {
+      // copying region from the decoded texture
+      for (int row = 0; row < height; row++) {
+        System.arraycopy(page, (y + row)*info.width + x, buffer, offset + row*scanSize, width);
+      }
+      return true;
+    }
+
+    switch (getPixelFormat()) {
+      case DXT1:
+      case DXT3:
+      case DXT5:
+        return DecodeDXT.decode(info, buffer, offset, scanSize, new Rectangle(x, y, width, height));
+      default:
+        return DecodeDummy.decode(buffer, offset, scanSize, width, height);
+    }
+  }
+
+  // Returns the fully decoded texture from the page cache if applicable, or null otherwise.
+  private int[] getDecodedPage() throws Exception
+  {
+    boolean isPvrt = false;
     switch (getPixelFormat()) {
       case PVRTC_2BPP_RGB:
       case PVRTC_2BPP_RGBA:
-        return DecodePVRT.decodePVRT2bpp(info, image, region);
       case PVRTC_4BPP_RGB:
       case PVRTC_4BPP_RGBA:
-        return DecodePVRT.decodePVRT4bpp(info, image, region);
+        // PVRTC decodes whole textures only
+        isPvrt = true;
+        break;
       case DXT1:
-        return DecodeDXT.decodeDXT1(info, image, region);
       case DXT3:
-        return DecodeDXT.decodeDXT3(info, image, region);
       case DXT5:
-        return DecodeDXT.decodeDXT5(info, image, region);
+        break;
       default:
-        return DecodeDummy.decode(info, image, region);
+        return null;
     }
+
+    // a single texture should not occupy more than a quarter of the page cache
+    LruCache<PvrInfo, int[]> cache = pageCache;
+    long pageSize = ((long)info.width * (long)info.height) << 2;
+    boolean cacheable = (cache.getMaxWeight() > 0L && pageSize <= cache.getMaxWeight() / 4L);
+    if (!cacheable) {
+      return isPvrt ? decodePage() : null;
+    }
+
+    int[] retVal = cache.get(info);
+    if (retVal == null) {
+      retVal = cache.putIfAbsent(info, decodePage());
+    }
+    return retVal;
+  }
+
+  // Decodes the whole texture
+  private int[] decodePage() throws Exception
+  {
+    int[] retVal = new int[info.width * info.height];
+    switch (getPixelFormat()) {
+      case PVRTC_2BPP_RGB:
+      case PVRTC_2BPP_RGBA:
+        DecodePVRT.decodePVRT2bpp(info, retVal);
+        break;
+      case PVRTC_4BPP_RGB:
+      case PVRTC_4BPP_RGBA:
+        DecodePVRT.decodePVRT4bpp(info, retVal);
+        break;
+      default:
+        // incomplete pages must not be cached
+        if (!DecodeDXT.decode(info, retVal, 0, info.width, new Rectangle(0, 0, info.width, info.height))) {
+          throw new Exception("Error decoding DXT data");
+        }
+    }
+    return retVal;
   }
 
 
@@ -645,31 +781,19 @@ private void init(byte[] buffer, int size) throws Exception
   private static class DecodeDummy
   {
     /**
-     * Decodes PVR data in "unknown" format and draws the specified "region" into "image".
-     * @param pvr The PVR data
-     * @param image The output image
-     * @param region The of the PVR texture region to draw onto "image"
+     * Decodes PVR data in "unknown" format and writes the result into "buffer".
+     * @param buffer The output buffer
+     * @param offset Start offset into the output buffer
+     * @param scanSize Number of buffer elements per pixel line
+     * @param width Region width
+     * @param height Region height
      * @return The success state of the operation.
-     * @throws Exception on error.
      */
-    public static boolean decode(PvrInfo pvr, BufferedImage image, Rectangle region) throws Exception
+    public static boolean decode(int[] buffer, int offset, int scanSize, int width, int height)
     {
-      if (pvr == null || image == null || region == null) {
-        return false;
+      for (int y = 0; y < height; y++, offset += scanSize) {
+        Arrays.fill(buffer, offset, offset + width, 0);
       }
-
-      int[] imgData = ((DataBufferInt)image.getRaster().getDataBuffer()).getData();
-      int ofs = 0;
-      int maxX = (image.getWidth() < region.width) ? image.getWidth() : region.width;
-      int maxY = (image.getHeight() < region.height) ? image.getHeight() : region.height;
-      for (int y = 0; y < maxY; y++) {
-        for (int x = 0; x < maxX; x++) {
-          imgData[ofs+x] = 0;
-        }
-        ofs += image.getWidth();
-      }
-      imgData = null;
-
       return true;
     }
   }
@@ -679,387 +803,198 @@ public static boolean decode(PvrInfo pvr, BufferedImage image, Rectangle region)
   private static class DecodeDXT
   {
     /**
-     * Decodes PVR data in DXT1 format and draws the specified "region" into "image".
+     * Decodes PVR data in DXT1, DXT3 or DXT5 format and writes the specified "region" into "buffer".
+     * Large regions are decoded in parallel by the {@link DecoderThreadPool}.
      * @param pvr The PVR data
-     * @param image The output image
-     * @param region The of the PVR texture region to draw onto "image"
-     * @return The success state of the operation.
-     * @throws Exception on error.
+     * @param buffer The output buffer
+     * @param offset Start offset into the output buffer
+     * @param scanSize Number of buffer elements per pixel line
+     * @param region The PVR texture region to decode
+     * @return {@code true} if the whole region has been decoded successfully.
      */
-    public static boolean decodeDXT1(PvrInfo pvr, BufferedImage image, Rectangle region) throws Exception
+    public static boolean decode(PvrInfo pvr, int[] buffer, int offset, int scanSize, Rectangle region)
     {
-      if (pvr == null || image == null || region == null) {
-        return false;
+      final int blockY0 = region.y >>> 2;
+      final int blockY1 = (region.y + region.height + 3) >>> 2;
+      final int numRows = blockY1 - blockY0;
+      int numTasks = 1;
+      if (region.width * region.height >= PARALLEL_THRESHOLD) {
+        numTasks = Math.min(numRows, Runtime.getRuntime().availableProcessors() * 2);
       }
 
-      int imgWidth = image.getWidth();
-      int imgHeight = image.getHeight();
-      int[] imgData = null;
-
-      // checking region bounds and alignment
-      if (region.x < 0) {region.width += -region.x; region.x = 0; }
-      if (region.y < 0) {region.height += -region.y; region.y = 0; }
-      if (region.x + region.width > pvr.width) region.width = pvr.width - region.x;
-      if (region.y + region.height > pvr.height) region.height = pvr.height - region.y;
-      Rectangle rect = alignRectangle(region, 4, 4);
-
-      // preparing aligned image buffer for faster rendering
-      BufferedImage alignedImage = null;
-      int imgWidthAligned;
-      if (!region.equals(rect)) {
-        alignedImage = new BufferedImage(rect.width, rect.height, BufferedImage.TYPE_INT_ARGB);
-        imgWidthAligned = alignedImage.getWidth();
-        imgData = ((DataBufferInt)alignedImage.getRaster().getDataBuffer()).getData();
-        // translating "region" to be relative to "rect"
-        region.x -= rect.x;
-        region.y -= rect.y;
-        if (imgWidth < region.width) {
-          region.width= imgWidth;
-        }
-        if (imgHeight < region.height) {
-          region.height = imgHeight;
+      if (numTasks > 1) {
+        List<Callable<Boolean>> tasks = new ArrayList<>(numTasks);
+        for (int i = 0; i < numTasks; i++) {
+          final int start = blockY0 + (int)((long)numRows * i / numTasks);
+          final int end = blockY0 + (int)((long)numRows * (i + 1) / numTasks);
+          tasks.add(() -> {
+            decodeRows(pvr, buffer, offset, scanSize, region, start, end);
+            return Boolean.TRUE;
+          });
         }
+        return DecoderThreadPool.invokeAll(tasks);
       } else {
-        imgWidthAligned = imgWidth;
-        imgData = ((DataBufferInt)image.getRaster().getDataBuffer()).getData();
+        decodeRows(pvr, buffer, offset, scanSize, region, blockY0, blockY1);
+        return true;
       }
+    }
 
-      final int wordSize = 8;                   // data size of an encoded 4x4 pixel block
-      int wordImageWidth = pvr.width >>> 2;     // the image width in data blocks
-      int wordRectWidth = rect.width >>> 2;     // the aligned region's width in data blocks
-      int wordRectHeight = rect.height >>> 2;   // the aligned region's height in data blocks
-      int wordPosX = rect.x >>> 2;
-      int wordPosY = rect.y >>> 2;
+    // Decodes the specified range of block rows of "region"
+    private static void decodeRows(PvrInfo pvr, int[] buffer, int offset, int scanSize, Rectangle region,
+                                   int blockRowStart, int blockRowEnd)
+    {
+      final int wordSize = (pvr.pixelFormat == PixelFormat.DXT1) ? 8 : 16; // data size of an encoded 4x4 pixel block
+      final int wordImageWidth = pvr.width >>> 2;   // the image width in data blocks
+      final int x0 = region.x, y0 = region.y;
+      final int x1 = region.x + region.width, y1 = region.y + region.height;
+      final int blockX0 = x0 >>> 2, blockX1 = (x1 + 3) >>> 2;
 
+      int[] pixels = new int[16];
       int[] colors = new int[8];
-      int pvrOfs = (wordPosY*wordImageWidth + wordPosX)*wordSize;
-      int imgOfs = 0;
-      for (int y = 0; y < wordRectHeight; y++) {
-        for (int x = 0; x < wordRectWidth; x++) {
-          // decoding single DXT1 block
-          int c = DynamicArray.getInt(pvr.data, pvrOfs);
-          unpackColors565(c, colors);
-          int code = DynamicArray.getInt(pvr.data, pvrOfs+4);
-          for (int idx = 0; idx < 16; idx++, code >>>= 2) {
-            int ofs = imgOfs + (idx >>> 2)*imgWidthAligned + (idx & 3);
-            if ((code & 3) == 0) {
-              // 100% c0, 0% c1
-              imgData[ofs] = 0xff000000 | (colors[2] << 16) | (colors[1] << 8) | colors[0];
-            } else if ((code & 3) == 1) {
-              // 0% c0, 100% c1
-              imgData[ofs] = 0xff000000 | (colors[6] << 16) | (colors[5] << 8) | colors[4];
-            } else if ((code & 3) == 2) {
-              if ((c & 0xffff) > ((c >>> 16) & 0xffff)) {
-                // 66% c0, 33% c1
-                int v = 0xff000000;
-                v |= (((colors[2] << 1) + colors[6]) / 3) << 16;
-                v |= (((colors[1] << 1) + colors[5]) / 3) << 8;
-                v |=  ((colors[0] << 1) + colors[4]) / 3;
-                imgData[ofs] = v;
-              } else {
-                // 50% c0, 50% c1
-                int v = 0xff000000;
-                v |= ((colors[2] + colors[6]) >>> 1) << 16;
-                v |= ((colors[1] + colors[5]) >>> 1) << 8;
-                v |=  (colors[0] + colors[4]) >>> 1;
-                imgData[ofs] = v;
-              }
-            } else {
-              if ((c & 0xffff) > ((c >>> 16) & 0xffff)) {
-                // 33% c0, 66% c1
-                int v = 0xff000000;
-                v |= ((colors[2] + (colors[6] << 1)) / 3) << 16;
-                v |= ((colors[1] + (colors[5] << 1)) / 3) << 8;
-                v |=  (colors[0] + (colors[4] << 1)) / 3;
-                imgData[ofs] = v;
-              } else {
-                // transparent
-                imgData[ofs] = 0;
-              }
-            }
+      int[] alpha = new int[8];
+      for (int by = blockRowStart; by < blockRowEnd; by++) {
+        int top = by << 2;
+        int pyStart = Math.max(0, y0 - top), pyEnd = Math.min(4, y1 - top);
+        int pvrOfs = (by*wordImageWidth + blockX0)*wordSize;
+        for (int bx = blockX0; bx < blockX1; bx++, pvrOfs += wordSize) {
+          switch (pvr.pixelFormat) {
+            case DXT1:
+              decodeBlockDXT1(pvr.data, pvrOfs, colors, pixels);
+              break;
+            case DXT3:
+              decodeBlockDXT3(pvr.data, pvrOfs, colors, pixels);
+              break;
+            default:
+              decodeBlockDXT5(pvr.data, pvrOfs, colors, alpha, pixels);
           }
 
-          pvrOfs += wordSize;
-          imgOfs += 4;
-        }
-        pvrOfs += (wordImageWidth - wordRectWidth)*wordSize;
-        imgOfs += imgWidthAligned*4 - rect.width;
-      }
-      imgData = null;
-
-      // rendering aligned image to target image
-      if (alignedImage != null) {
-        Graphics2D g = image.createGraphics();
-        try {
-          g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC));
-          g.drawImage(alignedImage, 0, 0, region.width, region.height,
-                      region.x, region.y, region.x+region.width, region.y+region.height, null);
-        } finally {
-          g.dispose();
-          g = null;
+          // copying visible part of the block
+          int left = bx << 2;
+          int pxStart = Math.max(0, x0 - left), pxEnd = Math.min(4, x1 - left);
+          int dst = offset + (top + pyStart - y0)*scanSize + (left - x0);
+          for (int py = pyStart; py < pyEnd; py++, dst += scanSize) {
+            for (int px = pxStart; px < pxEnd; px++) {
+              buffer[dst + px] = pixels[(py << 2) + px];
+            }
+          }
         }
-        alignedImage = null;
       }
-      return true;
     }
 
-    /**
-     * Decodes PVR data in DXT3 format and draws the specified "region" into "image".
-     * @param pvr The PVR data
-     * @param image The output image
-     * @param region The of the PVR texture region to draw onto "image"
-     * @return The success state of the operation.
-     * @throws Exception on error.
-     */
-    public static boolean decodeDXT3(PvrInfo pvr, BufferedImage image, Rectangle region) throws Exception
+    // Decodes a single DXT1 block into 16 ARGB pixels
+    private static void decodeBlockDXT1(byte[] data, int ofs, int[] colors, int[] pixels)
     {
-      if (pvr == null || image == null || region == null) {
-        return false;
-      }
-
-      int imgWidth = image.getWidth();
-      int imgHeight = image.getHeight();
-      int[] imgData = null;
-
-      // checking region bounds and alignment
-      if (region.x < 0) {region.width += -region.x; region.x = 0; }
-      if (region.y < 0) {region.height += -region.y; region.y = 0; }
-      if (region.x + region.width > pvr.width) region.width = pvr.width - region.x;
-      if (region.y + region.height > pvr.height) region.height = pvr.height - region.y;
-      Rectangle rect = alignRectangle(region, 4, 4);
-
-      // preparing aligned image buffer for faster rendering
-      BufferedImage alignedImage = null;
-      int imgWidthAligned;
-      if (!region.equals(rect)) {
-        alignedImage = new BufferedImage(rect.width, rect.height, BufferedImage.TYPE_INT_ARGB);
-        imgWidthAligned = alignedImage.getWidth();
-        imgData = ((DataBufferInt)alignedImage.getRaster().getDataBuffer()).getData();
-        // translating "region" to be relative to "rect"
-        region.x -= rect.x;
-        region.y -= rect.y;
-        if (imgWidth < region.width) {
-          region.width= imgWidth;
-        }
-        if (imgHeight < region.height) {
-          region.height = imgHeight;
-        }
-      } else {
-        imgWidthAligned = imgWidth;
-        imgData = ((DataBufferInt)image.getRaster().getDataBuffer()).getData();
-      }
-
-      final int wordSize = 16;                  // data size of an encoded 4x4 pixel block
-      int wordImageWidth = pvr.width >>> 2;     // the image width in data blocks
-      int wordRectWidth = rect.width >>> 2;     // the aligned region's width in data blocks
-      int wordRectHeight = rect.height >>> 2;   // the aligned region's height in data blocks
-      int wordPosX = rect.x >>> 2;
-      int wordPosY = rect.y >>> 2;
-
-      int[] colors = new int[8];
-      int pvrOfs = (wordPosY*wordImageWidth + wordPosX)*wordSize;
-      int imgOfs = 0;
-      for (int y = 0; y < wordRectHeight; y++) {
-        for (int x = 0; x < wordRectWidth; x++) {
-          // decoding single DXT3 block
-          long alpha = DynamicArray.getByte(pvr.data, pvrOfs);
-          int c = DynamicArray.getInt(pvr.data, pvrOfs+8);
-          unpackColors565(c, colors);
-          int code = DynamicArray.getInt(pvr.data, pvrOfs+12);
-          for (int idx = 0; idx < 16; idx++, code >>>= 2, alpha >>>= 4) {
-            // calculating alpha (4 bit -> 8 bit)
-            int ofs = imgOfs + (idx >>> 2)*imgWidthAligned + (idx & 3);
-            int color = (int)(alpha & 0xf) << 24;
-            color |= color << 4;
-            // decoding pixels
-            if ((code & 3) == 0) {
-              // 100% c0, 0% c1
-              color |= (colors[2] << 16) | (colors[1] << 8) | colors[0];
-            } else if ((code & 3) == 1) {
-              // 0% c0, 100% c1
-              color |= (colors[6] << 16) | (colors[5] << 8) | colors[4];
-            } else if ((code & 3) == 2) {
-              // 66% c0, 33% c1
-              int v = (((colors[2] << 1) + colors[6]) / 3) << 16;
-              color |= v;
-              v = (((colors[1] << 1) + colors[5]) / 3) << 8;
-              color |= v;
-              v = ((colors[0] << 1) + colors[4]) / 3;
-              color |= v;
-            } else {
-              // 33% c0, 66% c1
-              int v = ((colors[2] + (colors[6] << 1)) / 3) << 16;
-              color |= v;
-              v = ((colors[1] + (colors[5] << 1)) / 3) << 8;
-              color |= v;
-              v = (colors[0] + (colors[4] << 1)) / 3;
-              if (v > 255) v = 255;
-              color |= v;
-            }
-            imgData[ofs] = color;
+      int c = DynamicArray.getInt(data, ofs);
+      unpackColors565(c, colors);
+      int code = DynamicArray.getInt(data, ofs+4);
+      boolean opaque = (c & 0xffff) > ((c >>> 16) & 0xffff);
+      for (int idx = 0; idx < 16; idx++, code >>>= 2) {
+        if ((code & 3) == 0) {
+          // 100% c0, 0% c1
+          pixels[idx] = 0xff000000 | (colors[2] << 16) | (colors[1] << 8) | colors[0];
+        } else if ((code & 3) == 1) {
+          // 0% c0, 100% c1
+          pixels[idx] = 0xff000000 | (colors[6] << 16) | (colors[5] << 8) | colors[4];
+        } else if ((code & 3) == 2) {
+          if (opaque) {
+            // 66% c0, 33% c1
+            int v = 0xff000000;
+            v |= (((colors[2] << 1) + colors[6]) / 3) << 16;
+            v |= (((colors[1] << 1) + colors[5]) / 3) << 8;
+            v |=  ((colors[0] << 1) + colors[4]) / 3;
+            pixels[idx] = v;
+          } else {
+            // 50% c0, 50% c1
+            int v = 0xff000000;
+            v |= ((colors[2] + colors[6]) >>> 1) << 16;
+            v |= ((colors[1] + colors[5]) >>> 1) << 8;
+            v |=  (colors[0] + colors[4]) >>> 1;
+            pixels[idx] = v;
+          }
+        } else {
+          if (opaque) {
+            // 33% c0, 66% c1
+            int v = 0xff000000;
+            v |= ((colors[2] + (colors[6] << 1)) / 3) << 16;
+            v |= ((colors[1] + (colors[5] << 1)) / 3) << 8;
+            v |=  (colors[0] + (colors[4] << 1)) / 3;
+            pixels[idx] = v;
+          } else {
+            // transparent
+            pixels[idx] = 0;
           }
-
-          pvrOfs += wordSize;
-          imgOfs += 4;
-        }
-        pvrOfs += (wordImageWidth - wordRectWidth)*wordSize;
-        imgOfs += (imgWidthAligned << 2) - rect.width;
-      }
-      imgData = null;
-
-      // rendering aligned image to target image
-      if (alignedImage != null) {
-        Graphics2D g = image.createGraphics();
-        try {
-          g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC));
-          g.drawImage(alignedImage, 0, 0, region.width, region.height,
-                      region.x, region.y, region.x+region.width, region.y+region.height, null);
-        } finally {
-          g.dispose();
-          g = null;
         }
-        alignedImage = null;
       }
-      return true;
     }
 
-    /**
-     * Decodes PVR data in DXT5 format and draws the specified "region" into "image".
-     * @param pvr The PVR data
-     * @param image The output image
-     * @param region The of the PVR texture region to draw onto "image"
-     * @return The success state of the operation.
-     * @throws Exception on error.
-     */
-    public static boolean decodeDXT5(PvrInfo pvr, BufferedImage image, Rectangle region) throws Exception
+    // Decodes a single DXT3 block into 16 ARGB pixels
+    private static void decodeBlockDXT3(byte[] data, int ofs, int[] colors, int[] pixels)
     {
-      if (pvr == null || image == null || region == null) {
-        return false;
+      long alpha = DynamicArray.getLong(data, ofs);
+      int c = DynamicArray.getInt(data, ofs+8);
+      unpackColors565(c, colors);
+      int code = DynamicArray.getInt(data, ofs+12);
+      for (int idx = 0; idx < 16; idx++, code >>>= 2, alpha >>>= 4) {
+        // calculating alpha (4 bit -> 8 bit)
+        int color = (int)(alpha & 0xf) << 24;
+        color |= color << 4;
+        pixels[idx] = color | interpolateColor(colors, code & 3);
       }
+    }
 
-      int imgWidth = image.getWidth();
-      int imgHeight = image.getHeight();
-      int[] imgData = null;
-
-      // checking region bounds and alignment
-      if (region.x < 0) {region.width += -region.x; region.x = 0; }
-      if (region.y < 0) {region.height += -region.y; region.y = 0; }
-      if (region.x + region.width > pvr.width) region.width = pvr.width - region.x;
-      if (region.y + region.height > pvr.height) region.height = pvr.height - region.y;
-      Rectangle rect = alignRectangle(region, 4, 4);
-
-      // preparing aligned image buffer for faster rendering
-      BufferedImage alignedImage = null;
-      int imgWidthAligned;
-      if (!region.equals(rect)) {
-        alignedImage = new BufferedImage(rect.width, rect.height, BufferedImage.TYPE_INT_ARGB);
-        imgWidthAligned = alignedImage.getWidth();
-        imgData = ((DataBufferInt)alignedImage.getRaster().getDataBuffer()).getData();
-        // translating "region" to be relative to "rect"
-        region.x -= rect.x;
-        region.y -= rect.y;
-        if (imgWidth < region.width) {
-          region.width= imgWidth;
-        }
-        if (imgHeight < region.height) {
-          region.height = imgHeight;
-        }
+    // Decodes a single DXT5 block into 16 ARGB pixels
+    private static void decodeBlockDXT5(byte[] data, int ofs, int[] colors, int[] alpha, int[] pixels)
+    {
+      // creating alpha table
+      alpha[0] = DynamicArray.getByte(data, ofs) & 0xff;
+      alpha[1] = DynamicArray.getByte(data, ofs+1) & 0xff;
+      if (alpha[0] > alpha[1]) {
+        alpha[2] = (6*alpha[0] +   alpha[1]) / 7;
+        alpha[3] = (5*alpha[0] + 2*alpha[1]) / 7;
+        alpha[4] = (4*alpha[0] + 3*alpha[1]) / 7;
+        alpha[5] = (3*alpha[0] + 4*alpha[1]) / 7;
+        alpha[6] = (2*alpha[0] + 5*alpha[1]) / 7;
+        alpha[7] = (  alpha[0] + 6*alpha[1]) / 7;
       } else {
-        imgWidthAligned = imgWidth;
-        imgData = ((DataBufferInt)image.getRaster().getDataBuffer()).getData();
+        alpha[2] = (4*alpha[0] +   alpha[1]) / 5;
+        alpha[3] = (3*alpha[0] + 2*alpha[1]) / 5;
+        alpha[4] = (2*alpha[0] + 3*alpha[1]) / 5;
+        alpha[5] = (  alpha[0] + 4*alpha[1]) / 5;
+        alpha[6] = 0;
+        alpha[7] = 255;
       }
 
-      final int wordSize = 16;                  // data size of an encoded 4x4 pixel block
-      int wordImageWidth = pvr.width >>> 2;     // the image width in data blocks
-      int wordRectWidth = rect.width >>> 2;     // the aligned region's width in data blocks
-      int wordRectHeight = rect.height >>> 2;   // the aligned region's height in data blocks
-      int wordPosX = rect.x >>> 2;
-      int wordPosY = rect.y >>> 2;
-
-      int[] alpha = new int[8];
-      int[] colors = new int[8];
-      int pvrOfs = (wordPosY*wordImageWidth + wordPosX)*wordSize;
-      int imgOfs = 0;
-      for (int y = 0; y < wordRectHeight; y++) {
-        for (int x = 0; x < wordRectWidth; x++) {
-          // creating alpha table
-          alpha[0] = DynamicArray.getByte(pvr.data, pvrOfs) & 0xff;
-          alpha[1] = DynamicArray.getByte(pvr.data, pvrOfs+1) & 0xff;
-          if (alpha[0] > alpha[1]) {
-            alpha[2] = (6*alpha[0] +   alpha[1]) / 7;
-            alpha[3] = (5*alpha[0] + 2*alpha[1]) / 7;
-            alpha[4] = (4*alpha[0] + 3*alpha[1]) / 7;
-            alpha[5] = (3*alpha[0] + 4*alpha[1]) / 7;
-            alpha[6] = (2*alpha[0] + 5*alpha[1]) / 7;
-            alpha[7] = (  alpha[0] + 6*alpha[1]) / 7;
-          } else {
-            alpha[2] = (4*alpha[0] +   alpha[1]) / 5;
-            alpha[3] = (3*alpha[0] + 2*alpha[1]) / 5;
-            alpha[4] = (2*alpha[0] + 3*alpha[1]) / 5;
-            alpha[5] = (  alpha[0] + 4*alpha[1]) / 5;
-            alpha[6] = 0;
-            alpha[7] = 255;
-          }
-
-          // decoding single DXT5 block
-          long ctrl = DynamicArray.getLong(pvr.data, pvrOfs+2) & 0xffffffffffffL;
-          int c = DynamicArray.getInt(pvr.data, pvrOfs+8);
-          unpackColors565(c, colors);
-          int code = DynamicArray.getInt(pvr.data, pvrOfs+12);
-          for (int idx = 0; idx < 16; idx++, code >>>= 2, ctrl >>>= 3) {
-            int ofs = imgOfs + (idx >>> 2)*imgWidthAligned + (idx & 3);
-            int color = alpha[(int)(ctrl & 7L)] << 24;
-            if ((code & 3) == 0) {
-              // 100% c0, 0% c1
-              color |= (colors[2] << 16) | (colors[1] << 8) | colors[0];
-            } else if ((code & 3) == 1) {
-              // 0% c0, 100% c1
-              color |= (colors[6] << 16) | (colors[5] << 8) | colors[4];
-            } else if ((code & 3) == 2) {
-              // 66% c0, 33% c1
-              int v = (((colors[2] << 1) + colors[6]) / 3) << 16;
-              color |= v;
-              v = (((colors[1] << 1) + colors[5]) / 3) << 8;
-              color |= v;
-              v = ((colors[0] << 1) + colors[4]) / 3;
-              color |= v;
-            } else {
-              // 33% c0, 66% c1
-              int v = ((colors[2] + (colors[6] << 1)) / 3) << 16;
-              color |= v;
-              v = ((colors[1] + (colors[5] << 1)) / 3) << 8;
-              color |= v;
-              v = (colors[0] + (colors[4] << 1)) / 3;
-              if (v > 255) v = 255;
-              color |= v;
-            }
-            imgData[ofs] = color;
-          }
-
-          pvrOfs += wordSize;
-          imgOfs += 4;
-        }
-        pvrOfs += (wordImageWidth - wordRectWidth)*wordSize;
-        imgOfs += (imgWidthAligned << 2) - rect.width;
-      }
-      imgData = null;
-
-      // rendering aligned image to target image
-      if (alignedImage != null) {
-        Graphics2D g = image.createGraphics();
-        try {
-          g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC));
-          g.drawImage(alignedImage, 0, 0, region.width, region.height,
-                      region.x, region.y, region.x+region.width, region.y+region.height, null);
-        } finally {
-          g.dispose();
-          g = null;
-        }
-        alignedImage = null;
+      long ctrl = DynamicArray.getLong(data, ofs+2) & 0xffffffffffffL;
+      int c = DynamicArray.getInt(data, ofs+8);
+      unpackColors565(c, colors);
+      int code = DynamicArray.getInt(data, ofs+12);
+      for (int idx = 0; idx < 16; idx++, code >>>= 2, ctrl >>>= 3) {
+        pixels[idx] = (alpha[(int)(ctrl & 7L)] << 24) | interpolateColor(colors, code & 3);
       }
-      return true;
     }
 
+    // Returns the RGB color for the specified 2-bit color code (DXT3 and DXT5 only)
+    private static int interpolateColor(int[] colors, int code)
+    {
+      switch (code) {
+        case 0:
+          // 100% c0, 0% c1
+          return (colors[2] << 16) | (colors[1] << 8) | colors[0];
+        case 1:
+          // 0% c0, 100% c1
+          return (colors[6] << 16) | (colors[5] << 8) | colors[4];
+        case 2:
+          // 66% c0, 33% c1
+          return ((((colors[2] << 1) + colors[6]) / 3) << 16) |
+                 ((((colors[1] << 1) + colors[5]) / 3) << 8) |
+                  (((colors[0] << 1) + colors[4]) / 3);
+        default:
+          // 33% c0, 66% c1
+          return (((colors[2] + (colors[6] << 1)) / 3) << 16) |
+                 (((colors[1] + (colors[5] << 1)) / 3) << 8) |
+                  ((colors[0] + (colors[4] << 1)) / 3);
+      }
+    }
 
     // Converts two RGB565 words into separate components, ordered { B, G, R, A, B, G, R, A }
     private static void unpackColors565(int inData, int[] outData)
@@ -1079,12 +1014,6 @@ private static void unpackColors565(int inData, int[] outData)
   // Decodes PVRTC pixel data.
   private static class DecodePVRT
   {
-    // The local cache list for decoded PVR textures. The "key" has to be a unique PvrInfo structure.
-    private static final Map<PvrInfo, BufferedImage> textureCache =
-        Collections.synchronizedMap(new LinkedHashMap<PvrInfo, BufferedImage>());
-    // The max. number of cache entries to hold
-    private static int MaxCacheEntries = 8;
-
     // Datatypes as used in the reference implementation:
     // Pixel32/128S:      int[]{red, green, blue, alpha}
     // PVRTCWord:         int[]{modulation, color}
@@ -1105,168 +1034,71 @@ private static void unpackColors565(int inData, int[] outData)
     private static final int BLK_COL  = 1;
 
 
-    /** Removes all PvrDecoder objects from the cache. */
-    public static void flushCache()
-    {
-      textureCache.clear();
-    }
-
-    // Returns a PvrDecoder object only if it already exists in the cache.
-    private static BufferedImage getCachedImage(PvrInfo pvr)
-    {
-      BufferedImage retVal = null;
-      if (pvr != null) {
-        if (textureCache.containsKey(pvr)) {
-          retVal = textureCache.get(pvr);
-          // re-inserting entry to prevent premature removal from cache
-          textureCache.remove(pvr);
-          textureCache.put(pvr, retVal);
-        }
-      }
-      return retVal;
-    }
-
-    // Returns a PvrDecoder object of the specified key if available, or creates and returns a new one otherwise.
-    private static void registerCachedImage(PvrInfo pvr, BufferedImage image)
-    {
-      if (pvr != null && getCachedImage(pvr) == null && image != null) {
-        textureCache.put(pvr, image);
-        // removing excess cache entries
-        while (textureCache.size() > MaxCacheEntries) {
-          textureCache.remove(textureCache.keySet().iterator().next());
-        }
-      }
-    }
-
-
     /**
-     * Decodes PVR data in PVRT 2bpp format and draws the specified "region" into "image".
+     * Decodes PVR data in PVRT 2bpp format into "imgData".
      * @param pvr The PVR data
-     * @param image The output image
-     * @param region The of the PVR texture region to draw onto "image"
-     * @return The success state of the operation.
-     * @throws Exception on error.
+     * @param imgData The output buffer for the whole texture
      */
-    public static boolean decodePVRT2bpp(PvrInfo pvr, BufferedImage image, Rectangle region) throws Exception
+    public static void decodePVRT2bpp(PvrInfo pvr, int[] imgData)
     {
-      return decodePVRT(pvr, image, region, true);
+      decodePVRT(pvr, imgData, true);
     }
 
     /**
-     * Decodes PVR data in PVRT 4bpp format and draws the specified "region" into "image".
+     * Decodes PVR data in PVRT 4bpp format into "imgData".
      * @param pvr The PVR data
-     * @param image The output image
-     * @param region The of the PVR texture region to draw onto "image"
-     * @return The success state of the operation.
-     * @throws Exception on error.
+     * @param imgData The output buffer for the whole texture
      */
-    public static boolean decodePVRT4bpp(PvrInfo pvr, BufferedImage image, Rectangle region) throws Exception
+    public static void decodePVRT4bpp(PvrInfo pvr, int[] imgData)
     {
-      return decodePVRT(pvr, image, region, false);
+      decodePVRT(pvr, imgData, false);
     }
 
     // Decodes both 2bpp and 4bpp versions of the PVRT format
-    private static boolean decodePVRT(PvrInfo pvr, BufferedImage image, Rectangle region, boolean is2bpp)
-        throws Exception
+    private static void decodePVRT(PvrInfo pvr, int[] imgData, boolean is2bpp)
     {
-      if (pvr == null || image == null || region == null) {
-        return false;
-      }
-
-      int imgWidth = image.getWidth();
-      int imgHeight = image.getHeight();
-      int[] imgData = null;
-
-      // bounds checking
-      if (region.x < 0) { region.width += -region.x; region.x = 0; }
-      if (region.y < 0) { region.height += -region.y; region.y = 0; }
-      if (region.x + region.width > pvr.width) region.width = pvr.width - region.x;
-      if (region.y + region.height > pvr.height) region.height = pvr.height - region.y;
-
-
-      // preparing image buffer for faster rendering
-      BufferedImage alignedImage = getCachedImage(pvr);
-      if (alignedImage == null) {
-        if (!region.equals(new Rectangle(0, 0, pvr.width, pvr.height))) {
-          alignedImage = new BufferedImage(pvr.width, pvr.height, BufferedImage.TYPE_INT_ARGB);
-          imgData = ((DataBufferInt)alignedImage.getRaster().getDataBuffer()).getData();
-          if (imgWidth < region.width) {
-            region.width= imgWidth;
-          }
-          if (imgHeight < region.height) {
-            region.height = imgHeight;
-          }
-        } else {
-          imgData = ((DataBufferInt)image.getRaster().getDataBuffer()).getData();
-        }
-
-        int wordWidth = is2bpp ? 8 : 4;
-        int wordHeight = 4;
-        int numXWords = pvr.width / wordWidth;
-        int numYWords = pvr.height / wordHeight;
-        int[] indices = new int[8];
-        int[] p = new int[2], q = new int[2], r = new int[2], s = new int[2];
-        int[][] pixels = new int[wordWidth*wordHeight][4];
-
-        for (int wordY = -1; wordY < numYWords-1; wordY++) {
-          for (int wordX = -1; wordX < numXWords-1; wordX++) {
-            indices[IDX_P] =   wrapWordIndex(numXWords, wordX);
-            indices[IDX_P+1] = wrapWordIndex(numYWords, wordY);
-            indices[IDX_Q] =   wrapWordIndex(numXWords, wordX+1);
-            indices[IDX_Q+1] = wrapWordIndex(numYWords, wordY);
-            indices[IDX_R] =   wrapWordIndex(numXWords, wordX);
-            indices[IDX_R+1] = wrapWordIndex(numYWords, wordY+1);
-            indices[IDX_S] =   wrapWordIndex(numXWords, wordX+1);
-            indices[IDX_S+1] = wrapWordIndex(numYWords, wordY+1);
-
-            // work out the offsets into the twiddle structs, multiply by two as there are two members per word
-            int[] wordOffsets = new int[]{
-                twiddleUV(numXWords, numYWords, indices[IDX_P], indices[IDX_P+1]) << 1,
-                twiddleUV(numXWords, numYWords, indices[IDX_Q], indices[IDX_Q+1]) << 1,
-                twiddleUV(numXWords, numYWords, indices[IDX_R], indices[IDX_R+1]) << 1,
-                twiddleUV(numXWords, numYWords, indices[IDX_S], indices[IDX_S+1]) << 1
-            };
-
-            // access individual elements to fill out input words
-            p[BLK_MOD] = DynamicArray.getInt(pvr.data,  wordOffsets[0]    << 2);
-            p[BLK_COL] = DynamicArray.getInt(pvr.data, (wordOffsets[0]+1) << 2);
-            q[BLK_MOD] = DynamicArray.getInt(pvr.data,  wordOffsets[1]    << 2);
-            q[BLK_COL] = DynamicArray.getInt(pvr.data, (wordOffsets[1]+1) << 2);
-            r[BLK_MOD] = DynamicArray.getInt(pvr.data,  wordOffsets[2]    << 2);
-            r[BLK_COL] = DynamicArray.getInt(pvr.data, (wordOffsets[2]+1) << 2);
-            s[BLK_MOD] = DynamicArray.getInt(pvr.data,  wordOffsets[3]    << 2);
-            s[BLK_COL] = DynamicArray.getInt(pvr.data, (wordOffsets[3]+1) << 2);
-
-            // assemble four words into struct to get decompressed pixels from
-            getDecompressedPixels(p, q, r, s, pixels, is2bpp);
-            mapDecompressedData(imgData, pvr.width, pixels, indices, is2bpp);
-          }
-        }
-        imgData = null;
-        registerCachedImage(pvr, alignedImage);
-      } else {
-        if (imgWidth < region.width) {
-          region.width= imgWidth;
-        }
-        if (imgHeight < region.height) {
-          region.height = imgHeight;
-        }
-      }
-
-      // rendering aligned image to target image
-      if (alignedImage != null) {
-        Graphics2D g = image.createGraphics();
-        try {
-          g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC));
-          g.drawImage(alignedImage, 0, 0, region.width, region.height,
-                      region.x, region.y, region.x+region.width, region.y+region.height, null);
-        } finally {
-          g.dispose();
-          g = null;
+      int wordWidth = is2bpp ? 8 : 4;
+      int wordHeight = 4;
+      int numXWords = pvr.width / wordWidth;
+      int numYWords = pvr.height / wordHeight;
+      int[] indices = new int[8];
+      int[] p = new int[2], q = new int[2], r = new int[2], s = new int[2];
+      int[][] pixels = new int[wordWidth*wordHeight][4];
+
+      for (int wordY = -1; wordY < numYWords-1; wordY++) {
+        for (int wordX = -1; wordX < numXWords-1; wordX++) {
+          indices[IDX_P] =   wrapWordIndex(numXWords, wordX);
+          indices[IDX_P+1] = wrapWordIndex(numYWords, wordY);
+          indices[IDX_Q] =   wrapWordIndex(numXWords, wordX+1);
+          indices[IDX_Q+1] = wrapWordIndex(numYWords, wordY);
+          indices[IDX_R] =   wrapWordIndex(numXWords, wordX);
+          indices[IDX_R+1] = wrapWordIndex(numYWords, wordY+1);
+          indices[IDX_S] =   wrapWordIndex(numXWords, wordX+1);
+          indices[IDX_S+1] = wrapWordIndex(numYWords, wordY+1);
+
+          // work out the offsets into the twiddle structs, multiply by two as there are two members per word
+          int[] wordOffsets = new int[]{
+              twiddleUV(numXWords, numYWords, indices[IDX_P], indices[IDX_P+1]) << 1,
+              twiddleUV(numXWords, numYWords, indices[IDX_Q], indices[IDX_Q+1]) << 1,
+              twiddleUV(numXWords, numYWords, indices[IDX_R], indices[IDX_R+1]) << 1,
+              twiddleUV(numXWords, numYWords, indices[IDX_S], indices[IDX_S+1]) << 1
+          };
+
+          // access individual elements to fill out input words
+          p[BLK_MOD] = DynamicArray.getInt(pvr.data,  wordOffsets[0]    << 2);
+          p[BLK_COL] = DynamicArray.getInt(pvr.data, (wordOffsets[0]+1) << 2);
+          q[BLK_MOD] = DynamicArray.getInt(pvr.data,  wordOffsets[1]    << 2);
+          q[BLK_COL] = DynamicArray.getInt(pvr.data, (wordOffsets[1]+1) << 2);
+          r[BLK_MOD] = DynamicArray.getInt(pvr.data,  wordOffsets[2]    << 2);
+          r[BLK_COL] = DynamicArray.getInt(pvr.data, (wordOffsets[2]+1) << 2);
+          s[BLK_MOD] = DynamicArray.getInt(pvr.data,  wordOffsets[3]    << 2);
+          s[BLK_COL] = DynamicArray.getInt(pvr.data, (wordOffsets[3]+1) << 2);
+
+          // assemble four words into struct to get decompressed pixels from
+          getDecompressedPixels(p, q, r, s, pixels, is2bpp);
+          mapDecompressedData(imgData, pvr.width, pixels, indices, is2bpp);
         }
-        alignedImage = null;
       }
-      return true;
     }
 
 
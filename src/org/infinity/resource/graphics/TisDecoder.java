@@ -121,6 +121,40 @@ public Type getType()
   /** Writes the specified tile into the buffer. Returns the success state. */
   public abstract boolean getTileData(int tileIdx, int[] buffer);
 
+  /**
+   * Writes all tiles into the buffer, arranged in rows of the specified number of tiles.
+   * @param columns Number of tiles per row.
+   * @param buffer The buffer to write the tiles into. Line size of the buffer is assumed to be
+   *               {@code columns * getTileWidth()} pixels. (Format: ARGB)
+   * @return The success state.
+   */
+  public boolean getTilesetData(int columns, int[] buffer)
+  {
+    int tileWidth = getTileWidth(), tileHeight = getTileHeight();
+    if (columns < 1 || buffer == null || tileWidth < 1 || tileHeight < 1) {
+      return false;
+    }
+    int rows = (getTileCount() + columns - 1) / columns;
+    int scanSize = columns * tileWidth;
+    if (buffer.length < scanSize * rows * tileHeight) {
+      return false;
+    }
+
+    boolean bRet = true;
+    int[] tile = new int[tileWidth * tileHeight];
+    for (int i = 0; i < getTileCount(); i++) {
+      if (getTileData(i, tile)) {
+        int dstOfs = (i / columns) * tileHeight * scanSize + (i % columns) * tileWidth;
+        for (int y = 0; y < tileHeight; y++, dstOfs += scanSize) {
+          System.arraycopy(tile, y * tileWidth, buffer, dstOfs, tileWidth);
+        }
+      } else {
+        bRet = false;
+      }
+    }
+    return bRet;
+  }
+
 
   /** Does basic initializations */
   protected TisDecoder(ResourceEntry tisEntry)
@@ -11,6 +11,12 @@
 import java.awt.image.BufferedImage;
 import java.awt.image.DataBufferInt;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
 
 import org.infinity.resource.ResourceFactory;
 import org.infinity.resource.key.ResourceEntry;
@@ -145,6 +151,63 @@ public boolean getTileData(int tileIdx, int[] buffer)
     return renderTile(tileIdx, buffer);
   }
 
+  /**
+   * {@inheritDoc}
+   * <p>
+   * Tiles are grouped by PVRZ page, so that each page is decoded only once. Tiles of different
+   * pages are rendered in parallel by the {@link DecoderThreadPool}.
+   */
+  @Override
+  public boolean getTilesetData(int columns, int[] buffer)
+  {
+    if (tisBuffer == null || columns < 1 || buffer == null) {
+      return false;
+    }
+    int rows = (getTileCount() + columns - 1) / columns;
+    final int scanSize = columns * TileDimension;
+    if (buffer.length < scanSize * rows * TileDimension) {
+      return false;
+    }
+
+    // grouping tiles by page
+    TreeMap<Integer, List<Integer>> pageMap = new TreeMap<>();
+    for (int i = 0; i < getTileCount(); i++) {
+      pageMap.computeIfAbsent(Integer.valueOf(getPvrzPage(i)), k -> new ArrayList<>()).add(Integer.valueOf(i));
+    }
+
+    List<Callable<Boolean>> tasks = new ArrayList<>(pageMap.size());
+    for (final Map.Entry<Integer, List<Integer>> e: pageMap.entrySet()) {
+      tasks.add(() -> {
+        int page = e.getKey().intValue();
+        PvrDecoder decoder = (page >= 0) ? getPVR(page) : null;
+        if (page >= 0 && decoder == null) {
+          return Boolean.FALSE;
+        }
+        try {
+          for (final Integer tileIdx: e.getValue()) {
+            int idx = tileIdx.intValue();
+            int dstOfs = (idx / columns) * TileDimension * scanSize + (idx % columns) * TileDimension;
+            if (decoder != null) {
+              int ofs = getTileOffset(idx);
+              int x = tisBuffer.getInt(ofs+4);
+              int y = tisBuffer.getInt(ofs+8);
+              decoder.decode(buffer, dstOfs, scanSize, x, y, TileDimension, TileDimension);
+            } else {
+              for (int row = 0; row < TileDimension; row++, dstOfs += scanSize) {
+                Arrays.fill(buffer, dstOfs, dstOfs + TileDimension, 0xff000000);
+              }
+            }
+          }
+          return Boolean.TRUE;
+        } catch (Exception ex) {
+          ex.printStackTrace();
+        }
+        return Boolean.FALSE;
+      });
+    }
+    return DecoderThreadPool.invokeAll(tasks);
+  }
+
 
   private void init()
   {
@@ -5,109 +5,82 @@
 package org.infinity.resource.key;
 
 import java.io.IOException;
-import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.zip.Deflater;
 import java.util.zip.DeflaterOutputStream;
 
 import org.infinity.gui.BIFFEditor;
 import org.infinity.resource.Profile;
 import org.infinity.resource.ResourceFactory;
+import org.infinity.util.Misc;
 import org.infinity.util.io.FileManager;
 import org.infinity.util.io.StreamUtils;
 
 public final class BIFFWriter
 {
+  /** Default size of uncompressed BIFC blocks. */
+  public static final int DEFAULT_BLOCK_SIZE = 8192;
+
   private final BIFFEntry bifEntry;
   private final Map<ResourceEntry, Boolean> resources = new HashMap<ResourceEntry, Boolean>();
   private final Map<ResourceEntry, Boolean> tileResources = new HashMap<ResourceEntry, Boolean>();
   private final int format;
+  private int blockSize = DEFAULT_BLOCK_SIZE;
+  private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
 
-  private static byte[] compress(byte data[])
+  public BIFFWriter(BIFFEntry bifEntry, int format)
   {
-    Deflater deflater = new Deflater();
-    byte compr[] = new byte[data.length * 2];
-    deflater.setInput(data);
-    deflater.finish();
-    int clength = deflater.deflate(compr);
-    return Arrays.copyOfRange(compr, 0, clength);
+    this.bifEntry = bifEntry;
+    this.format = format;
+    if (bifEntry.getIndex() == -1) {  // new biff-file
+      ResourceFactory.getKeyfile().addBIFFEntry(bifEntry);
+    }
   }
 
-  private static void compressBIF(Path biff, Path compr, String uncrfilename) throws IOException
+  /** Returns the size of uncompressed data blocks in BIFC archives. */
+  public int getBlockSize()
   {
-    try (OutputStream os = StreamUtils.getOutputStream(compr, true)) {
-      StreamUtils.writeString(os, "BIF ", 4);
-      StreamUtils.writeString(os, "V1.0", 4);
-      StreamUtils.writeInt(os, uncrfilename.length());
-      StreamUtils.writeString(os, uncrfilename, uncrfilename.length());
-      StreamUtils.writeInt(os, (int)Files.size(biff)); // Uncompressed length
-      StreamUtils.writeInt(os, 0); // Compressed length
-      try (OutputStream dos = new DeflaterOutputStream(os)) {
-        try (InputStream is = StreamUtils.getInputStream(biff)) {
-          byte[] buffer = new byte[32765];
-          int bytesread = is.read(buffer, 0, buffer.length);
-          while (bytesread != -1) {
-            dos.write(buffer, 0, bytesread);
-            bytesread = is.read(buffer, 0, buffer.length);
-          }
-        }
-      }
-    }
-    int comprsize = (int)(Files.size(compr)) - (0x20 + uncrfilename.length());
-    try (FileChannel ch = FileChannel.open(compr, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
-      ch.position((long)(0x10 + uncrfilename.length()));
-      StreamUtils.writeInt(ch, comprsize);
-    }
+    return blockSize;
   }
 
-  private static void compressBIFC(Path biff, Path compr) throws Exception
+  /** Sets the size of uncompressed data blocks in BIFC archives. */
+  public void setBlockSize(int blockSize)
   {
-    try (OutputStream os = StreamUtils.getOutputStream(compr, true)) {
-      StreamUtils.writeString(os, "BIFC", 4);
-      StreamUtils.writeString(os, "V1.0", 4);
-      StreamUtils.writeInt(os, (int)Files.size(biff));
-      try (InputStream is = StreamUtils.getInputStream(biff)) {
-        byte block[] = readBytes(is, 8192);
-        while (block.length != 0) {
-          byte[] compressed = compress(block);
-          StreamUtils.writeInt(os, block.length);
-          StreamUtils.writeInt(os, compressed.length);
-          StreamUtils.writeBytes(os, compressed);
-          block = readBytes(is, 8192);
-        }
-      }
+    if (blockSize <= 0) {
+      throw new IllegalArgumentException("Invalid block size: " + blockSize);
     }
+    this.blockSize = blockSize;
   }
 
-  private static byte[] readBytes(InputStream is, int length) throws Exception
+  /** Returns the compression level used for compressed BIF and BIFC archives. */
+  public int getCompressionLevel()
   {
-    byte[] buffer = new byte[length];
-    int bytesread = 0;
-    while (bytesread < length) {
-      int newread = is.read(buffer, bytesread, length - bytesread);
-      if (newread == -1) {
-        break;
-      }
-      bytesread += newread;
-    }
-    return Arrays.copyOfRange(buffer, 0, bytesread);
+    return compressionLevel;
   }
 
-  public BIFFWriter(BIFFEntry bifEntry, int format)
+  /**
+   * Sets the compression level used for compressed BIF and BIFC archives.
+   * @param level Compression level in range [0, 9] or {@link Deflater#DEFAULT_COMPRESSION}.
+   */
+  public void setCompressionLevel(int level)
   {
-    this.bifEntry = bifEntry;
-    this.format = format;
-    if (bifEntry.getIndex() == -1) {  // new biff-file
-      ResourceFactory.getKeyfile().addBIFFEntry(bifEntry);
+    if ((level < 0 || level > 9) && level != Deflater.DEFAULT_COMPRESSION) {
+      throw new IllegalArgumentException("Invalid compression level: " + level);
     }
+    this.compressionLevel = level;
   }
 
   public void addResource(ResourceEntry resourceEntry, boolean ignoreoverride)
@@ -125,63 +98,89 @@ public void write() throws Exception
     if (biffPath == null || !Files.isDirectory(biffPath)) {
       throw new Exception("No BIFF folder found.");
     }
-    Path dummyFile = Files.createTempFile(biffPath, "_dummy", ".bif");
-    Path compressedFile = null;
+    // Resources may be read from the BIFF to replace, so output goes to a temp file first
+    Path tempFile = Files.createTempFile(biffPath, "_dummy", ".bif");
     try {
-      writeBIFF(dummyFile);
-      ResourceFactory.getKeyfile().closeBIFFFiles();
-      bifEntry.setFileSize((int)Files.size(dummyFile)); // Uncompressed length
-      if (format == BIFFEditor.BIFF) {
-        // Delete old BIFF, rename this to real name
-        Path realFile = bifEntry.getPath();
-        if (realFile == null) {
-          realFile = FileManager.query(Profile.getGameRoot(), bifEntry.toString());
-        }
-        if (Files.isRegularFile(realFile)) {
-          Files.delete(realFile);
-        }
-        Files.move(dummyFile, realFile);
-      } else if (format == BIFFEditor.BIF) {
-        compressedFile = Files.createTempFile(biffPath, "_dummy", ".cbf");
-        compressBIF(dummyFile, compressedFile, bifEntry.toString());
-        Files.delete(dummyFile);
-        // Delete old BIFF, rename this to real name
-        Path realFile = bifEntry.getPath();
-        if (realFile == null) {
-          realFile = FileManager.query(Profile.getGameRoot(), bifEntry.toString());
-        }
-        if (Files.isRegularFile(realFile)) {
-          Files.delete(realFile);
-        }
-        Files.move(compressedFile, realFile);
+      long size;
+      if (format == BIFFEditor.BIF) {
+        size = writeBIF(tempFile, bifEntry.toString());
       } else if (format == BIFFEditor.BIFC) {
-        compressedFile = Files.createTempFile(biffPath, "_dummy", ".bif");
-        compressBIFC(dummyFile, compressedFile);
-        Files.delete(dummyFile);
-        // Delete old BIFF, rename this to real name
-        Path realFile = bifEntry.getPath();
-        if (realFile == null) {
-          realFile = FileManager.query(Profile.getRootFolders(), bifEntry.toString());
+        size = writeBIFC(tempFile);
+      } else {
+        try (OutputStream os = StreamUtils.getOutputStream(tempFile, true)) {
+          size = writeBIFF(os);
         }
-        if (Files.isRegularFile(realFile)) {
-          Files.delete(realFile);
+      }
+      ResourceFactory.getKeyfile().closeBIFFFiles();
+      bifEntry.setFileSize((int)size); // Uncompressed length
+
+      // Delete old BIFF, rename this to real name
+      Path realFile = bifEntry.getPath();
+      if (realFile == null) {
+        if (format == BIFFEditor.BIFC) {
+          realFile = FileManager.query(Profile.getRootFolders(), bifEntry.toString());
+        } else {
+          realFile = FileManager.query(Profile.getGameRoot(), bifEntry.toString());
         }
-        Files.move(compressedFile, realFile);
       }
+      if (Files.isRegularFile(realFile)) {
+        Files.delete(realFile);
+      }
+      Files.move(tempFile, realFile);
     } finally {
-      if (dummyFile != null && Files.isRegularFile(dummyFile)) {
+      if (tempFile != null && Files.isRegularFile(tempFile)) {
         try {
-          Files.delete(dummyFile);
+          Files.delete(tempFile);
         } catch (IOException e) {
         }
       }
-      if (compressedFile != null && Files.isRegularFile(compressedFile)) {
-        try {
-          Files.delete(compressedFile);
-        } catch (IOException e) {
-        }
+    }
+  }
+
+  // Writes a BIF V1.0 archive containing a single zlib compressed BIFF. Returns the uncompressed size.
+  private long writeBIF(Path file, String uncrfilename) throws Exception
+  {
+    long size;
+    try (OutputStream os = StreamUtils.getOutputStream(file, true)) {
+      StreamUtils.writeString(os, "BIF ", 4);
+      StreamUtils.writeString(os, "V1.0", 4);
+      StreamUtils.writeInt(os, uncrfilename.length());
+      StreamUtils.writeString(os, uncrfilename, uncrfilename.length());
+      StreamUtils.writeInt(os, 0); // Uncompressed length
+      StreamUtils.writeInt(os, 0); // Compressed length
+      Deflater deflater = new Deflater(compressionLevel);
+      try (OutputStream dos = new DeflaterOutputStream(os, deflater, 65536)) {
+        size = writeBIFF(dos);
+      } finally {
+        deflater.end();
+      }
+    }
+    int comprsize = (int)(Files.size(file)) - (0x14 + uncrfilename.length());
+    try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      ch.position((long)(0x0c + uncrfilename.length()));
+      StreamUtils.writeInt(ch, (int)size);
+      StreamUtils.writeInt(ch, comprsize);
+    }
+    return size;
+  }
+
+  // Writes a BIFC V1.0 archive consisting of individually compressed blocks. Returns the uncompressed size.
+  private long writeBIFC(Path file) throws Exception
+  {
+    long size;
+    try (OutputStream os = StreamUtils.getOutputStream(file, true)) {
+      StreamUtils.writeString(os, "BIFC", 4);
+      StreamUtils.writeString(os, "V1.0", 4);
+      StreamUtils.writeInt(os, 0); // Uncompressed length
+      try (OutputStream bos = new BlockDeflaterOutputStream(os, blockSize, compressionLevel)) {
+        size = writeBIFF(bos);
       }
     }
+    try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      ch.position(8L);
+      StreamUtils.writeInt(ch, (int)size);
+    }
+    return size;
   }
 
   private BIFFResourceEntry reloadNode(ResourceEntry entry, int newOffset)
@@ -192,54 +191,198 @@ private BIFFResourceEntry reloadNode(ResourceEntry entry, int newOffset)
     return newEntry;
   }
 
-  private void writeBIFF(Path file) throws Exception
+  // Writes uncompressed BIFF data to the specified stream. Returns number of bytes written.
+  private long writeBIFF(OutputStream os) throws Exception
   {
-    try (OutputStream os = StreamUtils.getOutputStream(file, true)) {
-      StreamUtils.writeString(os, "BIFF", 4);
-      StreamUtils.writeString(os, "V1  ", 4);
-      StreamUtils.writeInt(os, resources.size());
-      StreamUtils.writeInt(os, tileResources.size());
-      StreamUtils.writeInt(os, 0x14);
-      int offset = 20 + 16 * resources.size() + 20 * tileResources.size();
-      int index = 0; // Non-tileset index starts at 0
-      for (final ResourceEntry resourceEntry : resources.keySet()) {
-        BIFFResourceEntry newentry = reloadNode(resourceEntry, index);
-        StreamUtils.writeInt(os, newentry.getLocator());
-        StreamUtils.writeInt(os, offset); // Offset
-        int info[] = resourceEntry.getResourceInfo(resources.get(resourceEntry).booleanValue());
-        offset += info[0];
-        StreamUtils.writeInt(os, info[0]); // Size
-        StreamUtils.writeShort(os, (short)ResourceFactory.getKeyfile().getExtensionType(resourceEntry.getExtension()));
-        StreamUtils.writeShort(os, (short)0); // Unknown
-        index++;
+    long total = 20 + 16 * resources.size() + 20 * tileResources.size();
+    StreamUtils.writeString(os, "BIFF", 4);
+    StreamUtils.writeString(os, "V1  ", 4);
+    StreamUtils.writeInt(os, resources.size());
+    StreamUtils.writeInt(os, tileResources.size());
+    StreamUtils.writeInt(os, 0x14);
+    int offset = 20 + 16 * resources.size() + 20 * tileResources.size();
+    int index = 0; // Non-tileset index starts at 0
+    for (final ResourceEntry resourceEntry : resources.keySet()) {
+      BIFFResourceEntry newentry = reloadNode(resourceEntry, index);
+      StreamUtils.writeInt(os, newentry.getLocator());
+      StreamUtils.writeInt(os, offset); // Offset
+      int info[] = resourceEntry.getResourceInfo(resources.get(resourceEntry).booleanValue());
+      offset += info[0];
+      StreamUtils.writeInt(os, info[0]); // Size
+      StreamUtils.writeShort(os, (short)ResourceFactory.getKeyfile().getExtensionType(resourceEntry.getExtension()));
+      StreamUtils.writeShort(os, (short)0); // Unknown
+      index++;
+    }
+    index = 1; // Tileset index starts at 1
+    for (final ResourceEntry resourceEntry : tileResources.keySet()) {
+      BIFFResourceEntry newentry = reloadNode(resourceEntry, index);
+      StreamUtils.writeInt(os, newentry.getLocator());
+      StreamUtils.writeInt(os, offset); // Offset
+      int info[] = resourceEntry.getResourceInfo(tileResources.get(resourceEntry).booleanValue());
+      StreamUtils.writeInt(os, info[0]); // Number of tiles
+      StreamUtils.writeInt(os, info[1]); // Size of each tile (in bytes)
+      offset += info[0] * info[1];
+      StreamUtils.writeShort(os, (short)ResourceFactory.getKeyfile().getExtensionType(resourceEntry.getExtension()));
+      StreamUtils.writeShort(os, (short)0); // Unknown
+      index++;
+    }
+    for (final ResourceEntry resourceEntry : resources.keySet()) {
+      ByteBuffer buffer = resourceEntry.getResourceBuffer(resources.get(resourceEntry).booleanValue());
+      total += buffer.remaining();
+      StreamUtils.writeBytes(os, buffer);
+    }
+    for (final ResourceEntry resourceEntry : tileResources.keySet()) {
+      ByteBuffer buffer = resourceEntry.getResourceBuffer(tileResources.get(resourceEntry).booleanValue());
+      int info[] = resourceEntry.getResourceInfo(tileResources.get(resourceEntry).booleanValue());
+      int size = info[0]*info[1];
+      int toSkip = buffer.limit() - size;
+      if (toSkip > 0) {
+        buffer.position(toSkip);  // skipping TIS header
+      }
+      total += buffer.remaining();
+      StreamUtils.writeBytes(os, buffer);
+    }
+    return total;
+  }
+
+//-------------------------- INNER CLASSES --------------------------
+
+  /**
+   * Splits the written data into blocks of fixed size and writes them as individually deflated
+   * BIFC blocks. Blocks are compressed in parallel and written in their original order.
+   */
+  private static class BlockDeflaterOutputStream extends OutputStream
+  {
+    private final ArrayDeque<Future<Block>> pending = new ArrayDeque<>();
+    private final OutputStream out;
+    private final int level;
+    private final ThreadPoolExecutor executor;
+    private final int maxPending;
+    private byte[] buffer;
+    private int bufferPos;
+    private boolean closed;
+
+    public BlockDeflaterOutputStream(OutputStream out, int blockSize, int level)
+    {
+      this.out = out;
+      this.level = level;
+      this.executor = Misc.createThreadPool();
+      this.maxPending = executor.getCorePoolSize() * 2;
+      this.buffer = new byte[blockSize];
+    }
+
+    @Override
+    public void write(int b) throws IOException
+    {
+      ensureOpen();
+      buffer[bufferPos++] = (byte)b;
+      if (bufferPos == buffer.length) {
+        submitBlock();
+      }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException
+    {
+      ensureOpen();
+      while (len > 0) {
+        int n = Math.min(len, buffer.length - bufferPos);
+        System.arraycopy(b, off, buffer, bufferPos, n);
+        bufferPos += n;
+        off += n;
+        len -= n;
+        if (bufferPos == buffer.length) {
+          submitBlock();
+        }
       }
-      index = 1; // Tileset index starts at 1
-      for (final ResourceEntry resourceEntry : tileResources.keySet()) {
-        BIFFResourceEntry newentry = reloadNode(resourceEntry, index);
-        StreamUtils.writeInt(os, newentry.getLocator());
-        StreamUtils.writeInt(os, offset); // Offset
-        int info[] = resourceEntry.getResourceInfo(tileResources.get(resourceEntry).booleanValue());
-        StreamUtils.writeInt(os, info[0]); // Number of tiles
-        StreamUtils.writeInt(os, info[1]); // Size of each tile (in bytes)
-        offset += info[0] * info[1];
-        StreamUtils.writeShort(os, (short)ResourceFactory.getKeyfile().getExtensionType(resourceEntry.getExtension()));
-        StreamUtils.writeShort(os, (short)0); // Unknown
-        index++;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+      if (!closed) {
+        closed = true;
+        try {
+          if (bufferPos > 0) {
+            submitBlock();
+          }
+          while (!pending.isEmpty()) {
+            writeBlock(pending.poll());
+          }
+        } finally {
+          executor.shutdownNow();
+          out.close();
+        }
       }
-      for (final ResourceEntry resourceEntry : resources.keySet()) {
-        StreamUtils.writeBytes(os, resourceEntry.getResourceBuffer(resources.get(resourceEntry).booleanValue()));
+    }
+
+    private void ensureOpen() throws IOException
+    {
+      if (closed) {
+        throw new IOException("Stream closed");
       }
-      for (final ResourceEntry resourceEntry : tileResources.keySet()) {
-        ByteBuffer buffer = resourceEntry.getResourceBuffer(tileResources.get(resourceEntry).booleanValue());
-        int info[] = resourceEntry.getResourceInfo(tileResources.get(resourceEntry).booleanValue());
-        int size = info[0]*info[1];
-        int toSkip = buffer.limit() - size;
-        if (toSkip > 0) {
-          buffer.position(toSkip);  // skipping TIS header
+    }
+
+    // Queues the current buffer content for compression and writes all finished blocks in order
+    private void submitBlock() throws IOException
+    {
+      final byte[] data = (bufferPos == buffer.length) ? buffer : Arrays.copyOf(buffer, bufferPos);
+      final int level = this.level;
+      pending.add(executor.submit(() -> new Block(data.length, compress(data, level))));
+      buffer = new byte[buffer.length];
+      bufferPos = 0;
+
+      while (!pending.isEmpty() && (pending.size() >= maxPending || pending.peek().isDone())) {
+        writeBlock(pending.poll());
+      }
+    }
+
+    private void writeBlock(Future<Block> future) throws IOException
+    {
+      Block block;
+      try {
+        block = future.get();
+      } catch (InterruptedException e) {
+        throw new InterruptedIOException();
+      } catch (ExecutionException e) {
+        throw new IOException(e.getCause());
+      }
+      StreamUtils.writeInt(out, block.size);
+      StreamUtils.writeInt(out, block.data.length);
+      StreamUtils.writeBytes(out, block.data);
+    }
+
+    private static byte[] compress(byte[] data, int level)
+    {
+      Deflater deflater = new Deflater(level);
+      try {
+        deflater.setInput(data);
+        deflater.finish();
+        byte[] compr = new byte[data.length + (data.length >> 3) + 64];
+        int clength = 0;
+        while (!deflater.finished()) {
+          if (clength == compr.length) {
+            compr = Arrays.copyOf(compr, compr.length * 2);
+          }
+          clength += deflater.deflate(compr, clength, compr.length - clength);
         }
-        StreamUtils.writeBytes(os, buffer);
+        return Arrays.copyOf(compr, clength);
+      } finally {
+        deflater.end();
       }
     }
   }
-}
 
+  /** A single compressed BIFC block. */
+  private static class Block
+  {
+    public final int size;      // uncompressed size
+    public final byte[] data;   // compressed data
+
+    public Block(int size, byte[] data)
+    {
+      this.size = size;
+      this.data = data;
+    }
+  }
+}
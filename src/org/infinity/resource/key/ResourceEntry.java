@@ -30,6 +30,7 @@
 import org.infinity.resource.spl.SplResource;
 import org.infinity.resource.sto.StoResource;
 import org.infinity.search.SearchOptions;
+import org.infinity.util.ResourceNameIndex;
 import org.infinity.util.io.StreamUtils;
 
 public abstract class ResourceEntry implements Comparable<ResourceEntry>
@@ -177,39 +178,30 @@ public int[] getResourceInfo() throws Exception
 
   public String getSearchString()
   {
-    if (searchString == null) {
-      try {
-        String extension = getExtension();
-        if (extension.equalsIgnoreCase("CRE")) {
-          try (InputStream is = getResourceDataAsStream()) {
-            searchString = CreResource.getSearchString(is);
+    String retVal = searchString;
+    if (retVal == null) {
+      // names of CRE, ITM, SPL and STO resources are cached by the name index
+      retVal = ResourceNameIndex.get(this);
+      if (retVal == null) {
+        try {
+          if (ResourceNameIndex.isSupported(this)) {
+            retVal = ResourceNameIndex.readName(this);
+            ResourceNameIndex.put(this, retVal);
+          } else if (getExtension().equalsIgnoreCase("ARE") && Profile.isEnhancedEdition()) {
+            retVal = searchString = AreResource.getSearchString(this);
           }
-        } else if (extension.equalsIgnoreCase("ITM")) {
-          try (InputStream is = getResourceDataAsStream()) {
-            searchString = ItmResource.getSearchString(is);
+        } catch (Exception e) {
+          if ((NearInfinity.getInstance() != null) &&
+              !BrowserMenuBar.getInstance().ignoreReadErrors()) {
+            JOptionPane.showMessageDialog(NearInfinity.getInstance(), "Error reading " + toString(),
+                                          "Error", JOptionPane.ERROR_MESSAGE);
           }
-        } else if (extension.equalsIgnoreCase("SPL")) {
-          try (InputStream is = getResourceDataAsStream()) {
-            searchString = SplResource.getSearchString(is);
-          }
-        } else if (extension.equalsIgnoreCase("STO")) {
-          try (InputStream is = getResourceDataAsStream()) {
-            searchString = StoResource.getSearchString(is);
-          }
-        } else if (extension.equalsIgnoreCase("ARE") && Profile.isEnhancedEdition()) {
-          searchString = AreResource.getSearchString(this);
+          retVal = searchString = "Error";
+          e.printStackTrace();
         }
-      } catch (Exception e) {
-        if ((NearInfinity.getInstance() != null) &&
-            !BrowserMenuBar.getInstance().ignoreReadErrors()) {
-          JOptionPane.showMessageDialog(NearInfinity.getInstance(), "Error reading " + toString(),
-                                        "Error", JOptionPane.ERROR_MESSAGE);
-        }
-        searchString = "Error";
-        e.printStackTrace();
       }
     }
-    return searchString;
+    return retVal;
   }
 
   /**
@@ -79,6 +79,21 @@ public void addResourceEntry(ResourceEntry entry, boolean overwrite)
     }
   }
 
+  /**
+   * Adds the specified entries in a single step, which is considerably faster than adding
+   * entries one by one.
+   */
+  public void addResourceEntries(Collection<? extends ResourceEntry> entries, boolean overwrite)
+  {
+    List<ResourceEntry> list = new ArrayList<>(entries.size());
+    entries.forEach((entry) -> {
+      if (entry.isVisible()) {
+        list.add(entry);
+      }
+    });
+    resourceEntries.merge(list, overwrite);
+  }
+
   public Object getChild(int index)
   {
     if (index >= 0) {
@@ -161,6 +176,45 @@ public synchronized boolean add(T item)
       return true;
     }
 
+    /**
+     * Adds all items in a single pass. Equal items replace existing items if {@code overwrite} is set.
+     * Otherwise existing items are retained. The list of items is modified.
+     */
+    public synchronized void merge(List<T> items, boolean overwrite)
+    {
+      if (items.isEmpty()) {
+        return;
+      }
+      Collections.sort(items);    // stable: keeps insertion order of equal items
+      List<T> merged = new ArrayList<T>(size() + items.size());
+      int i = 0, j = 0;
+      while (j < items.size()) {
+        T item = items.get(j);
+        int next = j + 1;
+        while (next < items.size() && items.get(next).compareTo(item) == 0) {
+          next++;
+        }
+        if (overwrite) {
+          item = items.get(next - 1);   // last equal item wins
+        }
+        while (i < size() && get(i).compareTo(item) < 0) {
+          merged.add(get(i++));
+        }
+        if (i < size() && get(i).compareTo(item) == 0) {
+          merged.add(overwrite ? item : get(i));
+          i++;
+        } else {
+          merged.add(item);
+        }
+        j = next;
+      }
+      while (i < size()) {
+        merged.add(get(i++));
+      }
+      super.clear();
+      super.addAll(merged);
+    }
+
     @Override
     public void add(int index, T element)
     {
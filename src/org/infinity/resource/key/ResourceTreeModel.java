@@ -4,15 +4,11 @@
 
 package org.infinity.resource.key;
 
-import java.io.IOException;
-import java.nio.file.DirectoryStream;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -24,6 +20,7 @@
 import javax.swing.tree.TreePath;
 
 import org.infinity.util.Misc;
+import org.infinity.util.io.DirectoryScanner;
 
 public final class ResourceTreeModel implements TreeModel
 {
@@ -99,23 +96,27 @@ public void removeTreeModelListener(TreeModelListener l)
 
   public void addDirectory(ResourceTreeFolder parentFolder, Path directory, boolean overwrite)
   {
-    try (DirectoryStream<Path> dstream = Files.newDirectoryStream(directory)) {
-      Iterator<Path> iter = dstream.iterator();
-      if (iter.hasNext()) {
-        final ResourceTreeFolder folder = addFolder(parentFolder, directory.getFileName().toString());
-        iter.forEachRemaining((path) -> {
-          if (Files.isDirectory(path)) {
-            addDirectory(folder, path, overwrite);
-          } else {
-            folder.addResourceEntry(new FileResourceEntry(path), overwrite);
-          }
-        });
-        parentFolder.sortChildren(true);
-      }
-    } catch (IOException e) {
-      e.printStackTrace();
-      return;
+    try {
+      addDirectories(parentFolder, Collections.singletonList(directory), overwrite);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Adds the content of the specified directories as subfolders of the parent folder.
+   * Directories are scanned in parallel. Entries are sorted once per folder and attached to the tree
+   * in a single step.
+   * @throws InterruptedException if the current thread has been interrupted. The tree is not modified.
+   */
+  public void addDirectories(ResourceTreeFolder parentFolder, List<Path> directories, boolean overwrite)
+      throws InterruptedException
+  {
+    List<DirectoryScanner.Directory> content = DirectoryScanner.scan(directories, true);
+    for (final DirectoryScanner.Directory dir: content) {
+      addDirectory(parentFolder, dir, overwrite);
     }
+    parentFolder.sortChildren(true);
   }
 
   public ResourceTreeFolder addResourceEntry(ResourceEntry entry, String folderName, boolean overwrite)
@@ -124,7 +125,28 @@ public ResourceTreeFolder addResourceEntry(ResourceEntry entry, String folderNam
       ResourceTreeFolder folder = addFolder(folderName);
       folder.addResourceEntry(entry, overwrite);
       entries.put(entry.getResourceName().toUpperCase(Locale.ENGLISH), entry);
-      folder.sortChildren(false);
+      return folder;
+    }
+    return getFolder(folderName);
+  }
+
+  /**
+   * Adds the specified entries to the folder of the given name in a single step.
+   * Returns the folder containing the entries.
+   */
+  public ResourceTreeFolder addResourceEntries(Collection<? extends ResourceEntry> newEntries, String folderName,
+                                               boolean overwrite)
+  {
+    List<ResourceEntry> list = new ArrayList<>(newEntries.size());
+    newEntries.forEach((entry) -> {
+      if (entry.isVisible()) {
+        list.add(entry);
+      }
+    });
+    if (!list.isEmpty()) {
+      ResourceTreeFolder folder = addFolder(folderName);
+      list.forEach((entry) -> entries.put(entry.getResourceName().toUpperCase(Locale.ENGLISH), entry));
+      folder.addResourceEntries(list, overwrite);
       return folder;
     }
     return getFolder(folderName);
@@ -295,22 +317,35 @@ public void removeResourceEntry(ResourceEntry entry)
   }
 
   public void removeResourceEntry(ResourceEntry entry, String folder)
+  {
+    removeResourceEntry(entry, folder, true);
+  }
+
+  /**
+   * Removes the entry from the specified folder. Tree listeners are only notified if {@code notify}
+   * is set. Otherwise {@link #updateFolders(ResourceTreeFolder...)} should be called afterwards.
+   */
+  public void removeResourceEntry(ResourceEntry entry, String folder, boolean notify)
   {
     ResourceTreeFolder parent = folders.get(folder);
     if (parent == null) {
       return;
     }
-    TreePath path = getPathToNode(entry).getParentPath();
-    TreeModelEvent event = new TreeModelEvent(this, path, new int[]{getIndexOfChild(parent, entry)},
-                                              new Object[]{entry});
+    TreeModelEvent event = null;
+    if (notify) {
+      TreePath path = getPathToNode(entry).getParentPath();
+      event = new TreeModelEvent(this, path, new int[]{getIndexOfChild(parent, entry)}, new Object[]{entry});
+    }
     parent.removeResourceEntry(entry);
     entries.remove(entry.toString().toUpperCase(Locale.ENGLISH));
     if (parent.getChildCount() == 0) {
       root.removeFolder(parent);
       folders.remove(parent.folderName());
     }
-    for (int i = 0; i < treeModelListeners.size(); i++) {
-      treeModelListeners.get(i).treeNodesRemoved(event);
+    if (event != null) {
+      for (int i = 0; i < treeModelListeners.size(); i++) {
+        treeModelListeners.get(i).treeNodesRemoved(event);
+      }
     }
   }
 
@@ -347,6 +382,20 @@ public void updateFolders(ResourceTreeFolder... folders)
     }
   }
 
+  // Adds the directory content as subfolder of the parent folder if the directory isn't empty
+  private void addDirectory(ResourceTreeFolder parentFolder, DirectoryScanner.Directory dir, boolean overwrite)
+  {
+    if (!dir.isEmpty()) {
+      ResourceTreeFolder folder = addFolder(parentFolder, dir.getName());
+      List<ResourceEntry> list = new ArrayList<>(dir.getFiles().size());
+      dir.getFiles().forEach((path) -> list.add(new FileResourceEntry(path)));
+      folder.addResourceEntries(list, overwrite);
+      for (final DirectoryScanner.Directory subDir: dir.getDirectories()) {
+        addDirectory(folder, subDir, overwrite);
+      }
+    }
+  }
+
   private void fireTreeStructureChanged(TreePath changed)
   {
     TreeModelEvent event = new TreeModelEvent(this, changed);
@@ -74,6 +74,16 @@ public PlainTextResource(ResourceEntry entry) throws Exception
   public PlainTextResource(ResourceEntry entry, int highlightedLine) throws Exception
   {
     this.entry = entry;
+    this.text = readText(entry);
+    this.highlightedLine = highlightedLine;
+  }
+
+  /**
+   * Returns the decrypted and decoded text content of the specified resource without creating a
+   * resource instance.
+   */
+  public static String readText(ResourceEntry entry) throws Exception
+  {
     ByteBuffer buffer = entry.getResourceBuffer();
     if (buffer.limit() > 1 && buffer.getShort(0) == -1) {
       buffer = StaticSimpleXorDecryptor.decrypt(buffer, 2);
@@ -84,8 +94,7 @@ public PlainTextResource(ResourceEntry entry, int highlightedLine) throws Except
     } else {
       cs = Misc.CHARSET_DEFAULT;
     }
-    text = StreamUtils.readString(buffer, buffer.limit(), cs);
-    this.highlightedLine = highlightedLine;
+    return StreamUtils.readString(buffer, buffer.limit(), cs);
   }
 
 // --------------------- Begin Interface ActionListener ---------------------
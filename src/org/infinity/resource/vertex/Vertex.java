@@ -26,12 +26,12 @@ public Vertex() throws Exception
 
   Vertex(AbstractStruct superStruct, String name, ByteBuffer buffer, int offset) throws Exception
   {
-    super(superStruct, name, buffer, offset, 2);
+    super(superStruct, name, buffer, offset, 2, 4);
   }
 
   public Vertex(AbstractStruct superStruct, ByteBuffer buffer, int offset, int nr) throws Exception
   {
-    super(superStruct, VERTEX + " " + nr, buffer, offset, 2);
+    super(superStruct, VERTEX + " " + nr, buffer, offset, 2, 4);
   }
 
 //--------------------- Begin Interface AddRemovable ---------------------
@@ -4,14 +4,21 @@
 
 package org.infinity.resource.video;
 
+import java.util.concurrent.locks.LockSupport;
+
 import javax.sound.sampled.AudioFormat;
 import javax.sound.sampled.AudioSystem;
 import javax.sound.sampled.SourceDataLine;
 
 public class MvePlayer
 {
+  // Frames are presented slightly ahead of time to compensate for rendering latency (in ns)
+  private static final long PRESENT_AHEAD = 5000000L;
+  // Remaining time below which the timer busy-waits instead of parking the thread (in ns)
+  private static final long SPIN_THRESHOLD = 1000000L;
+
   private boolean playing, paused, stopped;
-  private long startTime, delayTime;
+  private long deadline;
   private AudioQueue audioQueue;
   private SourceDataLine dataLine;
 
@@ -41,7 +48,7 @@ public void play(ImageRenderer renderer, MveDecoder decoder) throws Exception
     for (int i = 0; i < renderer.bufferCount() && decoder.hasNextFrame(); i++) {
       if (decoder.processNextFrame()) {
         // attached frame data contains current frame delay as Integer object
-        renderer.attachData(new Integer(decoder.getFrameDelay()));
+        renderer.attachData(Integer.valueOf(decoder.getFrameDelay()));
         if (decoder.audioInitialized())
           initAudio(decoder);
       } else {
@@ -57,17 +64,17 @@ public void play(ImageRenderer renderer, MveDecoder decoder) throws Exception
     while (isPlaying() && decoder.hasNextFrame()) {
       Object dataObj = renderer.fetchData();
       if (dataObj instanceof Integer) {
-        setTimerDelay(((Integer)dataObj).longValue() * 1000L + timeRemaining());
+        scheduleNextFrame(((Integer)dataObj).longValue() * 1000L);
       } else {
         // audio-only frames do not contain timing information
-        setTimerDelay(0L);
+        resetTimer();
       }
 
       if (decoder.processNextFrame()) {
-        renderer.attachData(new Integer(decoder.getFrameDelay()));
+        renderer.attachData(Integer.valueOf(decoder.getFrameDelay()));
         // has audio been re-initialized?
         if (decoder.audioInitialized()) {
-          setTimerDelay(0L);
+          resetTimer();
           initAudio(decoder);
           dataLine.start();
           outputAudioFrame(true);
@@ -91,10 +98,12 @@ public void play(ImageRenderer renderer, MveDecoder decoder) throws Exception
       if (isPaused()) {
         dataLine.stop();
         dataLine.flush();
-        while (isPlaying() && isPaused()) {
-          try {
-            Thread.sleep(1);
-          } catch (InterruptedException e) {
+        synchronized (this) {
+          while (isPlaying() && isPaused()) {
+            try {
+              wait();
+            } catch (InterruptedException e) {
+            }
           }
         }
         dataLine.start();
@@ -106,7 +115,7 @@ public void play(ImageRenderer renderer, MveDecoder decoder) throws Exception
       }
 
       // waiting for the next frame to be displayed
-      sleepUntil(5000000L);
+      waitUntil(PRESENT_AHEAD);
       renderer.updateRenderer();
       audioQueue.skipNext();
     }
@@ -183,6 +192,7 @@ private synchronized void setPaused(boolean b)
   {
     if (b != paused) {
       paused = b;
+      notifyAll();
     }
   }
 
@@ -190,47 +200,44 @@ private synchronized void setPlaying(boolean b)
   {
     if (b != playing) {
       playing = b;
+      notifyAll();
     }
   }
 
 
-  private void setTimerDelay(long nanoseconds)
+  // sets the deadline of the next frame to the current time
+  private void resetTimer()
   {
-    if (nanoseconds < 0L)
-      nanoseconds = 0L;
-    startTime = System.nanoTime() & Long.MAX_VALUE;
-    delayTime = nanoseconds;
+    deadline = System.nanoTime();
   }
 
-  private long timeRemaining()
+  // advances the deadline by the specified amount of time (in ns), without catching up on lost time
+  private void scheduleNextFrame(long nanoseconds)
   {
-    long res = 0L;
-    long curTime = System.nanoTime() & Long.MAX_VALUE;
-    if (curTime < startTime) {
-      res = delayTime - (Long.MAX_VALUE - startTime + curTime);
-    } else {
-      res = delayTime - (curTime - startTime);
+    long now = System.nanoTime();
+    if (deadline - now < 0L) {
+      deadline = now;
     }
-    if (res < 0L)
-      res = 0L;
-    return res;
+    deadline += Math.max(0L, nanoseconds);
+  }
+
+  // returns the time until the current deadline is reached (in ns)
+  private long timeRemaining()
+  {
+    return Math.max(0L, deadline - System.nanoTime());
   }
 
   // waits until only 'remaining' time (in ns) of the current timer remains
-  private void sleepUntil(long remaining)
+  private void waitUntil(long remaining)
   {
-    if (timeRemaining() > 2000000L) {
-      while (timeRemaining() > remaining) {
-        // sleep as much as possible
-        try {
-          Thread.sleep(1);
-        } catch (InterruptedException e) {
-        }
-      }
-    }
-    if (timeRemaining() <= 2000000L) {
-      while (timeRemaining() > remaining) {
-        // waste remaining nanoseconds
+    long target = deadline - remaining;
+    long delay;
+    while ((delay = target - System.nanoTime()) > 0L) {
+      if (delay > SPIN_THRESHOLD) {
+        // parking until shortly before the deadline to compensate for scheduler inaccuracies
+        LockSupport.parkNanos(delay - SPIN_THRESHOLD);
+      } else {
+        Thread.yield();
       }
     }
   }
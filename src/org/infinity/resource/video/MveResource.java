@@ -4,8 +4,10 @@
 
 package org.infinity.resource.video;
 
+import java.awt.AlphaComposite;
 import java.awt.BorderLayout;
 import java.awt.Dimension;
+import java.awt.Graphics2D;
 import java.awt.Window;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
@@ -14,13 +16,27 @@
 import java.awt.image.BufferedImage;
 import java.awt.image.DataBuffer;
 import java.awt.image.DataBufferInt;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.nio.ByteOrder;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.LinkedList;
-
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
 import javax.swing.BorderFactory;
 import javax.swing.BoxLayout;
 import javax.swing.JButton;
@@ -46,6 +62,7 @@
 import org.infinity.resource.ViewableContainer;
 import org.infinity.resource.key.ResourceEntry;
 import org.infinity.search.ReferenceSearcher;
+import org.infinity.util.Misc;
 import org.monte.media.AudioFormatKeys;
 import org.monte.media.Format;
 import org.monte.media.FormatKeys;
@@ -62,6 +79,8 @@ public class MveResource implements Resource, ActionListener, ItemListener, Clos
   private static final ButtonPanel.Control CtrlStop   = ButtonPanel.Control.CUSTOM_3;
 
   private static boolean isZoom = true;
+  // shared by all AVI conversions to limit the number of encoder threads
+  private static ThreadPoolExecutor encoderPool;
   private static boolean isFilter = true;
 
   private final ResourceEntry entry;
@@ -429,44 +448,69 @@ AudioFormatKeys.SampleRateKey, new Rational(sampleRate),
           writer.writeSample(trackAudio, buffer, 0, buffer.length, true);
         }
 
-        // writing regular frame data
-        do {
-          if (!silent && frameIdx % 10 == 0) {
-            pm.setNote(String.format("Processing frame %d", frameIdx));
-          }
+        // writing regular frame data:
+        // frames are decoded on the current thread, converted and encoded by the shared encoder pool
+        // and written in order by the frame writer thread
+        final float quality = videoFormat.get(VideoFormatKeys.QualityKey, 1.0f);
+        final ConcurrentLinkedQueue<BufferedImage> framePool = new ConcurrentLinkedQueue<>();
+        ThreadPoolExecutor executor = getEncoderPool();
+        AviFrameWriter frameWriter = new AviFrameWriter(writer, trackVideo, trackAudio,
+                                                        executor.getCorePoolSize() * 2);
+        try {
+          do {
+            if (!silent && frameIdx % 10 == 0) {
+              pm.setNote(String.format("Processing frame %d", frameIdx));
+            }
 
-          if (decoder.frameHasVideo()) {
-            BufferedImage image = (BufferedImage)decoder.getVideoOutput().frontBuffer();
-            adjustColorSpace(image);
-            writer.write(trackVideo, image, 1);
-            image = null;
-          }
+            Future<byte[]> video = null;
+            if (decoder.frameHasVideo()) {
+              BufferedImage frame = framePool.poll();
+              if (frame == null) {
+                frame = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+              }
+              copyFrame((BufferedImage)decoder.getVideoOutput().frontBuffer(), frame);
+              final BufferedImage image = frame;
+              Misc.isQueueReady(executor, true, -1);
+              video = executor.submit(() -> {
+                try {
+                  adjustColorSpace(image);
+                  return encodeJpeg(image, quality);
+                } finally {
+                  framePool.add(image);
+                }
+              });
+            }
 
-          byte[] buffer = decoder.getAudioOutput(0).getNextData();
-          if (buffer == null) {
-            buffer = defaultBuffer;
-          }
-          writer.writeSample(trackAudio, buffer, 0, buffer.length, true);
+            byte[] buffer = decoder.getAudioOutput(0).getNextData();
+            if (buffer == null) {
+              buffer = defaultBuffer;
+            }
+            frameWriter.add(video, buffer);
 
-          frameIdx++;
+            frameIdx++;
 
-          if (!silent && pm.isCanceled()) {
-            if (writer != null) {
-              writer.close();
-              writer = null;
-            }
-            if (Files.isRegularFile(outFile)) {
-              try {
-                Files.delete(outFile);
-              } catch (IOException e) {
-                e.printStackTrace();
+            if (!silent && pm.isCanceled()) {
+              frameWriter.cancel();
+              if (writer != null) {
+                writer.close();
+                writer = null;
+              }
+              if (Files.isRegularFile(outFile)) {
+                try {
+                  Files.delete(outFile);
+                } catch (IOException e) {
+                  e.printStackTrace();
+                }
               }
+              JOptionPane.showMessageDialog(parent, "Conversion has been cancelled.",
+                                            "Information", JOptionPane.INFORMATION_MESSAGE);
+              return true;
             }
-            JOptionPane.showMessageDialog(parent, "Conversion has been cancelled.",
-                                          "Information", JOptionPane.INFORMATION_MESSAGE);
-            return true;
-          }
-        } while (decoder.processNextFrame());
+          } while (decoder.processNextFrame());
+          frameWriter.finish();
+        } finally {
+          frameWriter.cancel();
+        }
 
         if (!silent) {
           pm.setProgress(2);
@@ -500,6 +544,59 @@ AudioFormatKeys.SampleRateKey, new Rational(sampleRate),
     return false;
   }
 
+  // Returns the thread pool for encoding video frames, idle threads are released
+  private static synchronized ThreadPoolExecutor getEncoderPool()
+  {
+    if (encoderPool == null) {
+      encoderPool = Misc.createThreadPool();
+      encoderPool.setThreadFactory((r) -> {
+        Thread t = new Thread(r, "MveEncoder");
+        t.setDaemon(true);
+        return t;
+      });
+      encoderPool.setKeepAliveTime(10L, TimeUnit.SECONDS);
+      encoderPool.allowCoreThreadTimeOut(true);
+    }
+    return encoderPool;
+  }
+
+  // Copies the content of the decoded video frame into the specified image
+  private static void copyFrame(BufferedImage src, BufferedImage dst)
+  {
+    if (src.getRaster().getDataBuffer().getDataType() == DataBuffer.TYPE_INT &&
+        src.getWidth() == dst.getWidth() && src.getHeight() == dst.getHeight()) {
+      int[] srcData = ((DataBufferInt)src.getRaster().getDataBuffer()).getData();
+      int[] dstData = ((DataBufferInt)dst.getRaster().getDataBuffer()).getData();
+      System.arraycopy(srcData, 0, dstData, 0, Math.min(srcData.length, dstData.length));
+    } else {
+      Graphics2D g = dst.createGraphics();
+      try {
+        g.setComposite(AlphaComposite.Src);
+        g.drawImage(src, 0, 0, null);
+      } finally {
+        g.dispose();
+      }
+    }
+  }
+
+  // Encodes the image as JPEG, as expected by MJPG video tracks
+  private static byte[] encodeJpeg(BufferedImage image, float quality) throws IOException
+  {
+    ImageWriter iw = ImageIO.getImageWritersByMIMEType("image/jpeg").next();
+    try (ByteArrayOutputStream bos = new ByteArrayOutputStream(image.getWidth()*image.getHeight());
+         ImageOutputStream ios = new MemoryCacheImageOutputStream(bos)) {
+      ImageWriteParam param = iw.getDefaultWriteParam();
+      param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+      param.setCompressionQuality(quality);
+      iw.setOutput(ios);
+      iw.write(null, new IIOImage(image, null, null), param);
+      ios.flush();
+      return bos.toByteArray();
+    } finally {
+      iw.dispose();
+    }
+  }
+
   // Reduces color range from [0, 255] to [16, 235] to conform to CCIR-601 standard.
   private static void adjustColorSpace(BufferedImage image)
   {
@@ -519,4 +616,109 @@ private static void adjustColorSpace(BufferedImage image)
       }
     }
   }
+
+//-------------------------- INNER CLASSES --------------------------
+
+  /** Writes video frames and audio samples to an AVI file in order on a separate thread. */
+  private static class AviFrameWriter implements Runnable
+  {
+    private static final Frame END_OF_STREAM = new Frame(null, null);
+
+    private final AVIWriter writer;
+    private final int trackVideo, trackAudio;
+    private final BlockingQueue<Frame> queue;
+    private final Thread thread;
+    private volatile Exception error;
+
+    public AviFrameWriter(AVIWriter writer, int trackVideo, int trackAudio, int capacity)
+    {
+      this.writer = writer;
+      this.trackVideo = trackVideo;
+      this.trackAudio = trackAudio;
+      this.queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+      this.thread = new Thread(this, "AviFrameWriter");
+      this.thread.start();
+    }
+
+    /** Queues a new frame. Blocks if too many frames are waiting to be written. */
+    public void add(Future<byte[]> video, byte[] audio) throws Exception
+    {
+      checkError();
+      queue.put(new Frame(video, audio));
+    }
+
+    /** Waits until all queued frames have been written. */
+    public void finish() throws Exception
+    {
+      queue.put(END_OF_STREAM);
+      thread.join();
+      checkError();
+    }
+
+    /** Stops writing frames and cancels pending encoder tasks. Does nothing if the writer has already finished. */
+    public void cancel()
+    {
+      if (thread.isAlive()) {
+        thread.interrupt();
+        try {
+          thread.join();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+      for (Frame frame = queue.poll(); frame != null; frame = queue.poll()) {
+        if (frame.video != null) {
+          frame.video.cancel(true);
+        }
+      }
+    }
+
+    @Override
+    public void run()
+    {
+      try {
+        while (true) {
+          Frame frame = queue.take();
+          if (frame == END_OF_STREAM) {
+            break;
+          }
+          if (error == null) {
+            try {
+              if (frame.video != null) {
+                byte[] data = frame.video.get();
+                writer.writeSample(trackVideo, data, 0, data.length, true);
+              }
+              writer.writeSample(trackAudio, frame.audio, 0, frame.audio.length, true);
+            } catch (ExecutionException e) {
+              error = (e.getCause() instanceof Exception) ? (Exception)e.getCause() : e;
+            } catch (IOException e) {
+              error = e;
+            }
+          }
+          // remaining frames are discarded on error
+        }
+      } catch (InterruptedException e) {
+        // cancelled
+      }
+    }
+
+    private void checkError() throws Exception
+    {
+      if (error != null) {
+        throw error;
+      }
+    }
+
+    private static class Frame
+    {
+      public final Future<byte[]> video;
+      public final byte[] audio;
+
+      public Frame(Future<byte[]> video, byte[] audio)
+      {
+        this.video = video;
+        this.audio = audio;
+      }
+    }
+  }
 }
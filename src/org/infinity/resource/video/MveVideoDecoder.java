@@ -10,7 +10,6 @@
 import java.awt.image.DataBufferInt;
 import java.util.Arrays;
 
-import org.infinity.resource.graphics.ColorConvert;
 import org.infinity.resource.video.MveDecoder.MveInfo;
 import org.infinity.resource.video.MveDecoder.MveSegment;
 import org.infinity.util.Misc;
@@ -21,14 +20,13 @@
 public class MveVideoDecoder
 {
   private final MveInfo info;       // the currently used MVE info structure
-  private final int[] tmpBlock;     // pre-allocated 8x8 pixel block usable in block copy routines
   private final int[] tmpData;      // pre-allocated working buffer of 32 elements for general use
   private final Palette palette;    // palette used in indexed color mode
-  private final BasicVideoBuffer workingBuffer;  // internally used video buffer
 
-  private BufferedImage curBuffer;  // points to the current working buffer
-  private BufferedImage prevBuffer; // points to the previous working buffer
-  private BufferedImage blackImage; // used when no video buffer has been updated in the current video chunk
+  private int[] curBuffer;          // pixel data of the current working buffer (ARGB)
+  private int[] prevBuffer;         // pixel data of the previous working buffer (ARGB)
+  private int width, height;        // dimensions of the working buffers
+  private BufferedImage frameImage; // used for video outputs which don't provide direct pixel access
   private MveSegment codeSegment;   // contains the code map of the last MVE_OC_CODE_MAP segment
   private boolean isVideoDrawn;     // set when the current video buffer has been updated
   private boolean isVideoInit;      // set when video initialization occured in the current chunk
@@ -113,15 +111,13 @@ private MveVideoDecoder(MveInfo info)
       throw new NullPointerException();
 
     this.info = info;
-    workingBuffer = new BasicVideoBuffer();
-    curBuffer = (BufferedImage)workingBuffer.frontBuffer();
-    prevBuffer = (BufferedImage)workingBuffer.backBuffer();
     palette = new MveVideoDecoder.Palette();
-    tmpBlock = new int[8*8];
     tmpData = new int[32];
+    curBuffer = prevBuffer = null;
+    width = height = 0;
+    frameImage = null;
     codeSegment = null;
     isVideoDrawn = false;
-    blackImage = null;
   }
 
   // cleans up temporary data
@@ -136,7 +132,12 @@ private void cleanUp()
   // cleans up all MVE specific
   private void shutDown()
   {
-    workingBuffer.release();
+    curBuffer = prevBuffer = null;
+    width = height = 0;
+    if (frameImage != null) {
+      frameImage.flush();
+      frameImage = null;
+    }
   }
 
   // sets the stable timer
@@ -179,38 +180,35 @@ private void processInitVideo(MveSegment segment) throws Exception
     info.height = height << 3;
     info.isPalette = isPalette;
     palette.clearPalette();
-    workingBuffer.create(2, info.width, info.height, false);
-    curBuffer = (BufferedImage)workingBuffer.frontBuffer();
-    prevBuffer = (BufferedImage)workingBuffer.backBuffer();
-    blackImage = ColorConvert.createCompatibleImage(info.width, info.height, false);
+
+    // working buffers are reused if the video dimensions don't change
+    int size = info.width * info.height;
+    if (curBuffer == null || curBuffer.length != size) {
+      curBuffer = new int[size];
+      prevBuffer = new int[size];
+    }
+    this.width = info.width;
+    this.height = info.height;
+    Arrays.fill(curBuffer, 0xff000000);
+    Arrays.fill(prevBuffer, 0xff000000);
   }
 
   // Presents the completed frame
   private void processOutputFrame(MveSegment segment) throws Exception
   {
     if (info.videoOutput != null) {
-      // image is drawn centered
+      // image is drawn centered, black if no video data has been decoded in the current chunk
       Image dstImage = info.videoOutput.backBuffer();
-      Image srcImage = null;
-      if (isVideoDrawn) {
-        srcImage = workingBuffer.frontBuffer();
-      } else if (blackImage != null) {
-        srcImage = blackImage;
-      } else {
-        srcImage = ColorConvert.createCompatibleImage(info.width, info.height, false);
+      if (dstImage != null && curBuffer != null) {
+        writeFrame(dstImage, isVideoDrawn ? curBuffer : null);
       }
-      Graphics2D g = (Graphics2D)dstImage.getGraphics();
-      int x = (dstImage.getWidth(null) - srcImage.getWidth(null)) / 2;
-      int y = (dstImage.getHeight(null) - srcImage.getHeight(null)) / 2;
-      g.drawImage(srcImage, x, y, null);
-      g.dispose();
       info.videoOutput.flipBuffers();
-      srcImage = null;
-      dstImage = null;
     }
-    workingBuffer.flipBuffers();
-    curBuffer = (BufferedImage)workingBuffer.frontBuffer();
-    prevBuffer = (BufferedImage)workingBuffer.backBuffer();
+
+    // swapping working buffers
+    int[] tmp = curBuffer;
+    curBuffer = prevBuffer;
+    prevBuffer = tmp;
   }
 
   // reads decoding map from stream
@@ -419,28 +417,25 @@ private void decode8_07(int startX, int startY, MveSegment segment)
     // create a patterned 8x8 block (version 1)
     int p0 = segment.getBits(8); tmpData[0] = palette.data[p0];
     int p1 = segment.getBits(8); tmpData[1] = palette.data[p1];
-    int ofs = 0;
+    int ofs = startY*width + startX;
 
     if (p0 <= p1) {
       // mask bits (from left=7 to right=0, for each pixel): clear=c0, set=c1
-      for (int y = 0; y < 8; y++) {
+      for (int y = 0; y < 8; y++, ofs+=width) {
         int m = segment.getBits(8);   // mask
-        for (int bit = 0; bit < 8; bit++, ofs++) {
-          tmpBlock[ofs] = tmpData[(m >>> bit) & 1];
+        for (int x = 0; x < 8; x++) {
+          curBuffer[ofs+x] = tmpData[(m >>> x) & 1];
         }
       }
     } else {
       // mask bits (from top-left=15, to bottom-right=0, for each 2x2 pixel block): clear=c1, set=c0
       int m = segment.getBits(16);
-      for (int y = 0, bit = 0; y < 4; y++, ofs+=8) {
-        for (int x = 0; x < 4; x++, bit++, ofs+=2) {
-          int v = tmpData[(m >>> bit) & 1];
-          tmpBlock[ofs] = v; tmpBlock[ofs+1] = v;
-          tmpBlock[ofs+8] = v; tmpBlock[ofs+9] = v;
+      for (int y = 0, bit = 0; y < 4; y++, ofs+=width<<1) {
+        for (int x = 0; x < 8; x+=2, bit++) {
+          fill2x2(ofs+x, tmpData[(m >>> bit) & 1]);
         }
       }
     }
-    writeBlock8x8(tmpBlock, startX, startY);
   }
 
   private void decode8_08(int startX, int startY, MveSegment segment)
@@ -449,7 +444,8 @@ private void decode8_08(int startX, int startY, MveSegment segment)
     int p0 = segment.getBits(8); tmpData[0] = palette.data[p0];
     int p1 = segment.getBits(8); tmpData[1] = palette.data[p1];
     tmpData[2] = segment.getBits(16);
-    int ofs = 0;
+    int ofs = startY*width + startX;
+    int ofs2 = ofs + (width << 2);    // start of bottom half
 
     if (p0 <= p1) {
       // pattern: c0, c1, mask(16) for each quadrant
@@ -459,17 +455,16 @@ private void decode8_08(int startX, int startY, MveSegment segment)
         tmpData[i+2] = segment.getBits(16);
       }
 
-      for (int y = 0; y < 4; y++, ofs+=4) {
-        for (int x = 0; x < 4; x++, ofs++) {
-          int bit = (y << 2) + x;
+      for (int y = 0, bit = 0; y < 4; y++, ofs+=width, ofs2+=width) {
+        for (int x = 0; x < 4; x++, bit++) {
           // quadrant top-left [c0=0, c1=1, m=2]
-          tmpBlock[ofs] = tmpData[(tmpData[2] >>> bit) & 1];
+          curBuffer[ofs+x] = tmpData[(tmpData[2] >>> bit) & 1];
           // quadrant bottom-left [c0=3, c1=4, m=5]
-          tmpBlock[32+ofs] = tmpData[3 + ((tmpData[5] >>> bit) & 1)];
+          curBuffer[ofs2+x] = tmpData[3 + ((tmpData[5] >>> bit) & 1)];
           // quadrant top-right [c0=6, c1=7, m=8]
-          tmpBlock[4+ofs] = tmpData[6 + ((tmpData[8] >>> bit) & 1)];
+          curBuffer[ofs+4+x] = tmpData[6 + ((tmpData[8] >>> bit) & 1)];
           // quadrant bottom-right [c0=9, c1=10, m=11]
-          tmpBlock[36+ofs] = tmpData[9 + ((tmpData[11] >>> bit) & 1)];
+          curBuffer[ofs2+4+x] = tmpData[9 + ((tmpData[11] >>> bit) & 1)];
         }
       }
     } else {
@@ -481,29 +476,26 @@ private void decode8_08(int startX, int startY, MveSegment segment)
 
       if (p2 <= p3) {
         // left/right halves
-        for (int y = 0; y < 8; y++, ofs+=4) {
-          for (int x = 0; x < 4; x++, ofs++) {
-            int bit = (y << 2) + x;
+        for (int y = 0, bit = 0; y < 8; y++, ofs+=width) {
+          for (int x = 0; x < 4; x++, bit++) {
             // left half: [c0=0, c1=1, m=2]
-            tmpBlock[ofs] = tmpData[(tmpData[2] >>> bit) & 1];
+            curBuffer[ofs+x] = tmpData[(tmpData[2] >>> bit) & 1];
             // right half: [c0=3, c1=4, m=5]
-            tmpBlock[4+ofs] = tmpData[3 + ((tmpData[5] >>> bit) & 1)];
+            curBuffer[ofs+4+x] = tmpData[3 + ((tmpData[5] >>> bit) & 1)];
           }
         }
       } else {
         // top/bottom halves
-        for (int y = 0; y < 4; y++) {
-          for (int x = 0; x < 8; x++, ofs++) {
-            int bit = (y << 3) + x;
+        for (int y = 0, bit = 0; y < 4; y++, ofs+=width, ofs2+=width) {
+          for (int x = 0; x < 8; x++, bit++) {
             // top half: [c0=0, c1=1, m=2]
-            tmpBlock[ofs] = tmpData[(tmpData[2] >>> bit) & 1];
+            curBuffer[ofs+x] = tmpData[(tmpData[2] >>> bit) & 1];
             // bottom half: [c0=3, c1=4, m=5]
-            tmpBlock[32+ofs] = tmpData[3 + ((tmpData[5] >>> bit) & 1)];
+            curBuffer[ofs2+x] = tmpData[3 + ((tmpData[5] >>> bit) & 1)];
           }
         }
       }
     }
-    writeBlock8x8(tmpBlock, startX, startY);
   }
 
   private void decode8_09(int startX, int startY, MveSegment segment)
@@ -513,54 +505,52 @@ private void decode8_09(int startX, int startY, MveSegment segment)
     int p1 = segment.getBits(8); tmpData[1] = palette.data[p1];
     int p2 = segment.getBits(8); tmpData[2] = palette.data[p2];
     int p3 = segment.getBits(8); tmpData[3] = palette.data[p3];
-    int ofs = 0, m = 0;
+    int ofs = startY*width + startX, m = 0;
 
     if (p0 <= p1) {
       if (p2 <= p3) {
         // two bits per pixel define which color [c0..c3] to take
-        for (int y = 0, bit = 0; y < 8; y++) {
+        for (int y = 0, bit = 0; y < 8; y++, ofs+=width) {
           if ((y & 1) == 0)
             m = segment.getBits(32);
-          for (int x = 0; x < 8; x++, ofs++, bit+=2) {
-            tmpBlock[ofs] = tmpData[(m >>> (bit & 31)) & 3];
+          for (int x = 0; x < 8; x++, bit+=2) {
+            curBuffer[ofs+x] = tmpData[(m >>> (bit & 31)) & 3];
           }
         }
       } else {
         m = segment.getBits(32);
         // two bits per 2x2 pixel block define which color [c0..c3] to take
-        for (int y = 0, bit = 0; y < 4; y++, ofs+=8) {
-          for (int x = 0; x < 4; x++, ofs+=2, bit+=2) {
-            tmpBlock[ofs] = tmpData[(m >>> bit) & 3];
-            tmpBlock[ofs+1] = tmpData[(m >>> bit) & 3];
-            tmpBlock[ofs+8] = tmpData[(m >>> bit) & 3];
-            tmpBlock[ofs+9] = tmpData[(m >>> bit) & 3];
+        for (int y = 0, bit = 0; y < 4; y++, ofs+=width<<1) {
+          for (int x = 0; x < 8; x+=2, bit+=2) {
+            fill2x2(ofs+x, tmpData[(m >>> bit) & 3]);
           }
         }
       }
     } else {
       if (p2 <= p3) {
         // two bits per 2x1 pixel block define which color [c0..c3] to take
-        for (int y = 0, bit = 0; y < 8; y++) {
+        for (int y = 0, bit = 0; y < 8; y++, ofs+=width) {
           if ((y & 3) == 0)
             m = segment.getBits(32);
-          for (int x = 0; x < 4; x++, ofs+=2, bit+=2) {
-            tmpBlock[ofs] =   tmpData[(m >>> (bit & 31)) & 3];
-            tmpBlock[ofs+1] = tmpData[(m >>> (bit & 31)) & 3];
+          for (int x = 0; x < 8; x+=2, bit+=2) {
+            int c = tmpData[(m >>> (bit & 31)) & 3];
+            curBuffer[ofs+x] = c;
+            curBuffer[ofs+x+1] = c;
           }
         }
       } else {
         // two bits per 1x2 pixel block define which color [c0..c3] to take
-        for (int y = 0, bit = 0; y < 4; y++, ofs+=8) {
+        for (int y = 0, bit = 0; y < 4; y++, ofs+=width<<1) {
           if ((y & 1) == 0)
             m = segment.getBits(32);
-          for (int x = 0; x < 8; x++, ofs++, bit+=2) {
-            tmpBlock[ofs] =   tmpData[(m >>> (bit & 31)) & 3];
-            tmpBlock[ofs+8] = tmpData[(m >>> (bit & 31)) & 3];
+          for (int x = 0; x < 8; x++, bit+=2) {
+            int c = tmpData[(m >>> (bit & 31)) & 3];
+            curBuffer[ofs+x] = c;
+            curBuffer[ofs+width+x] = c;
           }
         }
       }
     }
-    writeBlock8x8(tmpBlock, startX, startY);
   }
 
   private void decode8_0a(int startX, int startY, MveSegment segment)
@@ -571,7 +561,8 @@ private void decode8_0a(int startX, int startY, MveSegment segment)
     int p2 = segment.getBits(8); tmpData[2] = palette.data[p2];
     int p3 = segment.getBits(8); tmpData[3] = palette.data[p3];
     tmpData[4] = segment.getBits(32);
-    int ofs = 0;
+    int ofs = startY*width + startX;
+    int ofs2 = ofs + (width << 2);    // start of bottom half
 
     if (p0 <= p1) {
       // 4 quadrants, two bits per pixel to address one of 4 colors
@@ -583,16 +574,16 @@ private void decode8_0a(int startX, int startY, MveSegment segment)
         tmpData[i+4] = segment.getBits(32);
       }
 
-      for (int y = 0, bit = 0; y < 4; y++, ofs+=4) {
-        for (int x = 0; x < 4; x++, ofs++, bit+=2) {
+      for (int y = 0, bit = 0; y < 4; y++, ofs+=width, ofs2+=width) {
+        for (int x = 0; x < 4; x++, bit+=2) {
           // Quadrant top-left [0..4]
-          tmpBlock[ofs] = tmpData[(tmpData[4] >>> bit) & 3];
+          curBuffer[ofs+x] = tmpData[(tmpData[4] >>> bit) & 3];
           // Quadrant bottom-left [5..9]
-          tmpBlock[ofs+32] = tmpData[5 + ((tmpData[9] >>> bit) & 3)];
+          curBuffer[ofs2+x] = tmpData[5 + ((tmpData[9] >>> bit) & 3)];
           // Quadrant top-right [10..14]
-          tmpBlock[ofs+4] = tmpData[10 + ((tmpData[14] >>> bit) & 3)];
+          curBuffer[ofs+4+x] = tmpData[10 + ((tmpData[14] >>> bit) & 3)];
           // Quadrant bottom-right [15..19]
-          tmpBlock[ofs+36] = tmpData[15 + ((tmpData[19] >>> bit) & 3)];
+          curBuffer[ofs2+4+x] = tmpData[15 + ((tmpData[19] >>> bit) & 3)];
         }
       }
     } else {
@@ -606,52 +597,48 @@ private void decode8_0a(int startX, int startY, MveSegment segment)
 
       if (p4 <= p5) {
         // left/right halves
-        for (int y = 0, bit = 0; y < 8; y++, ofs+=4) {
-          for (int x = 0; x < 4; x++, ofs++, bit+=2) {
+        for (int y = 0, bit = 0; y < 8; y++, ofs+=width) {
+          for (int x = 0; x < 4; x++, bit+=2) {
             // left half [0..5]
-            tmpBlock[ofs] = tmpData[(tmpData[4 + (bit >>> 5)] >>> (bit & 31)) & 3];
+            curBuffer[ofs+x] = tmpData[(tmpData[4 + (bit >>> 5)] >>> (bit & 31)) & 3];
             // right half [6..11]
-            tmpBlock[4+ofs] = tmpData[6 + ((tmpData[10 + (bit >>> 5)] >>> (bit & 31)) & 3)];
+            curBuffer[ofs+4+x] = tmpData[6 + ((tmpData[10 + (bit >>> 5)] >>> (bit & 31)) & 3)];
           }
         }
       } else {
         // top/bottom halves
-        for (int y = 0, bit = 0; y < 4; y++) {
-          for (int x = 0; x < 8; x++, ofs++, bit+=2) {
+        for (int y = 0, bit = 0; y < 4; y++, ofs+=width, ofs2+=width) {
+          for (int x = 0; x < 8; x++, bit+=2) {
             // top half [0..5]
-            tmpBlock[ofs] = tmpData[(tmpData[4 + (bit >>> 5)] >>> (bit & 30)) & 3];
+            curBuffer[ofs+x] = tmpData[(tmpData[4 + (bit >>> 5)] >>> (bit & 30)) & 3];
             // bottom half [6..11]
-            tmpBlock[32+ofs] = tmpData[6 + ((tmpData[10 + (bit >>> 5)] >>> (bit & 30)) & 3)];
+            curBuffer[ofs2+x] = tmpData[6 + ((tmpData[10 + (bit >>> 5)] >>> (bit & 30)) & 3)];
           }
         }
       }
     }
-    writeBlock8x8(tmpBlock, startX, startY);
   }
 
   private void decode8_0b(int startX, int startY, MveSegment segment)
   {
     // copy raw pixel data from segment data block (1 byte per pixel)
-    for (int i = 0; i < 64; i++) {
-      tmpBlock[i] = palette.data[segment.getBits(8)];
+    int ofs = startY*width + startX;
+    for (int y = 0; y < 8; y++, ofs+=width) {
+      for (int x = 0; x < 8; x++) {
+        curBuffer[ofs+x] = palette.data[segment.getBits(8)];
+      }
     }
-    writeBlock8x8(tmpBlock, startX, startY);
   }
 
   private void decode8_0c(int startX, int startY, MveSegment segment)
   {
     // copy raw pixel data from segment data block (1 byte per 2x2 pixel block)
-    int ofs = 0;
-    for (int y = 0; y < 4; y++, ofs+=8) {
-      for (int x = 0; x < 4; x++, ofs+=2) {
-        int c = palette.data[segment.getBits(8)];
-        tmpBlock[ofs] = c;
-        tmpBlock[ofs+1] = c;
-        tmpBlock[ofs+8] = c;
-        tmpBlock[ofs+9] = c;
+    int ofs = startY*width + startX;
+    for (int y = 0; y < 4; y++, ofs+=width<<1) {
+      for (int x = 0; x < 8; x+=2) {
+        fill2x2(ofs+x, palette.data[segment.getBits(8)]);
       }
     }
-    writeBlock8x8(tmpBlock, startX, startY);
   }
 
   private void decode8_0d(int startX, int startY, MveSegment segment)
@@ -661,24 +648,14 @@ private void decode8_0d(int startX, int startY, MveSegment segment)
     tmpData[1] = palette.data[segment.getBits(8)];
     tmpData[2] = palette.data[segment.getBits(8)];
     tmpData[3] = palette.data[segment.getBits(8)];
-    int ofs = 0;
-    for (int y = 0; y < 4; y++, ofs+=4) {
-      for (int x = 0; x < 4; x++, ofs++) {
-        tmpBlock[ofs] = tmpData[0];
-        tmpBlock[4+ofs] = tmpData[1];
-        tmpBlock[32+ofs] = tmpData[2];
-        tmpBlock[36+ofs] = tmpData[3];
-      }
-    }
-    writeBlock8x8(tmpBlock, startX, startY);
+    fill4x4(startY*width + startX);
   }
 
   private void decode8_0e(int startX, int startY, MveSegment segment)
   {
     // copy raw pixel data from segment data block (1 byte for the whole 8x8 pixel block)
     int c = palette.data[segment.getBits(8)];
-    Arrays.fill(tmpBlock, c);
-    writeBlock8x8(tmpBlock, startX, startY);
+    fillBlock8x8(startY*width + startX, c);
   }
 
   private void decode8_0f(int startX, int startY, MveSegment segment)
@@ -686,13 +663,7 @@ private void decode8_0f(int startX, int startY, MveSegment segment)
     // create dithered pixel block by alternating two pixels from segment data block
     tmpData[0] = palette.data[segment.getBits(8)];
     tmpData[1] = palette.data[segment.getBits(8)];
-    int ofs = 0;
-    for (int y = 0; y < 8; y++) {
-      for (int x = 0; x < 8; x++, ofs++) {
-        tmpBlock[ofs] = tmpData[(y+x) & 1];
-      }
-    }
-    writeBlock8x8(tmpBlock, startX, startY);
+    fillDithered8x8(startY*width + startX);
   }
 
 // --------------- direct color decoding routines ---------------
@@ -764,28 +735,25 @@ private void decode16_07(int startX, int startY, MveSegment segment)
     // create a patterned 8x8 block (version 1)
     int p0 = segment.getBits(16); tmpData[0] = pixelToColor(p0);
     int p1 = segment.getBits(16); tmpData[1] = pixelToColor(p1);
-    int ofs = 0;
+    int ofs = startY*width + startX;
 
     if ((p0 & 0x8000) == 0) {
       // mask bits (from left=7 to right=0, for each pixel): clear=c0, set=c1
-      for (int y = 0; y < 8; y++) {
+      for (int y = 0; y < 8; y++, ofs+=width) {
         int m = segment.getBits(8);   // mask
-        for (int bit = 0; bit < 8; bit++, ofs++) {
-          tmpBlock[ofs] = tmpData[(m >>> bit) & 1];
+        for (int x = 0; x < 8; x++) {
+          curBuffer[ofs+x] = tmpData[(m >>> x) & 1];
         }
       }
     } else {
       // mask bits (from top-left=15, to bottom-right=0, for each 2x2 pixel block): clear=c1, set=c0
       int m = segment.getBits(16);
-      for (int y = 0, bit = 0; y < 4; y++, ofs+=8) {
-        for (int x = 0; x < 4; x++, bit++, ofs+=2) {
-          int v = tmpData[(m >>> bit) & 1];
-          tmpBlock[ofs] = v; tmpBlock[ofs+1] = v;
-          tmpBlock[ofs+8] = v; tmpBlock[ofs+9] = v;
+      for (int y = 0, bit = 0; y < 4; y++, ofs+=width<<1) {
+        for (int x = 0; x < 8; x+=2, bit++) {
+          fill2x2(ofs+x, tmpData[(m >>> bit) & 1]);
         }
       }
     }
-    writeBlock8x8(tmpBlock, startX, startY);
   }
 
   private void decode16_08(int startX, int startY, MveSegment segment)
@@ -794,7 +762,8 @@ private void decode16_08(int startX, int startY, MveSegment segment)
     int p0 = segment.getBits(16); tmpData[0] = pixelToColor(p0);
     int p1 = segment.getBits(16); tmpData[1] = pixelToColor(p1);
     tmpData[2] = segment.getBits(16);
-    int ofs = 0;
+    int ofs = startY*width + startX;
+    int ofs2 = ofs + (width << 2);    // start of bottom half
 
     if ((p0 & 0x8000) == 0) {
       // pattern: c0, c1, mask(16) for each quadrant
@@ -804,17 +773,16 @@ private void decode16_08(int startX, int startY, MveSegment segment)
         tmpData[i+2] = segment.getBits(16);
       }
 
-      for (int y = 0; y < 4; y++, ofs+=4) {
-        for (int x = 0; x < 4; x++, ofs++) {
-          int bit = (y << 2) + x;
+      for (int y = 0, bit = 0; y < 4; y++, ofs+=width, ofs2+=width) {
+        for (int x = 0; x < 4; x++, bit++) {
           // quadrant top-left [c0=0, c1=1, m=2]
-          tmpBlock[ofs] = tmpData[(tmpData[2] >>> bit) & 1];
+          curBuffer[ofs+x] = tmpData[(tmpData[2] >>> bit) & 1];
           // quadrant bottom-left [c0=3, c1=4, m=5]
-          tmpBlock[32+ofs] = tmpData[3 + ((tmpData[5] >>> bit) & 1)];
+          curBuffer[ofs2+x] = tmpData[3 + ((tmpData[5] >>> bit) & 1)];
           // quadrant top-right [c0=6, c1=7, m=8]
-          tmpBlock[4+ofs] = tmpData[6 + ((tmpData[8] >>> bit) & 1)];
+          curBuffer[ofs+4+x] = tmpData[6 + ((tmpData[8] >>> bit) & 1)];
           // quadrant bottom-right [c0=9, c1=10, m=11]
-          tmpBlock[36+ofs] = tmpData[9 + ((tmpData[11] >>> bit) & 1)];
+          curBuffer[ofs2+4+x] = tmpData[9 + ((tmpData[11] >>> bit) & 1)];
         }
       }
     } else {
@@ -826,29 +794,26 @@ private void decode16_08(int startX, int startY, MveSegment segment)
 
       if ((p2 & 0x8000) == 0) {
         // left/right halves
-        for (int y = 0; y < 8; y++, ofs+=4) {
-          for (int x = 0; x < 4; x++, ofs++) {
-            int bit = (y << 2) + x;
+        for (int y = 0, bit = 0; y < 8; y++, ofs+=width) {
+          for (int x = 0; x < 4; x++, bit++) {
             // left half: [c0=0, c1=1, m=2]
-            tmpBlock[ofs] = tmpData[(tmpData[2] >>> bit) & 1];
+            curBuffer[ofs+x] = tmpData[(tmpData[2] >>> bit) & 1];
             // right half: [c0=3, c1=4, m=5]
-            tmpBlock[4+ofs] = tmpData[3 + ((tmpData[5] >>> bit) & 1)];
+            curBuffer[ofs+4+x] = tmpData[3 + ((tmpData[5] >>> bit) & 1)];
           }
         }
       } else {
         // top/bottom halves
-        for (int y = 0; y < 4; y++) {
-          for (int x = 0; x < 8; x++, ofs++) {
-            int bit = (y << 3) + x;
+        for (int y = 0, bit = 0; y < 4; y++, ofs+=width, ofs2+=width) {
+          for (int x = 0; x < 8; x++, bit++) {
             // top half: [c0=0, c1=1, m=2]
-            tmpBlock[ofs] = tmpData[(tmpData[2] >>> bit) & 1];
+            curBuffer[ofs+x] = tmpData[(tmpData[2] >>> bit) & 1];
             // bottom half: [c0=3, c1=4, m=5]
-            tmpBlock[32+ofs] = tmpData[3 + ((tmpData[5] >>> bit) & 1)];
+            curBuffer[ofs2+x] = tmpData[3 + ((tmpData[5] >>> bit) & 1)];
           }
         }
       }
     }
-    writeBlock8x8(tmpBlock, startX, startY);
   }
 
   private void decode16_09(int startX, int startY, MveSegment segment)
@@ -858,54 +823,52 @@ private void decode16_09(int startX, int startY, MveSegment segment)
     int p1 = segment.getBits(16); tmpData[1] = pixelToColor(p1);
     int p2 = segment.getBits(16); tmpData[2] = pixelToColor(p2);
     int p3 = segment.getBits(16); tmpData[3] = pixelToColor(p3);
-    int ofs = 0, m = 0;
+    int ofs = startY*width + startX, m = 0;
 
     if ((p0 & 0x8000) == 0) {
       if ((p2 & 0x8000) == 0) {
         // two bits per pixel define which color [c0..c3] to take
-        for (int y = 0, bit = 0; y < 8; y++) {
+        for (int y = 0, bit = 0; y < 8; y++, ofs+=width) {
           if ((y & 1) == 0)
             m = segment.getBits(32);
-          for (int x = 0; x < 8; x++, ofs++, bit+=2) {
-            tmpBlock[ofs] = tmpData[(m >>> (bit & 31)) & 3];
+          for (int x = 0; x < 8; x++, bit+=2) {
+            curBuffer[ofs+x] = tmpData[(m >>> (bit & 31)) & 3];
           }
         }
       } else {
         m = segment.getBits(32);
         // two bits per 2x2 pixel block define which color [c0..c3] to take
-        for (int y = 0, bit = 0; y < 4; y++, ofs+=8) {
-          for (int x = 0; x < 4; x++, ofs+=2, bit+=2) {
-            tmpBlock[ofs] = tmpData[(m >>> bit) & 3];
-            tmpBlock[ofs+1] = tmpData[(m >>> bit) & 3];
-            tmpBlock[ofs+8] = tmpData[(m >>> bit) & 3];
-            tmpBlock[ofs+9] = tmpData[(m >>> bit) & 3];
+        for (int y = 0, bit = 0; y < 4; y++, ofs+=width<<1) {
+          for (int x = 0; x < 8; x+=2, bit+=2) {
+            fill2x2(ofs+x, tmpData[(m >>> bit) & 3]);
           }
         }
       }
     } else {
       if ((p2 & 0x8000) == 0) {
         // two bits per 2x1 pixel block define which color [c0..c3] to take
-        for (int y = 0, bit = 0; y < 8; y++) {
+        for (int y = 0, bit = 0; y < 8; y++, ofs+=width) {
           if ((y & 3) == 0)
             m = segment.getBits(32);
-          for (int x = 0; x < 4; x++, ofs+=2, bit+=2) {
-            tmpBlock[ofs] =   tmpData[(m >>> (bit & 31)) & 3];
-            tmpBlock[ofs+1] = tmpData[(m >>> (bit & 31)) & 3];
+          for (int x = 0; x < 8; x+=2, bit+=2) {
+            int c = tmpData[(m >>> (bit & 31)) & 3];
+            curBuffer[ofs+x] = c;
+            curBuffer[ofs+x+1] = c;
           }
         }
       } else {
         // two bits per 1x2 pixel block define which color [c0..c3] to take
-        for (int y = 0, bit = 0; y < 4; y++, ofs+=8) {
+        for (int y = 0, bit = 0; y < 4; y++, ofs+=width<<1) {
           if ((y & 1) == 0)
             m = segment.getBits(32);
-          for (int x = 0; x < 8; x++, ofs++, bit+=2) {
-            tmpBlock[ofs] =   tmpData[(m >>> (bit & 31)) & 3];
-            tmpBlock[ofs+8] = tmpData[(m >>> (bit & 31)) & 3];
+          for (int x = 0; x < 8; x++, bit+=2) {
+            int c = tmpData[(m >>> (bit & 31)) & 3];
+            curBuffer[ofs+x] = c;
+            curBuffer[ofs+width+x] = c;
           }
         }
       }
     }
-    writeBlock8x8(tmpBlock, startX, startY);
   }
 
   private void decode16_0a(int startX, int startY, MveSegment segment)
@@ -916,7 +879,8 @@ private void decode16_0a(int startX, int startY, MveSegment segment)
     int p2 = segment.getBits(16); tmpData[2] = pixelToColor(p2);
     int p3 = segment.getBits(16); tmpData[3] = pixelToColor(p3);
     tmpData[4] = segment.getBits(32);
-    int ofs = 0;
+    int ofs = startY*width + startX;
+    int ofs2 = ofs + (width << 2);    // start of bottom half
 
     if ((p0 & 0x8000) == 0) {
       // 4 quadrants, two bits per pixel to address one of 4 colors
@@ -928,16 +892,16 @@ private void decode16_0a(int startX, int startY, MveSegment segment)
         tmpData[i+4] = segment.getBits(32);
       }
 
-      for (int y = 0, bit = 0; y < 4; y++, ofs+=4) {
-        for (int x = 0; x < 4; x++, ofs++, bit+=2) {
+      for (int y = 0, bit = 0; y < 4; y++, ofs+=width, ofs2+=width) {
+        for (int x = 0; x < 4; x++, bit+=2) {
           // Quadrant top-left [0..4]
-          tmpBlock[ofs] = tmpData[(tmpData[4] >>> bit) & 3];
+          curBuffer[ofs+x] = tmpData[(tmpData[4] >>> bit) & 3];
           // Quadrant bottom-left [5..9]
-          tmpBlock[ofs+32] = tmpData[5 + ((tmpData[9] >>> bit) & 3)];
+          curBuffer[ofs2+x] = tmpData[5 + ((tmpData[9] >>> bit) & 3)];
           // Quadrant top-right [10..14]
-          tmpBlock[ofs+4] = tmpData[10 + ((tmpData[14] >>> bit) & 3)];
+          curBuffer[ofs+4+x] = tmpData[10 + ((tmpData[14] >>> bit) & 3)];
           // Quadrant bottom-right [15..19]
-          tmpBlock[ofs+36] = tmpData[15 + ((tmpData[19] >>> bit) & 3)];
+          curBuffer[ofs2+4+x] = tmpData[15 + ((tmpData[19] >>> bit) & 3)];
         }
       }
     } else {
@@ -951,52 +915,48 @@ private void decode16_0a(int startX, int startY, MveSegment segment)
 
       if ((p4 & 0x8000) == 0) {
         // left/right halves
-        for (int y = 0, bit = 0; y < 8; y++, ofs+=4) {
-          for (int x = 0; x < 4; x++, ofs++, bit+=2) {
+        for (int y = 0, bit = 0; y < 8; y++, ofs+=width) {
+          for (int x = 0; x < 4; x++, bit+=2) {
             // left half [0..5]
-            tmpBlock[ofs] = tmpData[(tmpData[4 + (bit >>> 5)] >>> (bit & 31)) & 3];
+            curBuffer[ofs+x] = tmpData[(tmpData[4 + (bit >>> 5)] >>> (bit & 31)) & 3];
             // right half [6..11]
-            tmpBlock[4+ofs] = tmpData[6 + ((tmpData[10 + (bit >>> 5)] >>> (bit & 31)) & 3)];
+            curBuffer[ofs+4+x] = tmpData[6 + ((tmpData[10 + (bit >>> 5)] >>> (bit & 31)) & 3)];
           }
         }
       } else {
         // top/bottom halves
-        for (int y = 0, bit = 0; y < 4; y++) {
-          for (int x = 0; x < 8; x++, ofs++, bit+=2) {
+        for (int y = 0, bit = 0; y < 4; y++, ofs+=width, ofs2+=width) {
+          for (int x = 0; x < 8; x++, bit+=2) {
             // top half [0..5]
-            tmpBlock[ofs] = tmpData[(tmpData[4 + (bit >>> 5)] >>> (bit & 30)) & 3];
+            curBuffer[ofs+x] = tmpData[(tmpData[4 + (bit >>> 5)] >>> (bit & 30)) & 3];
             // bottom half [6..11]
-            tmpBlock[32+ofs] = tmpData[6 + ((tmpData[10 + (bit >>> 5)] >>> (bit & 30)) & 3)];
+            curBuffer[ofs2+x] = tmpData[6 + ((tmpData[10 + (bit >>> 5)] >>> (bit & 30)) & 3)];
           }
         }
       }
     }
-    writeBlock8x8(tmpBlock, startX, startY);
   }
 
   private void decode16_0b(int startX, int startY, MveSegment segment)
   {
     // copy raw pixel data from segment data block (1 byte per pixel)
-    for (int i = 0; i < 64; i++) {
-      tmpBlock[i] = pixelToColor(segment.getBits(16));
+    int ofs = startY*width + startX;
+    for (int y = 0; y < 8; y++, ofs+=width) {
+      for (int x = 0; x < 8; x++) {
+        curBuffer[ofs+x] = pixelToColor(segment.getBits(16));
+      }
     }
-    writeBlock8x8(tmpBlock, startX, startY);
   }
 
   private void decode16_0c(int startX, int startY, MveSegment segment)
   {
     // copy raw pixel data from segment data block (1 byte per 2x2 pixel block)
-    int ofs = 0;
-    for (int y = 0; y < 4; y++, ofs+=8) {
-      for (int x = 0; x < 4; x++, ofs+=2) {
-        int c = pixelToColor(segment.getBits(16));
-        tmpBlock[ofs] = c;
-        tmpBlock[ofs+1] = c;
-        tmpBlock[ofs+8] = c;
-        tmpBlock[ofs+9] = c;
+    int ofs = startY*width + startX;
+    for (int y = 0; y < 4; y++, ofs+=width<<1) {
+      for (int x = 0; x < 8; x+=2) {
+        fill2x2(ofs+x, pixelToColor(segment.getBits(16)));
       }
     }
-    writeBlock8x8(tmpBlock, startX, startY);
   }
 
   private void decode16_0d(int startX, int startY, MveSegment segment)
@@ -1004,24 +964,14 @@ private void decode16_0d(int startX, int startY, MveSegment segment)
     // copy raw pixel data from segment data block (1 byte per 4x4 pixel block)
     tmpData[0] = pixelToColor(segment.getBits(16)); tmpData[1] = pixelToColor(segment.getBits(16));
     tmpData[2] = pixelToColor(segment.getBits(16)); tmpData[3] = pixelToColor(segment.getBits(16));
-    int ofs = 0;
-    for (int y = 0; y < 4; y++, ofs+=4) {
-      for (int x = 0; x < 4; x++, ofs++) {
-        tmpBlock[ofs] = tmpData[0];
-        tmpBlock[4+ofs] = tmpData[1];
-        tmpBlock[32+ofs] = tmpData[2];
-        tmpBlock[36+ofs] = tmpData[3];
-      }
-    }
-    writeBlock8x8(tmpBlock, startX, startY);
+    fill4x4(startY*width + startX);
   }
 
   private void decode16_0e(int startX, int startY, MveSegment segment)
   {
     // copy raw pixel data from segment data block (1 byte for the whole 8x8 pixel block)
     int c = pixelToColor(segment.getBits(16));
-    Arrays.fill(tmpBlock, c);
-    writeBlock8x8(tmpBlock, startX, startY);
+    fillBlock8x8(startY*width + startX, c);
   }
 
   private void decode16_0f(int startX, int startY, MveSegment segment)
@@ -1029,13 +979,7 @@ private void decode16_0f(int startX, int startY, MveSegment segment)
     // create dithered pixel block by alternating two pixels from segment data block
     tmpData[0] = pixelToColor(segment.getBits(16));
     tmpData[1] = pixelToColor(segment.getBits(16));
-    int ofs = 0;
-    for (int y = 0; y < 8; y++) {
-      for (int x = 0; x < 8; x++, ofs++) {
-        tmpBlock[ofs] = tmpData[(y+x) & 1];
-      }
-    }
-    writeBlock8x8(tmpBlock, startX, startY);
+    fillDithered8x8(startY*width + startX);
   }
 
 
@@ -1045,34 +989,111 @@ private int pixelToColor(int pixel)
     return 0xff000000 | ((pixel & 0x7c00) << 9) | ((pixel & 0x03e0) << 6) | ((pixel & 0x1f) << 3);
   }
 
-  // copy 8x8 pixel block from imgSrc to current buffer, using specified coordinates
-  private void copyBlock8x8(BufferedImage src, int srcX, int srcY, int dstX, int dstY)
+  // copy 8x8 pixel block from src to current buffer, using specified coordinates
+  private void copyBlock8x8(int[] src, int srcX, int srcY, int dstX, int dstY)
   {
-    if (srcX >= 0 && srcX + 8 <= src.getWidth() && srcY >= 0 && srcY + 8 <= src.getHeight()) {
-      int[] srcBuf = ((DataBufferInt)src.getRaster().getDataBuffer()).getData();
-      int[] dstBuf = ((DataBufferInt)curBuffer.getRaster().getDataBuffer()).getData();
-      int srcOfs = srcY*src.getWidth() + srcX;
-      int dstOfs = dstY*curBuffer.getWidth() + dstX;
-      if (srcOfs < 0) {
-        System.err.println("Debug: copyBlock8x8(src, " + srcX + ", " + srcY + ", " + dstX + ", " + dstY + ")");
-        return;
+    if (srcX >= 0 && srcX + 8 <= width && srcY >= 0 && srcY + 8 <= height) {
+      int srcOfs = srcY*width + srcX;
+      int dstOfs = dstY*width + dstX;
+      for (int y = 0; y < 8; y++, srcOfs+=width, dstOfs+=width) {
+        System.arraycopy(src, srcOfs, curBuffer, dstOfs, 8);
       }
+    }
+  }
 
-      for (int y = 0; y < 8; y++, srcOfs+=src.getWidth(), dstOfs+=curBuffer.getWidth()) {
-        System.arraycopy(srcBuf, srcOfs, dstBuf, dstOfs, 8);
+  // fills a 2x2 pixel block of the current buffer, starting at the specified buffer offset
+  private void fill2x2(int ofs, int color)
+  {
+    curBuffer[ofs] = color;
+    curBuffer[ofs+1] = color;
+    curBuffer[ofs+width] = color;
+    curBuffer[ofs+width+1] = color;
+  }
+
+  // fills the quadrants of a 8x8 pixel block with the colors tmpData[0..3] (TL, TR, BL, BR)
+  private void fill4x4(int ofs)
+  {
+    for (int y = 0; y < 8; y++, ofs+=width) {
+      int i = (y & 4) >>> 1;
+      Arrays.fill(curBuffer, ofs, ofs+4, tmpData[i]);
+      Arrays.fill(curBuffer, ofs+4, ofs+8, tmpData[i+1]);
+    }
+  }
+
+  // fills a 8x8 pixel block of the current buffer with the specified color
+  private void fillBlock8x8(int ofs, int color)
+  {
+    for (int y = 0; y < 8; y++, ofs+=width) {
+      Arrays.fill(curBuffer, ofs, ofs+8, color);
+    }
+  }
+
+  // fills a 8x8 pixel block of the current buffer with alternating colors tmpData[0..1]
+  private void fillDithered8x8(int ofs)
+  {
+    for (int y = 0; y < 8; y++, ofs+=width) {
+      for (int x = 0; x < 8; x++) {
+        curBuffer[ofs+x] = tmpData[(y+x) & 1];
       }
     }
   }
 
-  // write a 8x8 pixel block to the current buffer at the specified coordinates
-  private void writeBlock8x8(int[] block, int dstX, int dstY)
+  // copies pixel data of the current frame centered into the specified image
+  private void writeFrame(Image dstImage, int[] src)
   {
-    int[] dstBuf = ((DataBufferInt)curBuffer.getRaster().getDataBuffer()).getData();
-    int dstOfs = dstY*curBuffer.getWidth() + dstX;
+    int dstWidth = dstImage.getWidth(null);
+    int dstHeight = dstImage.getHeight(null);
+    int left = (dstWidth - width) / 2;
+    int top = (dstHeight - height) / 2;
+    int[] dstBuf = getIntBuffer(dstImage);
+    if (dstBuf != null) {
+      // writing directly into the image raster
+      int x0 = Math.max(0, left), x1 = Math.min(dstWidth, left + width);
+      int y0 = Math.max(0, top), y1 = Math.min(dstHeight, top + height);
+      for (int y = y0; y < y1; y++) {
+        int dstOfs = y*dstWidth + x0;
+        if (src != null) {
+          System.arraycopy(src, (y - top)*width + (x0 - left), dstBuf, dstOfs, x1 - x0);
+        } else {
+          Arrays.fill(dstBuf, dstOfs, dstOfs + x1 - x0, 0xff000000);
+        }
+      }
+    } else {
+      // fallback for unsupported image formats
+      if (frameImage == null || frameImage.getWidth() != width || frameImage.getHeight() != height) {
+        frameImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+      }
+      int[] frameBuf = ((DataBufferInt)frameImage.getRaster().getDataBuffer()).getData();
+      if (src != null) {
+        System.arraycopy(src, 0, frameBuf, 0, frameBuf.length);
+      } else {
+        Arrays.fill(frameBuf, 0xff000000);
+      }
+      Graphics2D g = (Graphics2D)dstImage.getGraphics();
+      try {
+        g.drawImage(frameImage, left, top, null);
+      } finally {
+        g.dispose();
+      }
+    }
+  }
 
-    for (int y = 0; y < 8; y++, dstOfs+=curBuffer.getWidth()) {
-      System.arraycopy(block, y << 3, dstBuf, dstOfs, 8);
+  // returns the pixel buffer of the image if it is stored as unshared array of 32-bit RGB values
+  private static int[] getIntBuffer(Image image)
+  {
+    if (image instanceof BufferedImage) {
+      BufferedImage img = (BufferedImage)image;
+      switch (img.getType()) {
+        case BufferedImage.TYPE_INT_RGB:
+        case BufferedImage.TYPE_INT_ARGB:
+        case BufferedImage.TYPE_INT_ARGB_PRE:
+          if (img.getRaster().getParent() == null) {
+            return ((DataBufferInt)img.getRaster().getDataBuffer()).getData();
+          }
+          break;
+      }
     }
+    return null;
   }
 
 
@@ -20,6 +20,7 @@
 import org.infinity.resource.bcs.BcsResource;
 import org.infinity.resource.bcs.Compiler;
 import org.infinity.resource.bcs.Decompiler;
+import org.infinity.resource.bcs.ScriptCache;
 import org.infinity.resource.bcs.ScriptType;
 import org.infinity.resource.dlg.AbstractCode;
 import org.infinity.resource.dlg.Action;
@@ -153,12 +154,10 @@ private void searchSave(ResourceEntry entry, SavResource savfile)
   private void searchScript(ResourceEntry entry, BcsResource bcsfile)
   {
     boolean hit = false;
-    Decompiler decompiler = new Decompiler(bcsfile.getCode(), true);
-    decompiler.setGenerateComments(false);
-    decompiler.setGenerateResourcesUsed(true);
     try {
-      String code = decompiler.decompile();
-      if (decompiler.getResourcesUsed().contains(targetEntry)) {
+      ScriptCache.DecompileResult decompiled = ScriptCache.decompile(bcsfile.getCode(), true, true);
+      String code = decompiled.getSource();
+      if (decompiled.getResourcesUsed().contains(targetEntry)) {
         hit = true;
         addHit(entry, entry.getSearchString(), null);
       }
@@ -17,6 +17,7 @@
 import org.infinity.resource.are.Door;
 import org.infinity.resource.are.ITEPoint;
 import org.infinity.resource.bcs.BcsResource;
+import org.infinity.resource.bcs.ScriptCache;
 import org.infinity.resource.cre.CreResource;
 import org.infinity.resource.dlg.AbstractCode;
 import org.infinity.resource.key.ResourceEntry;
@@ -41,10 +42,13 @@ public ScriptReferenceSearcher(ResourceEntry targetEntry, Component parent)
   protected void search(ResourceEntry entry, Resource resource)
   {
     if (resource instanceof BcsResource) {
-      // TODO: avoid decompilation
-      String text = ((BcsResource) resource).getText();
-      if (cutscene.matcher(text).find()) {
-        addHit(entry, null, null);
+      try {
+        String text = ScriptCache.decompile(((BcsResource)resource).getCode(), false, false).getSource();
+        if (cutscene.matcher(text).find()) {
+          addHit(entry, null, null);
+        }
+      } catch (Exception e) {
+        e.printStackTrace();
       }
     } else if (resource instanceof PlainTextResource) {
       searchText(entry, (PlainTextResource)resource);
@@ -4,14 +4,18 @@
 
 package org.infinity.util;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.infinity.resource.Profile;
 import org.infinity.util.io.FileManager;
@@ -142,6 +146,12 @@ public static void clearCache()
     lookup = null;
   }
 
+  // Uses the specified character lookup instead of a lookup based on the current game
+  static void setLookup(CharLookup newLookup)
+  {
+    lookup = newLookup;
+  }
+
   /**
    * Attempts to determine the right character set used by the current game.
    * @param detect {@code false} to return the default charset based on EE or non-EE.
@@ -170,27 +180,26 @@ public static String guessCharset(boolean detect)
             int numEntries = StreamUtils.readInt(ch);
             int ofsStrings = StreamUtils.readInt(ch);
 
-            // cycling through all available string samples to find a match
+            // cycling through all available string samples to find a match,
+            // strings shared by several samples are read only once
+            Map<Integer, byte[]> strings = new HashMap<>();
             for (final Sample sample: samples) {
               if (sample.strref < numEntries) {
-                int ofs = 0x12 + (sample.strref * 0x1a);
-                int lenString = StreamUtils.readInt(ch.position(ofs + 0x16));
-                if (lenString > 0) {
-                  int ofsString = ofsStrings + StreamUtils.readInt(ch.position(ofs + 0x12));
-                  ByteBuffer buf = StreamUtils.getByteBuffer(lenString);
-                  buf.position(0);
-                  ch.position(ofsString).read(buf);
-                  if (Arrays.equals(buf.array(), sample.data)) {
-                    retVal = sample.charset;
-                    charset = retVal;
-                    lookup = sample.lookup;
-                    break;
-                  }
+                Integer key = Integer.valueOf(sample.strref);
+                byte[] data = strings.get(key);
+                if (data == null) {
+                  data = readString(ch, ofsStrings, sample.strref);
+                  strings.put(key, data);
+                }
+                if (Arrays.equals(data, sample.data)) {
+                  retVal = sample.charset;
+                  charset = retVal;
+                  lookup = sample.lookup;
+                  break;
                 }
               }
             }
           }
-          ch.close();
         } catch (Exception e) {
           e.printStackTrace();
         }
@@ -199,6 +208,25 @@ public static String guessCharset(boolean detect)
     return retVal;
   }
 
+  // Returns the raw data of the specified string entry, or an empty array if not available
+  private static byte[] readString(FileChannel ch, int ofsStrings, int strref) throws IOException
+  {
+    ByteBuffer buf = StreamUtils.getByteBuffer(8);
+    ch.read(buf, 0x12 + (strref * 0x1a) + 0x12);
+    int ofsString = ofsStrings + buf.getInt(0);
+    int lenString = buf.getInt(4);
+    if (lenString > 0 && lenString <= 0x10000) {
+      buf = StreamUtils.getByteBuffer(lenString);
+      while (buf.hasRemaining()) {
+        if (ch.read(buf, ofsString + buf.position()) < 0) {
+          break;
+        }
+      }
+      return (buf.hasRemaining()) ? new byte[0] : buf.array();
+    }
+    return new byte[0];
+  }
+
   /**
    * Marks the specified charset as active charset.
    * @param charsetName The charset to activate.
@@ -239,7 +267,11 @@ public static CharLookup getLookup()
   public static class CharLookup
   {
     private final String encoded, decoded;
-    private final int[] excluded;
+    private final int[] excluded;   // sorted
+    // Translation tables indexed by character code, characters beyond the table size are not translated
+    private final char[] decodeTable, encodeTable;
+    // Byte to character table of the most recently used charset
+    private volatile ByteTable byteTable;
 
     /** Initializes an empty {@code CharLookup} object. */
     public CharLookup()
@@ -265,42 +297,53 @@ public CharLookup(String encoded, String decoded, int[] excludedStrrefs)
       }
       this.encoded = encoded;
       this.decoded = decoded;
-      this.excluded = excludedStrrefs;
+      this.excluded = excludedStrrefs.clone();
+      Arrays.sort(this.excluded);
+      this.decodeTable = createTable(encoded, decoded);
+      this.encodeTable = createTable(decoded, encoded);
     }
 
     /** Returns whether the specified string is excluded from the encoding process. */
     public boolean isExcluded(int strref)
     {
-      for (int i = 0; i < excluded.length; i++) {
-        if (excluded[i] == strref) {
-          return true;
-        }
-      }
-      return false;
+      return Arrays.binarySearch(excluded, strref) >= 0;
     }
 
     /** Decodes the specified string into an official charset. */
     public String decodeString(String text)
     {
       if (!encoded.isEmpty()) {
-        StringBuilder sb = new StringBuilder(text);
-        for (int idx = 0, cnt = sb.length(); idx < cnt; idx++) {
-          sb.setCharAt(idx, decode(sb.charAt(idx)));
-        }
-        text = sb.toString();
+        text = new String(translate(text.toCharArray(), decodeTable));
       }
       return text;
     }
 
+    /**
+     * Creates a string from the specified raw string data and decodes it into an official charset.
+     * Data of single-byte charsets is converted by a precomputed byte to character table.
+     * @param data Raw string data.
+     * @param offset Start offset of the string data.
+     * @param length Length of the string data, in bytes.
+     * @param cs The charset of the string data.
+     */
+    public String decodeString(byte[] data, int offset, int length, Charset cs)
+    {
+      char[] table = getByteTable(cs);
+      if (table != null) {
+        char[] buf = new char[length];
+        for (int i = 0; i < length; i++) {
+          buf[i] = table[data[offset + i] & 0xff];
+        }
+        return new String(buf);
+      }
+      return decodeString(new String(data, offset, length, cs));
+    }
+
     /** Encodes the specified string with the character translation table. */
     public String encodeString(String text)
     {
       if (!decoded.isEmpty()) {
-        StringBuilder sb = new StringBuilder(text);
-        for (int idx = 0, cnt = sb.length(); idx < cnt; idx++) {
-          sb.setCharAt(idx, encode(sb.charAt(idx)));
-        }
-        text = sb.toString();
+        text = new String(translate(text.toCharArray(), encodeTable));
       }
       return text;
     }
@@ -308,23 +351,91 @@ public String encodeString(String text)
     /** Decodes a single character. */
     public char decode(char ch)
     {
-      int idx = encoded.indexOf(ch);
-      if (idx >= 0) {
-        ch = decoded.charAt(idx);
-      }
-      return ch;
+      return (ch < decodeTable.length) ? decodeTable[ch] : ch;
     }
 
     /** Encodes a single character. */
     public char encode(char ch)
     {
-      int idx = decoded.indexOf(ch);
-      if (idx >= 0) {
-        ch = encoded.charAt(idx);
+      return (ch < encodeTable.length) ? encodeTable[ch] : ch;
+    }
+
+    // Returns the decoded characters of all byte values, or null if the charset is not a single-byte charset
+    private char[] getByteTable(Charset cs)
+    {
+      ByteTable table = byteTable;
+      if (table == null || !table.charset.equals(cs)) {
+        table = new ByteTable(cs, decodeTable);
+        byteTable = table;
       }
-      return ch;
+      return table.chars;
     }
 
+    private static char[] translate(char[] buf, char[] table)
+    {
+      for (int i = 0; i < buf.length; i++) {
+        char ch = buf[i];
+        if (ch < table.length) {
+          buf[i] = table[ch];
+        }
+      }
+      return buf;
+    }
+
+    // Maps characters of "from" to the corresponding characters of "to", first occurrence takes precedence
+    private static char[] createTable(String from, String to)
+    {
+      int size = 0;
+      for (int i = 0; i < from.length(); i++) {
+        size = Math.max(size, from.charAt(i) + 1);
+      }
+      char[] table = new char[size];
+      for (int ch = 0; ch < size; ch++) {
+        table[ch] = (char)ch;
+      }
+      for (int i = from.length() - 1; i >= 0; i--) {
+        table[from.charAt(i)] = to.charAt(i);
+      }
+      return table;
+    }
+  }
+
+  // Decoded and translated characters of all byte values of a single-byte charset
+  private static class ByteTable
+  {
+    public final Charset charset;
+    public final char[] chars;  // null if charset is not a single-byte charset
+
+    public ByteTable(Charset charset, char[] translation)
+    {
+      this.charset = charset;
+      this.chars = isSingleByte(charset) ? CharLookup.translate(decodeAll(charset), translation) : null;
+    }
+
+    private static char[] decodeAll(Charset cs)
+    {
+      byte[] data = new byte[256];
+      for (int i = 0; i < data.length; i++) {
+        data[i] = (byte)i;
+      }
+      return new String(data, cs).toCharArray();
+    }
+
+    private static boolean isSingleByte(Charset cs)
+    {
+      try {
+        CharsetDecoder decoder = cs.newDecoder();
+        if (decoder.averageCharsPerByte() != 1.0f || decoder.maxCharsPerByte() != 1.0f) {
+          return false;
+        }
+        if (cs.canEncode() && cs.newEncoder().maxBytesPerChar() != 1.0f) {
+          return false;
+        }
+        return decodeAll(cs).length == 256;
+      } catch (UnsupportedOperationException e) {
+        return false;
+      }
+    }
   }
 
   // Stores a single string -> charset pair
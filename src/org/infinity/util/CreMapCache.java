@@ -4,12 +4,14 @@
 
 package org.infinity.util;
 
+import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
@@ -23,18 +25,57 @@
 
 /**
  * Maintains a list of script names to CRE resource mappings.
+ * <p>
+ * Script names found in each resource are stored on disk together with a stamp of the resource
+ * (file path, size and modification time). When a game is opened again only resources with a
+ * changed stamp have to be scanned.
  */
 public final class CreMapCache
 {
-  private static final Map<String, Set<ResourceEntry>> scriptNamesCre = new HashMap<>();
-  private static final Set<String> scriptNamesAre = new HashSet<>();
-
-  private static boolean initialized = false;
-
+  // Maps resource stamps to script names
+  private static final ResourceSnapshot<String[]> snapshot =
+      new ResourceSnapshot<>("NICM", 1, "cremap", () -> String.valueOf(Profile.getChitinKey()),
+                             (dis) -> {
+                               String[] names = new String[dis.readInt()];
+                               for (int i = 0; i < names.length; i++) {
+                                 names[i] = dis.readUTF();
+                               }
+                               return names;
+                             },
+                             (dos, names) -> {
+                               dos.writeInt(names.length);
+                               for (final String name: names) {
+                                 dos.writeUTF(name);
+                               }
+                             });
+
+  private static final Map<String, Set<ResourceEntry>> scriptNamesCre = new ConcurrentHashMap<>();
+  // Maps script names to the number of ARE/INI resources defining them
+  private static final Map<String, Integer> scriptNamesAre = new ConcurrentHashMap<>();
+  // Script names and stamp of each scanned resource
+  private static final Map<ResourceEntry, Record> records = new ConcurrentHashMap<>();
+
+  private static volatile boolean initialized = false;
+
+  /**
+   * Scans the specified CRE, CHR, ARE or INI resource again and updates the script name mappings.
+   * Does nothing if the cache has not been initialized yet.
+   */
   public static void creInvalid(ResourceEntry entry)
   {
-    if (entry != null) {
-      scriptNamesCre.remove(normalized(entry.toString()));
+    if (entry != null && isInitialized()) {
+      Kind kind = Kind.of(entry);
+      if (kind != null) {
+        if (kind == Kind.INI) {
+          IniMapCache.cacheInvalid(entry);
+        }
+        removeRecord(entry);
+        Record record = scan(kind, entry, ResourceSnapshot.getStamp(kind.name(), entry, null));
+        if (record != null) {
+          addRecord(entry, record);
+        }
+        snapshot.saveLater(snapshot.getFile(), CreMapCache::getSnapshotValues);
+      }
     }
   }
 
@@ -50,6 +91,7 @@ public static void clearCache()
     if (isInitialized()) {
       scriptNamesCre.clear();
       scriptNamesAre.clear();
+      records.clear();
       initialized = false;
     }
   }
@@ -88,7 +130,7 @@ public static boolean hasAreScriptName(String name)
   {
     ensureInitialized(-1);
     if (isInitialized() && name != null) {
-      return scriptNamesAre.contains(normalized(name));
+      return scriptNamesAre.containsKey(normalized(name));
     } else {
       return false;
     }
@@ -153,28 +195,32 @@ public void run()
             statusBar.setMessage(message);
           }
 
+          Path snapshotFile = snapshot.getFile();
+          Map<String, String[]> stored = snapshot.load(snapshotFile);
+          Map<Path, String> fileStamps = new ConcurrentHashMap<>();
+          int scanned = 0;
+
           ThreadPoolExecutor executor = Misc.createThreadPool();
           List<ResourceEntry> files = ResourceFactory.getResources("CRE");
           // Including CHR resources to reduce number of warnings in IWD/IWD2 if NPC mods are installed
           files.addAll(ResourceFactory.getResources("CHR", Profile.getProperty(Profile.Key.GET_GAME_EXTRA_FOLDERS)));
-          for (int i = 0; i < files.size(); i++) {
-            Misc.isQueueReady(executor, true, -1);
-            executor.execute(new CreWorker(files.get(i)));
-          }
-
-          files.clear();
-          files = ResourceFactory.getResources("ARE");
-          scriptNamesAre.add("none"); // default script name for many CRE resources
-          for (int i = 0; i < files.size(); i++) {
-            Misc.isQueueReady(executor, true, -1);
-            executor.execute(new AreWorker(files.get(i)));
-          }
-
-          files.clear();
-          files = ResourceFactory.getResources("INI");
-          for (int i = 0; i < files.size(); i++) {
-            Misc.isQueueReady(executor, true, -1);
-            executor.execute(new IniWorker(files.get(i)));
+          files.addAll(ResourceFactory.getResources("ARE"));
+          files.addAll(ResourceFactory.getResources("INI"));
+          scriptNamesAre.put("none", Integer.valueOf(1)); // default script name for many CRE resources
+          for (final ResourceEntry entry: files) {
+            Kind kind = Kind.of(entry);
+            if (kind == null) {
+              continue;
+            }
+            String stamp = ResourceSnapshot.getStamp(kind.name(), entry, fileStamps);
+            String[] names = (stamp != null) ? stored.get(stamp) : null;
+            if (names != null) {
+              addRecord(entry, new Record(kind, stamp, names));
+            } else {
+              Misc.isQueueReady(executor, true, -1);
+              executor.execute(new Worker(kind, entry, stamp));
+              scanned++;
+            }
           }
 
           executor.shutdown();
@@ -189,72 +235,64 @@ public void run()
           }
 
           initialized = true;
+
+          if (scanned > 0 || stored.size() != records.size()) {
+            snapshot.save(snapshotFile, getSnapshotValues());
+          }
         }
       };
-      new Thread(worker).start();
+      snapshot.execute(worker);
     }
   }
 
-//-------------------------- INNER CLASSES --------------------------
-
-  private static class CreWorker implements Runnable
+  // Adds script names of the specified resource to the lookup tables
+  private static void addRecord(ResourceEntry entry, Record record)
   {
-    final ResourceEntry entry;
-
-    public CreWorker(ResourceEntry entry)
-    {
-      this.entry = entry;
-    }
-
-    @Override
-    public void run()
-    {
-      if (entry != null) {
-        try {
-          CreResource.addScriptName(scriptNamesCre, entry);
-        }
-        catch (Exception e) {
-        }
+    records.put(entry, record);
+    for (final String name: record.names) {
+      if (record.kind == Kind.CRE) {
+        scriptNamesCre.computeIfAbsent(name, k -> ConcurrentHashMap.newKeySet()).add(entry);
+      } else {
+        scriptNamesAre.merge(name, Integer.valueOf(1), (v1, v2) -> v1 + v2);
       }
     }
   }
 
-  private static class AreWorker implements Runnable
+  // Removes script names of the specified resource from the lookup tables
+  private static void removeRecord(ResourceEntry entry)
   {
-    final ResourceEntry entry;
-
-    public AreWorker(ResourceEntry entry)
-    {
-      this.entry = entry;
-    }
-
-    @Override
-    public void run()
-    {
-      if (entry != null) {
-        try {
-          AreResource.addScriptNames(scriptNamesAre, entry.getResourceBuffer());
-        }
-        catch (Exception e) {
+    Record record = records.remove(entry);
+    if (record != null) {
+      for (final String name: record.names) {
+        if (record.kind == Kind.CRE) {
+          scriptNamesCre.computeIfPresent(name, (k, set) -> {
+            set.remove(entry);
+            return set.isEmpty() ? null : set;
+          });
+        } else {
+          scriptNamesAre.computeIfPresent(name, (k, v) -> (v > 1) ? Integer.valueOf(v - 1) : null);
         }
       }
     }
   }
 
-  private static class IniWorker implements Runnable
+  // Collects script names of the specified resource. Returns null on error.
+  private static Record scan(Kind kind, ResourceEntry entry, String stamp)
   {
-    final ResourceEntry entry;
-
-    public IniWorker(ResourceEntry entry)
-    {
-      this.entry = entry;
-    }
-
-    @Override
-    public void run()
-    {
-      if (entry != null) {
-        try {
+    Set<String> names = new HashSet<>();
+    try {
+      switch (kind) {
+        case CRE:
+        {
+          Map<String, Set<ResourceEntry>> map = new HashMap<>();
+          CreResource.addScriptName(map, entry);
+          names.addAll(map.keySet());
+          break;
+        }
+        case ARE:
+          AreResource.addScriptNames(names, entry.getResourceBuffer());
+          break;
+        case INI:
           if (entry.getResourceName().length() >= 10 &&
               ResourceFactory.resourceExists(entry.getResourceName().replace(".INI", ".ARE"))) {
             IniMap map = IniMapCache.get(entry);
@@ -266,16 +304,88 @@ public void run()
                   if (mapEntry != null) {
                     String s = normalized(mapEntry.getValue());
                     if (!s.isEmpty() && s.charAt(0) != '[') {
-                      synchronized (scriptNamesAre) {
-                        scriptNamesAre.add(s);
-                      }
+                      names.add(s);
                     }
                   }
                 }
               }
             }
           }
-        } catch (Exception e) {
+          break;
+      }
+    } catch (Exception e) {
+      return null;
+    }
+    return new Record(kind, stamp, names.toArray(new String[names.size()]));
+  }
+
+  // Returns the resource stamp to script names map of all scanned resources
+  private static Map<String, String[]> getSnapshotValues()
+  {
+    Map<String, String[]> retVal = new HashMap<>();
+    for (final Record record: records.values()) {
+      if (record.stamp != null) {
+        retVal.put(record.stamp, record.names);
+      }
+    }
+    return retVal;
+  }
+
+//-------------------------- INNER CLASSES --------------------------
+
+  /** Supported resource types. */
+  private static enum Kind {
+    CRE, ARE, INI;
+
+    public static Kind of(ResourceEntry entry)
+    {
+      String ext = entry.getExtension();
+      if ("CRE".equalsIgnoreCase(ext) || "CHR".equalsIgnoreCase(ext)) {
+        return CRE;
+      } else if ("ARE".equalsIgnoreCase(ext)) {
+        return ARE;
+      } else if ("INI".equalsIgnoreCase(ext)) {
+        return INI;
+      }
+      return null;
+    }
+  }
+
+  /** Script names found in a single resource. */
+  private static class Record
+  {
+    final Kind kind;
+    final String stamp;
+    final String[] names;
+
+    public Record(Kind kind, String stamp, String[] names)
+    {
+      this.kind = kind;
+      this.stamp = stamp;
+      this.names = names;
+    }
+  }
+
+  private static class Worker implements Runnable
+  {
+    final Kind kind;
+    final ResourceEntry entry;
+    final String stamp;
+
+    public Worker(Kind kind, ResourceEntry entry, String stamp)
+    {
+      this.kind = kind;
+      this.entry = entry;
+      this.stamp = stamp;
+    }
+
+    @Override
+    public void run()
+    {
+      if (entry != null) {
+        Record record = scan(kind, entry, stamp);
+        if (record != null) {
+          addRecord(entry, record);
         }
       }
     }
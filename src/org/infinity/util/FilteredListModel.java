@@ -0,0 +1,417 @@
+// Near Infinity - An Infinity Engine Browser and Editor
+// Copyright (C) 2001 - 2005 Jon Olav Hauglid
+// See LICENSE.txt for license information
+
+package org.infinity.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.swing.AbstractListModel;
+import javax.swing.SwingWorker;
+
+/**
+ * A read-only list model which can be narrowed down to the items whose textual representation
+ * contains a given search text.
+ * <p>
+ * Items starting with the search text are listed first, followed by all other items containing the
+ * search text. Both groups retain the order of the underlying list. Prefix matches are determined
+ * by a binary search over a sorted index. Substring matches are looked up in an index of character
+ * pairs and, for large candidate sets, are appended in the background. Queries which narrow down the
+ * previous search text only consider the items of the previous result.
+ * <p>
+ * Search is case-insensitive. The textual representation of each item is determined once by
+ * {@code toString()}. Methods of this class must be called from the event dispatch thread.
+ */
+public class FilteredListModel<E> extends AbstractListModel<E>
+{
+  /** Default number of substring candidates above which matches are determined in the background. */
+  public static final int DEFAULT_REFINE_THRESHOLD = 4096;
+
+  private final List<E> items;
+  private final String[] keys;
+  private final int[] sorted;   // item indices, sorted by key
+  private final int prototype;  // index of the item with the longest key
+
+  private Map<Integer, int[]> pairIndex;
+  private int[] view;           // item indices of the current view, null if unfiltered
+  private int viewSize;
+  private String filter;
+  private boolean complete;     // whether the current view contains all matches of the filter
+  private int refineThreshold;
+  private SwingWorker<int[], Void> refiner;
+
+  /** Constructs a model containing the elements from the specified collection in iteration order. */
+  public FilteredListModel(Collection<? extends E> items)
+  {
+    this.items = new ArrayList<E>(items);
+    int size = this.items.size();
+    this.keys = new String[size];
+    int longest = -1;
+    for (int i = 0; i < size; i++) {
+      E item = this.items.get(i);
+      keys[i] = (item != null) ? item.toString().toUpperCase(Locale.ENGLISH) : "";
+      if (longest < 0 || keys[i].length() > keys[longest].length()) {
+        longest = i;
+      }
+    }
+    this.prototype = longest;
+
+    Integer[] order = new Integer[size];
+    for (int i = 0; i < size; i++) {
+      order[i] = Integer.valueOf(i);
+    }
+    Arrays.sort(order, new Comparator<Integer>() {
+      @Override
+      public int compare(Integer i1, Integer i2)
+      {
+        return keys[i1.intValue()].compareTo(keys[i2.intValue()]);
+      }
+    });
+    this.sorted = new int[size];
+    for (int i = 0; i < size; i++) {
+      sorted[i] = order[i].intValue();
+    }
+
+    this.filter = "";
+    this.complete = true;
+    this.refineThreshold = DEFAULT_REFINE_THRESHOLD;
+  }
+
+  @Override
+  public E getElementAt(int index)
+  {
+    if (index < 0 || index >= getSize()) {
+      throw new ArrayIndexOutOfBoundsException(index);
+    }
+    return items.get((view != null) ? view[index] : index);
+  }
+
+  @Override
+  public int getSize()
+  {
+    return (view != null) ? viewSize : items.size();
+  }
+
+  /** Returns the number of items regardless of the current filter. */
+  public int getItemCount()
+  {
+    return items.size();
+  }
+
+  /** Returns the item at the specified position of the unfiltered list. */
+  public E getItem(int index)
+  {
+    return items.get(index);
+  }
+
+  /** Returns the item with the longest textual representation, or {@code null} if the list is empty. */
+  public E getPrototypeValue()
+  {
+    return (prototype >= 0) ? items.get(prototype) : null;
+  }
+
+  /**
+   * Returns the index of the first item in the unfiltered list whose textual representation starts
+   * with the specified text (case-insensitive). Returns -1 if no item matches.
+   */
+  public int getFirstPrefixMatch(String text)
+  {
+    String query = normalize(text);
+    if (query.isEmpty()) {
+      return items.isEmpty() ? -1 : 0;
+    }
+    int retVal = -1;
+    for (int i = lowerBound(query), size = sorted.length; i < size && keys[sorted[i]].startsWith(query); i++) {
+      if (retVal < 0 || sorted[i] < retVal) {
+        retVal = sorted[i];
+      }
+    }
+    return retVal;
+  }
+
+  /** Returns the current filter text in upper case. An empty string indicates an unfiltered list. */
+  public String getFilter()
+  {
+    return filter;
+  }
+
+  /** Returns whether substring matches of the current filter are still determined in the background. */
+  public boolean isRefining()
+  {
+    return refiner != null;
+  }
+
+  /** Returns the number of substring candidates above which matches are determined in the background. */
+  public int getRefineThreshold()
+  {
+    return refineThreshold;
+  }
+
+  /** Specifies the number of substring candidates above which matches are determined in the background. */
+  public void setRefineThreshold(int threshold)
+  {
+    refineThreshold = Math.max(0, threshold);
+  }
+
+  /**
+   * Narrows down the list to the items containing the specified text. An empty or {@code null} text
+   * shows all items. Prefix matches are available immediately after the call.
+   * @return {@code true} if the list has been updated. {@code false} if no item matches the specified
+   *         text, in which case the list remains unchanged.
+   */
+  public boolean setFilter(String text)
+  {
+    String query = normalize(text);
+    if (query.equals(filter)) {
+      return true;
+    }
+    cancelRefinement();
+
+    if (query.isEmpty()) {
+      setView(null, 0, query, true);
+      return true;
+    }
+
+    if (view != null && complete && query.contains(filter)) {
+      // matches are a subset of the current view
+      int[] prefix = new int[viewSize];
+      int[] other = new int[viewSize];
+      int numPrefix = 0, numOther = 0;
+      for (int i = 0; i < viewSize; i++) {
+        int idx = view[i];
+        if (keys[idx].startsWith(query)) {
+          prefix[numPrefix++] = idx;
+        } else if (keys[idx].contains(query)) {
+          other[numOther++] = idx;
+        }
+      }
+      if (numPrefix + numOther == 0) {
+        return false;
+      }
+      Arrays.sort(prefix, 0, numPrefix);
+      Arrays.sort(other, 0, numOther);
+      System.arraycopy(other, 0, prefix, numPrefix, numOther);
+      setView(prefix, numPrefix + numOther, query, true);
+      return true;
+    }
+
+    int[] prefix = getPrefixMatches(query);
+    int[] candidates = getCandidates(query);
+    if (prefix.length > 0 && candidates.length > refineThreshold) {
+      // substring matches are appended later
+      int[] list = Arrays.copyOf(prefix, candidates.length + prefix.length);
+      setView(list, prefix.length, query, false);
+      startRefinement(query, candidates);
+      return true;
+    }
+
+    int[] other = getSubstringMatches(query, candidates, null);
+    if (prefix.length + other.length == 0) {
+      return false;
+    }
+    int[] list = Arrays.copyOf(prefix, prefix.length + other.length);
+    System.arraycopy(other, 0, list, prefix.length, other.length);
+    setView(list, list.length, query, true);
+    return true;
+  }
+
+  // Updates the current view and notifies listeners
+  private void setView(int[] list, int size, String query, boolean isComplete)
+  {
+    int oldSize = getSize();
+    view = list;
+    viewSize = size;
+    filter = query;
+    complete = isComplete;
+    int newSize = getSize();
+
+    if (oldSize > newSize) {
+      fireIntervalRemoved(this, newSize, oldSize - 1);
+    } else if (newSize > oldSize) {
+      fireIntervalAdded(this, oldSize, newSize - 1);
+    }
+    if (Math.min(oldSize, newSize) > 0) {
+      fireContentsChanged(this, 0, Math.min(oldSize, newSize) - 1);
+    }
+  }
+
+  // Determines substring matches of the current filter in the background
+  private void startRefinement(final String query, final int[] candidates)
+  {
+    final boolean[] excluded = new boolean[items.size()];
+    for (int i = 0; i < viewSize; i++) {
+      excluded[view[i]] = true;
+    }
+    refiner = new SwingWorker<int[], Void>() {
+      @Override
+      protected int[] doInBackground() throws Exception
+      {
+        return getSubstringMatches(query, candidates, excluded);
+      }
+
+      @Override
+      protected void done()
+      {
+        if (refiner != this || isCancelled()) {
+          return;
+        }
+        refiner = null;
+        try {
+          int[] other = get();
+          int oldSize = viewSize;
+          System.arraycopy(other, 0, view, viewSize, other.length);
+          viewSize += other.length;
+          complete = true;
+          if (viewSize > oldSize) {
+            fireIntervalAdded(FilteredListModel.this, oldSize, viewSize - 1);
+          }
+        } catch (Exception e) {
+          e.printStackTrace();
+        }
+      }
+    };
+    refiner.execute();
+  }
+
+  private void cancelRefinement()
+  {
+    if (refiner != null) {
+      refiner.cancel(true);
+      refiner = null;
+    }
+  }
+
+  // Returns indices of all items starting with the specified text in list order
+  private int[] getPrefixMatches(String query)
+  {
+    int start = lowerBound(query);
+    int end = start;
+    while (end < sorted.length && keys[sorted[end]].startsWith(query)) {
+      end++;
+    }
+    int[] retVal = Arrays.copyOfRange(sorted, start, end);
+    Arrays.sort(retVal);
+    return retVal;
+  }
+
+  // Returns indices of all items containing the specified text in list order, excluding prefix matches
+  private int[] getSubstringMatches(String query, int[] candidates, boolean[] excluded)
+  {
+    int[] retVal = new int[candidates.length];
+    int count = 0;
+    for (int i = 0; i < candidates.length; i++) {
+      if (Thread.currentThread().isInterrupted()) {
+        break;
+      }
+      int idx = candidates[i];
+      if ((excluded == null || !excluded[idx]) &&
+          !keys[idx].startsWith(query) && keys[idx].contains(query)) {
+        retVal[count++] = idx;
+      }
+    }
+    return Arrays.copyOf(retVal, count);
+  }
+
+  /**
+   * Returns indices of all items which may contain the specified text in list order. Uses the
+   * least frequent character pair of the text to reduce the number of candidates.
+   */
+  private int[] getCandidates(String query)
+  {
+    int[] retVal = null;
+    if (query.length() > 1) {
+      Map<Integer, int[]> index = getPairIndex();
+      for (int i = 0, len = query.length() - 1; i < len; i++) {
+        int[] list = index.get(pair(query.charAt(i), query.charAt(i + 1)));
+        if (list == null) {
+          return new int[0];
+        }
+        if (retVal == null || list.length < retVal.length) {
+          retVal = list;
+        }
+      }
+    }
+    if (retVal == null) {
+      retVal = new int[items.size()];
+      for (int i = 0; i < retVal.length; i++) {
+        retVal[i] = i;
+      }
+    }
+    return retVal;
+  }
+
+  // Builds the character pair index on first use
+  private Map<Integer, int[]> getPairIndex()
+  {
+    if (pairIndex == null) {
+      Map<Integer, int[]> counts = new HashMap<Integer, int[]>();
+      for (int i = 0; i < keys.length; i++) {
+        String key = keys[i];
+        for (int j = 0, len = key.length() - 1; j < len; j++) {
+          Integer p = pair(key.charAt(j), key.charAt(j + 1));
+          int[] count = counts.get(p);
+          if (count == null) {
+            count = new int[2];   // {number of items, last item index + 1}
+            counts.put(p, count);
+          }
+          if (count[1] != i + 1) {
+            count[0]++;
+            count[1] = i + 1;
+          }
+        }
+      }
+
+      Map<Integer, int[]> index = new HashMap<Integer, int[]>(counts.size() * 2);
+      Map<Integer, int[]> fill = new HashMap<Integer, int[]>(counts.size() * 2);
+      for (final Map.Entry<Integer, int[]> e: counts.entrySet()) {
+        index.put(e.getKey(), new int[e.getValue()[0]]);
+        fill.put(e.getKey(), new int[1]);
+      }
+      for (int i = 0; i < keys.length; i++) {
+        String key = keys[i];
+        for (int j = 0, len = key.length() - 1; j < len; j++) {
+          Integer p = pair(key.charAt(j), key.charAt(j + 1));
+          int[] list = index.get(p);
+          int[] pos = fill.get(p);
+          if (pos[0] == 0 || list[pos[0] - 1] != i) {
+            list[pos[0]++] = i;
+          }
+        }
+      }
+      pairIndex = index;
+    }
+    return pairIndex;
+  }
+
+  // Returns the position of the first sorted key not less than the specified text
+  private int lowerBound(String query)
+  {
+    int low = 0, high = sorted.length;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (keys[sorted[mid]].compareTo(query) < 0) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  private static Integer pair(char c1, char c2)
+  {
+    return Integer.valueOf((c1 << 16) | c2);
+  }
+
+  private static String normalize(String text)
+  {
+    return (text != null) ? text.toUpperCase(Locale.ENGLISH) : "";
+  }
+}
@@ -0,0 +1,205 @@
+// Near Infinity - An Infinity Engine Browser and Editor
+// Copyright (C) 2001 - 2005 Jon Olav Hauglid
+// See LICENSE.txt for license information
+
+package org.infinity.util;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A spatial index which assigns rectangular bounds of arbitrary objects to the cells of a uniform grid.
+ * <p>
+ * Objects covering more than {@link #MAX_CELLS} cells are kept in a separate list which is checked
+ * on every query. Empty bounds are treated as bounds of size 1x1.
+ * <p>
+ * This class is not thread-safe.
+ */
+public class GridIndex<T>
+{
+  /** Max. number of cells an object is registered in before it is treated as oversized. */
+  public static final int MAX_CELLS = 64;
+
+  private final Map<Long, List<T>> cells = new HashMap<>();
+  private final Map<T, Rectangle> bounds = new HashMap<>();
+  private final List<T> oversized = new ArrayList<>();
+  private final int cellSize;
+
+  /**
+   * Creates a new grid index.
+   * @param cellSize Width and height of a single grid cell.
+   */
+  public GridIndex(int cellSize)
+  {
+    if (cellSize <= 0) {
+      throw new IllegalArgumentException("Cell size must be greater than 0: " + cellSize);
+    }
+    this.cellSize = cellSize;
+  }
+
+  /** Returns the width and height of a single grid cell. */
+  public int getCellSize()
+  {
+    return cellSize;
+  }
+
+  /** Returns the number of indexed objects. */
+  public int size()
+  {
+    return bounds.size();
+  }
+
+  public boolean isEmpty()
+  {
+    return bounds.isEmpty();
+  }
+
+  /** Returns whether the specified object is indexed. */
+  public boolean contains(T item)
+  {
+    return bounds.containsKey(item);
+  }
+
+  /** Returns a copy of the bounds of the specified object, or {@code null} if not indexed. */
+  public Rectangle getBounds(T item)
+  {
+    Rectangle r = bounds.get(item);
+    return (r != null) ? new Rectangle(r) : null;
+  }
+
+  /**
+   * Adds the specified object with the given bounds to the index. An already indexed object is
+   * moved to the new bounds.
+   */
+  public void put(T item, Rectangle r)
+  {
+    if (item == null || r == null) {
+      throw new NullPointerException();
+    }
+    remove(item);
+    Rectangle rect = new Rectangle(r.x, r.y, Math.max(1, r.width), Math.max(1, r.height));
+    bounds.put(item, rect);
+    if (getCellCount(rect) > MAX_CELLS) {
+      oversized.add(item);
+    } else {
+      int x1 = cell(rect.x), y1 = cell(rect.y);
+      int x2 = cell(rect.x + rect.width - 1), y2 = cell(rect.y + rect.height - 1);
+      for (int y = y1; y <= y2; y++) {
+        for (int x = x1; x <= x2; x++) {
+          Long key = key(x, y);
+          List<T> list = cells.get(key);
+          if (list == null) {
+            list = new ArrayList<>(4);
+            cells.put(key, list);
+          }
+          list.add(item);
+        }
+      }
+    }
+  }
+
+  /** Removes the specified object from the index. Returns whether the object was indexed. */
+  public boolean remove(T item)
+  {
+    Rectangle rect = bounds.remove(item);
+    if (rect == null) {
+      return false;
+    }
+    if (getCellCount(rect) > MAX_CELLS) {
+      oversized.remove(item);
+    } else {
+      int x1 = cell(rect.x), y1 = cell(rect.y);
+      int x2 = cell(rect.x + rect.width - 1), y2 = cell(rect.y + rect.height - 1);
+      for (int y = y1; y <= y2; y++) {
+        for (int x = x1; x <= x2; x++) {
+          Long key = key(x, y);
+          List<T> list = cells.get(key);
+          if (list != null) {
+            list.remove(item);
+            if (list.isEmpty()) {
+              cells.remove(key);
+            }
+          }
+        }
+      }
+    }
+    return true;
+  }
+
+  /** Removes all objects from the index. */
+  public void clear()
+  {
+    cells.clear();
+    bounds.clear();
+    oversized.clear();
+  }
+
+  /** Returns all objects whose bounds contain the specified point. */
+  public List<T> query(Point pt)
+  {
+    return query(new Rectangle(pt.x, pt.y, 1, 1));
+  }
+
+  /** Returns all objects whose bounds intersect with the specified area. Order is not defined. */
+  public List<T> query(Rectangle area)
+  {
+    List<T> retVal = new ArrayList<>();
+    if (area == null || area.isEmpty()) {
+      return retVal;
+    }
+
+    Set<T> visited = new HashSet<>();
+    long cellCount = (long)(cell(area.x + area.width - 1) - cell(area.x) + 1) *
+                     (long)(cell(area.y + area.height - 1) - cell(area.y) + 1);
+    if (cellCount > cells.size()) {
+      // cheaper to scan all occupied cells
+      for (final List<T> list: cells.values()) {
+        addMatches(list, area, visited, retVal);
+      }
+    } else {
+      int x1 = cell(area.x), y1 = cell(area.y);
+      int x2 = cell(area.x + area.width - 1), y2 = cell(area.y + area.height - 1);
+      for (int y = y1; y <= y2; y++) {
+        for (int x = x1; x <= x2; x++) {
+          List<T> list = cells.get(key(x, y));
+          if (list != null) {
+            addMatches(list, area, visited, retVal);
+          }
+        }
+      }
+    }
+    addMatches(oversized, area, visited, retVal);
+    return retVal;
+  }
+
+  private void addMatches(List<T> list, Rectangle area, Set<T> visited, List<T> result)
+  {
+    for (int i = 0, size = list.size(); i < size; i++) {
+      T item = list.get(i);
+      if (bounds.get(item).intersects(area) && visited.add(item)) {
+        result.add(item);
+      }
+    }
+  }
+
+  private long getCellCount(Rectangle r)
+  {
+    return (long)(cell(r.x + r.width - 1) - cell(r.x) + 1) * (long)(cell(r.y + r.height - 1) - cell(r.y) + 1);
+  }
+
+  private int cell(int coord)
+  {
+    return Math.floorDiv(coord, cellSize);
+  }
+
+  private static Long key(int x, int y)
+  {
+    return Long.valueOf(((long)x << 32) | (y & 0xffffffffL));
+  }
+}
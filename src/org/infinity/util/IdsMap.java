@@ -5,13 +5,11 @@
 package org.infinity.util;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Locale;
 import java.util.SortedSet;
 import java.util.StringTokenizer;
-import java.util.TreeMap;
 import java.util.TreeSet;
 
 import javax.swing.JOptionPane;
@@ -21,12 +19,20 @@
 import org.infinity.resource.key.ResourceEntry;
 import org.infinity.resource.text.PlainTextResource;
 
+/**
+ * Stores the content of an IDS resource.
+ * <p>
+ * Entries are kept in an array sorted by their numeric value. Symbols are resolved by a hash table
+ * which compares symbols case-insensitively without creating temporary strings.
+ */
 public class IdsMap
 {
-  private final TreeMap<Long, IdsMapEntry> idsMap = new TreeMap<>();
-  private final HashMap<String, Long> symbolMap = new HashMap<>();
+  private final SymbolTable symbolMap = new SymbolTable();
   private final ResourceEntry entry;
   private final boolean caseSensitive;
+  private long[] keys = new long[16];
+  private IdsMapEntry[] values = new IdsMapEntry[16];
+  private int count;
 
   public IdsMap(ResourceEntry entry)
   {
@@ -34,15 +40,23 @@ public IdsMap(ResourceEntry entry)
     this.caseSensitive = IdsMapCache.isCaseSensitiveMatch(entry.toString());
     try {
       if (entry.getExtension().equalsIgnoreCase("IDS")) {
-        parseIDS();
+        parseIDS(PlainTextResource.readText(entry));
       } else if (entry.getExtension().equalsIgnoreCase("2DA")) {
-        parse2DA();
+        parse2DA(PlainTextResource.readText(entry));
       }
     } catch (Exception e) {
       e.printStackTrace();
     }
   }
 
+  // Creates a map from the specified IDS content
+  IdsMap(String text, boolean caseSensitive)
+  {
+    this.entry = null;
+    this.caseSensitive = caseSensitive;
+    parseIDS(text);
+  }
+
   @Override
   public String toString()
   {
@@ -56,21 +70,22 @@ public String toString()
   /** Returns the number of entries in the map. */
   public int size()
   {
-    return idsMap.size();
+    return count;
   }
 
   /** Returns a copy of the values contained in the IDS map. */
   public List<IdsMapEntry> getAllValues()
   {
-    return new ArrayList<IdsMapEntry>(idsMap.values());
+    return new ArrayList<IdsMapEntry>(Arrays.asList(values).subList(0, count));
   }
 
   /** Returns a formatted string list of all available symbols and their associated key values. */
   public List<String> getAllStringValues()
   {
-    ArrayList<String> retVal = new ArrayList<>(idsMap.size() * 3 / 2);
+    ArrayList<String> retVal = new ArrayList<>(count * 3 / 2);
 
-    for (final IdsMapEntry e: idsMap.values()) {
+    for (int i = 0; i < count; i++) {
+      final IdsMapEntry e = values[i];
       long id = e.getID();
       Iterator<String> iter = e.getSymbols();
       while (iter.hasNext()) {
@@ -85,19 +100,39 @@ public List<String> getAllStringValues()
   /** Returns a copy of the keys contained in the IDS map as a sorted set. */
   public SortedSet<Long> getKeys()
   {
-    return new TreeSet<Long>(idsMap.keySet());
+    TreeSet<Long> retVal = new TreeSet<Long>();
+    for (int i = 0; i < count; i++) {
+      retVal.add(Long.valueOf(keys[i]));
+    }
+    return retVal;
   }
 
   /** Returns the entry structure defined by the specified IDS value, or {@code null} otherwise. */
   public IdsMapEntry get(long value)
   {
-    return idsMap.get(Long.valueOf(normalizedKey(value)));
+    int idx = Arrays.binarySearch(keys, 0, count, normalizedKey(value));
+    return (idx >= 0) ? values[idx] : null;
   }
 
   private void put(long key, IdsMapEntry value)
   {
     if (value != null) {
-      idsMap.put(Long.valueOf(normalizedKey(key)), value);
+      key = normalizedKey(key);
+      int idx = Arrays.binarySearch(keys, 0, count, key);
+      if (idx >= 0) {
+        values[idx] = value;
+      } else {
+        idx = -(idx + 1);
+        if (count == keys.length) {
+          keys = Arrays.copyOf(keys, count * 2);
+          values = Arrays.copyOf(values, count * 2);
+        }
+        System.arraycopy(keys, idx, keys, idx + 1, count - idx);
+        System.arraycopy(values, idx, values, idx + 1, count - idx);
+        keys[idx] = key;
+        values[idx] = value;
+        count++;
+      }
     }
   }
 
@@ -107,7 +142,7 @@ private void put(long key, IdsMapEntry value)
    * @param symbol The symbolic name.
    * @return Matching entry structure, or {@code null} otherwise.
    */
-  public IdsMapEntry lookup(String symbol)
+  public IdsMapEntry lookup(CharSequence symbol)
   {
     return lookup(symbol, caseSensitive);
   }
@@ -118,26 +153,28 @@ public IdsMapEntry lookup(String symbol)
    * @param exact Whether to compare case-sensitive.
    * @return Matching entry structure, or {@code null} otherwise.
    */
-  public IdsMapEntry lookup(String symbol, boolean exact)
+  public IdsMapEntry lookup(CharSequence symbol, boolean exact)
   {
-    IdsMapEntry retVal = null;
-    String symbolNorm = normalizedString(symbol);
-    if (!symbolNorm.isEmpty() && !symbolNorm.equals("0")) {
-      Long key = symbolMap.get(normalizedString(symbolNorm));
-      if (key != null) {
-        IdsMapEntry e = idsMap.get(key);
-        if (exact && e != null) {
-          Iterator<String> iter = e.getSymbols();
-          while (iter.hasNext() && retVal == null) {
-            String s = iter.next();
-            if (s.equals(symbol)) {
-              retVal = e;
-            }
-          }
-        } else {
-          retVal = e;
-        }
-      }
+    if (symbol == null) {
+      return null;
+    }
+
+    // ignoring leading and trailing whitespace
+    int start = 0, end = symbol.length();
+    while (start < end && symbol.charAt(start) <= ' ') {
+      start++;
+    }
+    while (end > start && symbol.charAt(end - 1) <= ' ') {
+      end--;
+    }
+    if (start == end || (end - start == 1 && symbol.charAt(start) == '0')) {
+      return null;
+    }
+
+    int idx = symbolMap.indexOf(symbol, start, end);
+    IdsMapEntry retVal = (idx >= 0) ? symbolMap.getEntry(idx) : null;
+    if (exact && retVal != null && !retVal.hasSymbol(symbol)) {
+      retVal = null;
     }
     return retVal;
   }
@@ -148,9 +185,9 @@ public boolean isCaseSensitiveMatch()
     return caseSensitive;
   }
 
-  private void parse2DA() throws Exception
+  private void parse2DA(String text)
   {
-    StringTokenizer st = new StringTokenizer(new PlainTextResource(entry).getText(), "\r\n");
+    StringTokenizer st = new StringTokenizer(text, "\r\n");
     // 3 uninteresting lines
     for (int i = 0; i < 3 && st.hasMoreTokens(); i++) {
       st.nextToken();
@@ -166,10 +203,10 @@ private void parse2DA() throws Exception
     }
   }
 
-  private void parseIDS() throws Exception
+  private void parseIDS(String text)
   {
     // parsing regular IDS content
-    StringTokenizer st = new StringTokenizer(new PlainTextResource(entry).getText(), "\r\n");
+    StringTokenizer st = new StringTokenizer(text, "\r\n");
     while (st.hasMoreTokens()) {
       String token = st.nextToken();
       try {
@@ -182,7 +219,9 @@ private void parseIDS() throws Exception
 
     // parsing hardcoded entries
     List<String> list = null;
-    if (entry.toString().equalsIgnoreCase("TRIGGER.IDS")) {
+    if (entry == null) {
+      // no hardcoded entries available
+    } else if (entry.toString().equalsIgnoreCase("TRIGGER.IDS")) {
       list = ScriptInfo.getInfo().getFunctionDefinitions(Signatures.Function.FunctionType.TRIGGER);
     } else if (entry.toString().equalsIgnoreCase("ACTION.IDS")) {
       list = ScriptInfo.getInfo().getFunctionDefinitions(Signatures.Function.FunctionType.ACTION);
@@ -253,7 +292,7 @@ private void extractIDS(String line)
           put(key, value);
         }
 
-        symbolMap.put(normalizedString(vstr), Long.valueOf(key));
+        symbolMap.put(vstr, value);
       }
     }
   }
@@ -263,8 +302,101 @@ private long normalizedKey(long key)
     return key & 0xffffffffL;
   }
 
-  private String normalizedString(String s)
+//-------------------------- INNER CLASSES --------------------------
+
+  /**
+   * Maps symbols to IDS entries. Symbols are compared case-insensitively. Uses open addressing with
+   * linear probing.
+   */
+  private static class SymbolTable
   {
-    return (s != null) ? s.trim().toUpperCase(Locale.ENGLISH) : "";
+    private String[] symbols = new String[64];
+    private IdsMapEntry[] entries = new IdsMapEntry[64];
+    private int size;
+
+    /** Associates the specified symbol with the specified entry. Replaces existing associations. */
+    public void put(String symbol, IdsMapEntry entry)
+    {
+      int idx = indexOf(symbol, 0, symbol.length());
+      if (idx >= 0) {
+        entries[idx] = entry;
+        return;
+      }
+
+      if ((size + 1) * 4 > symbols.length * 3) {
+        String[] oldSymbols = symbols;
+        IdsMapEntry[] oldEntries = entries;
+        symbols = new String[oldSymbols.length * 2];
+        entries = new IdsMapEntry[oldEntries.length * 2];
+        for (int i = 0; i < oldSymbols.length; i++) {
+          if (oldSymbols[i] != null) {
+            insert(oldSymbols[i], oldEntries[i]);
+          }
+        }
+      }
+      insert(symbol, entry);
+      size++;
+    }
+
+    /** Returns the slot of the specified symbol range, or -1 if not available. */
+    public int indexOf(CharSequence symbol, int start, int end)
+    {
+      int mask = symbols.length - 1;
+      for (int idx = hash(symbol, start, end) & mask; symbols[idx] != null; idx = (idx + 1) & mask) {
+        if (matches(symbols[idx], symbol, start, end)) {
+          return idx;
+        }
+      }
+      return -1;
+    }
+
+    /** Returns the entry stored in the specified slot. */
+    public IdsMapEntry getEntry(int idx)
+    {
+      return entries[idx];
+    }
+
+    private void insert(String symbol, IdsMapEntry entry)
+    {
+      int mask = symbols.length - 1;
+      int idx = hash(symbol, 0, symbol.length()) & mask;
+      while (symbols[idx] != null) {
+        idx = (idx + 1) & mask;
+      }
+      symbols[idx] = symbol;
+      entries[idx] = entry;
+    }
+
+    private static int hash(CharSequence s, int start, int end)
+    {
+      int h = 0;
+      for (int i = start; i < end; i++) {
+        h = 31 * h + toUpperCase(s.charAt(i));
+      }
+      return h ^ (h >>> 16);
+    }
+
+    private static boolean matches(String symbol, CharSequence s, int start, int end)
+    {
+      if (symbol.length() != end - start) {
+        return false;
+      }
+      for (int i = 0, len = symbol.length(); i < len; i++) {
+        char c1 = symbol.charAt(i);
+        char c2 = s.charAt(start + i);
+        if (c1 != c2 && toUpperCase(c1) != toUpperCase(c2)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private static char toUpperCase(char ch)
+    {
+      if (ch < 0x80) {
+        return (ch >= 'a' && ch <= 'z') ? (char)(ch - 32) : ch;
+      }
+      return Character.toUpperCase(ch);
+    }
   }
 }
@@ -4,54 +4,72 @@
 
 package org.infinity.util;
 
-import java.util.HashMap;
 import java.util.Locale;
-import java.util.Map;
 
+import org.infinity.datatype.IdsBitmap;
 import org.infinity.resource.ResourceFactory;
 import org.infinity.resource.bcs.ScriptInfo;
 import org.infinity.resource.key.ResourceEntry;
 
 public class IdsMapCache
 {
-  private static final Map<String, IdsMap> common = new HashMap<>();
+  // Weight of a cached IDS map is defined by its number of entries
+  private static final LruCache<String, IdsMap> common = new LruCache<>(512, 500000L, (k, v) -> v.size());
 
   public static void remove(ResourceEntry entry)
   {
     if (entry != null) {
       common.remove(entry.toString().toUpperCase(Locale.ENGLISH));
+      IdsBitmap.clearCache();
     }
   }
 
   public static void clearCache()
   {
     common.clear();
+    IdsBitmap.clearCache();
   }
 
-  public static synchronized IdsMap get(String name)
+  /** Returns usage statistics of the IDS map cache. */
+  public static LruCache.Statistics getStatistics()
+  {
+    return common.getStatistics();
+  }
+
+  public static IdsMap get(String name)
   {
     IdsMap retVal = null;
     if (name != null) {
-      name = name.trim().toUpperCase(Locale.ENGLISH);
-      retVal = common.get(name);
-      if (retVal == null) {
-        ResourceEntry entry = ResourceFactory.getResourceEntry(name);
-        if (entry == null ) {
-          if (name.equals("ATTSTYLE.IDS")) {
-            entry = ResourceFactory.getResourceEntry("ATTSTYL.IDS");
-          } else {
-            System.err.println("Could not find " + name);
-          }
-        }
-        if (entry != null) {
-          retVal = new IdsMap(entry);
-          common.put(name, retVal);
-        }
-      }
+      retVal = common.get(normalizedName(name), IdsMapCache::load);
     }
     return retVal;
   }
 
+  // Returns the trimmed and upper-cased resource name. Avoids creating new strings if possible.
+  private static String normalizedName(String name)
+  {
+    int len = name.length();
+    boolean normalized = len > 0 && name.charAt(0) > ' ' && name.charAt(len - 1) > ' ';
+    for (int i = 0; normalized && i < len; i++) {
+      char ch = name.charAt(i);
+      normalized = (ch < 'a' || ch > 'z') && ch < 0x80;
+    }
+    return normalized ? name : name.trim().toUpperCase(Locale.ENGLISH);
+  }
+
+  private static IdsMap load(String name)
+  {
+    ResourceEntry entry = ResourceFactory.getResourceEntry(name);
+    if (entry == null ) {
+      if (name.equals("ATTSTYLE.IDS")) {
+        entry = ResourceFactory.getResourceEntry("ATTSTYL.IDS");
+      } else {
+        System.err.println("Could not find " + name);
+      }
+    }
+    return (entry != null) ? new IdsMap(entry) : null;
+  }
+
   /**
    * A convenience function that returns the numeric value of the specified symbol. Returns a
    * specified default value if symbol could not be resolved (which can be {@code null}).
@@ -157,12 +175,14 @@ public static String getValidIdsRef(String idsRef)
   {
     if (idsRef != null && !idsRef.isEmpty()) {
       int p = idsRef.lastIndexOf('.');
-      String name = (p < 0) ? idsRef : idsRef.substring(0, p);
-      String ext = (p < 0) ? ".IDS" : idsRef.substring(p);
-      if (name.length() > 8) {
-        name = name.substring(0, 8);
+      if (p < 0 || p > 8) {
+        String name = (p < 0) ? idsRef : idsRef.substring(0, p);
+        String ext = (p < 0) ? ".IDS" : idsRef.substring(p);
+        if (name.length() > 8) {
+          name = name.substring(0, 8);
+        }
+        idsRef = name + ext;
       }
-      idsRef = name + ext;
     }
     return idsRef;
   }
@@ -4,12 +4,14 @@
 
 package org.infinity.util;
 
-import java.util.ArrayDeque;
+import java.util.Arrays;
 import java.util.Iterator;
 
 public class IdsMapEntry implements Comparable<IdsMapEntry>
 {
-  private final ArrayDeque<String> symbols = new ArrayDeque<>();
+  private static final String[] EMPTY = new String[0];
+
+  private String[] symbols = EMPTY;   // most recently added symbol first
   private final long id;
 
   public IdsMapEntry(long id, String symbol)
@@ -27,19 +29,30 @@ public long getID()
   /** Returns number of available symbolic names. */
   public int getNumSymbols()
   {
-    return symbols.size();
+    return symbols.length;
   }
 
   /** Returns the most recently added symbolic name. */
   public String getSymbol()
   {
-    return symbols.peek();
+    return (symbols.length > 0) ? symbols[0] : null;
   }
 
   /** Returns an iterator over the whole collection of available symbols. */
   public Iterator<String> getSymbols()
   {
-    return symbols.iterator();
+    return Arrays.asList(symbols).iterator();
+  }
+
+  /** Returns whether the specified symbolic name is available. Comparison is case-sensitive. */
+  public boolean hasSymbol(CharSequence symbol)
+  {
+    for (final String s: symbols) {
+      if (s.contentEquals(symbol)) {
+        return true;
+      }
+    }
+    return false;
   }
 
   /** Adds the specified symbolic name if it does not yet exist. */
@@ -49,8 +62,11 @@ public void addSymbol(String symbol)
       throw new NullPointerException();
     }
 
-    if (!symbol.isEmpty() && !symbols.contains(symbol)) {
-      symbols.push(symbol);
+    if (!symbol.isEmpty() && !hasSymbol(symbol)) {
+      String[] list = new String[symbols.length + 1];
+      list[0] = symbol;
+      System.arraycopy(symbols, 0, list, 1, symbols.length);
+      symbols = list;
     }
   }
 
@@ -4,7 +4,6 @@
 
 package org.infinity.util;
 
-import java.util.HashMap;
 import java.util.Locale;
 
 import org.infinity.resource.ResourceFactory;
@@ -12,7 +11,7 @@
 
 public class IniMapCache
 {
-  private static final HashMap<ResourceEntry, IniMap> map = new HashMap<ResourceEntry, IniMap>();
+  private static final LruCache<ResourceEntry, IniMap> map = new LruCache<>(256);
 
   public static void cacheInvalid(ResourceEntry entry)
   {
@@ -26,6 +25,12 @@ public static void clearCache()
     map.clear();
   }
 
+  /** Returns usage statistics of the INI cache. */
+  public static LruCache.Statistics getStatistics()
+  {
+    return map.getStatistics();
+  }
+
   public static IniMap get(String name)
   {
     return get(name, false);
@@ -46,20 +51,16 @@ public static IniMap get(String name, boolean ignoreComments)
     return retVal;
   }
 
-  public static synchronized IniMap get(ResourceEntry entry)
+  public static IniMap get(ResourceEntry entry)
   {
     return get(entry, false);
   }
 
-  public static synchronized IniMap get(ResourceEntry entry, boolean ignoreComments)
+  public static IniMap get(ResourceEntry entry, boolean ignoreComments)
   {
     IniMap retVal = null;
     if (entry != null) {
-      retVal = map.get(entry);
-      if (retVal == null) {
-        retVal = new IniMap(entry, ignoreComments);
-        map.put(entry, retVal);
-      }
+      retVal = map.get(entry, e -> new IniMap(e, ignoreComments));
     }
     return retVal;
   }
@@ -0,0 +1,393 @@
+// Near Infinity - An Infinity Engine Browser and Editor
+// Copyright (C) 2001 - 2005 Jon Olav Hauglid
+// See LICENSE.txt for license information
+
+package org.infinity.util;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.ToIntBiFunction;
+
+/**
+ * A thread-safe cache with least-recently-used eviction.
+ * <p>
+ * The cache can be limited by number of entries and by total weight of the entries. Lookups don't
+ * block each other. Entries evicted from the cache are optionally kept as soft references, so that
+ * they can be recovered as long as the garbage collector hasn't reclaimed them.
+ * <p>
+ * Neither keys nor values can be {@code null}.
+ */
+public class LruCache<K, V>
+{
+  private final ConcurrentHashMap<K, Node<V>> entries = new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<K, SoftValue<K, V>> evicted = new ConcurrentHashMap<>();
+  private final ReferenceQueue<V> queue = new ReferenceQueue<>();
+  private final AtomicLong clock = new AtomicLong();
+  private final AtomicLong weight = new AtomicLong();
+  private final LongAdder hitCount = new LongAdder();
+  private final LongAdder softHitCount = new LongAdder();
+  private final LongAdder missCount = new LongAdder();
+  private final LongAdder evictionCount = new LongAdder();
+  private final Object evictionLock = new Object();
+  private final int maxEntries;
+  private final long maxWeight;
+  private final ToIntBiFunction<? super K, ? super V> weigher;
+  private final boolean softReferences;
+
+  /**
+   * Creates a cache limited by number of entries.
+   * @param maxEntries Max. number of entries. Specify {@code 0} for no limit.
+   */
+  public LruCache(int maxEntries)
+  {
+    this(maxEntries, 0L, null);
+  }
+
+  /**
+   * Creates a cache limited by number of entries and total weight.
+   * @param maxEntries Max. number of entries. Specify {@code 0} for no limit.
+   * @param maxWeight Max. total weight of all entries. Specify {@code 0} for no limit.
+   * @param weigher Calculates the weight of an entry. Each entry has a weight of 1 if {@code null}.
+   */
+  public LruCache(int maxEntries, long maxWeight, ToIntBiFunction<? super K, ? super V> weigher)
+  {
+    this(maxEntries, maxWeight, weigher, true);
+  }
+
+  /**
+   * Creates a cache limited by number of entries and total weight.
+   * @param maxEntries Max. number of entries. Specify {@code 0} for no limit.
+   * @param maxWeight Max. total weight of all entries. Specify {@code 0} for no limit.
+   * @param weigher Calculates the weight of an entry. Each entry has a weight of 1 if {@code null}.
+   * @param softReferences Whether evicted entries are kept as soft references.
+   */
+  public LruCache(int maxEntries, long maxWeight, ToIntBiFunction<? super K, ? super V> weigher,
+                  boolean softReferences)
+  {
+    this.maxEntries = Math.max(0, maxEntries);
+    this.maxWeight = Math.max(0L, maxWeight);
+    this.weigher = weigher;
+    this.softReferences = softReferences;
+  }
+
+  /** Returns the max. number of entries, or {@code 0} if unlimited. */
+  public int getMaxEntries()
+  {
+    return maxEntries;
+  }
+
+  /** Returns the max. total weight of all entries, or {@code 0} if unlimited. */
+  public long getMaxWeight()
+  {
+    return maxWeight;
+  }
+
+  /** Returns the number of entries in the cache, not counting soft referenced entries. */
+  public int size()
+  {
+    return entries.size();
+  }
+
+  /** Returns the total weight of all entries in the cache, not counting soft referenced entries. */
+  public long getWeight()
+  {
+    return weight.get();
+  }
+
+  /**
+   * Returns the value associated with the specified key.
+   * @return The cached value, or {@code null} if not available.
+   */
+  public V get(K key)
+  {
+    if (key == null) {
+      return null;
+    }
+
+    Node<V> node = entries.get(key);
+    if (node != null) {
+      node.lastAccess = clock.incrementAndGet();
+      hitCount.increment();
+      return node.value;
+    }
+
+    SoftValue<K, V> ref = evicted.remove(key);
+    if (ref != null) {
+      V value = ref.get();
+      if (value != null) {
+        softHitCount.increment();
+        return putIfAbsent(key, value);
+      }
+    }
+
+    missCount.increment();
+    return null;
+  }
+
+  /**
+   * Returns the value associated with the specified key. Uses the loader function to create a new
+   * value if the key is not available in the cache. The loader is called without holding any locks,
+   * so it may be called more than once if several threads request the same key at the same time.
+   * @param key The key to look up.
+   * @param loader Function which creates a new value for the key. Returned {@code null} values are
+   *               not added to the cache.
+   * @return The cached or created value. Returns {@code null} if the value could not be created.
+   */
+  public V get(K key, Function<? super K, ? extends V> loader)
+  {
+    V value = get(key);
+    if (value == null && key != null && loader != null) {
+      value = loader.apply(key);
+      if (value != null) {
+        value = putIfAbsent(key, value);
+      }
+    }
+    return value;
+  }
+
+  /** Returns whether the specified key is available in the cache. */
+  public boolean containsKey(K key)
+  {
+    if (key != null) {
+      if (entries.containsKey(key)) {
+        return true;
+      }
+      SoftValue<K, V> ref = evicted.get(key);
+      return (ref != null && ref.get() != null);
+    }
+    return false;
+  }
+
+  /**
+   * Associates the value with the specified key.
+   * @return The previous value associated with the key, or {@code null}.
+   */
+  public V put(K key, V value)
+  {
+    Node<V> node = createNode(key, value);
+    Node<V> old = entries.put(key, node);
+    evicted.remove(key);
+    weight.addAndGet(node.weight - ((old != null) ? old.weight : 0));
+    evict();
+    return (old != null) ? old.value : null;
+  }
+
+  /**
+   * Associates the value with the specified key if the key is not yet in the cache.
+   * @return The value associated with the key after the operation completed.
+   */
+  public V putIfAbsent(K key, V value)
+  {
+    Node<V> node = createNode(key, value);
+    Node<V> old = entries.putIfAbsent(key, node);
+    if (old != null) {
+      old.lastAccess = node.lastAccess;
+      return old.value;
+    }
+    evicted.remove(key);
+    weight.addAndGet(node.weight);
+    evict();
+    return value;
+  }
+
+  /**
+   * Removes the specified key from the cache.
+   * @return The value associated with the key, or {@code null}.
+   */
+  public V remove(K key)
+  {
+    if (key == null) {
+      return null;
+    }
+    SoftValue<K, V> ref = evicted.remove(key);
+    Node<V> old = entries.remove(key);
+    if (old != null) {
+      weight.addAndGet(-old.weight);
+      return old.value;
+    }
+    return (ref != null) ? ref.get() : null;
+  }
+
+  /** Removes all entries from the cache. Statistics are not affected. */
+  public void clear()
+  {
+    evicted.clear();
+    for (final K key: entries.keySet()) {
+      remove(key);
+    }
+    while (queue.poll() != null) {}
+  }
+
+  /** Returns a snapshot of the cache statistics. */
+  public Statistics getStatistics()
+  {
+    return new Statistics(hitCount.sum(), softHitCount.sum(), missCount.sum(), evictionCount.sum());
+  }
+
+  /** Resets all statistics counters to zero. */
+  public void resetStatistics()
+  {
+    hitCount.reset();
+    softHitCount.reset();
+    missCount.reset();
+    evictionCount.reset();
+  }
+
+  @Override
+  public String toString()
+  {
+    return "LruCache [size=" + size() + ", weight=" + getWeight() + ", " + getStatistics() + "]";
+  }
+
+  private Node<V> createNode(K key, V value)
+  {
+    if (key == null || value == null) {
+      throw new NullPointerException();
+    }
+    int w = (weigher != null) ? Math.max(0, weigher.applyAsInt(key, value)) : 1;
+    return new Node<>(value, w, clock.incrementAndGet());
+  }
+
+  private boolean isOverflow()
+  {
+    return (maxEntries > 0 && entries.size() > maxEntries) ||
+           (maxWeight > 0L && weight.get() > maxWeight);
+  }
+
+  // Moves least recently used entries to the soft reference storage until the cache is within limits
+  @SuppressWarnings("unchecked")
+  private void evict()
+  {
+    // discarding soft references reclaimed by the garbage collector
+    Reference<? extends V> ref;
+    while ((ref = queue.poll()) != null) {
+      SoftValue<K, V> sv = (SoftValue<K, V>)ref;
+      evicted.remove(sv.key, sv);
+    }
+
+    if (!isOverflow()) {
+      return;
+    }
+
+    synchronized (evictionLock) {
+      if (!isOverflow()) {
+        return;
+      }
+
+      // access stamps may change concurrently; sorting a snapshot instead
+      Object[] keys = entries.keySet().toArray();
+      long[] order = new long[keys.length];
+      for (int i = 0; i < keys.length; i++) {
+        Node<V> node = entries.get(keys[i]);
+        long stamp = (node != null) ? node.lastAccess : 0L;
+        // stamp in upper bits, array index in lower bits
+        order[i] = (Math.min(stamp, 0x7fffffffffL) << 24) | i;
+      }
+      Arrays.sort(order);
+
+      // evicting down to 3/4 of the limits to reduce the number of eviction runs
+      int targetEntries = maxEntries - maxEntries / 4;
+      long targetWeight = maxWeight - maxWeight / 4L;
+      for (final long o: order) {
+        if ((maxEntries == 0 || entries.size() <= targetEntries) &&
+            (maxWeight == 0L || weight.get() <= targetWeight)) {
+          break;
+        }
+        K key = (K)keys[(int)(o & 0xffffff)];
+        Node<V> node = entries.get(key);
+        if (node != null && entries.remove(key, node)) {
+          weight.addAndGet(-node.weight);
+          if (softReferences) {
+            evicted.put(key, new SoftValue<>(key, node.value, queue));
+          }
+          evictionCount.increment();
+        }
+      }
+    }
+  }
+
+//-------------------------- INNER CLASSES --------------------------
+
+  private static class Node<V>
+  {
+    public final V value;
+    public final int weight;
+    public volatile long lastAccess;
+
+    public Node(V value, int weight, long lastAccess)
+    {
+      this.value = value;
+      this.weight = weight;
+      this.lastAccess = lastAccess;
+    }
+  }
+
+  private static class SoftValue<K, V> extends SoftReference<V>
+  {
+    public final K key;
+
+    public SoftValue(K key, V value, ReferenceQueue<? super V> queue)
+    {
+      super(value, queue);
+      this.key = key;
+    }
+  }
+
+  /** Provides statistics about cache usage. */
+  public static class Statistics
+  {
+    private final long hits, softHits, misses, evictions;
+
+    private Statistics(long hits, long softHits, long misses, long evictions)
+    {
+      this.hits = hits;
+      this.softHits = softHits;
+      this.misses = misses;
+      this.evictions = evictions;
+    }
+
+    /** Returns the number of lookups that returned a cached value. */
+    public long getHitCount()
+    {
+      return hits + softHits;
+    }
+
+    /** Returns the number of lookups that recovered an evicted but still available value. */
+    public long getSoftHitCount()
+    {
+      return softHits;
+    }
+
+    /** Returns the number of lookups that didn't find a value. */
+    public long getMissCount()
+    {
+      return misses;
+    }
+
+    /** Returns the number of entries evicted from the cache. */
+    public long getEvictionCount()
+    {
+      return evictions;
+    }
+
+    /** Returns the ratio of successful lookups in range [0.0, 1.0]. */
+    public double getHitRate()
+    {
+      long total = getHitCount() + misses;
+      return (total > 0L) ? (double)getHitCount() / (double)total : 1.0;
+    }
+
+    @Override
+    public String toString()
+    {
+      return String.format("hits=%d, softHits=%d, misses=%d, evictions=%d, hitRate=%.1f%%",
+                           getHitCount(), softHits, misses, evictions, getHitRate() * 100.0);
+    }
+  }
+}
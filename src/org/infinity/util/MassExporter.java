@@ -6,14 +6,13 @@
 
 import java.awt.BorderLayout;
 import java.awt.FlowLayout;
-import java.awt.Graphics2D;
 import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
 import java.awt.Insets;
-import java.awt.Transparency;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 import java.awt.image.RenderedImage;
 import java.io.BufferedWriter;
 import java.io.EOFException;
@@ -494,24 +493,12 @@ private void tisToPng(ResourceEntry entry, Path output) throws Exception
           rows++;
         }
 
-        BufferedImage tile = ColorConvert.createCompatibleImage(64, 64, Transparency.BITMASK);
-        BufferedImage image = ColorConvert.createCompatibleImage(64*columns, 64*rows, Transparency.BITMASK);
+        BufferedImage image = new BufferedImage(64*columns, 64*rows, BufferedImage.TYPE_INT_ARGB);
         try {
-          Graphics2D g = image.createGraphics();
-          try {
-            for (int i = 0; i < tileCount; i++) {
-              int x = 64*(i % columns);
-              int y = 64*(i / columns);
-              decoder.getTile(i, tile);
-              g.drawImage(tile, x, y, null);
-            }
-          } finally {
-            g.dispose();
-            g = null;
-          }
+          int[] buffer = ((DataBufferInt)image.getRaster().getDataBuffer()).getData();
+          decoder.getTilesetData(columns, buffer);
           ImageIO.write(image, "png", output.toFile());
         } finally {
-          tile = null;
           image = null;
         }
       } else {
@@ -0,0 +1,379 @@
+// Near Infinity - An Infinity Engine Browser and Editor
+// Copyright (C) 2001 - 2005 Jon Olav Hauglid
+// See LICENSE.txt for license information
+
+package org.infinity.util;
+
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.infinity.NearInfinity;
+import org.infinity.gui.StatusBar;
+import org.infinity.resource.Profile;
+import org.infinity.resource.ResourceFactory;
+import org.infinity.resource.cre.CreResource;
+import org.infinity.resource.itm.ItmResource;
+import org.infinity.resource.key.ResourceEntry;
+import org.infinity.resource.spl.SplResource;
+import org.infinity.resource.sto.StoResource;
+import org.infinity.util.io.FileWatcher;
+import org.infinity.util.io.FileWatcher.FileWatchEvent;
+import org.infinity.util.io.FileWatcher.FileWatchListener;
+
+/**
+ * Maintains the display names of CRE, ITM, SPL and STO resources as returned by
+ * {@link ResourceEntry#getSearchString()}.
+ * <p>
+ * Names are gathered in parallel after a game has been opened. They are stored on disk together with
+ * a stamp of the resource (file path, size and modification time) and of the string table, so that
+ * only resources with a changed stamp have to be read when the game is opened again. Names of
+ * resources modified in the override folder are determined again on the next request.
+ */
+public final class ResourceNameIndex
+{
+  private static final String[] TYPES = {"CRE", "ITM", "SPL", "STO"};
+
+  // Display name and stamp of each indexed resource
+  private static final Map<ResourceEntry, Record> records = new ConcurrentHashMap<>();
+  // Maps upper-case resource names to indexed resources of that name
+  private static final Map<String, Set<ResourceEntry>> resourceNames = new ConcurrentHashMap<>();
+  // Maps resource stamps to display names
+  private static final ResourceSnapshot<String> snapshot =
+      new ResourceSnapshot<>("NIRN", 1, "resnames", ResourceNameIndex::getStringTableStamp,
+                             (dis) -> dis.readUTF(), (dos, name) -> dos.writeUTF(name));
+  private static final FileWatchListener watchListener = new FileWatchListener() {
+    @Override
+    public void fileChanged(FileWatchEvent e)
+    {
+      filesChanged(Collections.singletonList(e));
+    }
+
+    @Override
+    public void filesChanged(List<FileWatchEvent> events)
+    {
+      ResourceNameIndex.filesChanged(events);
+    }
+  };
+
+  private static volatile boolean initialized = false;
+  // Incremented whenever the index is cleared, results of older scans are discarded
+  private static int generation = 0;
+
+  /** Returns whether display names of the specified resource type are indexed. */
+  public static boolean isSupported(ResourceEntry entry)
+  {
+    return (entry != null) && getType(entry) != null;
+  }
+
+  /**
+   * Returns the indexed display name of the specified resource. Returns {@code null} if the resource
+   * has not been indexed (yet).
+   */
+  public static String get(ResourceEntry entry)
+  {
+    Record record = (entry != null) ? records.get(entry) : null;
+    return (record != null) ? record.name : null;
+  }
+
+  /** Adds the display name of the specified resource to the index. */
+  public static void put(ResourceEntry entry, String name)
+  {
+    String type = getType(entry);
+    if (type != null && name != null) {
+      addRecord(entry, new Record(ResourceSnapshot.getStamp(type, entry, null), name));
+    }
+  }
+
+  /**
+   * Removes the display name of the specified resource from the index. It will be determined again
+   * on the next request.
+   */
+  public static void resourceChanged(ResourceEntry entry)
+  {
+    if (entry != null && removeRecord(entry) && isInitialized()) {
+      snapshot.saveLater(snapshot.getFile(), ResourceNameIndex::getSnapshotValues);
+    }
+  }
+
+  /**
+   * Reads the display name of the specified resource from the resource data.
+   * Returns {@code null} if the resource type is not supported.
+   */
+  public static String readName(ResourceEntry entry) throws Exception
+  {
+    String type = getType(entry);
+    if (type != null) {
+      try (InputStream is = entry.getResourceDataAsStream()) {
+        switch (type) {
+          case "CRE": return CreResource.getSearchString(is);
+          case "ITM": return ItmResource.getSearchString(is);
+          case "SPL": return SplResource.getSearchString(is);
+          case "STO": return StoResource.getSearchString(is);
+        }
+      }
+    }
+    return null;
+  }
+
+  public static void init()
+  {
+    if (!isInitialized()) {
+      initialize();
+    }
+  }
+
+  public static synchronized void clearCache()
+  {
+    generation++;
+    FileWatcher.getInstance().removeFileWatchListener(watchListener);
+    records.clear();
+    resourceNames.clear();
+    initialized = false;
+  }
+
+  public static void reset()
+  {
+    clearCache();
+    init();
+  }
+
+  public static boolean isInitialized()
+  {
+    return initialized;
+  }
+
+  // Returns the current generation of the index
+  static synchronized int getGeneration()
+  {
+    return generation;
+  }
+
+  // Removes all resources affected by the specified file watch events from the index
+  static void filesChanged(List<FileWatchEvent> events)
+  {
+    for (final FileWatchEvent e: events) {
+      if (e.getPath() != null &&
+          (e.getKind() == StandardWatchEventKinds.ENTRY_CREATE ||
+           e.getKind() == StandardWatchEventKinds.ENTRY_DELETE ||
+           e.getKind() == StandardWatchEventKinds.ENTRY_MODIFY)) {
+        remove(e.getPath().getFileName().toString());
+      }
+    }
+  }
+
+  // Removes all resources of the specified name from the index
+  private static void remove(String resourceName)
+  {
+    Set<ResourceEntry> set = resourceNames.remove(resourceName.toUpperCase(Locale.ENGLISH));
+    if (set != null) {
+      set.forEach((entry) -> records.remove(entry));
+    }
+  }
+
+  // Adds the record of the specified resource to the index
+  private static void addRecord(ResourceEntry entry, Record record)
+  {
+    records.put(entry, record);
+    resourceNames.computeIfAbsent(entry.getResourceName().toUpperCase(Locale.ENGLISH),
+                                  k -> ConcurrentHashMap.newKeySet()).add(entry);
+  }
+
+  // Adds the record unless the index has been cleared since the specified generation
+  private static synchronized boolean addRecord(int gen, ResourceEntry entry, Record record)
+  {
+    if (gen != generation) {
+      return false;
+    }
+    addRecord(entry, record);
+    return true;
+  }
+
+  // Removes the record of the specified resource from the index. Returns whether a record was removed.
+  private static boolean removeRecord(ResourceEntry entry)
+  {
+    resourceNames.computeIfPresent(entry.getResourceName().toUpperCase(Locale.ENGLISH), (k, set) -> {
+      set.remove(entry);
+      return set.isEmpty() ? null : set;
+    });
+    return records.remove(entry) != null;
+  }
+
+  private static void initialize()
+  {
+    FileWatcher.getInstance().addFileWatchListener(watchListener);
+    final int gen = getGeneration();
+    Runnable worker = new Runnable() {
+      @Override
+      public void run()
+      {
+        StatusBar statusBar = (NearInfinity.getInstance() != null) ? NearInfinity.getInstance().getStatusBar() : null;
+        String message = "Gathering resource names ...";
+        String oldMessage = null;
+        if (statusBar != null) {
+          oldMessage = statusBar.getMessage();
+          statusBar.setMessage(message);
+        }
+
+        Path snapshotFile = snapshot.getFile();
+        List<ResourceEntry> files = new ArrayList<>();
+        for (final String type: TYPES) {
+          files.addAll(ResourceFactory.getResources(type));
+        }
+        scan(gen, files, snapshot.load(snapshotFile), snapshotFile);
+
+        if (statusBar != null && statusBar.getMessage().startsWith(message)) {
+          statusBar.setMessage(oldMessage);
+        }
+      }
+    };
+    snapshot.execute(worker);
+  }
+
+  /**
+   * Adds the specified resources to the index. Names are taken from {@code stored} if the resource stamp
+   * matches, otherwise they are read from the resources. The scan is aborted and its results are discarded
+   * if the index has been cleared since the specified generation.
+   */
+  static void scan(int gen, List<ResourceEntry> files, Map<String, String> stored, Path snapshotFile)
+  {
+    Map<Path, String> fileStamps = new ConcurrentHashMap<>();
+    int scanned = 0;
+    boolean cancelled = false;
+
+    ThreadPoolExecutor executor = Misc.createThreadPool();
+    for (final ResourceEntry entry: files) {
+      if (gen != getGeneration()) {
+        cancelled = true;
+        break;
+      }
+      String type = getType(entry);
+      if (type == null || records.containsKey(entry)) {
+        continue;
+      }
+      String stamp = ResourceSnapshot.getStamp(type, entry, fileStamps);
+      String name = (stamp != null) ? stored.get(stamp) : null;
+      if (name != null) {
+        addRecord(gen, entry, new Record(stamp, name));
+      } else {
+        Misc.isQueueReady(executor, true, -1);
+        executor.execute(new Worker(gen, entry, stamp));
+        scanned++;
+      }
+    }
+
+    if (cancelled) {
+      executor.shutdownNow();
+    } else {
+      executor.shutdown();
+    }
+    try {
+      executor.awaitTermination(60, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      e.printStackTrace();
+    }
+
+    Map<String, String> values = null;
+    synchronized (ResourceNameIndex.class) {
+      if (gen != generation) {
+        return;
+      }
+      initialized = true;
+      if (scanned > 0 || stored.size() != records.size()) {
+        values = getSnapshotValues();
+      }
+    }
+    if (values != null) {
+      snapshot.save(snapshotFile, values);
+    }
+  }
+
+  // Returns the normalized resource type of the specified entry if supported, null otherwise
+  private static String getType(ResourceEntry entry)
+  {
+    String ext = entry.getExtension().toUpperCase(Locale.ENGLISH);
+    for (final String type: TYPES) {
+      if (type.equals(ext)) {
+        return type;
+      }
+    }
+    return null;
+  }
+
+  // Display names depend on the string table of the current game and language
+  private static String getStringTableStamp()
+  {
+    try {
+      return String.valueOf(Profile.getChitinKey()) + '|' + ResourceSnapshot.getFileStamp(StringTable.getPath());
+    } catch (Exception e) {
+      return String.valueOf(Profile.getChitinKey());
+    }
+  }
+
+  // Returns the resource stamp to display name map of all indexed resources
+  private static Map<String, String> getSnapshotValues()
+  {
+    Map<String, String> retVal = new HashMap<>();
+    for (final Record record: records.values()) {
+      if (record.stamp != null) {
+        retVal.put(record.stamp, record.name);
+      }
+    }
+    return retVal;
+  }
+
+//-------------------------- INNER CLASSES --------------------------
+
+  /** Display name of a single resource. */
+  private static class Record
+  {
+    final String stamp;
+    final String name;
+
+    public Record(String stamp, String name)
+    {
+      this.stamp = stamp;
+      this.name = name;
+    }
+  }
+
+  private static class Worker implements Runnable
+  {
+    final int generation;
+    final ResourceEntry entry;
+    final String stamp;
+
+    public Worker(int generation, ResourceEntry entry, String stamp)
+    {
+      this.generation = generation;
+      this.entry = entry;
+      this.stamp = stamp;
+    }
+
+    @Override
+    public void run()
+    {
+      try {
+        if (generation != getGeneration()) {
+          return;
+        }
+        String name = readName(entry);
+        if (name != null && !records.containsKey(entry)) {
+          addRecord(generation, entry, new Record(stamp, name));
+        }
+      } catch (Exception e) {
+        // errors are reported when the name is requested
+      }
+    }
+  }
+}
@@ -0,0 +1,221 @@
+// Near Infinity - An Infinity Engine Browser and Editor
+// Copyright (C) 2001 - 2005 Jon Olav Hauglid
+// See LICENSE.txt for license information
+
+package org.infinity.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.infinity.resource.Profile;
+import org.infinity.resource.key.ResourceEntry;
+
+/**
+ * Stores data gathered from game resources in a snapshot file in the temp folder.
+ * <p>
+ * Each value is keyed by a stamp of the resource it was gathered from (file path, size and
+ * modification time), so that only resources with a changed stamp have to be read again when a
+ * game is opened the next time. The snapshot is discarded as a whole if the signature, version or
+ * context stamp don't match.
+ * <p>
+ * Background tasks and snapshot updates of a single instance are executed one after another by
+ * a single worker thread. Multiple save requests for the same file are merged while a save is pending.
+ */
+public class ResourceSnapshot<V>
+{
+  private final Set<Path> pendingSaves = ConcurrentHashMap.newKeySet();
+  private final String signature;
+  private final int version;
+  private final String filePrefix;
+  private final Supplier<String> context;
+  private final ValueReader<V> reader;
+  private final ValueWriter<V> writer;
+  private final ThreadPoolExecutor executor;
+
+  /**
+   * Creates a new snapshot handler.
+   * @param signature Signature string written at the start of the snapshot file.
+   * @param version Version of the snapshot format.
+   * @param filePrefix Prefix of the snapshot file name.
+   * @param context Returns a stamp of all data the values depend on besides the resource itself.
+   * @param reader Reads a single value from the snapshot file.
+   * @param writer Writes a single value to the snapshot file.
+   */
+  public ResourceSnapshot(String signature, int version, String filePrefix, Supplier<String> context,
+                          ValueReader<V> reader, ValueWriter<V> writer)
+  {
+    this.signature = signature;
+    this.version = version;
+    this.filePrefix = filePrefix;
+    this.context = context;
+    this.reader = reader;
+    this.writer = writer;
+    this.executor = new ThreadPoolExecutor(1, 1, 5L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                                           (r) -> {
+                                             Thread t = new Thread(r, filePrefix + "-snapshot");
+                                             t.setDaemon(true);
+                                             return t;
+                                           });
+    this.executor.allowCoreThreadTimeOut(true);
+  }
+
+  /**
+   * Returns a string that changes whenever the resource content may have changed.
+   * Returns {@code null} if no stamp could be determined.
+   * @param type Resource type identifier.
+   * @param entry The resource.
+   * @param fileStamps Optional map of already determined file stamps. Resources in BIFF archives share
+   *                   the stamp of the archive.
+   */
+  public static String getStamp(String type, ResourceEntry entry, Map<Path, String> fileStamps)
+  {
+    Path path = entry.getActualPath();
+    if (path == null) {
+      return null;
+    }
+
+    String fileStamp = (fileStamps != null) ? fileStamps.get(path) : null;
+    if (fileStamp == null) {
+      fileStamp = getFileStamp(path);
+      if (fileStamp == null) {
+        return null;
+      }
+      if (fileStamps != null) {
+        fileStamps.put(path, fileStamp);
+      }
+    }
+    return type + '|' + entry.getResourceName() + '|' + fileStamp;
+  }
+
+  /** Returns a stamp of path, size and modification time of the file. Returns {@code null} on error. */
+  public static String getFileStamp(Path path)
+  {
+    try {
+      return path.toAbsolutePath().toString() + '|' + Files.size(path) + '|' +
+             Files.getLastModifiedTime(path).toMillis();
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
+  /** Returns the path of the snapshot file for the current game. */
+  public Path getFile()
+  {
+    Path keyFile = Profile.getChitinKey();
+    String id = String.format("%08x", (keyFile != null) ? keyFile.toAbsolutePath().toString().hashCode() : 0);
+    return Paths.get(System.getProperty("java.io.tmpdir"), "NearInfinity", filePrefix + "_" + id + ".dat");
+  }
+
+  /** Executes the specified task in the background. */
+  public void execute(Runnable task)
+  {
+    executor.execute(task);
+  }
+
+  /**
+   * Returns the resource stamp to value map stored in the snapshot file. Returns an empty map if the
+   * file doesn't exist or doesn't match the current context.
+   */
+  public Map<String, V> load(Path file)
+  {
+    Map<String, V> retVal = new HashMap<>();
+    if (file != null && Files.isRegularFile(file)) {
+      try (DataInputStream dis =
+               new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(file))))) {
+        if (signature.equals(dis.readUTF()) && dis.readInt() == version &&
+            String.valueOf(context.get()).equals(dis.readUTF())) {
+          for (int i = 0, count = dis.readInt(); i < count; i++) {
+            String stamp = dis.readUTF();
+            retVal.put(stamp, reader.read(dis));
+          }
+        }
+      } catch (IOException e) {
+        // discarding incomplete data
+        retVal.clear();
+      }
+    }
+    return retVal;
+  }
+
+  /**
+   * Writes the specified resource stamp to value map to the snapshot file.
+   * Entries without stamp are skipped.
+   */
+  public synchronized void save(Path file, Map<String, V> values)
+  {
+    if (file == null) {
+      return;
+    }
+    try {
+      Files.createDirectories(file.getParent());
+      Path tmpFile = file.resolveSibling(file.getFileName().toString() + ".tmp");
+      try (DataOutputStream dos =
+               new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(tmpFile))))) {
+        dos.writeUTF(signature);
+        dos.writeInt(version);
+        dos.writeUTF(String.valueOf(context.get()));
+        int count = 0;
+        for (final String stamp: values.keySet()) {
+          if (stamp != null) {
+            count++;
+          }
+        }
+        dos.writeInt(count);
+        for (final Map.Entry<String, V> entry: values.entrySet()) {
+          if (entry.getKey() != null) {
+            dos.writeUTF(entry.getKey());
+            writer.write(dos, entry.getValue());
+          }
+        }
+      }
+      Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+  }
+
+  /**
+   * Writes the snapshot file in the background. Does nothing if a save of the same file is already
+   * pending. The values are retrieved when the save is performed.
+   */
+  public void saveLater(Path file, Supplier<Map<String, V>> values)
+  {
+    if (file != null && pendingSaves.add(file)) {
+      executor.execute(() -> {
+        pendingSaves.remove(file);
+        save(file, values.get());
+      });
+    }
+  }
+
+//-------------------------- INNER CLASSES --------------------------
+
+  /** Reads a single value from a snapshot file. */
+  public static interface ValueReader<V>
+  {
+    V read(DataInputStream dis) throws IOException;
+  }
+
+  /** Writes a single value to a snapshot file. */
+  public static interface ValueWriter<V>
+  {
+    void write(DataOutputStream dos, V value) throws IOException;
+  }
+}
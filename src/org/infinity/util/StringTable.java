@@ -4,17 +4,26 @@
 
 package org.infinity.util;
 
+import java.io.BufferedReader;
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.io.Writer;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.EnumMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
 
 import org.infinity.NearInfinity;
 import org.infinity.datatype.DecNumber;
@@ -26,6 +35,7 @@
 import org.infinity.resource.Profile;
 import org.infinity.resource.StructEntry;
 import org.infinity.updater.Utils;
+import org.infinity.util.io.FileManager;
 import org.infinity.util.io.StreamUtils;
 
 /**
@@ -64,6 +74,14 @@ public enum Format {
   /** The default flags value includes all supported bits */
   public static final short FLAGS_DEFAULT   = 0x07;
 
+  // Number of string entries processed as a single unit by streaming operations
+  private static final int CHUNK_SIZE = 2048;
+  // Size of the global TLK header and of a single entry header
+  private static final int HEADER_SIZE  = 18;
+  private static final int ENTRY_SIZE   = 26;
+  // Highest string index accepted by TRA imports
+  private static final int MAX_IMPORT_INDEX = 0xffffff;
+
   private static final EnumMap<Type, StringTable> TLK_TABLE = new EnumMap<>(Type.class);
   private static final EnumMap<Format, String> FORMAT = new EnumMap<>(Format.class);
 
@@ -797,22 +815,61 @@ public static boolean exportText(Type type, Path outFile, ProgressCallback callb
    * @param reset Indicates whether original entries are removed before the import operation.
    * @param callback An optional callback interface that can be used to track the whole operation.
    * @return {@code true} if the operation finished successfully.
-   *         {@code false} if the operation could not be completed. The string table may be incomplete
-   *         in this case.
+   *         {@code false} if the operation could not be completed or has been cancelled. The string tables
+   *         are not modified in this case.
    */
   public static boolean importTra(Path inFile, boolean reset, ProgressCallback callback)
   {
-    boolean retVal = false;
+    if (inFile == null) {
+      return false;
+    }
 
-//    Pattern regCmtLine = Pattern.compile("//.*$");
-//    Pattern regCmtBlock = Pattern.compile("/\\*.*\\*/", Pattern.DOTALL);
-//    Pattern[] regStrings = new Pattern[]{ Pattern.compile("\"[^\"]*\"", Pattern.DOTALL),
-//                                          Pattern.compile("~~~~~.*?~~~~~", Pattern.DOTALL),
-//                                          Pattern.compile("~[^~]*~", Pattern.DOTALL),
-//                                          Pattern.compile("%[^%]*%", Pattern.DOTALL) };
-//    Pattern regResRef = Pattern.compile("\\[[^\\[\\]]{1,8}\\]");
+    StringTable tableMale = instance(Type.MALE);
+    StringTable tableFemale = hasFemaleTable() ? instance(Type.FEMALE) : null;
 
-    // TODO: create separate TRA importer class
+    boolean retVal = false;
+    try {
+      // string tables are not touched before the whole file has been parsed successfully
+      ArrayList<TraReader.Entry> traEntries = new ArrayList<>();
+      try (BufferedReader br = Files.newBufferedReader(inFile, getCharset());
+           TraReader reader = new TraReader(br)) {
+        // progress is tracked by number of characters read
+        if (callback != null) { callback.init((int)Math.min(Files.size(inFile), Integer.MAX_VALUE)); }
+        TraReader.Entry entry;
+        while ((entry = reader.next()) != null) {
+          if (callback != null && !callback.progress((int)Math.min(reader.getPosition(), Integer.MAX_VALUE))) {
+            return false;
+          }
+          if (entry.getIndex() < 0) {
+            continue;
+          }
+          if (entry.getIndex() > MAX_IMPORT_INDEX) {
+            throw new IOException("Line " + entry.getLineNumber() + ": String index out of range: " + entry.getIndex());
+          }
+          traEntries.add(entry);
+        }
+      }
+
+      tableMale._prepareImport(reset);
+      if (tableFemale != null) {
+        tableFemale._prepareImport(reset);
+      }
+      for (final TraReader.Entry entry: traEntries) {
+        tableMale._importEntry(entry.getIndex(), entry.getText(), entry.getSound());
+        if (tableFemale != null) {
+          if (entry.getFemaleText() != null) {
+            tableFemale._importEntry(entry.getIndex(), entry.getFemaleText(), entry.getFemaleSound());
+          } else {
+            tableFemale._importEntry(entry.getIndex(), entry.getText(), entry.getSound());
+          }
+        }
+      }
+      retVal = true;
+    } catch (IOException e) {
+      e.printStackTrace();
+    } finally {
+      if (callback != null) { callback.done(retVal); }
+    }
 
     return retVal;
   }
@@ -827,19 +884,15 @@ public static boolean exportTra(Path outFile, ProgressCallback callback)
       return false;
     }
 
-    StringTable tableMale = instance(Type.MALE);
-    tableMale._ensureFullyLoaded();
-    StringTable tableFemale = hasFemaleTable() ? instance(Type.FEMALE) : null;
-    if (tableFemale != null) {
-      tableFemale._ensureFullyLoaded();
-    }
+    final StringTable tableMale = instance(Type.MALE);
+    final StringTable tableFemale = hasFemaleTable() ? instance(Type.FEMALE) : null;
 
     if (callback != null) { callback.init(tableMale._getNumEntries()); }
-    boolean retVal = true;
-    PrintWriter writer = null;
-    try {
-      writer = new PrintWriter(outFile.toFile(), getCharset().name());
-      String newline = System.getProperty("line.separator");
+    boolean retVal = false;
+    try (EntryReader readerMale = tableMale.new EntryReader(tableMale._getPath());
+         EntryReader readerFemale = (tableFemale != null) ? tableFemale.new EntryReader(tableFemale._getPath()) : null;
+         PrintWriter writer = new PrintWriter(outFile.toFile(), getCharset().name())) {
+      final String newline = System.getProperty("line.separator");
       // writing header
       String niPath = Utils.getJarFileName(NearInfinity.class);
       if (niPath == null || niPath.isEmpty()) {
@@ -857,64 +910,45 @@ public static boolean exportTra(Path outFile, ProgressCallback callback)
       }
       writer.println();
 
-      // writing tra lines
-      int numEntries = tableMale._getNumEntries();
-      int colWidth = Integer.toString(numEntries - 1).length() + 2;
-      for (int idx = 0; idx < numEntries; idx++) {
-        if (callback != null) {
-          retVal = callback.progress(idx);
-          if (!retVal) {
-            break;
-          }
+      // writing tra lines, chunks are formatted in parallel
+      final int numEntries = readerMale.getCount();
+      final int colWidth = Integer.toString(numEntries - 1).length() + 2;
+      retVal = processChunks(numEntries, (start, end) -> {
+        String[] msg1 = new String[end - start], res1 = new String[end - start];
+        readerMale.read(start, end, msg1, res1);
+        String[] msg2 = null, res2 = null;
+        if (readerFemale != null) {
+          msg2 = new String[end - start];
+          res2 = new String[end - start];
+          readerFemale.read(start, end, msg2, res2);
         }
 
-        String traNum = "@" + idx;
-        writer.print(traNum);
-        for (int n = 0, cnt = colWidth - traNum.length(); n < cnt; n++) { writer.print(' '); }
-        writer.print("= ");
-
-        // writing male string
-        String msg1 = tableMale._getStringRef(idx, Format.NONE).replaceAll("\r?\n", newline);
-        String res1 = tableMale._getSoundResource(idx);
-        String delim = "~";
-        if (msg1.indexOf('~') >= 0) {
-          if (msg1.indexOf('"') < 0) {
-            delim = "\"";
-          } else {
-            delim = "~~~~~";
+        StringBuilder sb = new StringBuilder((end - start) * 80);
+        for (int idx = start; idx < end; idx++) {
+          int i = idx - start;
+          int lineStart = sb.length();
+          sb.append('@').append(idx);
+          while (sb.length() - lineStart < colWidth) {
+            sb.append(' ');
           }
-        }
-        writer.print(delim + msg1 + delim);
-        if (!res1.isEmpty()) {
-          writer.print(" [" + res1 + "]");
-        }
-
-        // writing female string
-        if (tableFemale != null) {
-          String msg2 = tableFemale._getStringRef(idx, Format.NONE).replaceAll("\r?\n", newline);
-          String res2 = tableFemale._getSoundResource(idx);
-          if (!msg2.equals(msg1) || !res2.equals(res1)) {
-            delim = "~";
-            if (msg1.indexOf('~') >= 0) {
-              if (msg1.indexOf('"') < 0) {
-                delim = "\"";
-              } else {
-                delim = "~~~~~";
-              }
-            }
-            writer.print(" " + delim + msg2 + delim);
-            if (!res2.isEmpty()) {
-              writer.print(" [" + res2 + "]");
-            }
+          sb.append("= ");
+          appendTraString(sb, msg1[i], res1[i], newline);
+          if (msg2 != null && (!msg2[i].equals(msg1[i]) || !res2[i].equals(res1[i]))) {
+            sb.append(' ');
+            appendTraString(sb, msg2[i], res2[i], newline);
           }
+          sb.append(newline);
         }
-        writer.println();
+        return sb.toString();
+      }, (start, end, text) -> writer.write(text), callback);
+
+      if (writer.checkError()) {
+        throw new IOException("Error writing " + outFile);
       }
-    } catch (IOException e) {
+    } catch (Exception e) {
       e.printStackTrace();
       retVal = false;
     } finally {
-      if (writer != null) { writer.close(); }
       if (callback != null) { callback.done(retVal); }
     }
 
@@ -939,6 +973,20 @@ private static StringTable instance(Type type)
     return retVal;
   }
 
+  // Uses the specified TLK file as string table of the given type without querying the current game
+  static void open(Type type, Path tlkPath, Charset cs)
+  {
+    synchronized (TLK_TABLE) {
+      charset = cs;
+      if (type == Type.FEMALE) {
+        hasFemaleTable = Boolean.TRUE;
+      } else if (hasFemaleTable == null) {
+        hasFemaleTable = Boolean.FALSE;
+      }
+      TLK_TABLE.put(type, new StringTable(type, tlkPath));
+    }
+  }
+
   // Returns the specified format string that can be used by String.format() and similar methods
   private static String getFormatString(Format format)
   {
@@ -948,6 +996,124 @@ private static String getFormatString(Format format)
     return FORMAT.get(format);
   }
 
+  // Appends text with line breaks converted to the specified newline sequence
+  private static void appendText(StringBuilder sb, String text, String newline)
+  {
+    for (int i = 0, len = text.length(); i < len; i++) {
+      char ch = text.charAt(i);
+      if (ch == '\n') {
+        sb.append(newline);
+      } else if (ch == '\r' && i + 1 < len && text.charAt(i + 1) == '\n') {
+        // handled by next character
+      } else {
+        sb.append(ch);
+      }
+    }
+  }
+
+  // Appends a delimited TRA string and optional sound reference
+  private static void appendTraString(StringBuilder sb, String text, String soundRef, String newline)
+  {
+    String delim = "~";
+    if (text.indexOf('~') >= 0) {
+      if (text.indexOf('"') < 0) {
+        delim = "\"";
+      } else {
+        delim = "~~~~~";
+      }
+    }
+    sb.append(delim);
+    appendText(sb, text, newline);
+    sb.append(delim);
+    if (!soundRef.isEmpty()) {
+      sb.append(" [").append(soundRef).append(']');
+    }
+  }
+
+  /**
+   * Processes {@code numEntries} string entries in chunks of {@link #CHUNK_SIZE} entries.
+   * Chunks are processed concurrently by {@code task}, results are passed to {@code consumer}
+   * in ascending order on the calling thread.
+   * @return {@code true} if all chunks have been processed, {@code false} if the operation has been
+   *         cancelled by the callback.
+   */
+  private static <T> boolean processChunks(int numEntries, ChunkTask<T> task, ChunkConsumer<T> consumer,
+                                           ProgressCallback callback) throws Exception
+  {
+    ThreadPoolExecutor executor = Misc.createThreadPool();
+    int maxPending = Math.max(2, executor.getCorePoolSize() * 2);
+    ArrayDeque<Future<T>> pending = new ArrayDeque<>();
+    try {
+      int next = 0;
+      for (int start = 0; start < numEntries; start += CHUNK_SIZE) {
+        while (next < numEntries && pending.size() < maxPending) {
+          final int chunkStart = next;
+          final int chunkEnd = Math.min(numEntries, next + CHUNK_SIZE);
+          pending.add(executor.submit(() -> task.process(chunkStart, chunkEnd)));
+          next = chunkEnd;
+        }
+
+        T result;
+        try {
+          result = pending.poll().get();
+        } catch (ExecutionException e) {
+          if (e.getCause() instanceof Exception) {
+            throw (Exception)e.getCause();
+          }
+          throw e;
+        }
+
+        int end = Math.min(numEntries, start + CHUNK_SIZE);
+        if (callback != null) {
+          for (int idx = start; idx < end; idx++) {
+            if (!callback.progress(idx)) {
+              return false;
+            }
+          }
+        }
+        consumer.accept(start, end, result);
+      }
+      return true;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  // Reads the specified number of bytes from the given file position. Returns null if not enough data is available.
+  private static byte[] readFully(FileChannel ch, long position, int length) throws IOException
+  {
+    ByteBuffer buffer = ByteBuffer.allocate(length);
+    while (buffer.hasRemaining()) {
+      int n = ch.read(buffer, position + buffer.position());
+      if (n < 0) {
+        return null;
+      }
+    }
+    return buffer.array();
+  }
+
+  // Writes the remaining buffer content to the given file position
+  private static void writeFully(FileChannel ch, ByteBuffer buffer, long position) throws IOException
+  {
+    while (buffer.hasRemaining()) {
+      position += ch.write(buffer, position);
+    }
+  }
+
+  // Writes the specified data blocks to the current file position
+  private static void writeFully(FileChannel ch, byte[][] data) throws IOException
+  {
+    ByteBuffer[] buffers = new ByteBuffer[data.length];
+    long remaining = 0L;
+    for (int i = 0; i < data.length; i++) {
+      buffers[i] = ByteBuffer.wrap(data[i]);
+      remaining += data[i].length;
+    }
+    while (remaining > 0L) {
+      remaining -= ch.write(buffers);
+    }
+  }
+
 
   private final ArrayList<StringEntry> entries = new ArrayList<>();
   private final Path tlkPath;
@@ -958,10 +1124,13 @@ private static String getFormatString(Format format)
   private ByteBuffer headerData;
   private int entriesPending;
 //  private boolean fullyLoaded;
+  // size and modification time of the TLK file matching the cached header data
+  private long fileSize, fileTime;
 
   private short langId;
   private boolean initialized;
   private boolean modified;
+  private boolean structureModified;  // entries have been added or removed
 
   private StringTable(Type tlkType, Path tlkPath)
   {
@@ -1087,6 +1256,8 @@ private void _init()
           }
 
           entriesPending = numEntries;
+          structureModified = false;
+          _updateFileStamp();
           initialized = true;
         } catch (Exception e) {
           e.printStackTrace();
@@ -1138,10 +1309,15 @@ private StringEntry _loadEntry(FileChannel ch, int index) throws IOException, In
       String text = null;
       if (lenString > 0) {
         try {
-          ch.position(ofsString);
-          text = StreamUtils.readString(ch, lenString, getCharset());
-          if (!CharsetDetector.getLookup().isExcluded(index)) {
-            text = CharsetDetector.getLookup().decodeString(text);
+          byte[] data = readFully(ch, ofsString, lenString);
+          if (data == null) {
+            throw new IOException("End of stream");
+          }
+          CharsetDetector.CharLookup lookup = CharsetDetector.getLookup();
+          if (lookup.isExcluded(index)) {
+            text = new String(data, getCharset());
+          } else {
+            text = lookup.decodeString(data, 0, data.length, getCharset());
           }
         } catch (IllegalArgumentException e) {
           System.err.println("Error: Illegal offset " + ofsString + " for string entry " + index);
@@ -1175,6 +1351,7 @@ private int _insertEntry(int index, StringEntry newEntry) throws IndexOutOfBound
     newEntry.setModified();
     synchronized (entries) {
       entries.add(index, newEntry);
+      structureModified = true;
     }
 
     return index;
@@ -1189,6 +1366,7 @@ private void _removeEntry(int index) throws IndexOutOfBoundsException
     _ensureFullyLoaded();
     synchronized (entries) {
       entries.remove(index);
+      structureModified = true;
     }
   }
 
@@ -1197,14 +1375,13 @@ private void _ensureFullyLoaded()
   {
     if (entriesPending > 0) {
       synchronized (entries) {
-        try (FileChannel ch = _open()) {
-          for (int idx = 0, num = _getNumEntries(); idx < num; idx++) {
-            if (entries.get(idx) == null) {
-              StringEntry entry = _loadEntry(ch, idx);
-              if (entry != null) {
-                entries.set(idx, entry);
-              } else {
-                throw new Exception();
+        try (EntryReader reader = new EntryReader(_getPath())) {
+          for (int start = 0, num = reader.getCount(); start < num; start += CHUNK_SIZE) {
+            int end = Math.min(num, start + CHUNK_SIZE);
+            byte[][] data = reader.readData(start, end);
+            for (int idx = start; idx < end; idx++) {
+              if (entries.get(idx) == null) {
+                entries.set(idx, reader.createEntry(idx, data[idx - start]));
               }
             }
           }
@@ -1270,7 +1447,9 @@ private void _resetModified()
   private void _writeModified(ProgressCallback callback) throws IOException
   {
     if (_isModified()) {
-      _write(callback);
+      if (!_writeDelta(callback)) {
+        _write(callback);
+      }
     }
   }
 
@@ -1287,91 +1466,72 @@ private void _write(Path tlkPath, ProgressCallback callback) throws IOException
       throw new NullPointerException();
     }
 
-    _ensureFullyLoaded();
     synchronized (entries) {
       boolean success = false;
+      boolean isOwnFile = _isOwnFile(tlkPath);
 
       // 1. backing up current string table file if needed
-      Path pathBackup = null;
-      if (Files.isRegularFile(tlkPath)) {
-        String name = tlkPath.getFileName().toString();
-        for (int i = 0; i < 999; i++) {
-          Path path = tlkPath.getParent().resolve(name + "-" + i);
-          if (!Files.exists(path)) {
-            pathBackup = path;
-            break;
-          }
-        }
-        if (pathBackup != null) {
-          Files.move(tlkPath, pathBackup);
-        }
+      Path pathBackup = Files.isRegularFile(tlkPath) ? getBackupPath(tlkPath) : null;
+      if (isOwnFile && pathBackup == null) {
+        // strings which are not loaded yet can only be copied from an intact source file
+        _ensureFullyLoaded();
+      }
+      if (pathBackup != null) {
+        Files.move(tlkPath, pathBackup);
       }
 
       // 2. writing changes to disk
       if (callback != null) { callback.init(_getNumEntries()); }
-      try (FileChannel ch = FileChannel.open(tlkPath, StandardOpenOption.CREATE,
+      try (EntryReader reader = new EntryReader(isOwnFile ? pathBackup : _getPath());
+           FileChannel ch = FileChannel.open(tlkPath, StandardOpenOption.CREATE,
                                                       StandardOpenOption.WRITE,
                                                       StandardOpenOption.TRUNCATE_EXISTING)) {
-        int headerSize = 18;
-        int entrySize = 26;
-        int numEntries = _getNumEntries();
-        int ofsStrings = headerSize + (numEntries * entrySize);
+        final int numEntries = reader.getCount();
+        final int ofsStrings = HEADER_SIZE + (numEntries * ENTRY_SIZE);
+        final ByteBuffer header = StreamUtils.getByteBuffer(numEntries * ENTRY_SIZE);
+        final int[] curStringOfs = { 0 };
+
+        // write strings, entry headers are completed when string offsets are known
+        ch.position(ofsStrings);
+        boolean completed = processChunks(numEntries, (start, end) -> reader.encode(start, end, header),
+                                          (start, end, data) -> {
+          for (int idx = start; idx < end; idx++) {
+            int len = data[idx - start].length;
+            header.putInt(idx * ENTRY_SIZE + 18, curStringOfs[0]);
+            header.putInt(idx * ENTRY_SIZE + 22, len);
+            curStringOfs[0] += len;
+          }
+          writeFully(ch, data);
+        }, callback);
+        if (!completed) {
+          throw new Exception("Operation cancelled");
+        }
 
-        // write global header
-        ByteBuffer buffer = StreamUtils.getByteBuffer(headerSize);
+        // write global header and entry headers
+        ByteBuffer buffer = StreamUtils.getByteBuffer(HEADER_SIZE);
         buffer.position(0);
         buffer.put("TLK V1  ".getBytes(Misc.CHARSET_DEFAULT));
         buffer.putShort(_getLanguageId());
         buffer.putInt(numEntries);
         buffer.putInt(ofsStrings);
         buffer.position(0);
-        ch.write(buffer);
-
-        // write entry headers
-        ArrayList<byte[]> stringList = new ArrayList<>(numEntries);
-        buffer = StreamUtils.getByteBuffer(entrySize);
-        int curStringOfs = 0;
-        CharsetDetector.CharLookup lookup = CharsetDetector.getLookup();
-        for (int idx = 0, count = entries.size(); idx < count; idx++) {
-          final StringEntry entry = entries.get(idx);
-          // apply character encoding if required
-          String text;
-          if (lookup.isExcluded(idx)) {
-            text = entry.getText();
-          } else {
-            text = lookup.encodeString(entry.getText());
-          }
-          byte[] data = entry.getTextBytes(text);
-          byte[] soundRef = entry.getSoundRefBytes();
-          buffer.position(0);
-          buffer.putShort(entry.getFlags());
-          buffer.put(soundRef);
-          buffer.putInt(entry.getVolume());
-          buffer.putInt(entry.getPitch());
-          buffer.putInt(curStringOfs);
-          buffer.putInt(data.length);
-          buffer.position(0);
-          ch.write(buffer);
-          stringList.add(data);
-          curStringOfs += data.length;
-        }
-
-        // write strings
-        int index = 0;
-        for (final byte[] data: stringList) {
-          if (callback != null) {
-            success = callback.progress(index++);
-            if (!success) {
-              throw new Exception("Operation cancelled");
+        writeFully(ch, buffer, 0L);
+        header.position(0);
+        writeFully(ch, header, HEADER_SIZE);
+        header.position(0);
+
+        if (isOwnFile) {
+          // cached header data refers to the new file
+          this.headerData = header;
+          this.numEntries = numEntries;
+          this.ofsStrings = ofsStrings;
+          structureModified = false;
+          for (final StringEntry entry: entries) {
+            if (entry != null) {
+              entry.resetModified();
             }
           }
-          buffer = StreamUtils.getByteBuffer(data);
-          buffer.position(0);
-          buffer.put(data);
-          buffer.position(0);
-          ch.write(buffer);
         }
-
         _resetModified();
         success = true;
       } catch (IOException | UnsupportedOperationException e) {
@@ -1383,12 +1543,248 @@ private void _write(Path tlkPath, ProgressCallback callback) throws IOException
           if (success) {
             Files.delete(pathBackup);
           } else {
-            Files.move(pathBackup, _getPath(), StandardCopyOption.REPLACE_EXISTING);
+            Files.move(pathBackup, tlkPath, StandardCopyOption.REPLACE_EXISTING);
+          }
+        }
+        if (success && isOwnFile) {
+          _updateFileStamp();
+        }
+
+        if (callback != null) { callback.done(success); }
+      }
+    }
+  }
+
+  /**
+   * Writes modified entries directly into the existing TLK file. Modified strings are stored at their
+   * original location, which requires that the encoded strings are not longer than the original strings
+   * and that the original string data is not shared with other entries. The original file is restored
+   * from a backup copy if the operation fails or is cancelled.
+   * Returns {@code false} without changing the file if the whole string table has to be written.
+   */
+  private boolean _writeDelta(ProgressCallback callback) throws IOException
+  {
+    synchronized (entries) {
+      if (!_initialized() || headerData == null || structureModified || entries.size() != numEntries ||
+          !FileManager.isDefaultFileSystem(_getPath()) || !_isFileUnchanged()) {
+        return false;
+      }
+
+      // 1. determining modified strings
+      final ByteBuffer header = headerData.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+      final CharsetDetector.CharLookup lookup = CharsetDetector.getLookup();
+      ArrayList<Integer> indices = new ArrayList<>();
+      ArrayList<byte[]> strings = new ArrayList<>();  // null if string data is unchanged
+      try (FileChannel ch = _open()) {
+        long[] offsets = null;
+        int maxLength = 0;
+        for (int idx = 0, count = entries.size(); idx < count; idx++) {
+          final StringEntry entry = entries.get(idx);
+          if (entry == null || !entry.isModified()) {
+            continue;
+          }
+          String text = lookup.isExcluded(idx) ? entry.getText() : lookup.encodeString(entry.getText());
+          byte[] data = entry.getTextBytes(text);
+          int ofs = header.getInt(idx * ENTRY_SIZE + 18);
+          int len = header.getInt(idx * ENTRY_SIZE + 22);
+          byte[] oldData = (len > 0 && ofs >= 0) ? readFully(ch, ofsStrings + (long)ofs, len) : new byte[0];
+          if (oldData == null || data.length > oldData.length) {
+            return false;
+          }
+
+          if (Arrays.equals(data, oldData)) {
+            data = null;
+          } else if (data.length > 0) {
+            if (offsets == null) {
+              // string offsets of all entries, sorted
+              offsets = new long[count];
+              int n = 0;
+              for (int i = 0; i < count; i++) {
+                int o = header.getInt(i * ENTRY_SIZE + 18);
+                int l = header.getInt(i * ENTRY_SIZE + 22);
+                if (o >= 0 && l > 0) {
+                  offsets[n++] = ((long)o << 32) | i;
+                  maxLength = Math.max(maxLength, l);
+                }
+              }
+              offsets = Arrays.copyOf(offsets, n);
+              Arrays.sort(offsets);
+            }
+            if (isSharedString(header, idx, offsets, maxLength)) {
+              return false;
+            }
           }
+          indices.add(Integer.valueOf(idx));
+          strings.add(data);
         }
+      }
 
+      // 2. backing up current string table file
+      Path pathBackup = getBackupPath(_getPath());
+      if (pathBackup == null) {
+        return false;
+      }
+      Files.copy(_getPath(), pathBackup, StandardCopyOption.COPY_ATTRIBUTES);
+
+      // 3. patching string data and entry headers, cached header data is updated on success only
+      final ByteBuffer newHeader = StreamUtils.getByteBuffer(header.capacity());
+      header.position(0);
+      newHeader.put(header).position(0);
+      header.position(0);
+      if (callback != null) { callback.init(indices.size()); }
+      boolean success = false;
+      try (FileChannel ch = FileChannel.open(_getPath(), StandardOpenOption.WRITE)) {
+        boolean completed = true;
+        for (int i = 0, count = indices.size(); i < count; i++) {
+          if (callback != null && !callback.progress(i)) {
+            completed = false;
+            break;
+          }
+          int idx = indices.get(i).intValue();
+          final StringEntry entry = entries.get(idx);
+          byte[] data = strings.get(i);
+          int ofs = idx * ENTRY_SIZE;
+          if (data != null && data.length > 0) {
+            writeFully(ch, ByteBuffer.wrap(data), ofsStrings + (long)header.getInt(ofs + 18));
+          }
+          ByteBuffer buffer = newHeader.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+          buffer.position(ofs);
+          buffer.putShort(entry.getFlags());
+          buffer.put(entry.getSoundRefBytes());
+          buffer.putInt(entry.getVolume());
+          buffer.putInt(entry.getPitch());
+          if (data != null) {
+            buffer.putInt(ofs + 22, data.length);
+          }
+          buffer.limit(ofs + ENTRY_SIZE).position(ofs);
+          writeFully(ch, buffer, HEADER_SIZE + ofs);
+        }
+        success = completed;
+      } finally {
+        // 4. removing or restoring backup
+        if (success) {
+          Files.delete(pathBackup);
+          this.headerData = newHeader;
+          for (final Integer idx: indices) {
+            entries.get(idx.intValue()).resetModified();
+          }
+          _resetModified();
+        } else {
+          Files.move(pathBackup, _getPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        _updateFileStamp();
         if (callback != null) { callback.done(success); }
       }
+      return true;
+    }
+  }
+
+  // Returns an unused backup file name for the specified file. Returns null if no name is available.
+  private static Path getBackupPath(Path file)
+  {
+    String name = file.getFileName().toString();
+    for (int i = 0; i < 999; i++) {
+      Path path = file.resolveSibling(name + "-" + i);
+      if (!Files.exists(path)) {
+        return path;
+      }
+    }
+    return null;
+  }
+
+  // Returns whether the string data of the specified entry overlaps with string data of other entries
+  private static boolean isSharedString(ByteBuffer header, int index, long[] offsets, int maxLength)
+  {
+    int ofs = header.getInt(index * ENTRY_SIZE + 18);
+    int len = header.getInt(index * ENTRY_SIZE + 22);
+    int pos = Arrays.binarySearch(offsets, ((long)ofs << 32) | index);
+    if (pos < 0) {
+      return true;
+    }
+    for (int i = pos - 1; i >= 0; i--) {
+      long o = offsets[i] >>> 32;
+      if (o + maxLength <= ofs) {
+        break;
+      }
+      if (o + header.getInt((int)offsets[i] * ENTRY_SIZE + 22) > ofs) {
+        return true;
+      }
+    }
+    return (pos + 1 < offsets.length) && (offsets[pos + 1] >>> 32) < (long)ofs + len;
+  }
+
+  // Returns whether the specified path refers to the TLK file of this string table
+  private boolean _isOwnFile(Path path)
+  {
+    try {
+      if (Files.exists(path) && Files.exists(_getPath())) {
+        return Files.isSameFile(path, _getPath());
+      }
+    } catch (IOException e) {
+    }
+    return path.toAbsolutePath().normalize().equals(_getPath().toAbsolutePath().normalize());
+  }
+
+  private void _updateFileStamp()
+  {
+    try {
+      fileSize = Files.size(_getPath());
+      fileTime = Files.getLastModifiedTime(_getPath()).toMillis();
+    } catch (IOException e) {
+      fileSize = fileTime = -1L;
+    }
+  }
+
+  // Returns whether the TLK file has not been changed since header data has been cached
+  private boolean _isFileUnchanged()
+  {
+    try {
+      return fileSize >= 0L &&
+             fileSize == Files.size(_getPath()) &&
+             fileTime == Files.getLastModifiedTime(_getPath()).toMillis();
+    } catch (IOException e) {
+      return false;
+    }
+  }
+
+  // Prepares the string table for importing entries
+  private void _prepareImport(boolean reset)
+  {
+    if (reset) {
+      synchronized (entries) {
+        entries.clear();
+        entriesPending = 0;
+        structureModified = true;
+        _setModified();
+      }
+    } else {
+      _ensureFullyLoaded();
+    }
+  }
+
+  // Sets text and sound of the specified entry, missing entries are added as empty placeholders
+  private void _importEntry(int index, String text, String soundRef)
+  {
+    synchronized (entries) {
+      entries.ensureCapacity(index + 1);
+      while (entries.size() <= index) {
+        StringEntry entry = new StringEntry(this);
+        entry.setModified();
+        entries.add(entry);
+        structureModified = true;
+      }
+
+      StringEntry entry = entries.get(index);
+      entry.setText(text);
+      entry.setSoundRef(soundRef);
+      int flags = entry.getFlags();
+      if (!entry.getText().isEmpty()) {
+        flags |= FLAGS_HAS_TEXT;
+      }
+      if (!entry.getSoundRef().isEmpty()) {
+        flags |= FLAGS_HAS_SOUND;
+      }
+      entry.setFlags((short)flags);
     }
   }
 
@@ -1399,33 +1795,33 @@ private void _exportText(Path outFile, ProgressCallback callback) throws IOExcep
       throw new IOException("Output file not specified");
     }
 
-    _ensureFullyLoaded();
-    synchronized (entries) {
-      if (callback != null) { callback.init(_getNumEntries()); }
-      boolean success = false;
-      PrintWriter writer = null;
-      try {
-        writer = new PrintWriter(outFile.toFile(), getCharset().name());
-        String newline = System.getProperty("line.separator");
-        for (int idx = 0; idx < _getNumEntries(); idx++) {
-          if (callback != null) {
-            success = callback.progress(idx);
-            if (!success) {
-              break;
-            }
-          }
-          StringEntry entry = entries.get(idx);
-          writer.println(idx + ":");
-          writer.println(entry.getText().replaceAll("\r?\n", newline));
-          writer.println();
+    if (callback != null) { callback.init(_getNumEntries()); }
+    boolean success = false;
+    try (EntryReader reader = new EntryReader(_getPath());
+         PrintWriter writer = new PrintWriter(outFile.toFile(), getCharset().name())) {
+      final String newline = System.getProperty("line.separator");
+      success = processChunks(reader.getCount(), (start, end) -> {
+        String[] text = new String[end - start];
+        reader.read(start, end, text, null);
+        StringBuilder sb = new StringBuilder((end - start) * 80);
+        for (int idx = start; idx < end; idx++) {
+          sb.append(idx).append(':').append(newline);
+          appendText(sb, text[idx - start], newline);
+          sb.append(newline).append(newline);
         }
-      } catch (Exception e) {
+        return sb.toString();
+      }, (start, end, text) -> writer.write(text), callback);
+
+      if (writer.checkError()) {
         success = false;
-        throw e;
-      } finally {
-        writer.close();
-        if (callback != null) { callback.done(success); }
+        throw new IOException("Error writing " + outFile);
       }
+    } catch (IOException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new IOException(e);
+    } finally {
+      if (callback != null) { callback.done(success); }
     }
   }
 
@@ -1643,6 +2039,241 @@ public void fillList(int index)
     }
   }
 
+  /**
+   * Provides access to the string entries of a table as of the time of creation. Strings which
+   * are not loaded yet are read directly from the TLK file without adding them to the cache.
+   * Methods may be called concurrently.
+   */
+  private class EntryReader implements Closeable
+  {
+    // Max. size of string data fetched by a single read operation
+    private static final int MAX_BLOCK_SIZE = 0x1000000;
+
+    private final StringEntry[] snapshot;
+    private final ByteBuffer header;
+    private final int headerCount;
+    private final long ofsData;
+    private final FileChannel channel;
+    private final Charset charset;
+    private final CharsetDetector.CharLookup lookup;
+
+    /**
+     * @param source TLK file providing string data of entries which are not loaded yet.
+     *               It must correspond to the cached header data.
+     */
+    public EntryReader(Path source) throws IOException
+    {
+      synchronized (entries) {
+        snapshot = entries.toArray(new StringEntry[entries.size()]);
+        header = (headerData != null) ? headerData.duplicate().order(ByteOrder.LITTLE_ENDIAN) : null;
+        headerCount = (header != null) ? header.capacity() / ENTRY_SIZE : 0;
+        ofsData = ofsStrings;
+      }
+
+      boolean pending = false;
+      for (final StringEntry entry: snapshot) {
+        if (entry == null) {
+          pending = true;
+          break;
+        }
+      }
+      if (pending) {
+        if (source == null || header == null) {
+          throw new IOException("String data not available");
+        }
+        channel = FileChannel.open(source, StandardOpenOption.READ);
+      } else {
+        channel = null;
+      }
+      charset = getCharset();
+      lookup = CharsetDetector.getLookup();
+    }
+
+    /** Returns the number of string entries. */
+    public int getCount()
+    {
+      return snapshot.length;
+    }
+
+    /**
+     * Reads the raw string data of all entries in the range [start, end) which are not loaded.
+     * Array elements of loaded entries are {@code null}.
+     */
+    public byte[][] readData(int start, int end) throws IOException
+    {
+      byte[][] retVal = new byte[end - start][];
+      if (channel == null) {
+        return retVal;
+      }
+
+      long minOfs = Long.MAX_VALUE, maxOfs = 0L, total = 0L;
+      for (int idx = start; idx < end; idx++) {
+        if (snapshot[idx] == null && idx < headerCount) {
+          int ofs = header.getInt(idx * ENTRY_SIZE + 18);
+          int len = header.getInt(idx * ENTRY_SIZE + 22);
+          if (ofs >= 0 && len > 0) {
+            minOfs = Math.min(minOfs, ofsData + ofs);
+            maxOfs = Math.max(maxOfs, ofsData + ofs + len);
+            total += len;
+          }
+        }
+      }
+
+      // strings of consecutive entries are usually stored consecutively and can be fetched at once
+      byte[] block = null;
+      int blockLength = 0;
+      if (total > 0L && maxOfs - minOfs <= Math.max(2L * total, 0x10000L) && maxOfs - minOfs <= MAX_BLOCK_SIZE) {
+        block = new byte[(int)(maxOfs - minOfs)];
+        ByteBuffer buffer = ByteBuffer.wrap(block);
+        while (buffer.hasRemaining()) {
+          if (channel.read(buffer, minOfs + buffer.position()) < 0) {
+            break;
+          }
+        }
+        blockLength = buffer.position();
+      }
+
+      for (int idx = start; idx < end; idx++) {
+        if (snapshot[idx] != null) {
+          continue;
+        }
+        byte[] data = null;
+        int ofs = 0, len = 0;
+        if (idx < headerCount) {
+          ofs = header.getInt(idx * ENTRY_SIZE + 18);
+          len = header.getInt(idx * ENTRY_SIZE + 22);
+        }
+        if (len <= 0) {
+          data = new byte[0];
+        } else if (ofs >= 0) {
+          long pos = ofsData + ofs;
+          if (block == null) {
+            data = readFully(channel, pos, len);
+          } else if (pos + len - minOfs <= blockLength) {
+            data = Arrays.copyOfRange(block, (int)(pos - minOfs), (int)(pos - minOfs) + len);
+          }
+        }
+        if (data == null) {
+          System.err.println("Error: Illegal offset " + (ofsData + ofs) + " for string entry " + idx);
+          data = new byte[0];
+        }
+        retVal[idx - start] = data;
+      }
+      return retVal;
+    }
+
+    /**
+     * Stores text and sound reference of entries in the range [start, end) in the specified arrays.
+     * {@code soundRef} may be {@code null}. Entries beyond the end of the table are reported
+     * as invalid entries.
+     */
+    public void read(int start, int end, String[] text, String[] soundRef) throws IOException
+    {
+      int last = Math.max(start, Math.min(end, snapshot.length));
+      byte[][] data = readData(start, last);
+      for (int idx = start; idx < end; idx++) {
+        int i = idx - start;
+        StringEntry entry = (idx < last) ? snapshot[idx] : StringEntry.getInvalidEntry();
+        if (entry != null) {
+          text[i] = entry.getText();
+          if (soundRef != null) {
+            soundRef[i] = entry.getSoundRef();
+          }
+        } else {
+          text[i] = decode(idx, data[i]);
+          if (soundRef != null) {
+            soundRef[i] = getSoundRef(idx);
+          }
+        }
+      }
+    }
+
+    /**
+     * Returns the encoded string data of entries in the range [start, end) and stores flags, sound,
+     * volume and pitch of the entries in {@code target}. Entries which are not loaded are copied unchanged.
+     */
+    public byte[][] encode(int start, int end, ByteBuffer target) throws IOException
+    {
+      byte[][] retVal = readData(start, end);
+      ByteBuffer buffer = target.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+      for (int idx = start; idx < end; idx++) {
+        final StringEntry entry = snapshot[idx];
+        int ofs = idx * ENTRY_SIZE;
+        buffer.position(ofs);
+        if (entry != null) {
+          // apply character encoding if required
+          String text = lookup.isExcluded(idx) ? entry.getText() : lookup.encodeString(entry.getText());
+          retVal[idx - start] = entry.getTextBytes(text);
+          buffer.putShort(entry.getFlags());
+          buffer.put(entry.getSoundRefBytes());
+          buffer.putInt(entry.getVolume());
+          buffer.putInt(entry.getPitch());
+        } else {
+          for (int i = 0; i < 18; i++) {
+            buffer.put(header.get(ofs + i));
+          }
+        }
+      }
+      return retVal;
+    }
+
+    /** Creates a new string entry from cached header data and the specified raw string data. */
+    public StringEntry createEntry(int index, byte[] data)
+    {
+      int ofs = index * ENTRY_SIZE;
+      return new StringEntry(StringTable.this, header.getShort(ofs), getSoundRef(index),
+                             header.getInt(ofs + 10), header.getInt(ofs + 14), decode(index, data));
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+      if (channel != null) {
+        channel.close();
+      }
+    }
+
+    private String decode(int index, byte[] data)
+    {
+      String text = "";
+      if (data.length > 0) {
+        if (lookup.isExcluded(index)) {
+          text = new String(data, charset);
+        } else {
+          text = lookup.decodeString(data, 0, data.length, charset);
+        }
+      }
+      return text;
+    }
+
+    // Thread-safe variant of StreamUtils.readString()
+    private String getSoundRef(int index)
+    {
+      if (index >= headerCount) {
+        return "";
+      }
+      byte[] buf = new byte[8];
+      int ofs = index * ENTRY_SIZE + 2;
+      int len = 0;
+      while (len < buf.length && (buf[len] = header.get(ofs + len)) != 0) {
+        len++;
+      }
+      return new String(buf, 0, len, Misc.CHARSET_DEFAULT);
+    }
+  }
+
+  /** Processes a range of string entries. */
+  private interface ChunkTask<T>
+  {
+    T process(int start, int end) throws Exception;
+  }
+
+  /** Receives the result of a processed range of string entries. */
+  private interface ChunkConsumer<T>
+  {
+    void accept(int start, int end, T result) throws Exception;
+  }
+
   /**
    * Used by save, import and export operations to allow tracking the progress of the operation.
    */
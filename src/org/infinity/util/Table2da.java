@@ -5,7 +5,10 @@
 package org.infinity.util;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 import org.infinity.resource.ResourceFactory;
 import org.infinity.resource.key.ResourceEntry;
@@ -13,6 +16,9 @@
 
 /**
  * Stores content of a 2DA resource as table.
+ * <p>
+ * Table content is stored column by column. Identical cell values share a single string instance.
+ * Row labels and column labels can be looked up by a hash index which is created on first use.
  */
 public class Table2da
 {
@@ -21,10 +27,15 @@
   /** Row index pointing to row labels. */
   public static final int ROW_HEADER    = 0;
 
-  private final List<String> header = new ArrayList<String>();
-  private final List<List<String>> table = new ArrayList<List<String>>();
+  private static final String[][] EMPTY_TABLE = new String[0][];
+  private static final String[] EMPTY_HEADER  = new String[0];
+
   private final ResourceEntry entry;
+  private String[] header;
+  private String[][] columns;   // columns[col][row]
+  private int rowCount;
   private String defaultValue;
+  private Map<String, Integer> rowIndex, colIndex;
 
   public Table2da(String resource)
   {
@@ -37,6 +48,18 @@ public Table2da(ResourceEntry entry)
     init(entry);
   }
 
+  // Creates a table from the specified 2DA content
+  Table2da(ResourceEntry entry, String text)
+  {
+    this.entry = entry;
+    reset();
+    try {
+      parse(text);
+    } catch (Exception e) {
+      e.printStackTrace();
+    }
+  }
+
   public ResourceEntry getResourceEntry()
   {
     return entry;
@@ -51,13 +74,13 @@ public void reload()
   /** Returns number of columns, including header column. */
   public int getColCount()
   {
-    return table.isEmpty() ? header.size() : table.get(0).size();
+    return (rowCount == 0) ? header.length : columns.length;
   }
 
   /** Returns number of rows, including header row. */
   public int getRowCount()
   {
-    return table.size();
+    return rowCount;
   }
 
   /**
@@ -68,12 +91,21 @@ public String get(int row, int col)
   {
     if (row >= 0 && row < getRowCount()) {
       if (col >= 0 && col < getColCount()) {
-        return table.get(row).get(col);
+        return columns[col][row];
       }
     }
     return defaultValue;
   }
 
+  /**
+   * Returns the element in the row and column of the specified labels (case-insensitive).
+   * Returns {@link #getDefaultValue()} if no matching row or column exists.
+   */
+  public String get(String rowLabel, String colLabel)
+  {
+    return get(findRow(rowLabel), findColumn(colLabel));
+  }
+
   /**
    * Returns header label of specified column.
    * <b>Note:</b> Column 0 always contains empty label.
@@ -81,13 +113,57 @@ public String get(int row, int col)
    */
   public String getHeader(int col)
   {
-    return (col >= 0 && col < header.size()) ? header.get(col) : null;
+    return (col >= 0 && col < header.length) ? header[col] : null;
+  }
+
+  /**
+   * Returns the index of the first row with the specified label in column 0 (case-insensitive).
+   * Returns -1 if no matching row exists.
+   */
+  public int findRow(String label)
+  {
+    if (label != null) {
+      Map<String, Integer> index;
+      synchronized (this) {
+        if (rowIndex == null) {
+          rowIndex = createIndex((columns.length > 0) ? columns[0] : EMPTY_HEADER, rowCount);
+        }
+        index = rowIndex;
+      }
+      Integer retVal = index.get(label.toUpperCase(Locale.ENGLISH));
+      if (retVal != null) {
+        return retVal.intValue();
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Returns the index of the first column with the specified header label (case-insensitive).
+   * Returns -1 if no matching column exists.
+   */
+  public int findColumn(String label)
+  {
+    if (label != null && !label.isEmpty()) {
+      Map<String, Integer> index;
+      synchronized (this) {
+        if (colIndex == null) {
+          colIndex = createIndex(header, header.length);
+        }
+        index = colIndex;
+      }
+      Integer retVal = index.get(label.toUpperCase(Locale.ENGLISH));
+      if (retVal != null) {
+        return retVal.intValue();
+      }
+    }
+    return -1;
   }
 
   /** Returns whether table contains any data. */
   public boolean isEmpty()
   {
-    return table.isEmpty() && header.isEmpty();
+    return rowCount == 0 && header.length == 0;
   }
 
   /** Returns the default value of the table. */
@@ -98,74 +174,204 @@ public String getDefaultValue()
 
   private void init(ResourceEntry entry)
   {
-    table.clear();
+    reset();
 
     if (entry == null) {
       return;
     }
 
     try {
-      PlainTextResource text = new PlainTextResource(entry);
-      String[] lines = text.getText().split("\r?\n");
-      if (lines.length >= 2) {
-        int minSize = 0;
-
-        // checking signature
-        String[] sig = lines[0].trim().split("\\s+");
-        if (sig.length > 1) {
-          if (!sig[0].equalsIgnoreCase("2DA")) {
-            throw new Exception("Invalid signature: " + sig[0]);
-          }
-          if (!sig[1].equalsIgnoreCase("V1.0")) {
-            throw new Exception("Invalid version: " + sig[1]);
-          }
-        } else {
-          return;
-        }
+      parse(PlainTextResource.readText(entry));
+    } catch (Exception e) {
+      e.printStackTrace();
+    }
+  }
+
+  private synchronized void reset()
+  {
+    header = EMPTY_HEADER;
+    columns = EMPTY_TABLE;
+    rowCount = 0;
+    rowIndex = colIndex = null;
+  }
+
+  private synchronized void parse(String text) throws Exception
+  {
+    Tokenizer tokenizer = new Tokenizer(text);
+    if (tokenizer.getLineCount() < 2) {
+      return;
+    }
+
+    // checking signature
+    List<String> sig = tokenizer.getTokens(0, true);
+    if (sig.size() > 1) {
+      if (!sig.get(0).equalsIgnoreCase("2DA")) {
+        throw new Exception("Invalid signature: " + sig.get(0));
+      }
+      if (!sig.get(1).equalsIgnoreCase("V1.0")) {
+        throw new Exception("Invalid version: " + sig.get(1));
+      }
+    } else {
+      return;
+    }
+
+    // storing default value
+    defaultValue = tokenizer.getLine(1).trim();
+
+    // setting table header
+    List<String> headerList = new ArrayList<String>();
+    if (tokenizer.getLineCount() > 2) {
+      headerList.add(""); // first column does not contain label
+      headerList.addAll(tokenizer.getTokens(2, false));
+    }
 
-        // storing default value
-        defaultValue = lines[1].trim();
-
-        // setting table header
-        if (lines.length > 2) {
-          String[] elements = lines[2].split("\\s+");
-          header.add(""); // first column does not contain label
-          for (final String s: elements) {
-            if (!s.isEmpty()) {
-              header.add(s);
-            }
-          }
+    // adding actual table entries
+    List<String[]> rows = new ArrayList<String[]>();
+    int minSize = 0;
+    for (int idx = 3, count = tokenizer.getLineCount(); idx < count; idx++) {
+      List<String> elements = tokenizer.getTokens(idx, true);
+      if (!elements.isEmpty()) {
+        rows.add(elements.toArray(new String[elements.size()]));
+        minSize = Math.max(minSize, elements.size());
+      }
+    }
+
+    // storing table column by column, normalizing row lengths
+    String[][] table = new String[minSize][rows.size()];
+    for (int row = 0, size = rows.size(); row < size; row++) {
+      String[] curRow = rows.get(row);
+      for (int col = 0; col < minSize; col++) {
+        table[col][row] = (col < curRow.length) ? curRow[col] : defaultValue;
+      }
+    }
+    while (headerList.size() < minSize) {
+      headerList.add("");
+    }
+
+    header = headerList.toArray(new String[headerList.size()]);
+    columns = table;
+    rowCount = rows.size();
+  }
+
+  // Maps upper-cased labels to the index of their first occurrence
+  private static Map<String, Integer> createIndex(String[] labels, int count)
+  {
+    Map<String, Integer> retVal = new HashMap<String, Integer>(count * 2);
+    for (int i = 0; i < count; i++) {
+      String key = labels[i].toUpperCase(Locale.ENGLISH);
+      if (!retVal.containsKey(key)) {
+        retVal.put(key, Integer.valueOf(i));
+      }
+    }
+    return retVal;
+  }
+
+//-------------------------- INNER CLASSES --------------------------
+
+  /**
+   * Splits 2DA content into lines and whitespace-separated tokens without creating intermediate
+   * strings. Lines are separated by LF or CR/LF. Trailing empty lines are ignored.
+   */
+  private static class Tokenizer
+  {
+    private final Map<String, String> pool = new HashMap<String, String>();
+    private final String text;
+    private final int[] lineStart, lineEnd;
+    private final int lineCount;
+
+    public Tokenizer(String text)
+    {
+      this.text = text;
+      int count = 1;
+      for (int i = 0, len = text.length(); i < len; i++) {
+        if (text.charAt(i) == '\n') {
+          count++;
+        }
+      }
+      lineStart = new int[count];
+      lineEnd = new int[count];
+      int line = 0, start = 0;
+      for (int i = 0, len = text.length(); i < len; i++) {
+        if (text.charAt(i) == '\n') {
+          lineStart[line] = start;
+          lineEnd[line] = (i > start && text.charAt(i - 1) == '\r') ? i - 1 : i;
+          line++;
+          start = i + 1;
         }
+      }
+      lineStart[line] = start;
+      lineEnd[line] = text.length();
+
+      // discarding trailing empty lines
+      while (count > 1 && lineStart[count - 1] == lineEnd[count - 1]) {
+        count--;
+      }
+      lineCount = count;
+    }
+
+    /** Returns the number of lines. */
+    public int getLineCount()
+    {
+      return lineCount;
+    }
+
+    /** Returns the content of the specified line. */
+    public String getLine(int line)
+    {
+      return text.substring(lineStart[line], lineEnd[line]);
+    }
 
-        // adding actual table entries
-        for (int idx = 3; idx < lines.length; idx++) {
-          String curLine = lines[idx].trim();
-          String[] elements = curLine.split("\\s+");
-          if (elements.length > 0 && !elements[0].isEmpty()) {
-            List<String> listLine = new ArrayList<String>();
-            for (final String s: elements) {
-              if (!s.isEmpty()) {
-                listLine.add(s);
-              }
-            }
-            table.add(listLine);
-            minSize = Math.max(minSize, listLine.size());
-          }
+    /**
+     * Returns all whitespace-separated tokens of the specified line.
+     * @param line The line index.
+     * @param trim Whether leading and trailing control characters are removed from the line first.
+     */
+    public List<String> getTokens(int line, boolean trim)
+    {
+      int start = lineStart[line];
+      int end = lineEnd[line];
+      if (trim) {
+        while (start < end && text.charAt(start) <= ' ') {
+          start++;
+        }
+        while (end > start && text.charAt(end - 1) <= ' ') {
+          end--;
         }
+      }
 
-        // normalizing row lengths
-        for (int idx = 0, size = table.size(); idx < size; idx++) {
-          List<String> curList = table.get(idx);
-          while (curList.size() < minSize) {
-            curList.add(defaultValue);
-          }
+      List<String> retVal = new ArrayList<String>();
+      int pos = start;
+      while (pos < end) {
+        while (pos < end && isWhitespace(text.charAt(pos))) {
+          pos++;
         }
-        while (header.size() < minSize) {
-          header.add("");
+        int tokenStart = pos;
+        while (pos < end && !isWhitespace(text.charAt(pos))) {
+          pos++;
+        }
+        if (pos > tokenStart) {
+          retVal.add(intern(tokenStart, pos));
         }
       }
-    } catch (Exception e) {
-      e.printStackTrace();
+      return retVal;
+    }
+
+    // Returns a shared instance of the specified text range
+    private String intern(int start, int end)
+    {
+      String s = text.substring(start, end);
+      String retVal = pool.get(s);
+      if (retVal == null) {
+        pool.put(s, s);
+        retVal = s;
+      }
+      return retVal;
+    }
+
+    // Matches the characters of the regular expression class "\s"
+    private static boolean isWhitespace(char ch)
+    {
+      return ch == ' ' || ch == '\t' || ch == '\n' || ch == 0x0b || ch == '\f' || ch == '\r';
     }
   }
 }
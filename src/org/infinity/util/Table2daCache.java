@@ -4,17 +4,17 @@
 
 package org.infinity.util;
 
-import java.util.HashMap;
-
 import org.infinity.resource.ResourceFactory;
 import org.infinity.resource.key.ResourceEntry;
 
 public class Table2daCache
 {
-  private static final HashMap<ResourceEntry, Table2da> map = new HashMap<ResourceEntry, Table2da>();
+  // Weight of a cached table is defined by its number of cells
+  private static final LruCache<ResourceEntry, Table2da> map =
+      new LruCache<>(1024, 2000000L, (k, v) -> Math.max(1, v.getRowCount() * v.getColCount()));
 
   /** Removes the specified 2DA resource from the cache. */
-  public static synchronized void cacheInvalid(ResourceEntry entry)
+  public static void cacheInvalid(ResourceEntry entry)
   {
     if (entry != null) {
       map.remove(entry);
@@ -22,11 +22,17 @@ public static synchronized void cacheInvalid(ResourceEntry entry)
   }
 
   /** Removes all cached 2DA resources. */
-  public static synchronized void clearCache()
+  public static void clearCache()
   {
     map.clear();
   }
 
+  /** Returns usage statistics of the 2DA cache. */
+  public static LruCache.Statistics getStatistics()
+  {
+    return map.getStatistics();
+  }
+
   /**
    * Returns a Table2da object based on the specified 2DA resource.
    * @param resource 2DA resource name.
@@ -42,19 +48,14 @@ public static Table2da get(String resource)
    * @param entry 2DA resource entry.
    * @return 2DA content as Table2da object or {@code null} on error.
    */
-  public static synchronized Table2da get(ResourceEntry entry)
+  public static Table2da get(ResourceEntry entry)
   {
     Table2da table = null;
     if (entry != null) {
-      table = map.get(entry);
-      if (table == null) {
-        table = new Table2da(entry);
-        if (!table.isEmpty()) {
-          map.put(table.getResourceEntry(), table);
-        } else {
-          table = null;
-        }
-      }
+      table = map.get(entry, e -> {
+        Table2da t = new Table2da(e);
+        return t.isEmpty() ? null : t;
+      });
     }
     return table;
   }
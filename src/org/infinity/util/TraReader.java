@@ -0,0 +1,291 @@
+// Near Infinity - An Infinity Engine Browser and Editor
+// Copyright (C) 2001 - 2005 Jon Olav Hauglid
+// See LICENSE.txt for license information
+
+package org.infinity.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PushbackReader;
+import java.io.Reader;
+
+/**
+ * Reads string definitions from WeiDU TRA files one at a time.
+ * <p>
+ * A definition consists of a string index, a string and an optional sound resource, optionally
+ * followed by a second string and sound resource for the female string table:
+ * <pre>@123 = ~Male text~ [SOUND1] ~Female text~ [SOUND2]</pre>
+ * Strings are delimited by {@code ~}, {@code "}, {@code %} or {@code ~~~~~}. Comments in C and C++ style
+ * are skipped. CR/LF line breaks in strings are converted to LF.
+ */
+public class TraReader implements Closeable
+{
+  private final PushbackReader reader;
+  private long position;
+  private int line = 1;
+
+  public TraReader(Reader reader)
+  {
+    if (reader == null) {
+      throw new NullPointerException();
+    }
+    this.reader = new PushbackReader(reader, 5);
+  }
+
+  /**
+   * Returns the next string definition. Returns {@code null} if the end of input has been reached.
+   * @throws IOException if the input could not be read or does not contain a valid definition.
+   */
+  public Entry next() throws IOException
+  {
+    skipWhitespace();
+    int ch = read();
+    if (ch < 0) {
+      return null;
+    }
+    if (ch != '@') {
+      throw error("'@' expected");
+    }
+
+    int lineNumber = line;
+    boolean negative = false;
+    ch = read();
+    if (ch == '-') {
+      negative = true;
+      ch = read();
+    }
+    if (!isDigit(ch)) {
+      throw error("String index expected");
+    }
+    long index = 0L;
+    while (isDigit(ch)) {
+      index = index * 10L + (ch - '0');
+      if (index > Integer.MAX_VALUE) {
+        throw error("String index out of range");
+      }
+      ch = read();
+    }
+    unread(ch);
+
+    skipWhitespace();
+    if (read() != '=') {
+      throw error("'=' expected");
+    }
+    skipWhitespace();
+    String text = readString();
+    if (text == null) {
+      throw error("String expected");
+    }
+    String sound = readSound();
+
+    skipWhitespace();
+    String femaleText = readString();
+    String femaleSound = (femaleText != null) ? readSound() : null;
+
+    return new Entry(negative ? -(int)index : (int)index, lineNumber, text, sound, femaleText, femaleSound);
+  }
+
+  /** Returns the current line number. */
+  public int getLineNumber()
+  {
+    return line;
+  }
+
+  /** Returns the number of characters read so far. */
+  public long getPosition()
+  {
+    return position;
+  }
+
+  @Override
+  public void close() throws IOException
+  {
+    reader.close();
+  }
+
+  // Returns a delimited string, or null if no string delimiter follows
+  private String readString() throws IOException
+  {
+    int ch = read();
+    String delim;
+    if (ch == '~') {
+      int count = 0;
+      while (count < 4 && (ch = read()) == '~') {
+        count++;
+      }
+      if (count == 4) {
+        delim = "~~~~~";
+      } else {
+        unread(ch);
+        for (int i = 0; i < count; i++) {
+          unread('~');
+        }
+        delim = "~";
+      }
+    } else if (ch == '"' || ch == '%') {
+      delim = String.valueOf((char)ch);
+    } else {
+      unread(ch);
+      return null;
+    }
+
+    int lineStart = line;
+    StringBuilder sb = new StringBuilder();
+    char last = delim.charAt(0);
+    while (true) {
+      ch = read();
+      if (ch < 0) {
+        throw new IOException("Line " + lineStart + ": Unterminated string");
+      }
+      if (ch == '\n' && sb.length() > 0 && sb.charAt(sb.length() - 1) == '\r') {
+        sb.setLength(sb.length() - 1);
+      }
+      sb.append((char)ch);
+      if (ch == last && endsWith(sb, delim)) {
+        sb.setLength(sb.length() - delim.length());
+        break;
+      }
+    }
+    return sb.toString();
+  }
+
+  // Returns an optional sound resource in square brackets, or an empty string if not available
+  private String readSound() throws IOException
+  {
+    skipWhitespace();
+    int ch = read();
+    if (ch != '[') {
+      unread(ch);
+      return "";
+    }
+
+    StringBuilder sb = new StringBuilder();
+    while ((ch = read()) != ']') {
+      if (ch < 0 || ch == '\n') {
+        throw error("Unterminated sound reference");
+      }
+      sb.append((char)ch);
+    }
+    return sb.toString().trim();
+  }
+
+  // Skips whitespace and comments
+  private void skipWhitespace() throws IOException
+  {
+    while (true) {
+      int ch = read();
+      if (ch == '/') {
+        int ch2 = read();
+        if (ch2 == '/') {
+          while (ch2 >= 0 && ch2 != '\n') {
+            ch2 = read();
+          }
+        } else if (ch2 == '*') {
+          int lineStart = line;
+          int prev = 0;
+          while ((ch2 = read()) >= 0 && !(prev == '*' && ch2 == '/')) {
+            prev = ch2;
+          }
+          if (ch2 < 0) {
+            throw new IOException("Line " + lineStart + ": Unterminated comment");
+          }
+        } else {
+          unread(ch2);
+          unread(ch);
+          return;
+        }
+      } else if (ch < 0 || !(Character.isWhitespace(ch) || ch == '\uFEFF')) {
+        unread(ch);
+        return;
+      }
+    }
+  }
+
+  private int read() throws IOException
+  {
+    int ch = reader.read();
+    if (ch >= 0) {
+      position++;
+      if (ch == '\n') {
+        line++;
+      }
+    }
+    return ch;
+  }
+
+  private void unread(int ch) throws IOException
+  {
+    if (ch >= 0) {
+      reader.unread(ch);
+      position--;
+      if (ch == '\n') {
+        line--;
+      }
+    }
+  }
+
+  private IOException error(String msg)
+  {
+    return new IOException("Line " + line + ": " + msg);
+  }
+
+  private static boolean isDigit(int ch)
+  {
+    return ch >= '0' && ch <= '9';
+  }
+
+  private static boolean endsWith(StringBuilder sb, String suffix)
+  {
+    int ofs = sb.length() - suffix.length();
+    if (ofs < 0) {
+      return false;
+    }
+    for (int i = 0; i < suffix.length(); i++) {
+      if (sb.charAt(ofs + i) != suffix.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+//-------------------------- INNER CLASSES --------------------------
+
+  /** A single string definition. */
+  public static class Entry
+  {
+    private final int index;
+    private final int lineNumber;
+    private final String text;
+    private final String sound;
+    private final String femaleText;
+    private final String femaleSound;
+
+    private Entry(int index, int lineNumber, String text, String sound, String femaleText, String femaleSound)
+    {
+      this.index = index;
+      this.lineNumber = lineNumber;
+      this.text = text;
+      this.sound = sound;
+      this.femaleText = femaleText;
+      this.femaleSound = femaleSound;
+    }
+
+    /** Returns the string index. Negative indices are returned unchanged. */
+    public int getIndex() { return index; }
+
+    /** Returns the line number of the definition. */
+    public int getLineNumber() { return lineNumber; }
+
+    /** Returns the (male) string. */
+    public String getText() { return text; }
+
+    /** Returns the sound resource of the (male) string. Returns an empty string if not defined. */
+    public String getSound() { return sound; }
+
+    /** Returns the female string. Returns {@code null} if not defined. */
+    public String getFemaleText() { return femaleText; }
+
+    /** Returns the sound resource of the female string. Returns {@code null} if no female string is defined. */
+    public String getFemaleSound() { return femaleSound; }
+  }
+}
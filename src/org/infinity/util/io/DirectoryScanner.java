@@ -0,0 +1,156 @@
+// Near Infinity - An Infinity Engine Browser and Editor
+// Copyright (C) 2001 - 2005 Jon Olav Hauglid
+// See LICENSE.txt for license information
+
+package org.infinity.util.io;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.infinity.util.Misc;
+
+/**
+ * Lists the content of directories in parallel.
+ * <p>
+ * Each directory is read by a separate task of a thread pool. Subdirectories are scheduled as new
+ * tasks as soon as their parent directory has been read, so that the directory tree is walked without
+ * blocking worker threads. Scanning can be cancelled by interrupting the calling thread.
+ */
+public class DirectoryScanner
+{
+  private DirectoryScanner()
+  {
+  }
+
+  /**
+   * Reads the content of the specified directories.
+   * @param directories List of directories to scan.
+   * @param recursive Whether subdirectories are scanned as well.
+   * @return List of {@link Directory} objects in the same order as {@code directories}.
+   * @throws InterruptedException if the current thread has been interrupted. Pending tasks are cancelled.
+   */
+  public static List<Directory> scan(List<Path> directories, boolean recursive) throws InterruptedException
+  {
+    List<Directory> retVal = new ArrayList<>(directories.size());
+    directories.forEach((path) -> retVal.add(new Directory(path)));
+    if (retVal.isEmpty()) {
+      return retVal;
+    }
+
+    ThreadPoolExecutor executor = Misc.createThreadPool();
+    CompletionService<Directory> service = new ExecutorCompletionService<>(executor);
+    List<Future<Directory>> futures = new ArrayList<>();
+    Deque<Directory> queue = new ArrayDeque<>(retVal);
+    boolean success = false;
+    try {
+      int pending = 0;
+      while (!queue.isEmpty() || pending > 0) {
+        while (!queue.isEmpty() && Misc.isQueueReady(executor, false, 0)) {
+          final Directory dir = queue.poll();
+          futures.add(service.submit(() -> dir.read()));
+          pending++;
+        }
+        Directory dir = service.take().get();
+        pending--;
+        if (recursive) {
+          queue.addAll(dir.directories);
+        }
+      }
+      success = true;
+    } catch (ExecutionException e) {
+      // Directory.read() doesn't throw checked exceptions
+      throw new RuntimeException(e.getCause());
+    } finally {
+      if (!success) {
+        futures.forEach((future) -> future.cancel(true));
+      }
+      executor.shutdown();
+    }
+    return retVal;
+  }
+
+//-------------------------- INNER CLASSES --------------------------
+
+  /** Content of a single directory. */
+  public static class Directory
+  {
+    private final Path path;
+    private final List<Path> files = new ArrayList<>();
+    private final List<Directory> directories = new ArrayList<>();
+    private boolean empty = true;
+
+    private Directory(Path path)
+    {
+      this.path = path;
+    }
+
+    /** Returns the path of the directory. */
+    public Path getPath()
+    {
+      return path;
+    }
+
+    /** Returns the name of the directory. */
+    public String getName()
+    {
+      return path.getFileName().toString();
+    }
+
+    /** Returns all regular files of the directory. */
+    public List<Path> getFiles()
+    {
+      return Collections.unmodifiableList(files);
+    }
+
+    /** Returns all subdirectories. Subdirectories are only scanned in recursive mode. */
+    public List<Directory> getDirectories()
+    {
+      return Collections.unmodifiableList(directories);
+    }
+
+    /** Returns whether the directory doesn't contain any entries or could not be read. */
+    public boolean isEmpty()
+    {
+      return empty;
+    }
+
+    private Directory read()
+    {
+      try (DirectoryStream<Path> dstream = Files.newDirectoryStream(path)) {
+        for (final Path child: dstream) {
+          if (Thread.currentThread().isInterrupted()) {
+            break;
+          }
+          empty = false;
+          BasicFileAttributes attr;
+          try {
+            attr = Files.readAttributes(child, BasicFileAttributes.class);
+          } catch (IOException e) {
+            continue;   // e.g. broken symbolic link
+          }
+          if (attr.isDirectory()) {
+            directories.add(new Directory(child));
+          } else if (attr.isRegularFile()) {
+            files.add(child);
+          }
+        }
+      } catch (IOException e) {
+        e.printStackTrace();
+      }
+      return this;
+    }
+  }
+}
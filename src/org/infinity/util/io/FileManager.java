@@ -13,7 +13,9 @@
 import java.nio.file.StandardWatchEventKinds;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.stream.Stream;
@@ -458,16 +460,32 @@ private void close()
   @Override
   public void fileChanged(FileWatchEvent e)
   {
-    if (e.getKind() == StandardWatchEventKinds.ENTRY_CREATE) {
-      if (Files.isDirectory(e.getPath())) {
-        // load whole directory into cache
-        _cacheDirectory(e.getPath(), true);
-      } else {
-        _registerFile(e.getPath());
+    filesChanged(Collections.singletonList(e));
+  }
+
+  @Override
+  public void filesChanged(List<FileWatchEvent> events)
+  {
+    // new or replaced directories are cached only once per batch
+    LinkedHashSet<Path> dirs = new LinkedHashSet<>();
+    for (final FileWatchEvent e: events) {
+      if (e.getPath() == null) {
+        continue;
+      }
+      if (e.getKind() == StandardWatchEventKinds.ENTRY_CREATE ||
+          e.getKind() == StandardWatchEventKinds.ENTRY_MODIFY) {
+        if (Files.isDirectory(e.getPath())) {
+          dirs.add(e.getPath());
+        } else {
+          _registerFile(e.getPath());
+        }
+      } else if (e.getKind() == StandardWatchEventKinds.ENTRY_DELETE) {
+        _unregisterFile(e.getPath());
       }
-    } else if (e.getKind() == StandardWatchEventKinds.ENTRY_DELETE) {
-      _unregisterFile(e.getPath());
     }
+
+    // load whole directories into cache
+    dirs.forEach((dir) -> _cacheDirectory(dir, true));
   }
 
   private static FileManager getInstance()
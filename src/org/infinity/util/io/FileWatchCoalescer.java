@@ -0,0 +1,111 @@
+// Near Infinity - An Infinity Engine Browser and Editor
+// Copyright (C) 2001 - 2005 Jon Olav Hauglid
+// See LICENSE.txt for license information
+
+package org.infinity.util.io;
+
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.infinity.util.io.FileWatcher.FileWatchEvent;
+
+/**
+ * Collects file watch events and merges successive events of the same path into a single event.
+ * <p>
+ * Sequences are reduced to their net effect:
+ * <ul>
+ * <li>create followed by delete: the path is dropped</li>
+ * <li>delete followed by create: modify (the file has been replaced)</li>
+ * <li>create followed by modify: create</li>
+ * <li>modify followed by delete: delete</li>
+ * </ul>
+ * Any number of overflow events is reported as a single overflow event at the start of the batch.
+ * This class is not thread-safe.
+ */
+public class FileWatchCoalescer
+{
+  private final Map<Path, WatchEvent.Kind<?>> events = new LinkedHashMap<>();
+  private final Object source;
+
+  private boolean overflow;
+
+  /**
+   * Creates a new coalescer.
+   * @param source The source object of the generated {@link FileWatchEvent}s.
+   */
+  public FileWatchCoalescer(Object source)
+  {
+    this.source = source;
+  }
+
+  /**
+   * Adds the specified event and merges it with a pending event of the same path.
+   * @param path The path of the event. May be {@code null} for overflow events.
+   * @param kind The watch event type.
+   */
+  public void add(Path path, WatchEvent.Kind<?> kind)
+  {
+    if (kind == StandardWatchEventKinds.OVERFLOW) {
+      overflow = true;
+    } else if (path != null && kind != null) {
+      WatchEvent.Kind<?> merged = merge(events.get(path), kind);
+      if (merged != null) {
+        events.put(path, merged);
+      } else {
+        events.remove(path);
+      }
+    }
+  }
+
+  /** Returns whether no events are pending. */
+  public boolean isEmpty()
+  {
+    return events.isEmpty() && !overflow;
+  }
+
+  /** Returns the number of pending events. */
+  public int size()
+  {
+    return events.size() + (overflow ? 1 : 0);
+  }
+
+  /** Discards all pending events. */
+  public void clear()
+  {
+    events.clear();
+    overflow = false;
+  }
+
+  /**
+   * Returns all pending events in order of their first occurrence and clears the list of pending events.
+   */
+  public List<FileWatchEvent> drain()
+  {
+    List<FileWatchEvent> retVal = new ArrayList<>(size());
+    if (overflow) {
+      retVal.add(new FileWatchEvent(source, null, StandardWatchEventKinds.OVERFLOW));
+    }
+    events.forEach((path, kind) -> retVal.add(new FileWatchEvent(source, path, kind)));
+    clear();
+    return retVal;
+  }
+
+  // Returns the net effect of two successive events of the same path, or null if they cancel each other out
+  static WatchEvent.Kind<?> merge(WatchEvent.Kind<?> oldKind, WatchEvent.Kind<?> newKind)
+  {
+    if (oldKind == null) {
+      return newKind;
+    } else if (oldKind == StandardWatchEventKinds.ENTRY_CREATE) {
+      return (newKind == StandardWatchEventKinds.ENTRY_DELETE) ? null : oldKind;
+    } else if (oldKind == StandardWatchEventKinds.ENTRY_DELETE) {
+      return (newKind == StandardWatchEventKinds.ENTRY_DELETE) ? oldKind : StandardWatchEventKinds.ENTRY_MODIFY;
+    } else {
+      return (newKind == StandardWatchEventKinds.ENTRY_DELETE) ? newKind : oldKind;
+    }
+  }
+}
@@ -21,25 +21,33 @@
 import java.util.EventObject;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 /**
  * Continuously monitors one or more registered paths for content changes and notifies registered
  * listeners about the changes.
+ * <p>
+ * Events are collected until no further events arrive within the batch delay, or until the
+ * maximum batch delay has passed, and are delivered as a single batch of merged events.
  * TODO: watched directories are locked on Windows and can't be properly deleted - find workaround
  */
 public class FileWatcher implements Runnable
 {
   private static final long DEFAULT_TIMEOUT = 250;
+  private static final long DEFAULT_BATCH_DELAY = 100;
+  private static final long MAX_BATCH_DELAY = 1000;
 
   private static FileWatcher instance = null;
 
   private final HashMap<WatchKey, Path> pathMap = new HashMap<>();
   private final ArrayList<FileWatchListener> listeners = new ArrayList<>();
+  private final FileWatchCoalescer pending = new FileWatchCoalescer(this);
 
   private WatchService watcher;
   private Thread thread;
   private long timeOutMS;
+  private long batchDelayMS;
 
   /** Returns the active FileWatcher instance. */
   public static FileWatcher getInstance()
@@ -66,6 +74,7 @@ protected FileWatcher(long timeOutMS)
     }
     this.thread = null;
     this.timeOutMS = Math.max(timeOutMS, 0L);
+    this.batchDelayMS = DEFAULT_BATCH_DELAY;
   }
 
   /**
@@ -144,6 +153,21 @@ public void setCheckInterval(long timeMS)
     this.timeOutMS = Math.max(timeMS, 0L);
   }
 
+  /** Returns the time without new events after which collected events are delivered (in milliseconds). */
+  public long getBatchDelay()
+  {
+    return batchDelayMS;
+  }
+
+  /**
+   * Sets the time without new events after which collected events are delivered (in milliseconds).
+   * Specify 0 to deliver events as soon as they are available.
+   */
+  public void setBatchDelay(long timeMS)
+  {
+    this.batchDelayMS = Math.max(timeMS, 0L);
+  }
+
   /** Removes all registered directories at once. */
   public void reset()
   {
@@ -275,16 +299,17 @@ private void init()
 
   private void done()
   {
+    pending.clear();
     thread = null;
   }
 
-  private void fireFileWatchEvent(FileWatchEvent event)
+  private void fireFileWatchEvents(List<FileWatchEvent> events)
   {
-    if (event != null) {
+    if (events != null && !events.isEmpty()) {
       for (FileWatchListener l: listeners) {
         if (l != null) {
           try {
-            l.fileChanged(event);
+            l.filesChanged(events);
           } catch (Throwable t) {
             t.printStackTrace();
           }
@@ -300,47 +325,49 @@ public void run()
   {
     init();
     try {
+      long batchStart = 0L;
       while (thread != null) {
-        // getting signaled key
+        // getting signaled key; pending events are delivered when no new events arrive within the batch delay
         WatchKey key;
         try {
-          key = watcher.poll(timeOutMS, TimeUnit.MILLISECONDS);
+          key = watcher.poll(pending.isEmpty() ? timeOutMS : batchDelayMS, TimeUnit.MILLISECONDS);
         } catch (InterruptedException e) {
           break;
         }
 
-        if (key == null) {
-          continue;
-        }
+        Path dir = (key != null) ? pathMap.get(key) : null;
+        if (dir != null) {
+          if (pending.isEmpty()) {
+            batchStart = System.currentTimeMillis();
+          }
 
-        Path dir = pathMap.get(key);
-        if (dir == null) {
-          continue;
-        }
+          for (WatchEvent<?> event: key.pollEvents()) {
+            WatchEvent.Kind<?> kind = event.kind();
+
+            if (kind == StandardWatchEventKinds.OVERFLOW) {
+              // special: does not provide path
+//              System.out.println("FileWatch event: " + kind.name());
+              pending.add(null, kind);
+            } else {
+              WatchEvent<Path> ev = cast(event);
+              Path name = ev.context();
+              Path child = dir.resolve(name);
+//              System.out.println("FileWatch event: " + kind.name() + " -> " + child);
+              pending.add(child, kind);
+            }
+          }
 
-        for (WatchEvent<?> event: key.pollEvents()) {
-          WatchEvent.Kind<?> kind = event.kind();
-
-          FileWatchEvent fwe = null;
-          if (kind == StandardWatchEventKinds.OVERFLOW) {
-            // special: does not provide path
-//            System.out.println("FileWatch event: " + kind.name());
-            fwe = new FileWatchEvent(this, null, kind);
-          } else {
-            WatchEvent<Path> ev = cast(event);
-            Path name = ev.context();
-            Path child = dir.resolve(name);
-//            System.out.println("FileWatch event: " + kind.name() + " -> " + child);
-            fwe = new FileWatchEvent(this, child, kind);
+          boolean valid = key.reset();
+          if (!valid) {
+            synchronized (pathMap) {
+              pathMap.remove(key);
+            }
           }
-          fireFileWatchEvent(fwe);
         }
 
-        boolean valid = key.reset();
-        if (!valid) {
-          synchronized (pathMap) {
-            pathMap.remove(key);
-          }
+        if (!pending.isEmpty() &&
+            (key == null || batchDelayMS == 0L || System.currentTimeMillis() - batchStart >= MAX_BATCH_DELAY)) {
+          fireFileWatchEvents(pending.drain());
         }
       }
     } finally {
@@ -383,5 +410,16 @@ public static interface FileWatchListener extends EventListener
      * @param e The event
      */
     void fileChanged(FileWatchEvent e);
+
+    /**
+     * Invoked with all events that have been collected within a short time window. Successive events
+     * of the same path are merged into a single event (see {@link FileWatchCoalescer}).
+     * The default implementation calls {@link #fileChanged(FileWatchEvent)} for each event.
+     * @param events List of events in order of their first occurrence.
+     */
+    default void filesChanged(List<FileWatchEvent> events)
+    {
+      events.forEach((e) -> fileChanged(e));
+    }
   }
 }
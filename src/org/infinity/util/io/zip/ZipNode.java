@@ -34,6 +34,11 @@
   private byte[] name;                    // last segment of filename from header structure
   private ZipNode parent;
 
+  // Hash index of child nodes. Buckets are chained by the "nextInBucket" field of the child nodes.
+  private ZipNode[] buckets;
+  private ZipNode nextInBucket;
+  private int nameHash;                   // hash of name without trailing path separator
+
   /**
    * Returns the root of a fully initialized zip file tree based on data retrieved from the
    * specified file.
@@ -58,21 +63,18 @@ public static ZipNode createRoot(SeekableByteChannel ch) throws IOException
    */
   public byte[] getPath()
   {
-    List<byte[]> list = new ArrayList<>();
     int len = 0;
-    ZipNode node = this;
-    do {
-      byte[] name = node.getName();
-      len += name.length;
-      list.add(0, name);
-      node = node.getParent();
-    } while (node != null);
+    for (ZipNode node = this; node != null; node = node.getParent()) {
+      len += node.getName().length;
+    }
 
+    // filling path from last to first segment
     byte[] path = new byte[len];
-    int p = 0;
-    for (final byte[] name: list) {
+    int p = len;
+    for (ZipNode node = this; node != null; node = node.getParent()) {
+      byte[] name = node.getName();
+      p -= name.length;
       System.arraycopy(name, 0, path, p, name.length);
-      p += name.length;
     }
 
     return path;
@@ -154,22 +156,14 @@ public int getChildCount()
     return children.size();
   }
 
-  /** Attempts to find a child by the specified name. Returns {@code null} if not found. */
+  /**
+   * Attempts to find a child by the specified name. A name without trailing path separator
+   * matches both files and directories. Returns {@code null} if not found.
+   */
   public ZipNode getChild(byte[] name)
   {
     if (name != null) {
-      byte[] match2 = null;
-      if (name.length > 0 && name[name.length - 1] != (byte)'/') {
-        match2 = new byte[name.length + 1];
-        System.arraycopy(name, 0, match2, 0, name.length);
-        match2[match2.length - 1] = (byte)'/';
-      }
-      for (final ZipNode child: children) {
-        if (Arrays.equals(child.name, name) ||
-            (match2 != null && Arrays.equals(child.name, match2))) {
-          return child;
-        }
-      }
+      return findChild(name, 0, name.length);
     }
     return null;
   }
@@ -193,6 +187,7 @@ public boolean removeChild(ZipNode child)
       int index = children.indexOf(child);
       if (index >= 0) {
         children.remove(index);
+        unlinkChild(child);
         return true;
       }
     }
@@ -240,6 +235,7 @@ private ZipNode(ZipNode parent, byte[] name, ZipCentralHeader header)
     this.header = header;
     this.endHeader = null;
     this.name = name;
+    this.nameHash = hash(name, 0, nameLength(name, 0, name.length));
     this.parent = parent;
     this.parent.addChild(this);
   }
@@ -253,53 +249,132 @@ private ZipNode(ZipCentralEndHeader endHeader)
     this.parent = null;
   }
 
-  // Adds the specified child to this node.
+  // Adds the specified child to this node. Only called for newly created nodes.
   private boolean addChild(ZipNode child)
   {
     if (child != null) {
-      if (!children.contains(child)) {
-        return children.add(child);
+      if (buckets == null || children.size() >= buckets.length * 3 / 4) {
+        rehash((buckets == null) ? 8 : buckets.length * 2);
       }
+      linkChild(child);
+      return children.add(child);
     }
     return false;
   }
 
-  // Call recursivelely. Find matching node based on path.
-  // Expected: Valid and normalized path
+  // Adds the child to the hash index
+  private void linkChild(ZipNode child)
+  {
+    int index = child.nameHash & (buckets.length - 1);
+    child.nextInBucket = buckets[index];
+    buckets[index] = child;
+  }
+
+  // Removes the child from the hash index
+  private void unlinkChild(ZipNode child)
+  {
+    if (buckets != null) {
+      int index = child.nameHash & (buckets.length - 1);
+      ZipNode prev = null;
+      for (ZipNode node = buckets[index]; node != null; prev = node, node = node.nextInBucket) {
+        if (node == child) {
+          if (prev != null) {
+            prev.nextInBucket = node.nextInBucket;
+          } else {
+            buckets[index] = node.nextInBucket;
+          }
+          node.nextInBucket = null;
+          break;
+        }
+      }
+    }
+  }
+
+  // Rebuilds the hash index with the specified number of buckets (must be a power of two)
+  private void rehash(int size)
+  {
+    buckets = new ZipNode[size];
+    // linking in reverse order to retain insertion order within buckets
+    for (int i = children.size() - 1; i >= 0; i--) {
+      linkChild(children.get(i));
+    }
+  }
+
+  // Returns the child matching the name in the specified array range. A trailing path separator
+  // restricts the search to directories. Doesn't allocate memory.
+  private ZipNode findChild(byte[] buf, int start, int end)
+  {
+    if (buckets == null || start >= end) {
+      return null;
+    }
+    int len = nameLength(buf, start, end);
+    boolean dirOnly = (len < end - start);
+    int hash = hash(buf, start, len);
+    for (ZipNode node = buckets[hash & (buckets.length - 1)]; node != null; node = node.nextInBucket) {
+      if (node.nameHash == hash) {
+        byte[] n = node.name;
+        int nlen = nameLength(n, 0, n.length);
+        if (nlen == len && (!dirOnly || nlen < n.length) && regionEquals(n, 0, buf, start, len)) {
+          return node;
+        }
+      }
+    }
+    return null;
+  }
+
+  // Walks the tree along the specified path. Expected: Valid and normalized path
   private ZipNode getNode(byte[] path, int offset)
   {
     if (path == null) {
       throw new NullPointerException();
     }
-    if (offset >= path.length) {
-      // special case: empty path segment returns current node
-      return this;
-    }
 
-    if (path[offset] == (byte)'/') {
+    ZipNode node = this;
+    if (offset < path.length && path[offset] == (byte)'/') {
       // absolute path starts at root
-      return getRoot().getNode(path, offset + 1);
-    } else {
-      // relative path starts at this node
-      int start = offset;
-      int cur = start;
-      int end = path.length;
+      node = getRoot();
+      offset++;
+    }
+
+    // relative path starts at this node
+    int end = path.length;
+    while (offset < end && node != null) {
+      int cur = offset;
       while (cur < end) {
         if (path[cur++] == (byte)'/') {
           break;
         }
       }
+      node = node.findChild(path, offset, cur);
+      offset = cur;
+    }
+    return node;
+  }
 
-      ZipNode curChild = getChild(Arrays.copyOfRange(path, start, cur));
-      if (curChild != null) {
-        if (cur < end) {
-          return curChild.getNode(path, cur);
-        } else {
-          return curChild;
-        }
+  // Returns the length of the name in the specified range without trailing path separator
+  private static int nameLength(byte[] buf, int start, int end)
+  {
+    return (end > start && buf[end - 1] == (byte)'/') ? end - start - 1 : end - start;
+  }
+
+  private static int hash(byte[] buf, int start, int len)
+  {
+    int h = 1;
+    for (int i = start, end = start + len; i < end; i++) {
+      h = 31 * h + buf[i];
+    }
+    // spreading higher bits for small bucket tables
+    return h ^ (h >>> 16);
+  }
+
+  private static boolean regionEquals(byte[] buf1, int ofs1, byte[] buf2, int ofs2, int len)
+  {
+    for (int i = 0; i < len; i++) {
+      if (buf1[ofs1 + i] != buf2[ofs2 + i]) {
+        return false;
       }
     }
-    return null;
+    return true;
   }
 
   // Constructs a folder tree from the central directory data of the specified zip archive
@@ -340,11 +415,10 @@ private static ZipNode initZip(SeekableByteChannel ch) throws IOException
             break;
           }
         }
-        byte[] name = Arrays.copyOfRange(header.fileName, start, cur);
-        ZipNode node = parent.getChild(name);
+        ZipNode node = parent.findChild(header.fileName, start, cur);
         if (node == null) {
           if (cur == end) {
-            node = new ZipNode(parent, name, header);
+            node = new ZipNode(parent, Arrays.copyOfRange(header.fileName, start, cur), header);
           } else {
             ZipBaseHeader.zerror("Missing CEN table entries or wrong CEN entry order");
           }
@@ -0,0 +1,214 @@
+package org.infinity.resource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.infinity.datatype.SectionCount;
+import org.infinity.datatype.SectionOffset;
+import org.infinity.datatype.Unknown;
+import org.infinity.resource.key.ResourceEntry;
+import org.infinity.resource.key.ResourceTreeFolder;
+import org.infinity.resource.vertex.Vertex;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AbstractStructTest {
+  private static final int NUM_VERTICES = 3;
+  private static final int OFS_VERTICES = 16;
+
+  private byte[] data;
+  private TestResource resource;
+
+  // Offset and count of vertices, followed by a hole and the vertices
+  @Before
+  public void setUp() throws Exception {
+    ByteBuffer bb = ByteBuffer.allocate(OFS_VERTICES + NUM_VERTICES * 4).order(ByteOrder.LITTLE_ENDIAN);
+    bb.putInt(OFS_VERTICES).putInt(NUM_VERTICES).putInt(-1).putInt(-1);
+    for (int i = 0; i < NUM_VERTICES; i++) {
+      bb.putShort((short)(i * 10 + 1)).putShort((short)(i * 10 + 2));
+    }
+    data = bb.array();
+    resource = new TestResource(new TestEntry(data));
+  }
+
+  private Vertex getVertex(int index) {
+    List<Vertex> vertices = new ArrayList<>();
+    for (final StructEntry e: resource.getList()) {
+      if (e instanceof Vertex) {
+        vertices.add((Vertex)e);
+      }
+    }
+    return vertices.get(index);
+  }
+
+  private static byte[] write(Writeable w) throws IOException {
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    w.write(os);
+    return os.toByteArray();
+  }
+
+  @Test
+  public void testWriteUnloaded() throws IOException {
+    Assert.assertArrayEquals(data, write(resource));
+    for (int i = 0; i < NUM_VERTICES; i++) {
+      int ofs = OFS_VERTICES + i * 4;
+      Assert.assertArrayEquals(Arrays.copyOfRange(data, ofs, ofs + 4), write(getVertex(i)));
+    }
+  }
+
+  @Test
+  public void testFlatList() throws IOException {
+    // the hole is detected in front of the vertices only
+    List<Unknown> holes = new ArrayList<>();
+    for (final StructEntry e: resource.getList()) {
+      if (e instanceof Unknown) {
+        holes.add((Unknown)e);
+      }
+    }
+    Assert.assertEquals(1, holes.size());
+    Assert.assertEquals(8, holes.get(0).getOffset());
+    Assert.assertEquals(8, holes.get(0).getSize());
+    Assert.assertEquals(3 + NUM_VERTICES, resource.getFieldCount());
+
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    resource.writeFlatList(os);
+    Assert.assertArrayEquals(data, os.toByteArray());
+    Assert.assertEquals(3 + NUM_VERTICES * 2, resource.getFlatList().size());
+  }
+
+  @Test
+  public void testSetOffsetBeforeLoad() {
+    Vertex vertex = getVertex(1);
+    vertex.setOffset(100);
+    Assert.assertEquals(100, vertex.getField(0).getOffset());
+    Assert.assertEquals(102, vertex.getField(1).getOffset());
+    Assert.assertEquals(4, vertex.getSize());
+    Assert.assertEquals(11, vertex.getX());
+    Assert.assertEquals(12, vertex.getY());
+  }
+
+  @Test
+  public void testClone() throws Exception {
+    Vertex vertex = getVertex(2);
+    Vertex copy = (Vertex)vertex.clone();
+    Assert.assertEquals(OFS_VERTICES + 8, copy.getOffset());
+    Assert.assertEquals(OFS_VERTICES + 8, copy.getField(0).getOffset());
+    Assert.assertEquals(21, copy.getX());
+    Assert.assertEquals(22, copy.getY());
+    Assert.assertArrayEquals(Arrays.copyOfRange(data, OFS_VERTICES + 8, OFS_VERTICES + 12), write(copy));
+
+    copy.setX(99);
+    Assert.assertEquals(21, vertex.getX());
+  }
+
+  @Test
+  public void testRemoveDatatype() throws IOException {
+    Vertex removed = getVertex(1);
+    Vertex last = getVertex(2);
+    resource.removeDatatype(removed, true);
+
+    Assert.assertEquals(NUM_VERTICES - 1, resource.getSectionCount(Vertex.class).getValue());
+    Assert.assertEquals(OFS_VERTICES + 4, last.getOffset());
+    Assert.assertEquals(OFS_VERTICES + 4, last.getField(0).getOffset());
+    Assert.assertEquals(OFS_VERTICES + 6, last.getField(1).getOffset());
+    Assert.assertEquals(21, last.getX());
+
+    ByteBuffer expected = ByteBuffer.allocate(data.length - 4).order(ByteOrder.LITTLE_ENDIAN);
+    expected.put(data, 0, OFS_VERTICES + 4).put(data, OFS_VERTICES + 8, 4);
+    expected.putInt(4, NUM_VERTICES - 1);
+    Assert.assertEquals(expected.capacity(), resource.getSize());
+    Assert.assertArrayEquals(expected.array(), write(resource));
+  }
+
+  private static class TestResource extends AbstractStruct implements Resource, HasAddRemovable {
+    public TestResource(ResourceEntry entry) throws Exception {
+      super(entry);
+    }
+
+    @Override
+    public int read(ByteBuffer buffer, int offset) throws Exception {
+      SectionOffset ofsVertices = new SectionOffset(buffer, offset, "Vertices offset", Vertex.class);
+      addField(ofsVertices);
+      SectionCount numVertices = new SectionCount(buffer, offset + 4, 4, "# vertices", Vertex.class);
+      addField(numVertices);
+      int ofs = offset + ofsVertices.getValue();
+      for (int i = 0; i < numVertices.getValue(); i++) {
+        addField(new Vertex(this, buffer, ofs + i * 4, i));
+      }
+      return ofs + numVertices.getValue() * 4;
+    }
+
+    @Override
+    public AddRemovable[] getAddRemovables() throws Exception {
+      return new AddRemovable[] { new Vertex() };
+    }
+
+    @Override
+    public AddRemovable confirmAddEntry(AddRemovable entry) throws Exception {
+      return entry;
+    }
+
+    @Override
+    public boolean confirmRemoveEntry(AddRemovable entry) throws Exception {
+      return true;
+    }
+  }
+
+  private static class TestEntry extends ResourceEntry {
+    private final byte[] data;
+
+    public TestEntry(byte[] data) {
+      this.data = data;
+    }
+
+    // avoids querying override settings of the GUI
+    @Override
+    public ByteBuffer getResourceBuffer() { return getResourceBuffer(false); }
+
+    @Override
+    public Path getActualPath() { return null; }
+
+    @Override
+    protected Path getActualPath(boolean ignoreOverride) { return null; }
+
+    @Override
+    public long getResourceSize(boolean ignoreOverride) { return data.length; }
+
+    @Override
+    public String getExtension() { return "TST"; }
+
+    @Override
+    public ByteBuffer getResourceBuffer(boolean ignoreOverride) {
+      return ByteBuffer.wrap(data.clone()).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    @Override
+    public InputStream getResourceDataAsStream(boolean ignoreOverride) { return null; }
+
+    @Override
+    public int[] getResourceInfo(boolean ignoreOverride) { return null; }
+
+    @Override
+    public String getResourceName() { return "TEST.TST"; }
+
+    @Override
+    public String getTreeFolderName() { return getExtension(); }
+
+    @Override
+    public ResourceTreeFolder getTreeFolder() { return null; }
+
+    @Override
+    public boolean hasOverride() { return false; }
+
+    @Override
+    public String toString() { return getResourceName(); }
+  }
+}
@@ -0,0 +1,194 @@
+package org.infinity.resource;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import org.infinity.datatype.DecNumber;
+import org.infinity.datatype.SectionCount;
+import org.infinity.datatype.SectionOffset;
+import org.infinity.datatype.Unknown;
+import org.infinity.resource.key.ResourceEntry;
+import org.infinity.resource.key.ResourceTreeFolder;
+import org.infinity.resource.vertex.Vertex;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class StructViewTest {
+  private static final String VALUE = "Value";
+  private static final int HEADER_SIZE = 20;
+
+  private int loads;
+
+  @After
+  public void tearDown() {
+    StructView.clearCache();
+  }
+
+  // Signature, version, value, offset and count of vertices, followed by the vertices
+  private static byte[] create(String version, int value, int... coords) {
+    ByteBuffer bb = ByteBuffer.allocate(HEADER_SIZE + coords.length * 2).order(ByteOrder.LITTLE_ENDIAN);
+    bb.put("TEST".getBytes(StandardCharsets.US_ASCII)).put(version.getBytes(StandardCharsets.US_ASCII));
+    bb.putInt(value).putInt(HEADER_SIZE).putInt(coords.length / 2);
+    for (final int c: coords) {
+      bb.putShort((short)c);
+    }
+    return bb.array();
+  }
+
+  private StructView open(byte[] data) {
+    return StructView.open(new TestEntry(data), e -> {
+      loads++;
+      try {
+        return new TestResource(e);
+      } catch (Exception ex) {
+        throw new IllegalStateException(ex);
+      }
+    });
+  }
+
+  @Test
+  public void testReadWithoutParsing() {
+    StructView view = open(create("V1  ", 5, 10, 20, 30, 40));
+    Assert.assertEquals(1, loads);
+    Assert.assertEquals(5, view.getValue(VALUE));
+    Assert.assertEquals(2, view.getSectionCount(Vertex.class));
+    Assert.assertEquals(40, view.getSection(Vertex.class, 1).getValue(Vertex.VERTEX_Y));
+
+    view = open(create("V1  ", 7, 1, 2, 3, 4, 5, 6));
+    Assert.assertEquals(1, loads);
+    Assert.assertEquals(7, view.getValue(VALUE));
+    Assert.assertTrue(view.hasSection(AbstractStruct.class));
+    Assert.assertEquals(3, view.getSectionCount(Vertex.class));
+    Assert.assertEquals(5, view.getSection(Vertex.class, 2).getValue(Vertex.VERTEX_X));
+    Assert.assertEquals(6, view.getSection(Vertex.class, 2).getValue(Vertex.VERTEX_Y));
+    // fields at variable locations are not available
+    Assert.assertFalse(view.getSection(Vertex.class, 0).hasField(VALUE));
+    Assert.assertFalse(view.hasField(Vertex.VERTEX_X));
+  }
+
+  @Test
+  public void testSectionLearnedLater() {
+    StructView view = open(create("V1  ", 1));
+    Assert.assertEquals(1, loads);
+    Assert.assertFalse(view.hasSection(Vertex.class));
+    Assert.assertEquals(0, view.getSectionCount(Vertex.class));
+
+    // layout of vertices is taken from the first resource that contains them
+    view = open(create("V1  ", 2, 3, 4));
+    Assert.assertEquals(2, loads);
+    Assert.assertTrue(view.hasSection(Vertex.class));
+    Assert.assertEquals(3, view.getSection(Vertex.class, 0).getValue(Vertex.VERTEX_X));
+
+    view = open(create("V1  ", 3));
+    Assert.assertEquals(2, loads);
+    Assert.assertEquals(3, view.getValue(VALUE));
+    Assert.assertEquals(0, view.getSectionCount(Vertex.class));
+  }
+
+  @Test
+  public void testInvalidData() {
+    open(create("V1  ", 1, 1, 2));
+    // versions are parsed separately
+    Assert.assertNotNull(open(create("V2  ", 1, 1, 2)));
+    Assert.assertEquals(2, loads);
+
+    byte[] data = create("V1  ", 1, 1, 2, 3, 4);
+    ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN).putInt(16, 5);
+    Assert.assertNull(open(data));
+    data[0] = 0;
+    Assert.assertNull(open(data));
+    Assert.assertNull(open(new byte[4]));
+    Assert.assertEquals(2, loads);
+  }
+
+  private static class TestResource extends AbstractStruct implements Resource, HasAddRemovable {
+    public TestResource(ResourceEntry entry) throws Exception {
+      super(entry);
+    }
+
+    @Override
+    public int read(ByteBuffer buffer, int offset) throws Exception {
+      addField(new Unknown(buffer, offset, 4, COMMON_SIGNATURE));
+      addField(new Unknown(buffer, offset + 4, 4, COMMON_VERSION));
+      addField(new DecNumber(buffer, offset + 8, 4, VALUE));
+      SectionOffset ofsVertices = new SectionOffset(buffer, offset + 12, "Vertices offset", Vertex.class);
+      addField(ofsVertices);
+      SectionCount numVertices = new SectionCount(buffer, offset + 16, 4, "# vertices", Vertex.class);
+      addField(numVertices);
+      int ofs = offset + ofsVertices.getValue();
+      for (int i = 0; i < numVertices.getValue(); i++) {
+        addField(new Vertex(this, buffer, ofs + i * 4, i));
+      }
+      return ofs + numVertices.getValue() * 4;
+    }
+
+    @Override
+    public AddRemovable[] getAddRemovables() throws Exception {
+      return new AddRemovable[] { new Vertex() };
+    }
+
+    @Override
+    public AddRemovable confirmAddEntry(AddRemovable entry) throws Exception {
+      return entry;
+    }
+
+    @Override
+    public boolean confirmRemoveEntry(AddRemovable entry) throws Exception {
+      return true;
+    }
+  }
+
+  private static class TestEntry extends ResourceEntry {
+    private final byte[] data;
+
+    public TestEntry(byte[] data) {
+      this.data = data;
+    }
+
+    // avoids querying override settings of the GUI
+    @Override
+    public ByteBuffer getResourceBuffer() { return getResourceBuffer(false); }
+
+    @Override
+    public Path getActualPath() { return null; }
+
+    @Override
+    protected Path getActualPath(boolean ignoreOverride) { return null; }
+
+    @Override
+    public long getResourceSize(boolean ignoreOverride) { return data.length; }
+
+    @Override
+    public String getExtension() { return "TST"; }
+
+    @Override
+    public ByteBuffer getResourceBuffer(boolean ignoreOverride) {
+      return ByteBuffer.wrap(data.clone()).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    @Override
+    public InputStream getResourceDataAsStream(boolean ignoreOverride) { return null; }
+
+    @Override
+    public int[] getResourceInfo(boolean ignoreOverride) { return null; }
+
+    @Override
+    public String getResourceName() { return "TEST.TST"; }
+
+    @Override
+    public String getTreeFolderName() { return getExtension(); }
+
+    @Override
+    public ResourceTreeFolder getTreeFolder() { return null; }
+
+    @Override
+    public boolean hasOverride() { return false; }
+
+    @Override
+    public String toString() { return getResourceName(); }
+  }
+}
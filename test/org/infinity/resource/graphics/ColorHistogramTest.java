@@ -0,0 +1,66 @@
+package org.infinity.resource.graphics;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ColorHistogramTest {
+  @Test
+  public void testAddAndRemove() {
+    ColorHistogram hist = new ColorHistogram();
+    hist.add(0xff102030);
+    hist.add(0xff102030);
+    hist.add(0xff405060, 5);
+    Assert.assertEquals(2, hist.size());
+    Assert.assertEquals(2, hist.getCount(0xff102030));
+    Assert.assertEquals(5, hist.getCount(0xff405060));
+
+    hist.remove(0xff102030);
+    Assert.assertEquals(1, hist.getCount(0xff102030));
+    hist.remove(0xff102030);
+    Assert.assertFalse(hist.contains(0xff102030));
+    Assert.assertEquals(1, hist.size());
+
+    hist.delete(0xff405060);
+    Assert.assertTrue(hist.isEmpty());
+  }
+
+  @Test
+  public void testKeepsInsertionOrder() {
+    ColorHistogram hist = new ColorHistogram(4);
+    for (int i = 0; i < 1000; i++) {
+      hist.add(i * 7919);
+    }
+    for (int i = 0; i < 1000; i += 2) {
+      hist.remove(i * 7919);
+    }
+    for (int i = 1000; i < 1500; i++) {
+      hist.add(i * 7919);
+    }
+    int[] colors = hist.getColors();
+    Assert.assertEquals(1000, colors.length);
+    for (int i = 0; i < 500; i++) {
+      Assert.assertEquals((2 * i + 1) * 7919, colors[i]);
+      Assert.assertTrue(hist.contains(colors[i]));
+    }
+    for (int i = 0; i < 500; i++) {
+      Assert.assertEquals((1000 + i) * 7919, colors[500 + i]);
+    }
+  }
+
+  @Test
+  public void testMedianCut() {
+    int[] pixels = new int[4096];
+    for (int i = 0; i < pixels.length; i++) {
+      pixels[i] = 0xff000000 | (i << 12) | i;
+    }
+    int[] palette = ColorConvert.medianCut(pixels, 16, true);
+    Assert.assertNotNull(palette);
+    Assert.assertEquals(16, palette.length);
+    ColorHistogram hist = new ColorHistogram();
+    for (final int color: palette) {
+      Assert.assertEquals(0xff000000, color & 0xff000000);
+      hist.add(color);
+    }
+    Assert.assertEquals(16, hist.size());
+  }
+}
@@ -0,0 +1,89 @@
+package org.infinity.resource.video;
+
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Headless decoding benchmark for MVE files. Audio is not decoded.
+ * <p>
+ * Usage: {@code MveDecodeBenchmark [-runs n] [-output] file.mve ...}
+ * <br>{@code -runs n}: number of measured runs per file (default: 3). A warm-up run is always performed.
+ * <br>{@code -output}: additionally copies decoded frames into a chain of video buffers.
+ * <p>
+ * Can also be started via {@code ant benchmark-mve -Dmve.files="file.mve ..."}.
+ */
+public class MveDecodeBenchmark {
+  public static void main(String[] args) throws Exception {
+    int runs = 3;
+    boolean output = false;
+    List<String> files = new ArrayList<>();
+    for (int i = 0; i < args.length; i++) {
+      if ("-runs".equals(args[i]) && i + 1 < args.length) {
+        runs = Math.max(1, Integer.parseInt(args[++i]));
+      } else if ("-output".equals(args[i])) {
+        output = true;
+      } else {
+        files.add(args[i]);
+      }
+    }
+
+    if (files.isEmpty()) {
+      System.err.println("Usage: MveDecodeBenchmark [-runs n] [-output] file.mve ...");
+      System.exit(1);
+    }
+
+    long totalFrames = 0L, totalTime = 0L;
+    for (final String file: files) {
+      byte[] data = Files.readAllBytes(Paths.get(file));
+      decode(data, output);   // warm-up
+      long frames = 0L, time = 0L;
+      for (int run = 0; run < runs; run++) {
+        long start = System.nanoTime();
+        frames += decode(data, output);
+        time += System.nanoTime() - start;
+      }
+      System.out.println(String.format("%s: %d frames, %.1f fps", Paths.get(file).getFileName(),
+                                       frames / runs, fps(frames, time)));
+      totalFrames += frames;
+      totalTime += time;
+    }
+    if (files.size() > 1) {
+      System.out.println(String.format("Total: %.1f fps", fps(totalFrames, totalTime)));
+    }
+  }
+
+  // Decodes all frames of the specified MVE data and returns the number of video frames
+  private static int decode(byte[] data, boolean output) throws Exception {
+    MveDecoder decoder = new MveDecoder(data, 0, data.length);
+    try {
+      int frames = 0;
+      while (decoder.hasNextFrame()) {
+        if (!decoder.processNextFrame()) {
+          break;
+        }
+        if (output && decoder.getVideoOutput() == null && decoder.getVideoWidth() > 0) {
+          Image[] buffers = new Image[3];
+          for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = new BufferedImage(decoder.getVideoWidth(), decoder.getVideoHeight(),
+                                           BufferedImage.TYPE_INT_RGB);
+          }
+          decoder.setVideoOutput(new BasicVideoBuffer(buffers));
+        }
+        if (decoder.frameHasVideo()) {
+          frames++;
+        }
+      }
+      return frames;
+    } finally {
+      decoder.close();
+    }
+  }
+
+  private static double fps(long frames, long nanos) {
+    return (nanos > 0L) ? frames * 1000000000.0 / nanos : 0.0;
+  }
+}
@@ -0,0 +1,55 @@
+package org.infinity.util;
+
+import java.nio.charset.Charset;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CharLookupTest {
+  private static final Charset CP1250 = Charset.forName("windows-1250");
+
+  private static CharsetDetector.CharLookup createLookup() {
+    return new CharsetDetector.CharLookup(new String(new byte[]{(byte)0xe5, (byte)0xe6, (byte)0xe7}, CP1250),
+                                          new String(new byte[]{(byte)0xa5, (byte)0xc6, (byte)0xca}, CP1250),
+                                          new int[]{300, 7, 12});
+  }
+
+  @Test
+  public void testDecodeBytesMatchesStringDecoding() {
+    Random rnd = new Random(7);
+    byte[] data = new byte[4096];
+    rnd.nextBytes(data);
+    CharsetDetector.CharLookup[] lookups = { createLookup(), new CharsetDetector.CharLookup() };
+    Charset[] charsets = { CP1250, Charset.forName("windows-1252"), Charset.forName("windows-1251"),
+                           Misc.CHARSET_UTF8, Charset.forName("UTF-16LE") };
+    for (final CharsetDetector.CharLookup lookup: lookups) {
+      for (final Charset cs: charsets) {
+        for (int ofs = 0; ofs < 64; ofs += 13) {
+          String expected = lookup.decodeString(new String(data, ofs, 1000, cs));
+          Assert.assertEquals(cs.name(), expected, lookup.decodeString(data, ofs, 1000, cs));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testTranslation() {
+    CharsetDetector.CharLookup lookup = createLookup();
+    String encoded = new String(new byte[]{'a', (byte)0xe5, (byte)0xe7, 'z'}, CP1250);
+    String decoded = new String(new byte[]{'a', (byte)0xa5, (byte)0xca, 'z'}, CP1250);
+    Assert.assertEquals(decoded, lookup.decodeString(encoded));
+    Assert.assertEquals(encoded, lookup.encodeString(decoded));
+    Assert.assertEquals('x', lookup.decode('x'));
+    Assert.assertEquals('\u20ac', lookup.encode('\u20ac'));
+  }
+
+  @Test
+  public void testExcluded() {
+    CharsetDetector.CharLookup lookup = createLookup();
+    Assert.assertTrue(lookup.isExcluded(7));
+    Assert.assertTrue(lookup.isExcluded(300));
+    Assert.assertFalse(lookup.isExcluded(8));
+    Assert.assertFalse(new CharsetDetector.CharLookup().isExcluded(0));
+  }
+}
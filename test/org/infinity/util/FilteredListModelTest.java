@@ -0,0 +1,116 @@
+package org.infinity.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import javax.swing.SwingUtilities;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class FilteredListModelTest {
+  private static final List<String> NAMES = Arrays.asList(
+      "AROW01.ITM", "SW1H01.ITM", "sw1h02.itm", "BOW01.ITM", "XSW1H01.ITM", "RING01.ITM", "SWORD.ITM");
+
+  @Test
+  public void testPrefixMatchesFirst() {
+    FilteredListModel<String> model = new FilteredListModel<>(NAMES);
+    Assert.assertEquals(NAMES.size(), model.getSize());
+
+    Assert.assertTrue(model.setFilter("sw"));
+    Assert.assertEquals(Arrays.asList("SW1H01.ITM", "sw1h02.itm", "SWORD.ITM", "XSW1H01.ITM"), toList(model));
+
+    Assert.assertTrue(model.setFilter("ow"));
+    Assert.assertEquals(Arrays.asList("AROW01.ITM", "BOW01.ITM"), toList(model));
+
+    Assert.assertTrue(model.setFilter(""));
+    Assert.assertEquals(NAMES, toList(model));
+  }
+
+  @Test
+  public void testNoMatchKeepsList() {
+    FilteredListModel<String> model = new FilteredListModel<>(NAMES);
+    Assert.assertTrue(model.setFilter("SW1"));
+    List<String> expected = toList(model);
+    Assert.assertFalse(model.setFilter("SW1Q"));
+    Assert.assertEquals(expected, toList(model));
+    Assert.assertEquals("SW1", model.getFilter());
+    Assert.assertFalse(model.setFilter("ZZZ"));
+    Assert.assertEquals(expected, toList(model));
+  }
+
+  @Test
+  public void testFirstPrefixMatch() {
+    FilteredListModel<String> model = new FilteredListModel<>(NAMES);
+    Assert.assertEquals(1, model.getFirstPrefixMatch("sw1"));
+    Assert.assertEquals(0, model.getFirstPrefixMatch(""));
+    Assert.assertEquals(-1, model.getFirstPrefixMatch("Q"));
+    Assert.assertEquals("XSW1H01.ITM", model.getPrototypeValue());
+  }
+
+  @Test
+  public void testMatchesLinearScan() throws Exception {
+    Random rnd = new Random(42);
+    List<String> names = new ArrayList<>();
+    for (int i = 0; i < 5000; i++) {
+      StringBuilder sb = new StringBuilder();
+      for (int j = 0, len = rnd.nextInt(8) + 1; j < len; j++) {
+        sb.append((char)('A' + rnd.nextInt(6)));
+      }
+      names.add(sb.append(".ITM").toString());
+    }
+    final FilteredListModel<String> model = new FilteredListModel<>(names);
+    model.setRefineThreshold(100);
+
+    String[] queries = {"A", "AB", "ABC", "ABCD", "BC", "B", "CA", "D.I", "FFFFFF", "E"};
+    for (final String query: queries) {
+      final boolean[] result = new boolean[1];
+      SwingUtilities.invokeAndWait(() -> result[0] = model.setFilter(query));
+      waitForRefinement(model);
+      List<String> expected = filter(names, query);
+      if (expected.isEmpty()) {
+        Assert.assertFalse(result[0]);
+      } else {
+        Assert.assertTrue(result[0]);
+        Assert.assertEquals(expected, toList(model));
+      }
+    }
+  }
+
+  private static void waitForRefinement(final FilteredListModel<?> model) throws Exception {
+    final boolean[] refining = {true};
+    for (int i = 0; i < 500 && refining[0]; i++) {
+      SwingUtilities.invokeAndWait(() -> refining[0] = model.isRefining());
+      if (refining[0]) {
+        Thread.sleep(10);
+      }
+    }
+    Assert.assertFalse(refining[0]);
+  }
+
+  private static List<String> filter(List<String> names, String query) {
+    List<String> prefix = new ArrayList<>();
+    List<String> other = new ArrayList<>();
+    for (final String s: names) {
+      String key = s.toUpperCase(Locale.ENGLISH);
+      if (key.startsWith(query)) {
+        prefix.add(s);
+      } else if (key.contains(query)) {
+        other.add(s);
+      }
+    }
+    prefix.addAll(other);
+    return prefix;
+  }
+
+  private static List<String> toList(FilteredListModel<String> model) {
+    List<String> retVal = new ArrayList<>();
+    for (int i = 0; i < model.getSize(); i++) {
+      retVal.add(model.getElementAt(i));
+    }
+    return retVal;
+  }
+}
@@ -0,0 +1,91 @@
+package org.infinity.util;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class GridIndexTest {
+  @Test
+  public void testPutAndQuery() {
+    GridIndex<String> index = new GridIndex<>(100);
+    index.put("a", new Rectangle(10, 10, 20, 20));
+    index.put("b", new Rectangle(90, 90, 30, 30));      // spans four cells
+    index.put("c", new Rectangle(-150, -50, 10, 10));   // negative coordinates
+    Assert.assertEquals(3, index.size());
+
+    Assert.assertEquals(set("a"), new HashSet<>(index.query(new Point(15, 15))));
+    Assert.assertEquals(set("b"), new HashSet<>(index.query(new Point(110, 110))));
+    Assert.assertEquals(set("c"), new HashSet<>(index.query(new Point(-145, -45))));
+    Assert.assertEquals(set("a", "b"), new HashSet<>(index.query(new Rectangle(0, 0, 100, 100))));
+    Assert.assertTrue(index.query(new Point(50, 50)).isEmpty());
+  }
+
+  @Test
+  public void testMoveAndRemove() {
+    GridIndex<String> index = new GridIndex<>(64);
+    index.put("a", new Rectangle(0, 0, 10, 10));
+    index.put("a", new Rectangle(500, 500, 10, 10));
+    Assert.assertEquals(1, index.size());
+    Assert.assertTrue(index.query(new Point(5, 5)).isEmpty());
+    Assert.assertEquals(1, index.query(new Point(505, 505)).size());
+    Assert.assertEquals(new Rectangle(500, 500, 10, 10), index.getBounds("a"));
+
+    Assert.assertTrue(index.remove("a"));
+    Assert.assertFalse(index.remove("a"));
+    Assert.assertTrue(index.isEmpty());
+    Assert.assertTrue(index.query(new Point(505, 505)).isEmpty());
+  }
+
+  @Test
+  public void testOversizedAndEmptyBounds() {
+    GridIndex<String> index = new GridIndex<>(16);
+    index.put("big", new Rectangle(0, 0, 5000, 5000));
+    index.put("dot", new Rectangle(40, 40, 0, 0));
+    Assert.assertEquals(set("big", "dot"), new HashSet<>(index.query(new Point(40, 40))));
+    Assert.assertEquals(set("big"), new HashSet<>(index.query(new Point(4000, 10))));
+    index.remove("big");
+    Assert.assertTrue(index.query(new Point(4000, 10)).isEmpty());
+  }
+
+  @Test
+  public void testMatchesLinearScan() {
+    Random rnd = new Random(1234);
+    GridIndex<Integer> index = new GridIndex<>(128);
+    Rectangle[] rects = new Rectangle[2000];
+    for (int i = 0; i < rects.length; i++) {
+      rects[i] = new Rectangle(rnd.nextInt(8000) - 500, rnd.nextInt(8000) - 500,
+                               rnd.nextInt(400) + 1, rnd.nextInt(400) + 1);
+      index.put(i, rects[i]);
+    }
+    for (int i = 0; i < rects.length; i += 3) {
+      index.remove(i);
+    }
+    for (int q = 0; q < 200; q++) {
+      Rectangle area = new Rectangle(rnd.nextInt(8000) - 500, rnd.nextInt(8000) - 500,
+                                     rnd.nextInt(2000) + 1, rnd.nextInt(2000) + 1);
+      Set<Integer> expected = new HashSet<>();
+      for (int i = 0; i < rects.length; i++) {
+        if (i % 3 != 0 && rects[i].intersects(area)) {
+          expected.add(i);
+        }
+      }
+      List<Integer> result = index.query(area);
+      Assert.assertEquals(expected.size(), result.size());
+      Assert.assertEquals(expected, new HashSet<>(result));
+    }
+  }
+
+  private static Set<String> set(String... items) {
+    Set<String> retVal = new HashSet<>();
+    for (final String s: items) {
+      retVal.add(s);
+    }
+    return retVal;
+  }
+}
@@ -0,0 +1,125 @@
+package org.infinity.util;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * Micro-benchmark for IDS value and symbol lookups. Compares {@link IdsMap} with the previous
+ * implementation based on {@code TreeMap} and {@code HashMap} with upper-cased string keys.
+ * <p>
+ * Usage: {@code IdsMapBenchmark [-entries n] [-lookups n]}
+ * <p>
+ * Can also be started via {@code ant benchmark-ids}.
+ */
+public class IdsMapBenchmark {
+  public static void main(String[] args) {
+    int entries = 2000;
+    int lookups = 2000000;
+    for (int i = 0; i + 1 < args.length; i++) {
+      if ("-entries".equals(args[i])) {
+        entries = Math.max(1, Integer.parseInt(args[++i]));
+      } else if ("-lookups".equals(args[i])) {
+        lookups = Math.max(1, Integer.parseInt(args[++i]));
+      }
+    }
+
+    // generating IDS content and a mixed-case query set
+    Random rnd = new Random(1234);
+    StringBuilder sb = new StringBuilder("IDS V1.0\n");
+    String[] symbols = new String[entries];
+    long[] values = new long[entries];
+    for (int i = 0; i < entries; i++) {
+      values[i] = rnd.nextInt(0x10000);
+      symbols[i] = "Symbol_" + Integer.toHexString(rnd.nextInt()) + '_' + i;
+      sb.append("0x").append(Long.toHexString(values[i])).append(' ').append(symbols[i]).append('\n');
+    }
+    String[] queries = new String[1024];
+    long[] keys = new long[queries.length];
+    for (int i = 0; i < queries.length; i++) {
+      String s = symbols[rnd.nextInt(entries)];
+      queries[i] = rnd.nextBoolean() ? s : s.toUpperCase(Locale.ENGLISH);
+      keys[i] = values[rnd.nextInt(entries)];
+    }
+
+    IdsMap map = new IdsMap(sb.toString(), false);
+    Legacy legacy = new Legacy(symbols, values);
+
+    for (int run = 0; run < 3; run++) {
+      boolean warmup = (run == 0);
+      long t0 = System.nanoTime();
+      long sum1 = 0L;
+      for (int i = 0; i < lookups; i++) {
+        IdsMapEntry e = map.lookup(queries[i & 1023], false);
+        sum1 += (e != null) ? e.getID() : 0L;
+      }
+      long t1 = System.nanoTime();
+      long sum2 = 0L;
+      for (int i = 0; i < lookups; i++) {
+        IdsMapEntry e = legacy.lookup(queries[i & 1023]);
+        sum2 += (e != null) ? e.getID() : 0L;
+      }
+      long t2 = System.nanoTime();
+      long sum3 = 0L;
+      for (int i = 0; i < lookups; i++) {
+        IdsMapEntry e = map.get(keys[i & 1023]);
+        sum3 += (e != null) ? e.getNumSymbols() : 0L;
+      }
+      long t3 = System.nanoTime();
+      long sum4 = 0L;
+      for (int i = 0; i < lookups; i++) {
+        IdsMapEntry e = legacy.get(keys[i & 1023]);
+        sum4 += (e != null) ? e.getNumSymbols() : 0L;
+      }
+      long t4 = System.nanoTime();
+
+      if (sum1 != sum2 || sum3 != sum4) {
+        throw new IllegalStateException("Results differ");
+      }
+      if (!warmup) {
+        System.out.println(String.format("symbol lookup: %.1f ns (legacy: %.1f ns)",
+                                         (double)(t1 - t0) / lookups, (double)(t2 - t1) / lookups));
+        System.out.println(String.format("value lookup:  %.1f ns (legacy: %.1f ns)",
+                                         (double)(t3 - t2) / lookups, (double)(t4 - t3) / lookups));
+      }
+    }
+  }
+
+  // Emulates the previous lookup implementation
+  private static class Legacy {
+    private final TreeMap<Long, IdsMapEntry> idsMap = new TreeMap<>();
+    private final HashMap<String, Long> symbolMap = new HashMap<>();
+
+    public Legacy(String[] symbols, long[] values) {
+      for (int i = 0; i < symbols.length; i++) {
+        IdsMapEntry e = idsMap.get(values[i]);
+        if (e != null) {
+          e.addSymbol(symbols[i]);
+        } else {
+          idsMap.put(values[i], new IdsMapEntry(values[i], symbols[i]));
+        }
+        symbolMap.put(normalized(symbols[i]), values[i]);
+      }
+    }
+
+    public IdsMapEntry get(long value) {
+      return idsMap.get(Long.valueOf(value & 0xffffffffL));
+    }
+
+    public IdsMapEntry lookup(String symbol) {
+      String norm = normalized(symbol);
+      if (!norm.isEmpty() && !norm.equals("0")) {
+        Long key = symbolMap.get(normalized(norm));
+        if (key != null) {
+          return idsMap.get(key);
+        }
+      }
+      return null;
+    }
+
+    private static String normalized(String s) {
+      return (s != null) ? s.trim().toUpperCase(Locale.ENGLISH) : "";
+    }
+  }
+}
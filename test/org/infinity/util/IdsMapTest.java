@@ -0,0 +1,67 @@
+package org.infinity.util;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class IdsMapTest {
+  private static final String TEXT =
+      "IDS V1.0\r\n" +
+      "0 NONE\r\n" +
+      "0x4002 Helmet  // comment\r\n" +
+      "2 Sword\r\n" +
+      "2 BLADE\r\n" +
+      "-1 MINUS_ONE\r\n" +
+      "1 ONE\r\n" +
+      "1 One\r\n";
+
+  @Test
+  public void testValues() {
+    IdsMap map = new IdsMap(TEXT, true);
+    Assert.assertEquals(5, map.size());
+    Assert.assertEquals(Arrays.asList(0L, 1L, 2L, 0x4002L, 0xffffffffL), Arrays.asList(map.getKeys().toArray()));
+    Assert.assertEquals("Helmet", map.get(0x4002L).getSymbol());
+    Assert.assertEquals("MINUS_ONE", map.get(-1L).getSymbol());
+    Assert.assertEquals("BLADE", map.get(2L).getSymbol());   // most recent symbol
+    Assert.assertEquals(2, map.get(2L).getNumSymbols());
+    Assert.assertNull(map.get(3L));
+    Assert.assertEquals(0x4002L, map.getAllValues().get(3).getID());
+  }
+
+  @Test
+  public void testLookup() {
+    IdsMap map = new IdsMap(TEXT, true);
+    Assert.assertEquals(0x4002L, map.lookup("Helmet").getID());
+    Assert.assertNull(map.lookup("HELMET"));
+    Assert.assertEquals(0x4002L, map.lookup("HELMET", false).getID());
+    Assert.assertEquals(0x4002L, map.lookup(new StringBuilder(" helmet\t"), false).getID());
+    Assert.assertEquals(2L, map.lookup("sword", false).getID());
+    Assert.assertEquals(1L, map.lookup("One").getID());
+    Assert.assertNull(map.lookup("0"));
+    Assert.assertNull(map.lookup(""));
+    Assert.assertNull(map.lookup(null));
+    Assert.assertNull(map.lookup("Helm", false));
+
+    Iterator<String> iter = map.get(1L).getSymbols();
+    Assert.assertEquals("One", iter.next());
+    Assert.assertEquals("ONE", iter.next());
+    Assert.assertFalse(iter.hasNext());
+  }
+
+  @Test
+  public void testManySymbols() {
+    StringBuilder sb = new StringBuilder("IDS\n");
+    for (int i = 0; i < 5000; i++) {
+      sb.append(i).append(" SYMBOL_").append(i).append('\n');
+    }
+    IdsMap map = new IdsMap(sb.toString(), false);
+    Assert.assertEquals(5000, map.size());
+    for (int i = 0; i < 5000; i += 7) {
+      Assert.assertEquals(i, map.lookup("symbol_" + i).getID());
+      Assert.assertEquals("SYMBOL_" + i, map.get(i).getSymbol());
+    }
+    Assert.assertNull(map.lookup("SYMBOL_5000"));
+  }
+}
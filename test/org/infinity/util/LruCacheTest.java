@@ -0,0 +1,66 @@
+package org.infinity.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LruCacheTest {
+  @Test
+  public void testGetWithLoader() {
+    LruCache<String, Integer> cache = new LruCache<>(4);
+    Assert.assertEquals(Integer.valueOf(3), cache.get("abc", String::length));
+    Assert.assertEquals(Integer.valueOf(3), cache.get("abc", k -> 42));
+    Assert.assertEquals(1, cache.getStatistics().getHitCount());
+    Assert.assertEquals(1, cache.getStatistics().getMissCount());
+  }
+
+  @Test
+  public void testLoaderReturningNullIsNotCached() {
+    LruCache<String, Integer> cache = new LruCache<>(4);
+    Assert.assertNull(cache.get("abc", k -> null));
+    Assert.assertFalse(cache.containsKey("abc"));
+  }
+
+  @Test
+  public void testEvictsLeastRecentlyUsedEntries() {
+    LruCache<Integer, String> cache = new LruCache<>(4, 0L, null, false);
+    for (int i = 0; i < 4; i++) {
+      cache.put(i, "v" + i);
+    }
+    cache.get(0);
+    cache.put(4, "v4");
+    Assert.assertTrue(cache.size() <= 4);
+    Assert.assertTrue(cache.containsKey(0));
+    Assert.assertTrue(cache.containsKey(4));
+    Assert.assertFalse(cache.containsKey(1));
+    Assert.assertTrue(cache.getStatistics().getEvictionCount() > 0);
+  }
+
+  @Test
+  public void testEvictsByWeight() {
+    LruCache<String, String> cache = new LruCache<>(0, 10L, (k, v) -> v.length(), false);
+    cache.put("a", "12345");
+    cache.put("b", "12345");
+    Assert.assertEquals(10L, cache.getWeight());
+    cache.put("c", "123");
+    Assert.assertTrue(cache.getWeight() <= 10L);
+    Assert.assertFalse(cache.containsKey("a"));
+    Assert.assertTrue(cache.containsKey("c"));
+  }
+
+  @Test
+  public void testRemoveAndClear() {
+    LruCache<String, String> cache = new LruCache<>(4);
+    cache.put("a", "1");
+    cache.put("b", "2");
+    Assert.assertEquals("1", cache.remove("a"));
+    Assert.assertEquals(1, cache.size());
+    cache.clear();
+    Assert.assertEquals(0, cache.size());
+    Assert.assertEquals(0L, cache.getWeight());
+  }
+
+  @Test(expected=NullPointerException.class)
+  public void testPutNullValue() {
+    new LruCache<String, String>(4).put("a", null);
+  }
+}
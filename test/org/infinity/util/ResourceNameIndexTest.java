@@ -0,0 +1,186 @@
+package org.infinity.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.infinity.resource.key.ResourceEntry;
+import org.infinity.resource.key.ResourceTreeFolder;
+import org.infinity.util.io.FileWatcher.FileWatchEvent;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ResourceNameIndexTest {
+  @After
+  public void tearDown() {
+    ResourceNameIndex.clearCache();
+  }
+
+  @Test
+  public void testPutAndGet() {
+    ResourceEntry sw1h01 = new TestEntry("SW1H01.ITM");
+    ResourceEntry unsupported = new TestEntry("AR0602.ARE");
+    ResourceNameIndex.put(sw1h01, "Long Sword");
+    ResourceNameIndex.put(unsupported, "Area");
+    Assert.assertEquals("Long Sword", ResourceNameIndex.get(sw1h01));
+    Assert.assertNull(ResourceNameIndex.get(unsupported));
+
+    ResourceNameIndex.resourceChanged(sw1h01);
+    Assert.assertNull(ResourceNameIndex.get(sw1h01));
+  }
+
+  @Test
+  public void testFilesChanged() {
+    List<ResourceEntry> entries = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      ResourceEntry entry = new TestEntry(String.format("ITEM%04d.ITM", i));
+      ResourceNameIndex.put(entry, "Item " + i);
+      entries.add(entry);
+    }
+    // same resource name in a different location
+    ResourceEntry duplicate = new TestEntry("ITEM0001.ITM");
+    ResourceNameIndex.put(duplicate, "Item 1 (extra)");
+
+    Path override = Paths.get("override");
+    List<FileWatchEvent> events = Arrays.asList(
+        new FileWatchEvent(this, override.resolve("item0001.itm"), StandardWatchEventKinds.ENTRY_MODIFY),
+        new FileWatchEvent(this, override.resolve("ITEM0002.ITM"), StandardWatchEventKinds.ENTRY_DELETE),
+        new FileWatchEvent(this, override.resolve("ITEM9999.ITM"), StandardWatchEventKinds.ENTRY_CREATE),
+        new FileWatchEvent(this, null, StandardWatchEventKinds.OVERFLOW));
+    ResourceNameIndex.filesChanged(events);
+
+    Assert.assertNull(ResourceNameIndex.get(entries.get(1)));
+    Assert.assertNull(ResourceNameIndex.get(duplicate));
+    Assert.assertNull(ResourceNameIndex.get(entries.get(2)));
+    Assert.assertEquals("Item 0", ResourceNameIndex.get(entries.get(0)));
+    Assert.assertEquals("Item 999", ResourceNameIndex.get(entries.get(999)));
+
+    // removed names can be indexed again
+    ResourceNameIndex.put(entries.get(1), "Item 1");
+    Assert.assertEquals("Item 1", ResourceNameIndex.get(entries.get(1)));
+  }
+
+  @Test
+  public void testClearDuringScan() throws IOException, InterruptedException {
+    Path file = Files.createTempFile("resnames", ".itm");
+    try {
+      // scan of the previous game is blocked while determining the stamp of the third resource
+      CountDownLatch reached = new CountDownLatch(1);
+      CountDownLatch release = new CountDownLatch(1);
+      List<ResourceEntry> oldFiles = new ArrayList<>();
+      for (int i = 0; i < 5; i++) {
+        oldFiles.add(new TestEntry(String.format("OLD%04d.ITM", i), file, (i == 2) ? reached : null, release));
+      }
+      Map<String, String> oldNames = new HashMap<>();
+      for (int i = 0; i < oldFiles.size(); i++) {
+        ResourceEntry entry = new TestEntry(oldFiles.get(i).getResourceName(), file, null, null);
+        oldNames.put(ResourceSnapshot.getStamp("ITM", entry, null), "Old " + i);
+      }
+      int oldGen = ResourceNameIndex.getGeneration();
+      Thread oldScan = new Thread(() -> ResourceNameIndex.scan(oldGen, oldFiles, oldNames, null));
+      oldScan.start();
+      Assert.assertTrue(reached.await(10, TimeUnit.SECONDS));
+
+      // game is reset and scanned again
+      ResourceNameIndex.clearCache();
+      ResourceEntry newEntry = new TestEntry("NEW0000.ITM", file, null, null);
+      Map<String, String> newNames =
+          Collections.singletonMap(ResourceSnapshot.getStamp("ITM", newEntry, null), "New");
+      ResourceNameIndex.scan(ResourceNameIndex.getGeneration(), Arrays.asList(newEntry), newNames, null);
+      Assert.assertTrue(ResourceNameIndex.isInitialized());
+
+      release.countDown();
+      oldScan.join(10000);
+      Assert.assertFalse(oldScan.isAlive());
+
+      // results of the previous game are discarded
+      for (final ResourceEntry entry: oldFiles) {
+        Assert.assertNull(ResourceNameIndex.get(entry));
+      }
+      Assert.assertEquals("New", ResourceNameIndex.get(newEntry));
+      Assert.assertTrue(ResourceNameIndex.isInitialized());
+
+      // scan of a cleared index doesn't complete it
+      ResourceNameIndex.clearCache();
+      ResourceNameIndex.scan(oldGen, oldFiles, oldNames, null);
+      Assert.assertFalse(ResourceNameIndex.isInitialized());
+      Assert.assertNull(ResourceNameIndex.get(oldFiles.get(0)));
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  private static class TestEntry extends ResourceEntry {
+    private final String name;
+    private final Path path;
+    private final CountDownLatch reached, release;
+
+    public TestEntry(String name) {
+      this(name, null, null, null);
+    }
+
+    // Optionally blocks in getActualPath() until "release" is counted down
+    public TestEntry(String name, Path path, CountDownLatch reached, CountDownLatch release) {
+      this.name = name;
+      this.path = path;
+      this.reached = reached;
+      this.release = release;
+    }
+
+    // avoids querying override settings of the GUI
+    @Override
+    public Path getActualPath() {
+      if (reached != null) {
+        reached.countDown();
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+        }
+      }
+      return path;
+    }
+
+    @Override
+    protected Path getActualPath(boolean ignoreOverride) { return null; }
+
+    @Override
+    public long getResourceSize(boolean ignoreOverride) { return 0L; }
+
+    @Override
+    public String getExtension() { return name.substring(name.lastIndexOf('.') + 1); }
+
+    @Override
+    public ByteBuffer getResourceBuffer(boolean ignoreOverride) { return null; }
+
+    @Override
+    public InputStream getResourceDataAsStream(boolean ignoreOverride) { return null; }
+
+    @Override
+    public int[] getResourceInfo(boolean ignoreOverride) { return null; }
+
+    @Override
+    public String getResourceName() { return name; }
+
+    @Override
+    public String getTreeFolderName() { return getExtension(); }
+
+    @Override
+    public ResourceTreeFolder getTreeFolder() { return null; }
+
+    @Override
+    public boolean hasOverride() { return false; }
+  }
+}
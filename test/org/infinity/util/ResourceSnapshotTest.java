@@ -0,0 +1,97 @@
+package org.infinity.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ResourceSnapshotTest {
+  private Path dir;
+  private String context;
+
+  @Before
+  public void setUp() throws IOException {
+    dir = Files.createTempDirectory("snapshot");
+    context = "game1";
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    Files.walk(dir).sorted((a, b) -> b.compareTo(a)).forEach(p -> p.toFile().delete());
+  }
+
+  private ResourceSnapshot<String> create() {
+    return new ResourceSnapshot<>("TEST", 1, "test", () -> context,
+                                  (dis) -> dis.readUTF(), (dos, value) -> dos.writeUTF(value));
+  }
+
+  @Test
+  public void testRoundTrip() {
+    ResourceSnapshot<String> snapshot = create();
+    Path file = dir.resolve("sub").resolve("test.dat");
+    Map<String, String> values = new HashMap<>();
+    for (int i = 0; i < 100; i++) {
+      values.put("CRE|FILE" + i + ".CRE|stamp", "Name " + i);
+    }
+    snapshot.save(file, values);
+    Assert.assertEquals(values, snapshot.load(file));
+    Assert.assertFalse(Files.exists(dir.resolve("sub").resolve("test.dat.tmp")));
+  }
+
+  @Test
+  public void testContextMismatch() {
+    ResourceSnapshot<String> snapshot = create();
+    Path file = dir.resolve("test.dat");
+    snapshot.save(file, Collections.singletonMap("a", "b"));
+    context = "game2";
+    Assert.assertTrue(snapshot.load(file).isEmpty());
+  }
+
+  @Test
+  public void testMissingOrCorruptFile() throws IOException {
+    ResourceSnapshot<String> snapshot = create();
+    Path file = dir.resolve("test.dat");
+    Assert.assertTrue(snapshot.load(file).isEmpty());
+    try (OutputStream os = Files.newOutputStream(file)) {
+      os.write(new byte[] {1, 2, 3, 4});
+    }
+    Assert.assertTrue(snapshot.load(file).isEmpty());
+  }
+
+  @Test
+  public void testSaveLaterMergesRequests() throws InterruptedException {
+    ResourceSnapshot<String> snapshot = create();
+    Path file = dir.resolve("test.dat");
+    AtomicInteger count = new AtomicInteger();
+    CountDownLatch blocked = new CountDownLatch(1);
+    snapshot.execute(() -> {
+      try {
+        blocked.await();
+      } catch (InterruptedException e) {
+      }
+    });
+    for (int i = 0; i < 50; i++) {
+      snapshot.saveLater(file, () -> {
+        count.incrementAndGet();
+        return Collections.singletonMap("a", "b");
+      });
+    }
+    blocked.countDown();
+    CountDownLatch done = new CountDownLatch(1);
+    snapshot.execute(done::countDown);
+    Assert.assertTrue(done.await(10, TimeUnit.SECONDS));
+    Assert.assertEquals(1, count.get());
+    Assert.assertEquals("b", snapshot.load(file).get("a"));
+  }
+}
@@ -0,0 +1,182 @@
+package org.infinity.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class StringTableTest {
+  private static final String[] STRINGS = { "First string", "Second string", "Shared string", null, "Last" };
+
+  private Path dir;
+  private Path tlkFile;
+
+  @Before
+  public void setUp() throws IOException {
+    dir = Files.createTempDirectory("tlk");
+    tlkFile = dir.resolve("dialog.tlk");
+    Files.write(tlkFile, createTlk());
+    CharsetDetector.setLookup(new CharsetDetector.CharLookup());
+    open(tlkFile);
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    StringTable.resetAll();
+    CharsetDetector.clearCache();
+    Files.walk(dir).sorted((a, b) -> b.compareTo(a)).forEach(p -> p.toFile().delete());
+  }
+
+  private static void open(Path file) {
+    StringTable.resetAll();
+    StringTable.open(StringTable.Type.MALE, file, StandardCharsets.UTF_8);
+  }
+
+  // Entry 3 refers to the string data of entry 2
+  private static byte[] createTlk() {
+    int ofsStrings = 18 + STRINGS.length * 26;
+    ByteBuffer bb = ByteBuffer.allocate(ofsStrings + 256).order(ByteOrder.LITTLE_ENDIAN);
+    bb.put("TLK V1  ".getBytes(StandardCharsets.US_ASCII)).putShort((short)0);
+    bb.putInt(STRINGS.length).putInt(ofsStrings);
+    int ofs = 0, sharedOfs = 0;
+    for (int i = 0; i < STRINGS.length; i++) {
+      String s = (STRINGS[i] != null) ? STRINGS[i] : STRINGS[i - 1];
+      if (STRINGS[i] != null) {
+        sharedOfs = ofs;
+      }
+      bb.putShort(StringTable.FLAGS_HAS_TEXT).put(new byte[8]).putInt(0).putInt(0);
+      bb.putInt(sharedOfs).putInt(s.length());
+      if (STRINGS[i] != null) {
+        put(bb, ofsStrings + ofs, s.getBytes(StandardCharsets.US_ASCII));
+        ofs += s.length();
+      }
+    }
+    byte[] data = new byte[ofsStrings + ofs];
+    bb.position(0);
+    bb.get(data);
+    return data;
+  }
+
+  private static void put(ByteBuffer bb, int pos, byte[] data) {
+    for (int i = 0; i < data.length; i++) {
+      bb.put(pos + i, data[i]);
+    }
+  }
+
+  private static String[] expected(String... changes) {
+    String[] retVal = new String[STRINGS.length];
+    for (int i = 0; i < retVal.length; i++) {
+      retVal[i] = (STRINGS[i] != null) ? STRINGS[i] : STRINGS[i - 1];
+    }
+    for (int i = 0; i + 1 < changes.length; i += 2) {
+      retVal[Integer.parseInt(changes[i])] = changes[i + 1];
+    }
+    return retVal;
+  }
+
+  // Reads all strings from the TLK file again
+  private static void assertStrings(Path file, String[] expected) {
+    open(file);
+    Assert.assertEquals(expected.length, StringTable.getNumEntries());
+    for (int i = 0; i < expected.length; i++) {
+      Assert.assertEquals(expected[i], StringTable.getStringRef(i));
+    }
+  }
+
+  private void assertNoBackup() throws IOException {
+    Assert.assertEquals(1L, Files.list(dir).count());
+  }
+
+  @Test
+  public void testDeltaWrite() throws IOException {
+    long size = Files.size(tlkFile);
+    StringTable.setStringRef(StringTable.Type.MALE, 1, "Changed");
+    StringTable.setSoundResource(StringTable.Type.MALE, 4, "SOUND1");
+    Assert.assertTrue(StringTable.writeModified(StringTable.Type.MALE, null));
+    Assert.assertFalse(StringTable.isModified(StringTable.Type.MALE));
+
+    // strings are patched in place
+    Assert.assertEquals(size, Files.size(tlkFile));
+    assertNoBackup();
+    assertStrings(tlkFile, expected("1", "Changed"));
+    Assert.assertEquals("SOUND1", StringTable.getSoundResource(4));
+  }
+
+  @Test
+  public void testDeltaWriteCancelled() throws IOException {
+    byte[] data = Files.readAllBytes(tlkFile);
+    StringTable.setStringRef(StringTable.Type.MALE, 0, "Changed");
+    StringTable.setStringRef(StringTable.Type.MALE, 1, "Changed");
+    // cancelled after the first string has been patched
+    StringTable.ProgressCallback callback = new StringTable.ProgressCallback() {
+      @Override
+      public void init(int numEntries) {}
+
+      @Override
+      public boolean progress(int index) { return index < 1; }
+    };
+    StringTable.writeModified(StringTable.Type.MALE, callback);
+    Assert.assertTrue(StringTable.isModified(StringTable.Type.MALE));
+    Assert.assertTrue(StringTable.getStringEntry(StringTable.Type.MALE, 0).isModified());
+
+    // original file is restored
+    Assert.assertArrayEquals(data, Files.readAllBytes(tlkFile));
+    assertNoBackup();
+    Assert.assertTrue(StringTable.writeModified(StringTable.Type.MALE, null));
+    assertStrings(tlkFile, expected("0", "Changed", "1", "Changed"));
+  }
+
+  @Test
+  public void testSharedStringFallback() throws IOException {
+    long size = Files.size(tlkFile);
+    StringTable.setStringRef(StringTable.Type.MALE, 2, "Shared");
+    Assert.assertTrue(StringTable.writeModified(StringTable.Type.MALE, null));
+    Assert.assertFalse(StringTable.isModified(StringTable.Type.MALE));
+
+    // shared string data can't be patched, the whole table is written instead
+    Assert.assertNotEquals(size, Files.size(tlkFile));
+    assertNoBackup();
+    assertStrings(tlkFile, expected("2", "Shared"));
+  }
+
+  @Test
+  public void testImportTra() throws IOException {
+    Path traFile = dir.resolve("import.tra");
+    Files.write(traFile, "@0 = ~Imported~\n@1 = Invalid".getBytes(StandardCharsets.UTF_8));
+    Assert.assertFalse(StringTable.importTra(traFile, true, null));
+    // string table is unchanged if the file can't be parsed completely
+    Assert.assertFalse(StringTable.isModified(StringTable.Type.MALE));
+    Assert.assertEquals(STRINGS.length, StringTable.getNumEntries());
+    Assert.assertEquals(STRINGS[0], StringTable.getStringRef(0));
+
+    Files.write(traFile, "@0 = ~Imported~\n@6 = ~New~ [SOUND1]".getBytes(StandardCharsets.UTF_8));
+    Assert.assertTrue(StringTable.importTra(traFile, false, null));
+    Assert.assertEquals(STRINGS.length + 2, StringTable.getNumEntries());
+    Assert.assertEquals("Imported", StringTable.getStringRef(0));
+    Assert.assertEquals(STRINGS[1], StringTable.getStringRef(1));
+    Assert.assertEquals("", StringTable.getStringRef(5));
+    Assert.assertEquals("New", StringTable.getStringRef(6));
+    Assert.assertEquals("SOUND1", StringTable.getSoundResource(6));
+    Files.delete(traFile);
+  }
+
+  @Test
+  public void testWriteUnloaded() throws IOException {
+    // no strings have been loaded before writing
+    Assert.assertTrue(StringTable.write(StringTable.Type.MALE, null));
+    assertNoBackup();
+    assertStrings(tlkFile, expected());
+
+    Path outFile = dir.resolve("copy.tlk");
+    open(tlkFile);
+    Assert.assertTrue(StringTable.write(StringTable.Type.MALE, outFile, null));
+    assertStrings(outFile, expected());
+  }
+}
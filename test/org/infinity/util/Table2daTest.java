@@ -0,0 +1,50 @@
+package org.infinity.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class Table2daTest {
+  private static final String TEXT =
+      "2DA V1.0\r\n" +
+      "****\r\n" +
+      "        RESREF    STRREF  SAVE_DIR\r\n" +
+      "AR0100  AR0100    1234    bgii\r\n" +
+      "\r\n" +
+      "  AR0200\tAR0200  5678\r\n" +
+      "ar0100  DUPLICATE 0       x\r\n";
+
+  @Test
+  public void testParse() {
+    Table2da table = new Table2da(null, TEXT);
+    Assert.assertFalse(table.isEmpty());
+    Assert.assertEquals(3, table.getRowCount());
+    Assert.assertEquals(4, table.getColCount());
+    Assert.assertEquals("", table.getHeader(0));
+    Assert.assertEquals("STRREF", table.getHeader(2));
+    Assert.assertNull(table.getHeader(4));
+    Assert.assertEquals("AR0200", table.get(1, 0));
+    Assert.assertEquals("5678", table.get(1, 2));
+    Assert.assertEquals("****", table.get(1, 3));     // padded with default value
+    Assert.assertEquals("****", table.get(5, 0));     // out of range
+    Assert.assertEquals("****", table.getDefaultValue());
+  }
+
+  @Test
+  public void testIndex() {
+    Table2da table = new Table2da(null, TEXT);
+    Assert.assertEquals(0, table.findRow("ar0100"));   // first match
+    Assert.assertEquals(1, table.findRow("AR0200"));
+    Assert.assertEquals(-1, table.findRow("AR0300"));
+    Assert.assertEquals(3, table.findColumn("save_dir"));
+    Assert.assertEquals(-1, table.findColumn(""));
+    Assert.assertEquals("5678", table.get("ar0200", "STRREF"));
+    Assert.assertEquals("****", table.get("AR0300", "STRREF"));
+  }
+
+  @Test
+  public void testInvalid() {
+    Assert.assertTrue(new Table2da(null, "").isEmpty());
+    Assert.assertTrue(new Table2da(null, "2DA V1.0\n0\n\n\n").isEmpty());
+    Assert.assertEquals("0", new Table2da(null, "2DA V1.0\n\nA B\nX 1\n").getDefaultValue());
+  }
+}
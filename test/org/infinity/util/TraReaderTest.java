@@ -0,0 +1,69 @@
+package org.infinity.util;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TraReaderTest {
+  @Test
+  public void testDefinitions() throws IOException {
+    String text =
+        "// header comment\r\n" +
+        "@0    = ~Plain~\r\n" +
+        "@1    = \"Tilde ~ inside\" [SND01]\r\n" +
+        "/* block\r\n comment @2 = ~x~ */\r\n" +
+        "@2    = ~~~~~Both ~ and \"~~~~~ [ SND02 ] ~Female~ [SND03]\r\n" +
+        "@3 = ~Line 1\r\nLine 2~ %Female 2%\r\n" +
+        "@-1 = ~Negative~\r\n" +
+        "@4=~~\r\n";
+    try (TraReader reader = new TraReader(new StringReader(text))) {
+      TraReader.Entry e = reader.next();
+      Assert.assertEquals(0, e.getIndex());
+      Assert.assertEquals(2, e.getLineNumber());
+      Assert.assertEquals("Plain", e.getText());
+      Assert.assertEquals("", e.getSound());
+      Assert.assertNull(e.getFemaleText());
+
+      e = reader.next();
+      Assert.assertEquals("Tilde ~ inside", e.getText());
+      Assert.assertEquals("SND01", e.getSound());
+
+      e = reader.next();
+      Assert.assertEquals(2, e.getIndex());
+      Assert.assertEquals("Both ~ and \"", e.getText());
+      Assert.assertEquals("SND02", e.getSound());
+      Assert.assertEquals("Female", e.getFemaleText());
+      Assert.assertEquals("SND03", e.getFemaleSound());
+
+      e = reader.next();
+      Assert.assertEquals("Line 1\nLine 2", e.getText());
+      Assert.assertEquals("Female 2", e.getFemaleText());
+      Assert.assertEquals("", e.getFemaleSound());
+
+      e = reader.next();
+      Assert.assertEquals(-1, e.getIndex());
+
+      e = reader.next();
+      Assert.assertEquals(4, e.getIndex());
+      Assert.assertEquals("", e.getText());
+
+      Assert.assertNull(reader.next());
+      Assert.assertEquals(text.length(), reader.getPosition());
+    }
+  }
+
+  @Test
+  public void testErrors() {
+    String[] invalid = { "@1 ~x~", "@ = ~x~", "@1 = ~unterminated", "@1 = x", "1 = ~x~", "@1 = ~x~ [SND", "/* open" };
+    for (final String text: invalid) {
+      try (TraReader reader = new TraReader(new StringReader(text))) {
+        reader.next();
+        Assert.fail("Error expected: " + text);
+      } catch (IOException e) {
+        Assert.assertTrue(e.getMessage().startsWith("Line 1: "));
+      }
+    }
+  }
+}
@@ -0,0 +1,79 @@
+package org.infinity.util.io;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DirectoryScannerTest {
+  private Path root;
+
+  @Before
+  public void setUp() throws IOException {
+    root = Files.createTempDirectory("scan");
+    Files.createDirectories(root.resolve("a/sub1/deep"));
+    Files.createDirectories(root.resolve("a/empty"));
+    Files.createDirectories(root.resolve("b"));
+    for (int i = 0; i < 50; i++) {
+      Files.createFile(root.resolve("a/file" + i + ".bcs"));
+    }
+    Files.createFile(root.resolve("a/sub1/x.itm"));
+    Files.createFile(root.resolve("a/sub1/deep/y.spl"));
+    Files.createFile(root.resolve("b/z.cre"));
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    Files.walk(root).sorted(Collections.reverseOrder()).forEach(p -> p.toFile().delete());
+  }
+
+  @Test
+  public void testRecursive() throws InterruptedException {
+    List<DirectoryScanner.Directory> dirs =
+        DirectoryScanner.scan(Arrays.asList(root.resolve("b"), root.resolve("a")), true);
+    Assert.assertEquals(2, dirs.size());
+    Assert.assertEquals("b", dirs.get(0).getName());
+    Assert.assertEquals(1, dirs.get(0).getFiles().size());
+
+    DirectoryScanner.Directory a = dirs.get(1);
+    Assert.assertEquals(50, a.getFiles().size());
+    Set<String> names = new TreeSet<>();
+    a.getDirectories().forEach(d -> names.add(d.getName()));
+    Assert.assertEquals(new TreeSet<>(Arrays.asList("empty", "sub1")), names);
+    for (final DirectoryScanner.Directory d: a.getDirectories()) {
+      if (d.getName().equals("empty")) {
+        Assert.assertTrue(d.isEmpty());
+      } else {
+        Assert.assertEquals(1, d.getFiles().size());
+        Assert.assertEquals(1, d.getDirectories().size());
+        Assert.assertEquals("y.spl", d.getDirectories().get(0).getFiles().get(0).getFileName().toString());
+      }
+    }
+  }
+
+  @Test
+  public void testNonRecursive() throws InterruptedException {
+    List<DirectoryScanner.Directory> dirs = DirectoryScanner.scan(Collections.singletonList(root.resolve("a")), false);
+    DirectoryScanner.Directory a = dirs.get(0);
+    Assert.assertEquals(2, a.getDirectories().size());
+    for (final DirectoryScanner.Directory d: a.getDirectories()) {
+      Assert.assertTrue(d.isEmpty());
+      Assert.assertTrue(d.getFiles().isEmpty());
+    }
+  }
+
+  @Test
+  public void testMissingDirectory() throws InterruptedException {
+    List<DirectoryScanner.Directory> dirs = DirectoryScanner.scan(Collections.singletonList(root.resolve("none")), true);
+    Assert.assertTrue(dirs.get(0).isEmpty());
+  }
+}
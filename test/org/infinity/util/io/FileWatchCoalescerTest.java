@@ -0,0 +1,78 @@
+package org.infinity.util.io;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import org.infinity.util.io.FileWatcher.FileWatchEvent;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class FileWatchCoalescerTest {
+  private static final Path A = Paths.get("override", "a.itm");
+  private static final Path B = Paths.get("override", "b.spl");
+
+  @Test
+  public void testMerge() {
+    Assert.assertSame(ENTRY_CREATE, FileWatchCoalescer.merge(null, ENTRY_CREATE));
+    Assert.assertNull(FileWatchCoalescer.merge(ENTRY_CREATE, ENTRY_DELETE));
+    Assert.assertSame(ENTRY_CREATE, FileWatchCoalescer.merge(ENTRY_CREATE, ENTRY_MODIFY));
+    Assert.assertSame(ENTRY_MODIFY, FileWatchCoalescer.merge(ENTRY_DELETE, ENTRY_CREATE));
+    Assert.assertSame(ENTRY_DELETE, FileWatchCoalescer.merge(ENTRY_DELETE, ENTRY_DELETE));
+    Assert.assertSame(ENTRY_DELETE, FileWatchCoalescer.merge(ENTRY_MODIFY, ENTRY_DELETE));
+    Assert.assertSame(ENTRY_MODIFY, FileWatchCoalescer.merge(ENTRY_MODIFY, ENTRY_MODIFY));
+  }
+
+  @Test
+  public void testSequences() {
+    FileWatchCoalescer c = new FileWatchCoalescer(this);
+    c.add(A, ENTRY_CREATE);
+    c.add(B, ENTRY_DELETE);
+    for (int i = 0; i < 100; i++) {
+      c.add(A, ENTRY_MODIFY);
+    }
+    c.add(B, ENTRY_CREATE);
+    Assert.assertEquals(2, c.size());
+
+    List<FileWatchEvent> events = c.drain();
+    Assert.assertTrue(c.isEmpty());
+    Assert.assertEquals(2, events.size());
+    Assert.assertEquals(A, events.get(0).getPath());
+    Assert.assertSame(ENTRY_CREATE, events.get(0).getKind());
+    Assert.assertEquals(B, events.get(1).getPath());
+    Assert.assertSame(ENTRY_MODIFY, events.get(1).getKind());
+    Assert.assertSame(this, events.get(1).getSource());
+  }
+
+  @Test
+  public void testCancelled() {
+    FileWatchCoalescer c = new FileWatchCoalescer(this);
+    c.add(A, ENTRY_CREATE);
+    c.add(A, ENTRY_MODIFY);
+    c.add(A, ENTRY_DELETE);
+    Assert.assertTrue(c.isEmpty());
+    Assert.assertTrue(c.drain().isEmpty());
+
+    // created again after being cancelled out
+    c.add(A, ENTRY_CREATE);
+    Assert.assertSame(ENTRY_CREATE, c.drain().get(0).getKind());
+  }
+
+  @Test
+  public void testOverflow() {
+    FileWatchCoalescer c = new FileWatchCoalescer(this);
+    c.add(A, ENTRY_DELETE);
+    c.add(null, OVERFLOW);
+    c.add(null, OVERFLOW);
+    List<FileWatchEvent> events = c.drain();
+    Assert.assertEquals(2, events.size());
+    Assert.assertSame(OVERFLOW, events.get(0).getKind());
+    Assert.assertNull(events.get(0).getPath());
+    Assert.assertSame(ENTRY_DELETE, events.get(1).getKind());
+  }
+}